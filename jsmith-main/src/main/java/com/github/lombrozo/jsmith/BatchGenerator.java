@@ -73,15 +73,13 @@ public class BatchGenerator {
         int failCount = 0;
         long totalSize = 0;
         
+        // 整个批次共用一个会话，语法和格式化器只创建一次
+        GeneratorSession session = new GeneratorSession();
         for (int i = 0; i < count; i++) {
             try {
-                // 使用不同的种子生成不同的代码
+                // 使用不同的种子生成不同的代码，会话已经完成格式化
                 long currentSeed = baseSeed + i;
-                RandomJavaClass clazz = new RandomJavaClass(currentSeed);
-                String rawCode = clazz.src();
-
-                // 格式化代码
-                String code = CodeFormatter.format(rawCode);
+                String code = session.next(currentSeed);
                 
                 // 提取类名
                 String className = extractClassName(code);
@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023-2025 Volodya Lombrozo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.lombrozo.jsmith;
+
+import com.github.lombrozo.jsmith.antlr.AntlrListener;
+import com.github.lombrozo.jsmith.antlr.Context;
+import com.github.lombrozo.jsmith.antlr.Generation;
+import com.github.lombrozo.jsmith.antlr.Unlexer;
+import com.github.lombrozo.jsmith.antlr.Unparser;
+import com.github.lombrozo.jsmith.antlr.rules.WrongPathException;
+import com.github.lombrozo.jsmith.antlr.view.Node;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.cactoos.io.ResourceOf;
+import org.cactoos.text.TextOf;
+import org.cactoos.text.UncheckedText;
+
+/**
+ * Compiled grammar.
+ * The rule model of ANTLR grammars, built once and shared between all generations and threads.
+ * Rules of the model don't change after compilation: references between parser rules are
+ * resolved to the rules themselves, while the random streams and the generated identifiers
+ * of each generation are kept by {@link Generation}.
+ * @since 0.1
+ */
+public final class CompiledGrammar {
+
+    /**
+     * Compiled grammars by the hash of their text.
+     */
+    private static final Map<String, CompiledGrammar> COMPILED = new ConcurrentHashMap<>(0);
+
+    /**
+     * Compiled grammars by the names of their resources.
+     */
+    private static final Map<List<String>, CompiledGrammar> RESOURCES =
+        new ConcurrentHashMap<>(0);
+
+    /**
+     * ANTLR grammars.
+     */
+    private final List<String> grammars;
+
+    /**
+     * Linked parser rules.
+     */
+    private final Unparser unparser;
+
+    /**
+     * Constructor.
+     * @param grammars ANTLR grammars.
+     * @param unparser Linked parser rules.
+     */
+    private CompiledGrammar(final List<String> grammars, final Unparser unparser) {
+        this.grammars = Collections.unmodifiableList(grammars);
+        this.unparser = unparser;
+    }
+
+    /**
+     * Compiled grammars.
+     * Grammars with the same text are compiled only once.
+     * @param grammars ANTLR grammars, either standalone or separate lexer and parser grammars.
+     * @return Compiled grammar.
+     */
+    public static CompiledGrammar of(final List<String> grammars) {
+        return CompiledGrammar.COMPILED.computeIfAbsent(
+            CompiledGrammar.hash(grammars),
+            hash -> CompiledGrammar.compile(grammars, new Unlexer(), new Unparser())
+        );
+    }
+
+    /**
+     * Compiled grammars from classpath resources.
+     * Resources are read only once.
+     * @param names Resource names of ANTLR grammars.
+     * @return Compiled grammar.
+     */
+    public static CompiledGrammar resources(final String... names) {
+        return CompiledGrammar.RESOURCES.computeIfAbsent(
+            Arrays.asList(names),
+            list -> CompiledGrammar.of(
+                list.stream()
+                    .map(ResourceOf::new)
+                    .map(TextOf::new)
+                    .map(UncheckedText::new)
+                    .map(UncheckedText::asString)
+                    .collect(Collectors.toList())
+            )
+        );
+    }
+
+    /**
+     * Compile grammars into the given rule model.
+     * @param grammars ANTLR grammars.
+     * @param unlexer Unlexer to fill with lexer rules.
+     * @param unparser Unparser to fill with parser rules.
+     * @return Compiled grammar.
+     */
+    static CompiledGrammar compile(
+        final List<String> grammars,
+        final Unlexer unlexer,
+        final Unparser unparser
+    ) {
+        for (final String grammar : grammars) {
+            final ANTLRv4Lexer lexer = new ANTLRv4Lexer(CharStreams.fromString(grammar));
+            final CommonTokenStream tokens = new CommonTokenStream(lexer);
+            final ANTLRv4Parser parser = new ANTLRv4Parser(tokens);
+            new ParseTreeWalker().walk(
+                new AntlrListener(tokens, unparser, unlexer, Generation.stream()),
+                parser.grammarSpec()
+            );
+        }
+        return new CompiledGrammar(grammars, unparser.link());
+    }
+
+    /**
+     * ANTLR grammars of the model.
+     * @return ANTLR grammars.
+     */
+    public List<String> grammars() {
+        return this.grammars;
+    }
+
+    /**
+     * Generate the rule within a generation.
+     * @param rule Starting rule.
+     * @param context Context of the generation.
+     * @return Generated node.
+     * @throws WrongPathException If generation went the wrong way.
+     */
+    public Node generate(final String rule, final Context context) throws WrongPathException {
+        return this.unparser.generate(rule, context);
+    }
+
+    /**
+     * Hash of grammar texts.
+     * @param grammars ANTLR grammars.
+     * @return SHA-256 hash of the grammars in hex.
+     */
+    private static String hash(final List<String> grammars) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (final String grammar : grammars) {
+                final byte[] bytes = grammar.getBytes(StandardCharsets.UTF_8);
+                digest.update(String.format("%d:", bytes.length).getBytes(StandardCharsets.UTF_8));
+                digest.update(bytes);
+            }
+            final StringBuilder hex = new StringBuilder(64);
+            for (final byte part : digest.digest()) {
+                hex.append(String.format("%02x", part));
+            }
+            return hex.toString();
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023-2025 Volodya Lombrozo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.lombrozo.jsmith;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.text.edits.TextEdit;
+
+/**
+ * Generator session.
+ * Long-lived generator of random Java classes. The session owns the compiled grammar,
+ * a single Eclipse JDT formatter and its options, so generating thousands of programs
+ * doesn't rebuild any of them. A session isn't thread-safe, because the JDT formatter
+ * isn't: use one session per thread.
+ * @since 0.1
+ */
+public final class GeneratorSession {
+
+    /**
+     * Compiled grammar.
+     */
+    private final CompiledGrammar grammar;
+
+    /**
+     * Start rule.
+     */
+    private final String rule;
+
+    /**
+     * Formatting options of the JDT formatter.
+     */
+    private final Map<String, String> options;
+
+    /**
+     * JDT formatter.
+     */
+    private final org.eclipse.jdt.core.formatter.CodeFormatter formatter;
+
+    /**
+     * Document the formatting edits are applied to.
+     */
+    private final IDocument document;
+
+    /**
+     * Default constructor.
+     * Generates Java classes with the reduced Java 8 grammar and default formatting options.
+     */
+    public GeneratorSession() {
+        this(
+            "grammars/Java8ReducedParser.g4",
+            "grammars/Java8ReducedLexer.g4",
+            "compilationUnit"
+        );
+    }
+
+    /**
+     * Constructor.
+     * @param parser Parser grammar resource.
+     * @param lexer Lexer grammar resource.
+     * @param rule Start rule.
+     */
+    public GeneratorSession(final String parser, final String lexer, final String rule) {
+        this(CompiledGrammar.resources(parser, lexer), rule, new HashMap<>(0));
+    }
+
+    /**
+     * Constructor.
+     * @param grammar Compiled grammar.
+     * @param rule Start rule.
+     * @param options Formatting options of the JDT formatter.
+     */
+    public GeneratorSession(
+        final CompiledGrammar grammar,
+        final String rule,
+        final Map<String, String> options
+    ) {
+        this.grammar = grammar;
+        this.rule = rule;
+        this.options = options;
+        this.formatter = ToolFactory.createCodeFormatter(options);
+        this.document = new Document();
+    }
+
+    /**
+     * Next program of the session.
+     * The program is laid out by the JDT formatter and then prepared for the slicing tools
+     * by {@link CodeFormatter}, so callers don't need to format it again.
+     * @param seed Seed of the program.
+     * @return Formatted source code of the program.
+     */
+    public String next(final long seed) {
+        return CodeFormatter.format(this.src(new Params(seed)));
+    }
+
+    /**
+     * Source code of the random class laid out by the JDT formatter.
+     * @param params Generation params.
+     * @return Source code of the class.
+     */
+    public String src(final Params params) {
+        final String output = new RandomScript(params, this.grammar)
+            .generate(this.rule)
+            .output();
+        if (this.formatter == null) {
+            throw new IllegalStateException(
+                String.format("JDT code formatter isn't available for options %s", this.options)
+            );
+        }
+        try {
+            final TextEdit format = this.formatter.format(
+                org.eclipse.jdt.core.formatter.CodeFormatter.K_COMPILATION_UNIT,
+                output,
+                0,
+                output.length(),
+                0,
+                System.lineSeparator()
+            );
+            final String result;
+            if (format != null) {
+                this.document.set(output);
+                format.apply(this.document);
+                result = this.document.get();
+            } else {
+                result = output;
+            }
+            return result;
+        } catch (final BadLocationException exception) {
+            throw new IllegalStateException(
+                String.format("Failed to format source code %n%s%n", output), exception
+            );
+        }
+    }
+}
@@ -23,15 +23,6 @@
  */
 package com.github.lombrozo.jsmith;
 
-import java.util.HashMap;
-import org.cactoos.io.ResourceOf;
-import org.eclipse.jdt.core.ToolFactory;
-import org.eclipse.jdt.core.formatter.CodeFormatter;
-import org.eclipse.jface.text.BadLocationException;
-import org.eclipse.jface.text.Document;
-import org.eclipse.jface.text.IDocument;
-import org.eclipse.text.edits.TextEdit;
-
 /**
  * Random Java class.
  * @since 0.1
@@ -122,36 +113,10 @@ public final class RandomJavaClass {
 
     /**
      * Source code of the class.
+     * Use {@link GeneratorSession} to generate many classes with one formatter.
      * @return Source code of the class.
      */
     public String src() {
-        final String output = new RandomScript(
-            this.params,
-            new ResourceOf(this.parser),
-            new ResourceOf(this.lexer)
-        ).generate(this.rule).output();
-        try {
-            final CodeFormatter formatter = ToolFactory.createCodeFormatter(new HashMap(0));
-            final TextEdit format = formatter.format(
-                CodeFormatter.K_COMPILATION_UNIT, output,
-                0,
-                output.length(),
-                0,
-                System.lineSeparator()
-            );
-            final IDocument document = new Document(output);
-            final String result;
-            if (format != null) {
-                format.apply(document);
-                result = document.get();
-            } else {
-                result = output;
-            }
-            return result;
-        } catch (final BadLocationException exception) {
-            throw new IllegalStateException(
-                String.format("Failed to format source code %n%s%n", output), exception
-            );
-        }
+        return new GeneratorSession(this.parser, this.lexer, this.rule).src(this.params);
     }
 }
@@ -23,8 +23,8 @@
  */
 package com.github.lombrozo.jsmith;
 
-import com.github.lombrozo.jsmith.antlr.AntlrListener;
 import com.github.lombrozo.jsmith.antlr.Context;
+import com.github.lombrozo.jsmith.antlr.Generation;
 import com.github.lombrozo.jsmith.antlr.Unlexer;
 import com.github.lombrozo.jsmith.antlr.Unparser;
 import com.github.lombrozo.jsmith.antlr.rules.WrongPathException;
@@ -37,8 +37,10 @@ import java.util.List;
 import java.util.stream.Collectors;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.cactoos.Input;
+import org.cactoos.Scalar;
+import org.cactoos.scalar.Solid;
+import org.cactoos.scalar.Unchecked;
 import org.cactoos.text.TextOf;
 import org.cactoos.text.UncheckedText;
 
@@ -58,14 +60,9 @@ public final class RandomScript {
     private final List<String> grammars;
 
     /**
-     * Unlexer instance.
+     * Compiled rule model of the grammars.
      */
-    private final Unlexer unlexer;
-
-    /**
-     * Unparser instance.
-     */
-    private final Unparser unparser;
+    private final Unchecked<CompiledGrammar> model;
 
     /**
      * Params.
@@ -99,14 +96,25 @@ public final class RandomScript {
     /**
      * Constructor.
      * @param params Generation params.
+     * @param grammar Compiled grammar.
+     */
+    public RandomScript(final Params params, final CompiledGrammar grammar) {
+        this(grammar.grammars(), () -> grammar, params);
+    }
+
+    /**
+     * Constructor.
+     * The rule model is compiled once and shared with all scripts of the same grammars.
+     * @param params Generation params.
      * @param grammars ANTLR grammars, either standalone or separate lexer and parser grammars.
      */
     private RandomScript(final Params params, final List<String> grammars) {
-        this(grammars, new Unlexer(), new Unparser(), params);
+        this(grammars, () -> CompiledGrammar.of(grammars), params);
     }
 
     /**
      * Constructor.
+     * The rule model is compiled into the given unlexer and unparser on the first generation.
      * @param grammars ANTLR grammars, either standalone or separate lexer and parser grammars.
      * @param unlexer Unlexer instance.
      * @param unparser Unparser instance.
@@ -118,10 +126,23 @@ public final class RandomScript {
         final Unlexer unlexer,
         final Unparser unparser,
         final Params params
+    ) {
+        this(grammars, () -> CompiledGrammar.compile(grammars, unlexer, unparser), params);
+    }
+
+    /**
+     * Constructor.
+     * @param grammars ANTLR grammars.
+     * @param model Compiled rule model of the grammars.
+     * @param params Generation params.
+     */
+    private RandomScript(
+        final List<String> grammars,
+        final Scalar<CompiledGrammar> model,
+        final Params params
     ) {
         this.grammars = grammars;
-        this.unlexer = unlexer;
-        this.unparser = unparser;
+        this.model = new Unchecked<>(new Solid<>(model));
         this.params = params;
     }
 
@@ -131,10 +152,11 @@ public final class RandomScript {
      * @return Random script text.
      */
     public Text generate(final String rule) {
+        final CompiledGrammar grammar = this.model.value();
+        final Generation generation = Generation.start(this.params.seed());
         try {
             final Scope scope = new Scope(new Rand(this.params.seed()));
-            this.grammars.forEach(this::parse);
-            return this.unparser.generate(
+            return grammar.generate(
                 rule, new Context(scope, new ConvergenceStrategy(this.params))
             ).text();
         } catch (final WrongPathException exception) {
@@ -147,6 +169,8 @@ public final class RandomScript {
                     exception
                 )
             );
+        } finally {
+            generation.close();
         }
     }
 
@@ -161,25 +185,6 @@ public final class RandomScript {
             .collect(Collectors.joining("\n"));
     }
 
-    /**
-     * Parse ANTLR grammar.
-     * @param grammar ANTLR grammar.
-     */
-    private void parse(final String grammar) {
-        final ANTLRv4Lexer lexer = new ANTLRv4Lexer(CharStreams.fromString(grammar));
-        final CommonTokenStream tokens = new CommonTokenStream(lexer);
-        final ANTLRv4Parser parser = new ANTLRv4Parser(tokens);
-        final ANTLRv4Parser.GrammarSpecContext spec = parser.grammarSpec();
-        final ParseTreeWalker walker = new ParseTreeWalker();
-        final AntlrListener listener = new AntlrListener(
-            tokens,
-            this.unparser,
-            this.unlexer,
-            new Rand(this.params.seed())
-        );
-        walker.walk(listener, spec);
-    }
-
     /**
      * Create ANTLR parser.
      * @param grammar Antlr grammar.
@@ -311,7 +311,9 @@ public final class AntlrListener extends ANTLRv4ParserBaseListener {
 
     @Override
     public void enterRuleref(final ANTLRv4Parser.RulerefContext ctx) {
-        this.down(new Ruleref(this.current, ctx.getText(), this.unparser));
+        this.down(
+            this.unparser.reference(new Ruleref(this.current, ctx.getText(), this.unparser))
+        );
         super.enterRuleref(ctx);
     }
 
@@ -28,10 +28,7 @@ import com.github.lombrozo.jsmith.antlr.semantic.Scope;
 import com.github.lombrozo.jsmith.random.ChoosingStrategy;
 import com.github.lombrozo.jsmith.random.ConvergenceStrategy;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Context of the generation.
@@ -48,7 +45,7 @@ public final class Context {
     /**
      * Path of the rules that were visited during the generation.
      */
-    private final List<Rule> visited;
+    private final RulePath visited;
 
     /**
      * Current scope.
@@ -112,6 +109,23 @@ public final class Context {
         final List<Rule> visited,
         final Scope scope,
         final Attributes attributes
+    ) {
+        this(strat, RulePath.of(visited), scope, attributes);
+    }
+
+    /**
+     * Constructor.
+     * @param strat The strategy used in the generation.
+     * @param visited The path of the rules that were visited during the generation.
+     * @param scope The scope.
+     * @param attributes The labels.
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Context(
+        final ChoosingStrategy strat,
+        final RulePath visited,
+        final Scope scope,
+        final Attributes attributes
     ) {
         this.strat = strat;
         this.visited = visited;
@@ -140,19 +154,12 @@ public final class Context {
      * Returns the next context with the rule added to the path.
      * Pay attention that each time when we proceed to the next rule, we create a new context.
      * The new context contains the copy of the {@link ChoosingStrategy} and the new path.
+     * Both are persistent, so the next context is created in constant time.
      * @param rule The rule to add to the path.
      * @return The next context with the rule added to the path.
      */
     public Context next(final Rule rule) {
-        return new Context(
-            this.strat.copy(),
-            Stream.concat(
-                this.visited.stream(),
-                Stream.of(rule)
-            ).collect(Collectors.toList()),
-            this.scope,
-            this.attrs
-        );
+        return new Context(this.strat.copy(), this.visited.with(rule), this.scope, this.attrs);
     }
 
     /**
@@ -197,6 +204,14 @@ public final class Context {
      * @return The path of the rules that were visited during the generation.
      */
     public List<Rule> path() {
-        return Collections.unmodifiableList(this.visited);
+        return this.visited.rules();
+    }
+
+    /**
+     * Returns the number of rules that were visited during the generation.
+     * @return The depth of the path.
+     */
+    public int depth() {
+        return this.visited.size();
     }
 }
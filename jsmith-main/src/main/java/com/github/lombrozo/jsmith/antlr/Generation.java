@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023-2025 Volodya Lombrozo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.lombrozo.jsmith.antlr;
+
+import com.github.lombrozo.jsmith.random.Rand;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generation in progress on the current thread.
+ * A compiled rule model is shared between generations and threads, so the rules don't keep
+ * any per-generation state. Instead, the random streams and the sets of generated identifiers
+ * of one generation live here, bound to the thread for the time of the generation.
+ * @since 0.1
+ */
+public final class Generation implements AutoCloseable {
+
+    /**
+     * Generation bound to the current thread.
+     */
+    private static final ThreadLocal<Generation> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Seed of the generation.
+     */
+    private final long seed;
+
+    /**
+     * Generation that was bound to the thread before this one.
+     */
+    private final Generation previous;
+
+    /**
+     * Random of each stream, created on the first draw.
+     */
+    private final Map<Object, Random> randoms;
+
+    /**
+     * Generated identifiers, by the set of the rule model they start from.
+     */
+    private final Map<Set<String>, Set<String>> identifiers;
+
+    /**
+     * Constructor.
+     * @param seed Seed of the generation.
+     * @param previous Generation that was bound to the thread before.
+     */
+    private Generation(final long seed, final Generation previous) {
+        this.seed = seed;
+        this.previous = previous;
+        this.randoms = new IdentityHashMap<>(0);
+        this.identifiers = new IdentityHashMap<>(0);
+    }
+
+    /**
+     * Start a generation on the current thread.
+     * @param seed Seed of the generation.
+     * @return Started generation, close it when the generation is over.
+     */
+    public static Generation start(final long seed) {
+        final Generation generation = new Generation(seed, Generation.CURRENT.get());
+        Generation.CURRENT.set(generation);
+        return generation;
+    }
+
+    /**
+     * Random generator of a new stream.
+     * Every generation draws from the stream as from a fresh random with the seed of the
+     * generation, exactly as a rule model built for the single generation would.
+     * @return Random generator bound to the current generation.
+     */
+    public static Rand stream() {
+        final Object stream = new Object();
+        return new Rand(() -> Generation.current().random(stream));
+    }
+
+    /**
+     * Identifiers generated so far by the current generation.
+     * @param initial Identifiers of the rule model, that are taken before the generation starts.
+     * @return Identifiers of the current generation, or initial ones outside of a generation.
+     */
+    public static Set<String> identifiers(final Set<String> initial) {
+        final Generation generation = Generation.CURRENT.get();
+        final Set<String> result;
+        if (generation == null) {
+            result = initial;
+        } else {
+            result = generation.identifiers.computeIfAbsent(initial, HashSet::new);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        if (Generation.CURRENT.get() != this) {
+            throw new IllegalStateException("Generation is closed out of order");
+        }
+        if (this.previous == null) {
+            Generation.CURRENT.remove();
+        } else {
+            Generation.CURRENT.set(this.previous);
+        }
+    }
+
+    /**
+     * Generation bound to the current thread.
+     * @return Current generation.
+     */
+    private static Generation current() {
+        final Generation generation = Generation.CURRENT.get();
+        if (generation == null) {
+            throw new IllegalStateException(
+                "Compiled grammar is used outside of a generation, start a generation first"
+            );
+        }
+        return generation;
+    }
+
+    /**
+     * Random of the stream.
+     * @param stream Stream.
+     * @return Random of the stream in this generation.
+     */
+    private Random random(final Object stream) {
+        return this.randoms.computeIfAbsent(stream, key -> new Random(this.seed));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023-2025 Volodya Lombrozo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.lombrozo.jsmith.antlr;
+
+import com.github.lombrozo.jsmith.antlr.rules.Rule;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Path of the visited rules.
+ * Persistent list: adding a rule creates a new path that shares all the previous rules,
+ * so descending to the next rule takes constant time whatever the depth is.
+ * @since 0.1
+ */
+final class RulePath {
+
+    /**
+     * Empty path.
+     */
+    private static final RulePath EMPTY = new RulePath(null, null, 0);
+
+    /**
+     * Previous path.
+     */
+    private final RulePath previous;
+
+    /**
+     * Last visited rule.
+     */
+    private final Rule last;
+
+    /**
+     * Number of rules in the path.
+     */
+    private final int size;
+
+    /**
+     * Constructor.
+     * @param previous Previous path.
+     * @param last Last visited rule.
+     * @param size Number of rules in the path.
+     */
+    private RulePath(final RulePath previous, final Rule last, final int size) {
+        this.previous = previous;
+        this.last = last;
+        this.size = size;
+    }
+
+    /**
+     * Path of the rules.
+     * @param rules Rules in the order they were visited.
+     * @return Path.
+     */
+    static RulePath of(final List<Rule> rules) {
+        RulePath res = RulePath.EMPTY;
+        for (final Rule rule : rules) {
+            res = res.with(rule);
+        }
+        return res;
+    }
+
+    /**
+     * Path with one more rule.
+     * @param rule Visited rule.
+     * @return New path, this path stays unchanged.
+     */
+    RulePath with(final Rule rule) {
+        return new RulePath(this, rule, this.size + 1);
+    }
+
+    /**
+     * Number of rules in the path.
+     * @return Depth of the path.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Rules of the path.
+     * @return Rules in the order they were visited.
+     */
+    List<Rule> rules() {
+        final Rule[] all = new Rule[this.size];
+        RulePath current = this;
+        for (int index = this.size - 1; index >= 0; --index) {
+            all[index] = current.last;
+            current = current.previous;
+        }
+        return Collections.unmodifiableList(Arrays.asList(all));
+    }
+}
@@ -24,10 +24,14 @@
 package com.github.lombrozo.jsmith.antlr;
 
 import com.github.lombrozo.jsmith.antlr.rules.Rule;
+import com.github.lombrozo.jsmith.antlr.rules.Ruleref;
 import com.github.lombrozo.jsmith.antlr.rules.WrongPathException;
 import com.github.lombrozo.jsmith.antlr.view.Node;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Unparser that contains all parser rules.
@@ -41,19 +45,26 @@ public final class Unparser {
      */
     private final Map<String, Rule> rules;
 
+    /**
+     * References to the parser rules, resolved on linking.
+     */
+    private final List<Ruleref> refs;
+
     /**
      * Default constructor.
      */
     public Unparser() {
-        this(new HashMap<>(0));
+        this(new HashMap<>(0), new ArrayList<>(0));
     }
 
     /**
      * Constructor.
      * @param all All the parser rules.
+     * @param refs References to the parser rules.
      */
-    private Unparser(final Map<String, Rule> all) {
+    private Unparser(final Map<String, Rule> all, final List<Ruleref> refs) {
         this.rules = all;
+        this.refs = refs;
     }
 
     /**
@@ -67,6 +78,35 @@ public final class Unparser {
         return this;
     }
 
+    /**
+     * Add a reference to a parser rule.
+     * @param ref Reference that is resolved when the unparser is linked.
+     * @return The same reference.
+     */
+    public Ruleref reference(final Ruleref ref) {
+        this.refs.add(ref);
+        return ref;
+    }
+
+    /**
+     * Find a parser rule.
+     * @param rule Rule name.
+     * @return Parser rule if it exists.
+     */
+    public Optional<Rule> find(final String rule) {
+        return Optional.ofNullable(this.rules.get(rule));
+    }
+
+    /**
+     * Resolve all the references to the parser rules.
+     * After linking, references don't look rules up by name anymore.
+     * @return This unparser.
+     */
+    public Unparser link() {
+        this.refs.forEach(Ruleref::link);
+        return this;
+    }
+
     /**
      * Generate a string representation of the parser rule.
      * @param rule Rule.
@@ -27,6 +27,7 @@ import com.github.lombrozo.jsmith.antlr.Context;
 import com.github.lombrozo.jsmith.antlr.view.IntermediateNode;
 import com.github.lombrozo.jsmith.antlr.view.Node;
 import com.github.lombrozo.jsmith.antlr.view.TerminalNode;
+import com.github.lombrozo.jsmith.random.Indexed;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -44,7 +45,7 @@ import lombok.ToString;
  * @since 0.1
  */
 @ToString
-public final class AltList implements Rule {
+public final class AltList implements Rule, Indexed {
 
     /**
      * Parent rule.
@@ -56,6 +57,12 @@ public final class AltList implements Rule {
      */
     private final List<Rule> alternatives;
 
+    /**
+     * Index of the choice among the alternatives, see {@link Indexed}.
+     */
+    @ToString.Exclude
+    private final int number;
+
     /**
      * Default constructor.
      */
@@ -91,6 +98,12 @@ public final class AltList implements Rule {
     ) {
         this.top = parent;
         this.alternatives = alternatives;
+        this.number = Indexed.Sequence.next();
+    }
+
+    @Override
+    public int index() {
+        return this.number;
     }
 
     @Override
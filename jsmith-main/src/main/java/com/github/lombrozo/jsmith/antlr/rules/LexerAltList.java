@@ -26,6 +26,7 @@ package com.github.lombrozo.jsmith.antlr.rules;
 import com.github.lombrozo.jsmith.antlr.Context;
 import com.github.lombrozo.jsmith.antlr.view.IntermediateNode;
 import com.github.lombrozo.jsmith.antlr.view.Node;
+import com.github.lombrozo.jsmith.random.Indexed;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -40,7 +41,7 @@ import java.util.stream.Collectors;
  * }
  * @since 0.1
  */
-public final class LexerAltList implements Rule {
+public final class LexerAltList implements Rule, Indexed {
 
     /**
      * Parent rule.
@@ -52,6 +53,11 @@ public final class LexerAltList implements Rule {
      */
     private final List<Rule> children;
 
+    /**
+     * Index of the choice among the alternatives, see {@link Indexed}.
+     */
+    private final int number;
+
     /**
      * Constructor.
      */
@@ -75,6 +81,12 @@ public final class LexerAltList implements Rule {
     public LexerAltList(final Rule parent, final List<Rule> children) {
         this.top = parent;
         this.children = children;
+        this.number = Indexed.Sequence.next();
+    }
+
+    @Override
+    public int index() {
+        return this.number;
     }
 
     @Override
@@ -26,6 +26,7 @@ package com.github.lombrozo.jsmith.antlr.rules;
 import com.github.lombrozo.jsmith.antlr.Context;
 import com.github.lombrozo.jsmith.antlr.view.IntermediateNode;
 import com.github.lombrozo.jsmith.antlr.view.Node;
+import com.github.lombrozo.jsmith.random.Indexed;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -44,7 +45,7 @@ import java.util.stream.Collectors;
  * }
  * @since 0.1
  */
-public final class LexerAtom implements Rule {
+public final class LexerAtom implements Rule, Indexed {
 
     /**
      * Parent rule.
@@ -56,6 +57,11 @@ public final class LexerAtom implements Rule {
      */
     private final List<Rule> elems;
 
+    /**
+     * Index of the choice among the alternatives, see {@link Indexed}.
+     */
+    private final int number;
+
     /**
      * Constructor.
      */
@@ -79,6 +85,12 @@ public final class LexerAtom implements Rule {
     public LexerAtom(final Rule parent, final List<Rule> elems) {
         this.top = parent;
         this.elems = elems;
+        this.number = Indexed.Sequence.next();
+    }
+
+    @Override
+    public int index() {
+        return this.number;
     }
 
     @Override
@@ -26,6 +26,7 @@ package com.github.lombrozo.jsmith.antlr.rules;
 import com.github.lombrozo.jsmith.antlr.Context;
 import com.github.lombrozo.jsmith.antlr.view.IntermediateNode;
 import com.github.lombrozo.jsmith.antlr.view.Node;
+import com.github.lombrozo.jsmith.random.Indexed;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -39,7 +40,7 @@ import java.util.List;
  * }
  * @since 0.1
  */
-public final class RuleAltList implements Rule {
+public final class RuleAltList implements Rule, Indexed {
 
     /**
      * Parent rule.
@@ -51,6 +52,11 @@ public final class RuleAltList implements Rule {
      */
     private final List<Rule> alternatives;
 
+    /**
+     * Index of the choice among the alternatives, see {@link Indexed}.
+     */
+    private final int number;
+
     /**
      * Constructor.
      * @param rule Parent rule.
@@ -67,6 +73,12 @@ public final class RuleAltList implements Rule {
     public RuleAltList(final Rule parent, final List<Rule> alts) {
         this.top = parent;
         this.alternatives = alts;
+        this.number = Indexed.Sequence.next();
+    }
+
+    @Override
+    public int index() {
+        return this.number;
     }
 
     @Override
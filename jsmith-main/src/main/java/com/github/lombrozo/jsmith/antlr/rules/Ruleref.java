@@ -54,6 +54,12 @@ public final class Ruleref implements Rule {
      */
     private final Unparser unparser;
 
+    /**
+     * Referenced rule, resolved when the unparser is linked.
+     * Written once before the rule model is shared, so it's never changed during generation.
+     */
+    private Rule target;
+
     /**
      * Constructor.
      * @param parent Parent rule.
@@ -77,7 +83,21 @@ public final class Ruleref implements Rule {
 
     @Override
     public Node generate(final Context context) throws WrongPathException {
-        return this.unparser.generate(this.ref, context);
+        final Node result;
+        if (this.target == null) {
+            result = this.unparser.generate(this.ref, context);
+        } else {
+            result = this.target.generate(context);
+        }
+        return result;
+    }
+
+    /**
+     * Resolve the reference to the rule of the unparser.
+     * Unknown rules stay unresolved and fail with the unparser error on generation.
+     */
+    public void link() {
+        this.target = this.unparser.find(this.ref).orElse(null);
     }
 
     @Override
@@ -92,10 +112,12 @@ public final class Ruleref implements Rule {
 
     @Override
     public Rule copy() {
-        return new Ruleref(
+        final Ruleref copy = new Ruleref(
             this.top,
             this.ref,
             this.unparser
         );
+        copy.target = this.target;
+        return copy;
     }
 }
@@ -27,7 +27,6 @@ import com.github.lombrozo.jsmith.antlr.Context;
 import com.github.lombrozo.jsmith.antlr.view.Node;
 import com.github.lombrozo.jsmith.antlr.view.Trace;
 import com.github.lombrozo.jsmith.random.Multiplier;
-import java.util.List;
 
 /**
  * Safe rule.
@@ -85,12 +84,11 @@ public final class Safe implements Rule, Suffix, Negatable {
 
     @Override
     public Node generate(final Context context) throws WrongPathException {
-        final List<Rule> path = context.path();
-        if (path.size() >= this.limit) {
+        if (context.depth() >= this.limit) {
             throw new WrongPathException(
                 String.format(
                     "Long generation path! Most probably you have a recursion here: %s",
-                    new Trace(path).line()
+                    new Trace(context.path()).line()
                 )
             );
         }
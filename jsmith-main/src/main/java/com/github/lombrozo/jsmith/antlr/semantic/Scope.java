@@ -24,15 +24,17 @@
 package com.github.lombrozo.jsmith.antlr.semantic;
 
 import com.github.lombrozo.jsmith.random.Rand;
-import java.util.Collection;
+import java.util.AbstractList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.Function;
 import lombok.ToString;
 
 /**
  * Scope.
+ * The chain of the enclosing scopes is flattened into an array once, since the parent of a
+ * scope never changes; the variables of the chain are read through live views, so neither
+ * lookups nor random choices copy the variables of the enclosing scopes.
  * @since 0.1
  */
 @ToString
@@ -56,6 +58,12 @@ public final class Scope {
     @ToString.Exclude
     private final Rand rand;
 
+    /**
+     * Variables of this scope followed by the variables of all the enclosing scopes.
+     */
+    @ToString.Exclude
+    private final Variables[] chain;
+
     /**
      * Constructor.
      * @param rand Random generator.
@@ -87,6 +95,7 @@ public final class Scope {
         this.parent = parent;
         this.variables = variables;
         this.rand = rand;
+        this.chain = Scope.chain(parent, variables);
     }
 
     @ToString.Include
@@ -166,27 +175,15 @@ public final class Scope {
      * @return All declared variables.
      */
     private List<String> allDeclared() {
-        return Stream.concat(
-            this.variables.allDeclared().stream(),
-            Optional.ofNullable(this.parent)
-                .map(Scope::allDeclared)
-                .stream()
-                .flatMap(Collection::stream)
-        ).collect(Collectors.toList());
+        return new Scope.Flat(this.chain, Variables::allDeclared);
     }
 
     /**
      * Get all assigned variables.
-     * @return All assigned variables.
+     * @return All assigned variables of this scope first, then of the enclosing scopes.
      */
     public List<String> allAssigned() {
-        return Stream.concat(
-            this.variables.allAssigned().stream(),
-            Optional.ofNullable(this.parent)
-                .map(Scope::allAssigned)
-                .stream()
-                .flatMap(Collection::stream)
-        ).collect(Collectors.toList());
+        return new Scope.Flat(this.chain, Variables::allAssigned);
     }
 
     /**
@@ -196,11 +193,79 @@ public final class Scope {
      */
     private Optional<String> random(final List<String> collection) {
         final Optional<String> result;
-        if (collection.isEmpty()) {
+        final int size = collection.size();
+        if (size == 0) {
             result = Optional.empty();
         } else {
-            result = collection.stream().skip(this.rand.range(collection.size())).findFirst();
+            result = Optional.of(collection.get(this.rand.range(size)));
+        }
+        return result;
+    }
+
+    /**
+     * Flatten the chain of the scopes.
+     * @param parent Parent scope or null.
+     * @param variables Variables of the scope.
+     * @return Variables of the scope followed by the variables of the enclosing scopes.
+     */
+    private static Variables[] chain(final Scope parent, final Variables variables) {
+        final Variables[] result;
+        if (parent == null) {
+            result = new Variables[]{variables};
+        } else {
+            result = new Variables[parent.chain.length + 1];
+            result[0] = variables;
+            System.arraycopy(parent.chain, 0, result, 1, parent.chain.length);
         }
         return result;
     }
+
+    /**
+     * Read-only concatenation of the variables of a chain of scopes.
+     * @since 0.1
+     */
+    private static final class Flat extends AbstractList<String> {
+
+        /**
+         * Variables of the scopes, each view follows later changes.
+         */
+        private final List<?>[] parts;
+
+        /**
+         * Constructor.
+         * @param chain Flattened chain of the scopes.
+         * @param part Variables of one scope.
+         */
+        Flat(final Variables[] chain, final Function<Variables, List<String>> part) {
+            super();
+            this.parts = new List<?>[chain.length];
+            for (int index = 0; index < chain.length; ++index) {
+                this.parts[index] = part.apply(chain[index]);
+            }
+        }
+
+        @Override
+        public String get(final int index) {
+            int rest = index;
+            for (final List<?> part : this.parts) {
+                final int size = part.size();
+                if (rest < size) {
+                    return (String) part.get(rest);
+                }
+                rest = rest - size;
+            }
+            throw new IndexOutOfBoundsException(
+                String.format("Index %d is out of %d variables", index, this.size())
+            );
+        }
+
+        @Override
+        public int size() {
+            int result = 0;
+            for (final List<?> part : this.parts) {
+                result = result + part.size();
+            }
+            return result;
+        }
+    }
 }
@@ -24,6 +24,7 @@
 package com.github.lombrozo.jsmith.antlr.semantic;
 
 import com.github.lombrozo.jsmith.antlr.Context;
+import com.github.lombrozo.jsmith.antlr.Generation;
 import com.github.lombrozo.jsmith.antlr.rules.Rule;
 import com.github.lombrozo.jsmith.antlr.rules.WrongPathException;
 import com.github.lombrozo.jsmith.antlr.view.Node;
@@ -49,6 +50,7 @@ public final class UniqueRule implements Rule {
 
     /**
      * All identifiers.
+     * Identifiers taken before the generation starts, each generation adds to its own copy.
      */
     private final Set<String> all;
 
@@ -70,8 +72,9 @@ public final class UniqueRule implements Rule {
     @Override
     public Node generate(final Context context) throws WrongPathException {
         final Node snippet = this.original.generate(context);
+        final Set<String> generated = Generation.identifiers(this.all);
         final Node result;
-        if (this.all.contains(snippet.text().output())) {
+        if (generated.contains(snippet.text().output())) {
             final Node reattempt = this.generate(context);
             Logger.info(
                 this,
@@ -83,7 +86,7 @@ public final class UniqueRule implements Rule {
             );
             result = reattempt;
         } else {
-            this.all.add(snippet.text().output());
+            generated.add(snippet.text().output());
             result = snippet;
         }
         return result;
@@ -99,8 +99,8 @@ public final class VariableOperations implements Rule {
 
             // FIXED: Use round-robin selection instead of always first
             if (!suitableVars.isEmpty()) {
-                // Use a simple hash-based selection for pseudo-random distribution
-                final int index = Math.abs(context.hashCode()) % suitableVars.size();
+                // Select with the seeded scope random, so the same seed yields the same program
+                final int index = context.scope().rand().range(suitableVars.size());
                 selectedVar = suitableVars.get(index);
                 varType = context.scope().type(selectedVar);
             }
@@ -24,13 +24,16 @@
 package com.github.lombrozo.jsmith.antlr.semantic;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Map;
 import lombok.ToString;
 
 /**
  * Variables.
+ * Besides the lists of declared and assigned variables, it keeps indexes by name and by type,
+ * so lookups take constant time however many variables the scope has.
  * @since 0.1
  */
 @ToString
@@ -46,6 +49,36 @@ public final class Variables {
      */
     private final List<Variable> init;
 
+    /**
+     * First declared variable of each name.
+     */
+    @ToString.Exclude
+    private final Map<String, Variable> declared;
+
+    /**
+     * First assigned variable of each name.
+     */
+    @ToString.Exclude
+    private final Map<String, Variable> assigned;
+
+    /**
+     * Names of the declared variables in the declaration order.
+     */
+    @ToString.Exclude
+    private final List<String> dnames;
+
+    /**
+     * Names of the assigned variables in the assignment order.
+     */
+    @ToString.Exclude
+    private final List<String> anames;
+
+    /**
+     * Names of the assigned variables by type.
+     */
+    @ToString.Exclude
+    private final Map<String, List<String>> typed;
+
     /**
      * Default constructor.
      * Initializes empty lists.
@@ -68,6 +101,13 @@ public final class Variables {
     ) {
         this.init = assigned;
         this.decl = declared;
+        this.declared = new HashMap<>(0);
+        this.assigned = new HashMap<>(0);
+        this.dnames = new ArrayList<>(declared.size());
+        this.anames = new ArrayList<>(assigned.size());
+        this.typed = new HashMap<>(0);
+        declared.forEach(this::indexDeclared);
+        assigned.forEach(this::indexAssigned);
     }
 
     /**
@@ -76,8 +116,17 @@ public final class Variables {
      * @return Variable type.
      */
     public String type(final String name) {
-        return Stream.concat(this.init.stream(), this.decl.stream())
-            .filter(v -> v.name().equals(name)).findFirst().map(Variable::type).orElse("");
+        Variable variable = this.assigned.get(name);
+        if (variable == null) {
+            variable = this.declared.get(name);
+        }
+        final String result;
+        if (variable == null) {
+            result = "";
+        } else {
+            result = variable.type();
+        }
+        return result;
     }
 
     /**
@@ -85,7 +134,7 @@ public final class Variables {
      * @param name Variable name.
      */
     void declare(final String name) {
-        this.decl.add(new Variable(name));
+        this.declare(new Variable(name));
     }
 
     /**
@@ -94,7 +143,7 @@ public final class Variables {
      * @param type Variable type.
      */
     void declare(final String name, final String type) {
-        this.decl.add(new Variable(name, type));
+        this.declare(new Variable(name, type));
     }
 
     /**
@@ -102,36 +151,69 @@ public final class Variables {
      * @param name Variable name.
      */
     void assign(final String name) {
-        final Variable declared = this.decl.stream().filter(v -> v.name().equals(name)).findFirst()
-            .orElseThrow(() -> new IllegalStateException("Variable is not declared"));
-        this.init.add(declared);
+        final Variable variable = this.declared.get(name);
+        if (variable == null) {
+            throw new IllegalStateException("Variable is not declared");
+        }
+        this.init.add(variable);
+        this.indexAssigned(variable);
     }
 
     /**
      * Get all declared variables.
-     * @return All declared variables.
+     * @return All declared variables, the view follows later declarations.
      */
     List<String> allDeclared() {
-        return this.decl.stream().map(Variable::name).collect(Collectors.toList());
+        return Collections.unmodifiableList(this.dnames);
     }
 
     /**
      * Get all assigned variables.
-     * @return All assigned variables.
+     * @return All assigned variables, the view follows later assignments.
      */
     List<String> allAssigned() {
-        return this.init.stream().map(Variable::name).collect(Collectors.toList());
+        return Collections.unmodifiableList(this.anames);
     }
 
     /**
      * Get all assigned variables of the given type.
+     * The bucket of a type without variables is created here, so the view
+     * also follows the first assignments of that type.
      * @param type Variable type.
-     * @return All assigned variables.
+     * @return All assigned variables, the view follows later assignments.
      */
     List<String> allAssigned(final String type) {
-        return this.init.stream()
-            .filter(v -> v.type().equals(type))
-            .map(Variable::name)
-            .collect(Collectors.toList());
+        return Collections.unmodifiableList(
+            this.typed.computeIfAbsent(type, key -> new ArrayList<>(1))
+        );
+    }
+
+    /**
+     * Declare a variable.
+     * @param variable Variable.
+     */
+    private void declare(final Variable variable) {
+        this.decl.add(variable);
+        this.indexDeclared(variable);
+    }
+
+    /**
+     * Add a declared variable to the indexes.
+     * @param variable Variable.
+     */
+    private void indexDeclared(final Variable variable) {
+        this.declared.putIfAbsent(variable.name(), variable);
+        this.dnames.add(variable.name());
+    }
+
+    /**
+     * Add an assigned variable to the indexes.
+     * @param variable Variable.
+     */
+    private void indexAssigned(final Variable variable) {
+        this.assigned.putIfAbsent(variable.name(), variable);
+        this.anames.add(variable.name());
+        this.typed.computeIfAbsent(variable.type(), key -> new ArrayList<>(1))
+            .add(variable.name());
     }
 }
@@ -24,16 +24,21 @@
 package com.github.lombrozo.jsmith.random;
 
 import com.github.lombrozo.jsmith.Params;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 
 /**
  * This class allows randomly choosing one element among others by relative weights.
  * This class is needed to ensure convergence of the program generation algorithm.
  * Should be used in {@link Rand}.
+ * The weights of the children of each parent live in a flat table found by the index of the
+ * parent (see {@link Indexed}), so choosing neither hashes the parent nor allocates once the
+ * current branch owns the table.
  * @param <T> Type of the elements.
  * @since 0.1
  */
@@ -44,6 +49,12 @@ final class Convergence<T> {
      */
     private static final Logger LOG = Logger.getLogger(Convergence.class.getName());
 
+    /**
+     * Tables with more children than this are sampled through a Fenwick tree in
+     * O(log n); smaller tables are scanned linearly, which is faster for them.
+     */
+    private static final int LINEAR = 16;
+
     /**
      * Factor of convergence.
      * This is a multiplier for the weights.
@@ -59,9 +70,15 @@ final class Convergence<T> {
     private final double weight;
 
     /**
-     * Weights of the elements.
+     * Weights of the elements of the current branch.
      */
-    private final Map<T, Map<T, Double>> weights;
+    private final AtomicReference<Tables> tables;
+
+    /**
+     * Indexes of the parents which are not {@link Indexed}.
+     * Shared by all the copies, so a parent keeps its index in every branch.
+     */
+    private final Map<T, Integer> indexes;
 
     /**
      * Random generator.
@@ -111,14 +128,22 @@ final class Convergence<T> {
         final Rand rand,
         final boolean verbose
     ) {
-        this(factor, weight, new HashMap<>(0), rand, verbose);
+        this(
+            factor,
+            weight,
+            new Tables(new PersistentMap<>()),
+            new HashMap<>(0),
+            rand,
+            verbose
+        );
     }
 
     /**
      * Constructor.
      * @param factor Factor of convergence.
      * @param weight Initial weight of the elements.
-     * @param weights Weights of the elements.
+     * @param tables Weights of the elements.
+     * @param indexes Indexes of the parents which are not indexed.
      * @param rand Random generator.
      * @param verbose Verbose mode.
      * @checkstyle ParameterNumberCheck (5 lines)
@@ -126,26 +151,33 @@ final class Convergence<T> {
     private Convergence(
         final double factor,
         final double weight,
-        final Map<T, Map<T, Double>> weights,
+        final Tables tables,
+        final Map<T, Integer> indexes,
         final Rand rand,
         final boolean verbose
     ) {
         this.factor = factor;
         this.weight = weight;
-        this.weights = weights;
+        this.tables = new AtomicReference<>(tables);
+        this.indexes = indexes;
         this.rand = rand;
         this.verbose = verbose;
     }
 
     /**
      * Copy this object.
+     * The copy takes constant time: both this object and the copy keep sharing the weight
+     * tables and each of them copies a table only the first time it changes it.
      * @return Copy of this object.
      */
     public Convergence<T> copy() {
+        final PersistentMap<Table> all = this.tables.get().all;
+        this.tables.set(new Tables(all));
         return new Convergence<>(
             this.factor,
             this.weight,
-            this.weightsCopy(),
+            new Tables(all),
+            this.indexes,
             this.rand,
             this.verbose
         );
@@ -157,81 +189,84 @@ final class Convergence<T> {
      * @param elements Child elements.
      * @return Chosen element.
      */
-    @SuppressWarnings("unchecked")
-    T choose(final T from, final Collection<T> elements) {
-        return this.choose(from, (T[]) elements.toArray(new Object[0]));
+    T choose(final T from, final T... elements) {
+        return this.choose(from, Arrays.asList(elements));
     }
 
     /**
      * Choose one of the child elements from a parent element.
      * Each time when we choose an element, its weight is multiplied by the factor.
      * So, the probability of choosing this element one more time decreases.
+     * The children are read only the first time the parent is seen, after that
+     * the choice is made by the table of the parent.
      * @param from The main parent element which has child elements.
      * @param elements Child elements.
      * @return Chosen element.
      */
-    T choose(final T from, final T... elements) {
+    @SuppressWarnings("unchecked")
+    T choose(final T from, final Collection<T> elements) {
         if (this.factor < 0 || this.factor > 1) {
             throw new IllegalArgumentException("Factor must be between 0 and 1");
         }
-        if (elements.length == 0) {
+        if (elements.isEmpty()) {
             throw new IllegalArgumentException(
                 String.format("No elements to choose from for '%s' element", from)
             );
         }
-        final Map<T, Double> current = this.weights.computeIfAbsent(
-            from, key -> this.init(elements)
-        );
-        this.info(String.format("Weights for '%s': '%s'", from, current));
-        final double[] cumulative = new double[current.size()];
-        final Object[] all = new Object[current.size()];
-        double total = 0d;
-        int index = 0;
-        for (final Map.Entry<T, Double> entry : current.entrySet()) {
-            total = total + entry.getValue();
-            all[index] = entry.getKey();
-            cumulative[index] = total;
-            ++index;
+        final Tables current = this.tables.get();
+        final int index = this.index(from);
+        Table table = current.all.get(index);
+        if (table == null) {
+            table = this.init(current, elements);
+            current.all = current.all.with(index, table);
+        } else if (table.owner != current) {
+            table = table.copy(current);
+            current.all = current.all.with(index, table);
         }
-        final double random = this.rand.floating() * total;
-        final int length = cumulative.length;
-        for (int point = 0; point < length; ++point) {
-            if (cumulative[point] >= random) {
-                final T element = (T) all[point];
-                this.info(
-                    String.format("Chosen '%s' with weight '%s'", element, current.get(element))
-                );
-                current.put(element, current.get(element) * this.factor);
-                return element;
-            }
+        this.info(String.format("Weights for '%s': '%s'", from, table));
+        final int point = table.sample(this.rand.floating());
+        final T element = (T) table.elements[point];
+        this.info(
+            String.format("Chosen '%s' with weight '%s'", element, table.values[point])
+        );
+        table.decay(point, this.factor);
+        return element;
+    }
+
+    /**
+     * Index of the parent element.
+     * @param from Parent element.
+     * @return Index of the weight table of its children.
+     */
+    private int index(final T from) {
+        final int result;
+        if (from instanceof Indexed) {
+            result = ((Indexed) from).index();
+        } else {
+            result = this.indexes.computeIfAbsent(from, key -> Indexed.Sequence.next());
         }
-        throw new IllegalStateException("No element was chosen");
+        return result;
     }
 
     /**
-     * Init weights map for the elements.
+     * Init weights for the elements.
+     * @param owner Branch that owns the new table.
      * @param elements Elements.
-     * @return Initial map with weights.
+     * @return Initial weights, repeated elements sum their weights up.
      */
-    private Map<T, Double> init(final T... elements) {
+    private Table init(final Tables owner, final Collection<T> elements) {
         final Map<T, Double> res = new LinkedHashMap<>(0);
         for (final T element : elements) {
             res.putIfAbsent(element, 0d);
             res.computeIfPresent(element, (key, value) -> value + this.weight);
         }
-        return res;
-    }
-
-    /**
-     * Copy weights deeply.
-     * @return Copy of the weights deeply.
-     */
-    private Map<T, Map<T, Double>> weightsCopy() {
-        final Map<T, Map<T, Double>> copy = new LinkedHashMap<>(0);
-        for (final Map.Entry<T, Map<T, Double>> entry : this.weights.entrySet()) {
-            copy.put(entry.getKey(), new LinkedHashMap<>(entry.getValue()));
+        final double[] initial = new double[res.size()];
+        int index = 0;
+        for (final double value : res.values()) {
+            initial[index] = value;
+            ++index;
         }
-        return copy;
+        return new Table(owner, res.keySet().toArray(), initial);
     }
 
     /**
@@ -243,4 +278,209 @@ final class Convergence<T> {
             Convergence.LOG.info(msg);
         }
     }
+
+    /**
+     * Weight tables of one generation branch.
+     * The identity of this object marks the tables the branch may change in place.
+     * @since 0.1
+     */
+    private static final class Tables {
+
+        /**
+         * Tables by the index of the parent.
+         */
+        private PersistentMap<Table> all;
+
+        /**
+         * Constructor.
+         * @param all Tables by the index of the parent.
+         */
+        Tables(final PersistentMap<Table> all) {
+            this.all = all;
+        }
+    }
+
+    /**
+     * Weights of the children of one element.
+     * The table is changed in place by its owner only, other branches copy it first.
+     * @since 0.1
+     */
+    private static final class Table {
+
+        /**
+         * Branch that may change the table.
+         */
+        private final Tables owner;
+
+        /**
+         * Children in the order they were first seen.
+         */
+        private final Object[] elements;
+
+        /**
+         * Weights of the children.
+         */
+        private final double[] values;
+
+        /**
+         * Fenwick tree over the weights, null for small tables.
+         */
+        private final double[] tree;
+
+        /**
+         * Constructor.
+         * @param owner Branch that may change the table.
+         * @param elements Children.
+         * @param values Weights of the children.
+         */
+        Table(final Tables owner, final Object[] elements, final double[] values) {
+            this(owner, elements, values, Table.fenwick(values));
+        }
+
+        /**
+         * Constructor.
+         * @param owner Branch that may change the table.
+         * @param elements Children.
+         * @param values Weights of the children.
+         * @param tree Fenwick tree over the weights or null.
+         */
+        private Table(
+            final Tables owner,
+            final Object[] elements,
+            final double[] values,
+            final double[] tree
+        ) {
+            this.owner = owner;
+            this.elements = elements;
+            this.values = values;
+            this.tree = tree;
+        }
+
+        /**
+         * Copy of the table owned by another branch.
+         * @param branch New owner.
+         * @return Copy of the table.
+         */
+        Table copy(final Tables branch) {
+            final double[] fenwick;
+            if (this.tree == null) {
+                fenwick = null;
+            } else {
+                fenwick = this.tree.clone();
+            }
+            return new Table(branch, this.elements, this.values.clone(), fenwick);
+        }
+
+        /**
+         * Choose a child.
+         * @param random Uniform random number in [0, 1).
+         * @return Index of the first child whose cumulative weight reaches the number
+         *  scaled by the total weight.
+         */
+        int sample(final double random) {
+            final int result;
+            if (this.tree == null) {
+                result = this.scan(random);
+            } else {
+                result = this.search(random);
+            }
+            return result;
+        }
+
+        /**
+         * Multiply the weight of the child by the factor.
+         * @param index Index of the child.
+         * @param factor Factor.
+         */
+        void decay(final int index, final double factor) {
+            final double before = this.values[index];
+            final double after = before * factor;
+            this.values[index] = after;
+            if (this.tree != null) {
+                final double delta = after - before;
+                for (int node = index + 1; node <= this.values.length; node += node & -node) {
+                    this.tree[node] = this.tree[node] + delta;
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder res = new StringBuilder("{");
+            for (int index = 0; index < this.elements.length; ++index) {
+                if (index > 0) {
+                    res.append(", ");
+                }
+                res.append(this.elements[index]).append('=').append(this.values[index]);
+            }
+            return res.append('}').toString();
+        }
+
+        /**
+         * Linear scan of the weights.
+         * @param random Uniform random number in [0, 1).
+         * @return Index of the chosen child.
+         */
+        private int scan(final double random) {
+            final int size = this.values.length;
+            double total = 0d;
+            for (int index = 0; index < size; ++index) {
+                total = total + this.values[index];
+            }
+            final double target = random * total;
+            double cumulative = 0d;
+            for (int point = 0; point < size; ++point) {
+                cumulative = cumulative + this.values[point];
+                if (cumulative >= target) {
+                    return point;
+                }
+            }
+            throw new IllegalStateException("No element was chosen");
+        }
+
+        /**
+         * Descent of the Fenwick tree.
+         * @param random Uniform random number in [0, 1).
+         * @return Index of the chosen child.
+         */
+        private int search(final double random) {
+            final int size = this.values.length;
+            double total = 0d;
+            for (int node = size; node > 0; node -= node & -node) {
+                total = total + this.tree[node];
+            }
+            double rest = random * total;
+            int position = 0;
+            for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+                final int next = position + step;
+                if (next <= size && this.tree[next] < rest) {
+                    position = next;
+                    rest = rest - this.tree[next];
+                }
+            }
+            return Math.min(position, size - 1);
+        }
+
+        /**
+         * Build the Fenwick tree for the weights.
+         * @param values Weights.
+         * @return One-based Fenwick tree or null if the table is small enough to be scanned.
+         */
+        private static double[] fenwick(final double[] values) {
+            final double[] result;
+            if (values.length > Convergence.LINEAR) {
+                result = new double[values.length + 1];
+                for (int index = 1; index <= values.length; ++index) {
+                    result[index] = result[index] + values[index - 1];
+                    final int parent = index + (index & -index);
+                    if (parent <= values.length) {
+                        result[parent] = result[parent] + result[index];
+                    }
+                }
+            } else {
+                result = null;
+            }
+            return result;
+        }
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023-2025 Volodya Lombrozo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.lombrozo.jsmith.random;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Element with a dense integer index.
+ * Rules that choose among their alternatives get the index when the grammar is compiled,
+ * so {@link ConvergenceStrategy} keeps their weights in flat tables by index instead of
+ * hashing the rules.
+ * @since 0.1
+ */
+public interface Indexed {
+
+    /**
+     * Index of the element.
+     * @return Non-negative index, unique within the JVM.
+     */
+    int index();
+
+    /**
+     * Sequence of the indexes.
+     * @since 0.1
+     */
+    final class Sequence {
+
+        /**
+         * Last given index.
+         */
+        private static final AtomicInteger LAST = new AtomicInteger();
+
+        /**
+         * Ctor.
+         */
+        private Sequence() {
+            // Utility class.
+        }
+
+        /**
+         * Next free index.
+         * @return New index.
+         */
+        public static int next() {
+            return Indexed.Sequence.LAST.getAndIncrement();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023-2025 Volodya Lombrozo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.lombrozo.jsmith.random;
+
+/**
+ * Persistent map from integer keys.
+ * Immutable array mapped trie over the bits of the key: adding a key returns a new map
+ * that shares all the untouched nodes with the original one, so copying a map is free
+ * and each update copies only the path to the changed entry.
+ * Keys are dense indexes, so neither lookups nor updates hash or box anything.
+ * @param <V> Type of the values.
+ * @since 0.1
+ */
+final class PersistentMap<V> {
+
+    /**
+     * Number of key bits consumed by each level of the trie.
+     */
+    private static final int BITS = 5;
+
+    /**
+     * Mask of the key bits of one level.
+     */
+    private static final int MASK = (1 << PersistentMap.BITS) - 1;
+
+    /**
+     * Root node, either {@link Branch}, {@link Leaf} or null for the empty map.
+     */
+    private final Object root;
+
+    /**
+     * Constructor.
+     * Creates an empty map.
+     */
+    PersistentMap() {
+        this(null);
+    }
+
+    /**
+     * Constructor.
+     * @param root Root node.
+     */
+    private PersistentMap(final Object root) {
+        this.root = root;
+    }
+
+    /**
+     * Value of the key.
+     * @param key Key.
+     * @return Value or null if the map doesn't contain the key.
+     */
+    @SuppressWarnings("unchecked")
+    V get(final int key) {
+        Object node = this.root;
+        int shift = 0;
+        while (node instanceof Branch) {
+            final Branch branch = (Branch) node;
+            final int bit = 1 << (key >>> shift & PersistentMap.MASK);
+            if ((branch.bitmap & bit) == 0) {
+                return null;
+            }
+            node = branch.slots[branch.index(bit)];
+            shift += PersistentMap.BITS;
+        }
+        final V result;
+        if (node != null && ((Leaf) node).key == key) {
+            result = (V) ((Leaf) node).value;
+        } else {
+            result = null;
+        }
+        return result;
+    }
+
+    /**
+     * Map with the key associated to the value.
+     * @param key Key.
+     * @param value Value.
+     * @return New map, this map stays unchanged.
+     */
+    PersistentMap<V> with(final int key, final V value) {
+        return new PersistentMap<>(PersistentMap.put(this.root, 0, key, value));
+    }
+
+    /**
+     * Put the entry into the node.
+     * @param node Node or null.
+     * @param shift Key bits consumed by the levels above the node.
+     * @param key Key.
+     * @param value Value.
+     * @return New node with the entry.
+     */
+    private static Object put(
+        final Object node, final int shift, final int key, final Object value
+    ) {
+        final Object result;
+        if (node == null) {
+            result = new Leaf(key, value);
+        } else if (node instanceof Leaf) {
+            final Leaf leaf = (Leaf) node;
+            if (leaf.key == key) {
+                result = new Leaf(key, value);
+            } else {
+                result = PersistentMap.put(
+                    new Branch(1 << (leaf.key >>> shift & PersistentMap.MASK), leaf),
+                    shift, key, value
+                );
+            }
+        } else {
+            final Branch branch = (Branch) node;
+            final int bit = 1 << (key >>> shift & PersistentMap.MASK);
+            final int index = branch.index(bit);
+            if ((branch.bitmap & bit) == 0) {
+                final Object[] slots = new Object[branch.slots.length + 1];
+                System.arraycopy(branch.slots, 0, slots, 0, index);
+                slots[index] = new Leaf(key, value);
+                System.arraycopy(
+                    branch.slots, index, slots, index + 1, branch.slots.length - index
+                );
+                result = new Branch(branch.bitmap | bit, slots);
+            } else {
+                final Object[] slots = branch.slots.clone();
+                slots[index] = PersistentMap.put(
+                    slots[index], shift + PersistentMap.BITS, key, value
+                );
+                result = new Branch(branch.bitmap, slots);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Inner node of the trie.
+     * @since 0.1
+     */
+    private static final class Branch {
+
+        /**
+         * Bitmap of the present slots.
+         */
+        private final int bitmap;
+
+        /**
+         * Present slots.
+         */
+        private final Object[] slots;
+
+        /**
+         * Constructor.
+         * @param bit Bit of the single slot.
+         * @param slot Single slot.
+         */
+        Branch(final int bit, final Object slot) {
+            this(bit, new Object[]{slot});
+        }
+
+        /**
+         * Constructor.
+         * @param bitmap Bitmap of the present slots.
+         * @param slots Present slots.
+         */
+        Branch(final int bitmap, final Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        /**
+         * Index of the slot in the array.
+         * @param bit Bit of the slot.
+         * @return Index of the slot.
+         */
+        int index(final int bit) {
+            return Integer.bitCount(this.bitmap & bit - 1);
+        }
+    }
+
+    /**
+     * Entry of the map.
+     * @since 0.1
+     */
+    private static final class Leaf {
+
+        /**
+         * Key.
+         */
+        private final int key;
+
+        /**
+         * Value.
+         */
+        private final Object value;
+
+        /**
+         * Constructor.
+         * @param key Key.
+         * @param value Value.
+         */
+        Leaf(final int key, final Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -26,6 +26,7 @@ package com.github.lombrozo.jsmith.random;
 import com.mifmif.common.regex.Generex;
 import java.security.SecureRandom;
 import java.util.Random;
+import java.util.function.Supplier;
 
 /**
  * Random generator.
@@ -38,8 +39,10 @@ public final class Rand {
      * We use {@link Random} inseatd of {@link SecureRandom} because we don't need a
      * cryptographically secure random. Additionally, we need to be able to seed the random
      * to reproduce the same results.
+     * The random is supplied on every draw, so that a rule model shared between generations
+     * can draw from the random of the current generation.
      */
-    private final Random random;
+    private final Supplier<Random> random;
 
     /**
      * Default constructor.
@@ -61,7 +64,15 @@ public final class Rand {
      * @param rand Java random.
      */
     private Rand(final Random rand) {
-        this.random = rand;
+        this(() -> rand);
+    }
+
+    /**
+     * Constructor.
+     * @param source Source of java random, asked on every draw.
+     */
+    public Rand(final Supplier<Random> source) {
+        this.random = source;
     }
 
     /**
@@ -70,7 +81,7 @@ public final class Rand {
      * @return Random integer.
      */
     public int range(final int bound) {
-        return this.random.nextInt(bound);
+        return this.random.get().nextInt(bound);
     }
 
     /**
@@ -85,7 +96,7 @@ public final class Rand {
                 String.format("Min should be less than max, but min = %d, max = %d", min, max)
             );
         }
-        return this.random.nextInt(max - min + 1) + min;
+        return this.random.get().nextInt(max - min + 1) + min;
     }
 
     /**
@@ -104,7 +115,7 @@ public final class Rand {
      * @return Random string.
      */
     public String regex(final String regex) {
-        return new Generex(regex, this.random).random();
+        return new Generex(regex, this.random.get()).random();
     }
 
     /**
@@ -112,7 +123,7 @@ public final class Rand {
      * @return Random double.
      */
     double floating() {
-        return this.random.nextDouble();
+        return this.random.get().nextDouble();
     }
 
     /**
@@ -120,7 +131,7 @@ public final class Rand {
      * @return True if heads, false if tails.
      */
     boolean flip() {
-        return this.random.nextBoolean();
+        return this.random.get().nextBoolean();
     }
 
 }
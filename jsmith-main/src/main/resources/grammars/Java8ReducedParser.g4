@@ -424,6 +424,7 @@ simpleIfStatement
 
 ifBlock /* $jsmith-scope */
     : '{' NL NL initializedVariableDeclaration ';' NL '}'
+    ;
 
 complexIfStatement
     : NL 'if' SPACE '(' reachableBooleanExpression ')' SPACE ifBlock NL
@@ -482,6 +483,7 @@ simpleForStatement
 
 forBlock /* $jsmith-scope */
     : '{' NL NL initializedVariableDeclaration ';' NL '}'
+    ;
 
 safeWhileStatement
     : NL 'int' SPACE 'k' '=' '0' ';' NL 'while' SPACE '(' 'k' SPACE '<' SPACE '5' ')' SPACE '{' NL NL initializedVariableDeclaration ';' NL 'k' '++' ';' NL '}' NL
@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023-2025 Volodya Lombrozo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.lombrozo.jsmith;
+
+import com.github.lombrozo.jsmith.antlr.Unlexer;
+import com.github.lombrozo.jsmith.antlr.Unparser;
+import com.github.lombrozo.jsmith.antlr.view.Text;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.cactoos.io.ResourceOf;
+import org.cactoos.text.TextOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link CompiledGrammar}.
+ * @since 0.1
+ */
+final class CompiledGrammarTest {
+
+    @Test
+    void compilesTheSameGrammarsOnce() throws Exception {
+        final List<String> grammars = Arrays.asList(
+            new TextOf(new ResourceOf("grammars/Arithmetic.g4")).asString()
+        );
+        MatcherAssert.assertThat(
+            "We expect that the same grammars are compiled only once",
+            CompiledGrammar.of(grammars),
+            Matchers.sameInstance(CompiledGrammar.of(grammars))
+        );
+    }
+
+    @Test
+    void generatesTheSameOutputAsStandaloneScript() {
+        final CompiledGrammar grammar = CompiledGrammar.resources("grammars/Arithmetic.g4");
+        final List<String> shared = LongStream.range(0, 20)
+            .mapToObj(seed -> new RandomScript(new Params(seed), grammar).generate("stat"))
+            .map(Text::output)
+            .collect(Collectors.toList());
+        final List<String> standalone = LongStream.range(0, 20)
+            .mapToObj(
+                seed -> new RandomScript(
+                    Arrays.asList(grammar.grammars().get(0)),
+                    new Unlexer(),
+                    new Unparser(),
+                    new Params(seed)
+                ).generate("stat")
+            )
+            .map(Text::output)
+            .collect(Collectors.toList());
+        MatcherAssert.assertThat(
+            "We expect that the shared model generates the same output as a model compiled for every script",
+            shared,
+            Matchers.equalTo(standalone)
+        );
+    }
+
+    @Test
+    void generatesConcurrentlyWithTheSameModel() throws InterruptedException, ExecutionException {
+        final CompiledGrammar grammar = CompiledGrammar.resources("grammars/Arithmetic.g4");
+        final String expected = new RandomScript(new Params(7L), grammar).generate("stat").output();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> all = executor.invokeAll(
+                LongStream.range(0, 16).mapToObj(
+                    index -> (Callable<String>) () -> new RandomScript(
+                        new Params(7L), grammar
+                    ).generate("stat").output()
+                ).collect(Collectors.toList())
+            );
+            for (final Future<String> future : all) {
+                MatcherAssert.assertThat(
+                    "We expect that every thread generates the same output for the same seed",
+                    future.get(),
+                    Matchers.equalTo(expected)
+                );
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023-2025 Volodya Lombrozo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.lombrozo.jsmith;
+
+import com.sun.source.util.JavacTask;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Random;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Test cases for {@link GeneratorSession}.
+ * @since 0.1
+ */
+final class GeneratorSessionTest {
+
+    @Test
+    void generatesTheSameProgramsAsFreshSessions() {
+        final GeneratorSession session = new GeneratorSession();
+        final Random seeds = new Random(42L);
+        for (int program = 0; program < 20; ++program) {
+            final long seed = seeds.nextLong();
+            MatcherAssert.assertThat(
+                String.format(
+                    "We expect that a reused session generates the same program as a fresh one for seed %d",
+                    seed
+                ),
+                session.next(seed),
+                Matchers.equalTo(new GeneratorSession().next(seed))
+            );
+        }
+    }
+
+    @Test
+    void doesNotLeakStateBetweenPrograms() {
+        final GeneratorSession session = new GeneratorSession();
+        final long seed = 1_038_792_632_350_611_846L;
+        final String first = session.next(seed);
+        session.next(2_257_151_642_642_236_899L);
+        MatcherAssert.assertThat(
+            "We expect that a program doesn't depend on the programs generated before it",
+            session.next(seed),
+            Matchers.equalTo(first)
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1_038_792_632_350_611_846L, 2_257_151_642_642_236_899L})
+    void formatsProgramsOnce(final long seed) {
+        MatcherAssert.assertThat(
+            "We expect that the session program is the formatted output of a standalone class",
+            new GeneratorSession().next(seed),
+            Matchers.equalTo(CodeFormatter.format(new RandomJavaClass(new Params(seed)).src()))
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1_038_792_632_350_611_846L, 2_257_151_642_642_236_899L})
+    void generatesParseablePrograms(final long seed) throws IOException {
+        final String src = new GeneratorSession().next(seed);
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final JavaFileObject file = new SimpleJavaFileObject(
+            URI.create("string:///Program.java"), JavaFileObject.Kind.SOURCE
+        ) {
+            @Override
+            public CharSequence getCharContent(final boolean ignore) {
+                return src;
+            }
+        };
+        ((JavacTask) ToolProvider.getSystemJavaCompiler().getTask(
+            null, null, diagnostics, null, null, Collections.singletonList(file)
+        )).parse();
+        MatcherAssert.assertThat(
+            String.format("We expect that the program is syntactically valid Java:%n%s", src),
+            diagnostics.getDiagnostics(),
+            Matchers.empty()
+        );
+    }
+}
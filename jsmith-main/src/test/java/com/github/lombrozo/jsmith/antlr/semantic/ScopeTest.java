@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023-2025 Volodya Lombrozo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.lombrozo.jsmith.antlr.semantic;
+
+import com.github.lombrozo.jsmith.random.Rand;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link Scope}.
+ * @since 0.1
+ */
+final class ScopeTest {
+
+    @Test
+    void listsOwnVariablesBeforeEnclosingOnes() {
+        final Scope outer = new Scope(new Rand(1L));
+        outer.declare("a", "int");
+        outer.init("a");
+        final Scope inner = new Scope(outer, outer.rand());
+        inner.declare("b", "long");
+        inner.init("b");
+        outer.declare("c", "int");
+        outer.init("c");
+        MatcherAssert.assertThat(
+            "We expect that the inner scope sees its own variables first and later changes of the outer scope",
+            inner.allAssigned(),
+            Matchers.contains("b", "a", "c")
+        );
+    }
+
+    @Test
+    void choosesInitializedVariableOfType() {
+        final Scope scope = new Scope(new Rand(2L));
+        scope.declare("x", "int");
+        scope.declare("y", "boolean");
+        scope.declare("z", "int");
+        scope.init("x");
+        scope.init("y");
+        MatcherAssert.assertThat(
+            "We expect that only the initialized variable of the requested type is chosen",
+            scope.initialized("int").orElse(""),
+            Matchers.equalTo("x")
+        );
+    }
+
+    @Test
+    void findsTypesOfManyVariables() {
+        final Scope scope = new Scope(new Rand(3L));
+        for (int index = 0; index < 100_000; ++index) {
+            scope.declare(String.format("v%d", index), "long");
+            scope.init(String.format("v%d", index));
+        }
+        MatcherAssert.assertThat(
+            "We expect that the type of the last of many variables is found by its name",
+            scope.type("v99999"),
+            Matchers.equalTo("long")
+        );
+    }
+}
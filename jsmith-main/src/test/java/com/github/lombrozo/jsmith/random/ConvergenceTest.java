@@ -104,4 +104,37 @@ final class ConvergenceTest {
             Matchers.containsInAnyOrder(alternatives.toArray())
         );
     }
+
+    @Test
+    void choosesAllElementsOfLargeLists() {
+        final Rule root = new AltList();
+        final List<Rule> alternatives = IntStream.range(0, 100)
+            .mapToObj(String::valueOf)
+            .map(Literal::new)
+            .collect(Collectors.toList());
+        final Convergence<Rule> convergence = new Convergence<>(0.000_1, false);
+        MatcherAssert.assertThat(
+            "We expect that each element of a large list is chosen exactly once in the first rounds, since the weight of the chosen one almost vanishes.",
+            IntStream.range(0, 100)
+                .mapToObj(i -> convergence.choose(root, alternatives))
+                .collect(Collectors.toSet()),
+            Matchers.hasSize(100)
+        );
+    }
+
+    @Test
+    void keepsWeightsOfCopiesApart() {
+        final Rule root = new AltList();
+        final Rule first = new Literal("a");
+        final Rule second = new Literal("b");
+        final Convergence<Rule> original = new Convergence<>(0.0, false);
+        final Rule chosen = original.choose(root, first, second);
+        final Convergence<Rule> copy = original.copy();
+        original.choose(root, first, second);
+        MatcherAssert.assertThat(
+            "We expect that choices made by the original don't change the weights of the copy.",
+            copy.choose(root, first, second),
+            Matchers.not(Matchers.equalTo(chosen))
+        );
+    }
 }
@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023-2025 Volodya Lombrozo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.lombrozo.jsmith.random;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link PersistentMap}.
+ * @since 0.1
+ */
+final class PersistentMapTest {
+
+    @Test
+    void keepsPreviousVersionsUnchanged() {
+        PersistentMap<String> map = new PersistentMap<>();
+        for (int key = 0; key < 10_000; ++key) {
+            map = map.with(key, String.valueOf(key));
+        }
+        final PersistentMap<String> updated = map.with(42, "updated");
+        MatcherAssert.assertThat(
+            "We expect that the original map still has the old value",
+            map.get(42),
+            Matchers.equalTo("42")
+        );
+        MatcherAssert.assertThat(
+            "We expect that the updated map has the new value and all the other keys",
+            updated.get(42) + updated.get(9_999),
+            Matchers.equalTo("updated9999")
+        );
+    }
+
+    @Test
+    void storesKeysWithTheSameLowBits() {
+        final PersistentMap<Integer> map = new PersistentMap<Integer>()
+            .with(1, 1)
+            .with(1 << 30 | 1, 2)
+            .with(1, 3);
+        MatcherAssert.assertThat(
+            "We expect that keys sharing all the lower levels of the trie don't override each other",
+            map.get(1) * 10 + map.get(1 << 30 | 1),
+            Matchers.equalTo(32)
+        );
+    }
+
+    @Test
+    void returnsNullForAbsentKeys() {
+        MatcherAssert.assertThat(
+            "We expect that absent key has no value",
+            new PersistentMap<Integer>().with(1, 1).get(33),
+            Matchers.nullValue()
+        );
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.comparator;
+
+import com.example.parser.CanonicalNames;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.BooleanLiteralExpr;
+import com.github.javaparser.ast.expr.LiteralStringValueExpr;
+import com.github.javaparser.ast.expr.MethodReferenceExpr;
+import com.github.javaparser.ast.expr.Name;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.SimpleName;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.stmt.ExplicitConstructorInvocationStmt;
+import com.github.javaparser.ast.stmt.SwitchEntry;
+import com.github.javaparser.ast.type.PrimitiveType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 切片的规范结构哈希
+ * 一次遍历AST计算哈希：变量按绑定（声明或参数）的顺序编号，引用处使用按作用域解析到的编号而不是名字，
+ * 未声明的引用按首次出现的顺序另行编号；方法名、类型名、字面量和运算符按原值参与哈希，注释被忽略
+ * 因此只相差一致的变量重命名（alpha等价）的两个切片哈希相同
+ * 哈希相同不能证明等价，需要确认时比较规范形式（form）
+ */
+public final class CanonicalSliceHasher {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final long BOUND = 'B';
+    private static final long EXTERNAL = 'E';
+    private static final long IDENTIFIER = 'I';
+
+    private final CanonicalNames names = new CanonicalNames();
+    private long hash = FNV_OFFSET;
+    // 参与哈希的值序列，只计算哈希时为null
+    private long[] tokens;
+    private int size;
+
+    private CanonicalSliceHasher(boolean recordTokens) {
+        this.tokens = recordTokens ? new long[256] : null;
+    }
+
+    /**
+     * 计算以root为根的AST的规范哈希
+     */
+    public static long hash(Node root) {
+        CanonicalSliceHasher hasher = new CanonicalSliceHasher(false);
+        hasher.visit(root);
+        return hasher.hash;
+    }
+
+    /**
+     * 计算以root为根的AST的规范形式，两个切片的规范形式相同当且仅当它们只相差一致的变量重命名
+     */
+    public static Form form(Node root) {
+        CanonicalSliceHasher hasher = new CanonicalSliceHasher(true);
+        hasher.visit(root);
+        return new Form(hasher.hash, Arrays.copyOf(hasher.tokens, hasher.size));
+    }
+
+    private void visit(Node node) {
+        if (node instanceof SimpleName) {
+            visitName((SimpleName) node);
+            return;
+        }
+
+        boolean scope = CanonicalNames.opensScope(node);
+        if (scope) {
+            names.enter();
+        }
+        mix(node.getClass().getSimpleName());
+        mixAttributes(node);
+
+        List<Node> children = node.getChildNodes();
+        int count = 0;
+        for (Node child : children) {
+            if (!(child instanceof Comment)) {
+                visit(child);
+                count++;
+            }
+        }
+        mix(count);
+        if (scope) {
+            names.exit();
+        }
+    }
+
+    /**
+     * 运算符、字面量值、修饰符关键字等不是子节点的属性，直接读取而不经过元模型反射
+     */
+    private void mixAttributes(Node node) {
+        if (node instanceof BinaryExpr) {
+            mix(((BinaryExpr) node).getOperator().ordinal());
+        } else if (node instanceof UnaryExpr) {
+            mix(((UnaryExpr) node).getOperator().ordinal());
+        } else if (node instanceof AssignExpr) {
+            mix(((AssignExpr) node).getOperator().ordinal());
+        } else if (node instanceof LiteralStringValueExpr) {
+            mix(((LiteralStringValueExpr) node).getValue());
+        } else if (node instanceof BooleanLiteralExpr) {
+            mix(((BooleanLiteralExpr) node).getValue() ? 1 : 0);
+        } else if (node instanceof Modifier) {
+            mix(((Modifier) node).getKeyword().ordinal());
+        } else if (node instanceof PrimitiveType) {
+            mix(((PrimitiveType) node).getType().ordinal());
+        } else if (node instanceof Name) {
+            mix(((Name) node).getIdentifier());
+        } else if (node instanceof MethodReferenceExpr) {
+            mix(((MethodReferenceExpr) node).getIdentifier());
+        } else if (node instanceof Parameter) {
+            mix(((Parameter) node).isVarArgs() ? 1 : 0);
+        } else if (node instanceof SwitchEntry) {
+            mix(((SwitchEntry) node).getType().ordinal());
+        } else if (node instanceof ExplicitConstructorInvocationStmt) {
+            mix(((ExplicitConstructorInvocationStmt) node).isThis() ? 1 : 0);
+        } else if (node instanceof ClassOrInterfaceDeclaration) {
+            mix(((ClassOrInterfaceDeclaration) node).isInterface() ? 1 : 0);
+        }
+    }
+
+    private void visitName(SimpleName name) {
+        String identifier = name.getIdentifier();
+        Node parent = name.getParentNode().orElse(null);
+
+        if (CanonicalNames.isBinding(name, parent)) {
+            mix(BOUND);
+            mix(names.bind(identifier));
+        } else if (parent instanceof NameExpr) {
+            Integer index = names.resolve(identifier);
+            if (index != null) {
+                mix(BOUND);
+                mix(index);
+            } else {
+                mix(EXTERNAL);
+                mix(names.external(identifier));
+            }
+        } else {
+            mix(IDENTIFIER);
+            mix(identifier);
+        }
+    }
+
+    private void mix(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            mix((long) value.charAt(i));
+        }
+        mix((long) value.length());
+    }
+
+    private void mix(long value) {
+        if (tokens != null) {
+            if (size == tokens.length) {
+                tokens = Arrays.copyOf(tokens, size * 2);
+            }
+            tokens[size++] = value;
+        }
+        hash ^= value;
+        hash *= FNV_PRIME;
+        hash ^= hash >>> 29;
+    }
+
+    /**
+     * 规范形式：哈希和参与哈希的完整值序列
+     */
+    public static final class Form {
+        private final long hash;
+        private final long[] tokens;
+
+        private Form(long hash, long[] tokens) {
+            this.hash = hash;
+            this.tokens = tokens;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+
+        /**
+         * 哈希不同时直接判定不同，相同时逐个比较值序列确认
+         */
+        public boolean sameAs(Form other) {
+            return hash == other.hash && Arrays.equals(tokens, other.tokens);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.comparator;
+
+import com.example.generator.LineMap;
+import com.example.parser.ParseCache;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.NameExpr;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 准备好用于比较的切片
+ * 切片的代码部分、在源程序中的行集合、解析结果和规范形式只计算一次，
+ * 同一个原始切片与多个蜕变关系的变体切片比较时不再重复解析和定位原始切片
+ * 变量名规范化后的文本只在规范形式不同、需要逐字比较时才计算
+ */
+@Slf4j
+public final class PreparedSlice {
+
+    private final ParseCache parseCache;
+    private final String slice;
+    private final String code;
+    // 切片在源程序中的行，没有源程序或无法定位时为null
+    private final BitSet lines;
+    // 切片无法解析时为null
+    private final CompilationUnit cu;
+    // 规范形式，切片无法解析时为null
+    private final CanonicalSliceHasher.Form form;
+    private String normalized;
+
+    private PreparedSlice(ParseCache parseCache, String source, String slice) {
+        this.parseCache = parseCache;
+        this.slice = slice;
+        this.code = slice == null ? null : extractJavaCode(slice);
+        this.lines = SliceLines.locate(source, code);
+        this.cu = code == null ? null : parseCache.parse(code).orElse(null);
+        this.form = cu == null ? null : CanonicalSliceHasher.form(cu);
+    }
+
+    /**
+     * @param source 切片所在的源程序，只做文本比较时可以为null
+     * @param slice 切片器输出的切片，切片失败时为null，此时与任何切片都不等价
+     */
+    public static PreparedSlice prepare(ParseCache parseCache, String source, String slice) {
+        return new PreparedSlice(parseCache, source, slice);
+    }
+
+    public String getSlice() {
+        return slice;
+    }
+
+    /**
+     * 以行集合比较切片：把本切片所在的行经变换的行映射换算到变体程序，与变体切片所在的行比较
+     * 被映射的行在变换中原样保留，行集合相同说明两个切片由相同的语句组成
+     * @return 行集合相同时返回true；行集合不同、无法定位切片或有行没有映射时返回false，由调用方比较切片文本
+     */
+    public boolean sameLines(PreparedSlice variant, LineMap lineMap) {
+        if (lineMap == null || lines == null || variant.lines == null || lines.isEmpty()) {
+            return false;
+        }
+        BitSet mappedLines = lineMap.apply(lines);
+        return mappedLines != null && mappedLines.equals(variant.lines);
+    }
+
+    /**
+     * 比较两个切片的文本是否等价
+     * 先比较规范形式，不同时再用公共变量名标准化后比较去掉注释和空白的文本
+     */
+    public boolean sameText(PreparedSlice other) {
+        if (cu == null || other.cu == null) {
+            return false;
+        }
+        // 规范形式相同说明两个切片只相差一致的变量重命名；哈希只用于快速排除，相同时还要逐值确认
+        if (form.sameAs(other.form)) {
+            return true;
+        }
+        boolean isEquivalent = normalized().equals(other.normalized());
+        if (!isEquivalent) {
+            log.info("Slices are not equivalent after normalization");
+        }
+        return isEquivalent;
+    }
+
+    /**
+     * 与变体切片比较并把结论写入测试结果：先比较映射后的行集合，不能确定时再比较切片文本，
+     * 不等价时记录语句级差异
+     * @param lineMap 变换给出的行映射，没有时只比较文本
+     * @return 是否等价
+     */
+    public boolean compareTo(PreparedSlice variant, LineMap lineMap, Map<String, Object> testResult) {
+        boolean sameLines = sameLines(variant, lineMap);
+        boolean isEquivalent = sameLines || sameText(variant);
+        testResult.put("comparedBy", sameLines ? "lines" : "text");
+        log.info("Slices are {} equivalent", isEquivalent ? "" : "not");
+        testResult.put("equivalent", isEquivalent);
+        if (!isEquivalent) {
+            // 只对不等价的切片计算语句级差异
+            testResult.put("sliceDiff", diff(variant));
+        }
+        return isEquivalent;
+    }
+
+    /**
+     * 计算从本切片到另一个切片的语句级差异，行号以切片器输出的文件为准
+     * @return 差异的紧凑记录，有切片为null时返回null
+     */
+    public Map<String, Object> diff(PreparedSlice other) {
+        if (slice == null || other.slice == null) {
+            return null;
+        }
+        SliceDiff diff = SliceDiff.compute(parseCache, extractJavaCodeKeepingLines(slice),
+                extractJavaCodeKeepingLines(other.slice));
+        log.info("Slice diff: {}", diff.summary());
+        return diff.toMap();
+    }
+
+    /**
+     * 变量按声明顺序替换为VAR1、VAR2...，未声明的引用按出现顺序替换为EXTERNAL1、EXTERNAL2...，
+     * 再去掉注释和空白；变量或未声明引用的个数不同时规范化结果必然不同
+     */
+    private synchronized String normalized() {
+        if (normalized == null) {
+            Map<String, String> variableMapping = new HashMap<>();
+            int varCounter = 1;
+            for (VariableDeclarator vd : cu.findAll(VariableDeclarator.class)) {
+                variableMapping.put(vd.getNameAsString(), "VAR" + varCounter++);
+            }
+            Set<String> undeclaredRefs = new LinkedHashSet<>();
+            for (NameExpr nameExpr : cu.findAll(NameExpr.class)) {
+                if (!variableMapping.containsKey(nameExpr.getNameAsString())) {
+                    undeclaredRefs.add(nameExpr.getNameAsString());
+                }
+            }
+            int refCounter = 1;
+            for (String ref : undeclaredRefs) {
+                variableMapping.put(ref, "EXTERNAL" + refCounter++);
+            }
+            log.debug("Variable mapping for slice: {}", variableMapping);
+            normalized = removeCommentsAndWhitespace(normalize(cu, variableMapping));
+        }
+        return normalized;
+    }
+
+    /**
+     * 在副本上标准化变量声明、变量引用和方法参数，解析缓存中的AST保持不变
+     */
+    private static String normalize(CompilationUnit cu, Map<String, String> variableMapping) {
+        CompilationUnit normalizedCu = cu.clone();
+        normalizedCu.findAll(VariableDeclarator.class).forEach(vd -> {
+            String name = variableMapping.get(vd.getNameAsString());
+            if (name != null) {
+                vd.setName(name);
+            }
+        });
+        normalizedCu.findAll(NameExpr.class).forEach(nameExpr -> {
+            String name = variableMapping.get(nameExpr.getNameAsString());
+            if (name != null) {
+                nameExpr.setName(name);
+            }
+        });
+        List<Parameter> parameters = normalizedCu.findAll(Parameter.class);
+        for (Parameter param : parameters) {
+            String name = variableMapping.get(param.getNameAsString());
+            if (name != null) {
+                param.setName(name);
+            }
+        }
+        return normalizedCu.toString();
+    }
+
+    /**
+     * 去除注释和空白字符，用于切片比较
+     */
+    private static String removeCommentsAndWhitespace(String code) {
+        return code.replaceAll("/\\*[\\s\\S]*?\\*/", "")
+                .replaceAll("//.*", "")
+                .replaceAll("\\s+", "")
+                .trim();
+    }
+
+    /**
+     * 提取切片器输出中的Java代码部分，忽略其前的注释
+     */
+    public static String extractJavaCode(String slice) {
+        int startIndex = slice.indexOf("public class");
+        if (startIndex == -1) {
+            return slice;
+        }
+        return slice.substring(startIndex);
+    }
+
+    /**
+     * 与extractJavaCode相同，但把去掉的部分替换为同样多的空行，保持行号不变
+     */
+    public static String extractJavaCodeKeepingLines(String slice) {
+        String code = extractJavaCode(slice);
+        String removed = slice.substring(0, slice.length() - code.length());
+        StringBuilder padded = new StringBuilder();
+        for (int i = 0; i < removed.length(); i++) {
+            if (removed.charAt(i) == '\n') {
+                padded.append('\n');
+            }
+        }
+        return padded.append(code).toString();
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.comparator;
 
+import com.example.parser.ParseCache;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
@@ -9,12 +12,31 @@ import java.util.regex.*;
 @Slf4j
 @Component
 public class SliceComparator {
-    
+
+    private static final Set<String> JAVA_KEYWORDS = new HashSet<>(Arrays.asList(
+        "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class",
+        "const", "continue", "default", "do", "double", "else", "enum", "extends", "final",
+        "finally", "float", "for", "if", "implements", "import", "instanceof", "int", "interface",
+        "long", "native", "new", "package", "private", "protected", "public", "return", "short",
+        "static", "strictfp", "super", "switch", "synchronized", "this", "throw", "throws",
+        "transient", "try", "void", "volatile", "while"
+    ));
+
+    private static final Pattern IDENTIFIER = Pattern.compile("\\b([a-zA-Z_][a-zA-Z0-9_]*)\\b");
+
+    // 比较方式：token 单遍词法分析逐记号比较，regex 原有的正则规范化后比较字符串，两者结论相同
+    @Value("${comparator.mode:token}")
+    private String comparisonMode = "token";
+
+    // 计算差异时与生成器、控制器共享的解析缓存
+    @Autowired
+    private ParseCache parseCache = new ParseCache();
+
+    // 每个线程复用一对词法分析器的缓冲区
+    private final ThreadLocal<SliceTokenizer[]> tokenizers =
+        ThreadLocal.withInitial(() -> new SliceTokenizer[] {new SliceTokenizer(), new SliceTokenizer()});
+
     public boolean compareSlices(String slice1, String slice2) {
-        log.info("Starting slice comparison");
-        log.info("Slice 1: {}", slice1);
-        log.info("Slice 2: {}", slice2);
-        
         if (slice1 == null || slice2 == null) {
             log.error("One or both slices are null");
             return false;
@@ -24,7 +46,37 @@ public class SliceComparator {
             log.error("One or both slices are empty");
             return false;
         }
-        
+
+        return "regex".equalsIgnoreCase(comparisonMode)
+            ? compareByRegex(slice1, slice2)
+            : compareByTokens(slice1, slice2);
+    }
+
+    /**
+     * 对两个切片各做一次词法分析，先比较不同变量的个数，再逐个记号比较
+     */
+    boolean compareByTokens(String slice1, String slice2) {
+        SliceTokenizer[] pair = tokenizers.get();
+        pair[0].tokenize(slice1);
+        pair[1].tokenize(slice2);
+
+        if (pair[0].variableCount() != pair[1].variableCount()) {
+            log.debug("Different number of variables: {} vs {}", pair[0].variableCount(), pair[1].variableCount());
+            return false;
+        }
+        boolean areEqual = pair[0].sameTokens(pair[1]);
+        log.debug("Slices are {}equivalent", areEqual ? "" : "not ");
+        if (!areEqual && log.isDebugEnabled()) {
+            log.debug("Differences found: {}", SliceDiff.compute(parseCache, slice1, slice2).summary());
+        }
+        return areEqual;
+    }
+
+    boolean compareByRegex(String slice1, String slice2) {
+        log.info("Starting slice comparison");
+        log.info("Slice 1: {}", slice1);
+        log.info("Slice 2: {}", slice2);
+
         // 移除空白字符和注释
         String normalizedSlice1 = normalizeSlice(slice1);
         String normalizedSlice2 = normalizeSlice(slice2);
@@ -62,18 +114,8 @@ public class SliceComparator {
         boolean areEqual = strippedSlice1.equals(strippedSlice2);
         log.info("Slices are {}equivalent", areEqual ? "" : "not ");
         
-        if (!areEqual) {
-            log.info("Differences found:");
-            log.info("Slice 1 length: {}", strippedSlice1.length());
-            log.info("Slice 2 length: {}", strippedSlice2.length());
-            if (strippedSlice1.length() == strippedSlice2.length()) {
-                for (int i = 0; i < strippedSlice1.length(); i++) {
-                    if (strippedSlice1.charAt(i) != strippedSlice2.charAt(i)) {
-                        log.info("Difference at position {}: '{}' vs '{}'", 
-                            i, strippedSlice1.charAt(i), strippedSlice2.charAt(i));
-                    }
-                }
-            }
+        if (!areEqual && log.isInfoEnabled()) {
+            log.info("Differences found: {}", SliceDiff.compute(parseCache, slice1, slice2).summary());
         }
         
         return areEqual;
@@ -90,8 +132,7 @@ public class SliceComparator {
     
     private Set<String> extractVariables(String slice) {
         Set<String> variables = new HashSet<>();
-        Pattern pattern = Pattern.compile("\\b([a-zA-Z_][a-zA-Z0-9_]*)\\b");
-        Matcher matcher = pattern.matcher(slice);
+        Matcher matcher = IDENTIFIER.matcher(slice);
         
         while (matcher.find()) {
             String var = matcher.group(1);
@@ -105,15 +146,7 @@ public class SliceComparator {
     }
     
     private boolean isJavaKeyword(String word) {
-        Set<String> keywords = new HashSet<>(Arrays.asList(
-            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class",
-            "const", "continue", "default", "do", "double", "else", "enum", "extends", "final",
-            "finally", "float", "for", "if", "implements", "import", "instanceof", "int", "interface",
-            "long", "native", "new", "package", "private", "protected", "public", "return", "short",
-            "static", "strictfp", "super", "switch", "synchronized", "this", "throw", "throws",
-            "transient", "try", "void", "volatile", "while"
-        ));
-        return keywords.contains(word);
+        return JAVA_KEYWORDS.contains(word);
     }
     
     private Map<String, String> createVariableMap(Set<String> vars1, Set<String> vars2) {
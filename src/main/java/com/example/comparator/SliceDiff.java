@@ -0,0 +1,325 @@
+package com.example.comparator;
+
+import com.example.parser.CanonicalNames;
+import com.example.parser.ParseCache;
+import com.example.parser.StatementHeaders;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 两个切片之间最小的语句级差异
+ * 把切片拆成语句记号（语句和成员声明去掉嵌套部分后的头部，变量按CanonicalNames的作用域编号统一重命名），
+ * 用Myers算法求最小编辑脚本，只保留两边不同的语句及其在切片中的行号
+ * 只在切片不等价时计算，结果以紧凑的结构记录在测试结果中，代替输出完整的规范化切片
+ * 切片无法解析时退化为按行比较
+ */
+public final class SliceDiff {
+
+    // 记录中最多保留的差异条数和每条语句的最大长度
+    private static final int MAX_EDITS = 50;
+    private static final int MAX_STATEMENT_CHARS = 120;
+
+    private final List<Edit> edits;
+    private final int removed;
+    private final int added;
+    private final boolean parsed;
+
+    private SliceDiff(List<Edit> edits, int removed, int added, boolean parsed) {
+        this.edits = edits;
+        this.removed = removed;
+        this.added = added;
+        this.parsed = parsed;
+    }
+
+    /**
+     * 计算从slice1到slice2的语句级差异
+     */
+    public static SliceDiff compute(ParseCache parseCache, String slice1, String slice2) {
+        List<Token> tokens1 = statementTokens(parseCache, slice1);
+        List<Token> tokens2 = statementTokens(parseCache, slice2);
+        boolean parsed = tokens1 != null && tokens2 != null;
+        if (!parsed) {
+            tokens1 = lineTokens(slice1);
+            tokens2 = lineTokens(slice2);
+        }
+
+        // 记号文本驻留为整数后做差异比较
+        Map<String, Integer> ids = new HashMap<>();
+        int[] a = intern(tokens1, ids);
+        int[] b = intern(tokens2, ids);
+
+        List<Edit> edits = new ArrayList<>();
+        int removed = 0;
+        int added = 0;
+        for (long op : myers(a, b)) {
+            boolean deletion = op >= 0;
+            int index = (int) (deletion ? op : ~op);
+            Token token = deletion ? tokens1.get(index) : tokens2.get(index);
+            if (deletion) {
+                removed++;
+            } else {
+                added++;
+            }
+            if (edits.size() < MAX_EDITS) {
+                edits.add(new Edit(deletion ? '-' : '+', token.line, token.text));
+            }
+        }
+        return new SliceDiff(edits, removed, added, parsed);
+    }
+
+    public boolean isEmpty() {
+        return removed == 0 && added == 0;
+    }
+
+    public List<Edit> getEdits() {
+        return edits;
+    }
+
+    public int getRemoved() {
+        return removed;
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    /**
+     * 测试结果中记录的结构
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("granularity", parsed ? "statement" : "line");
+        record.put("removed", removed);
+        record.put("added", added);
+        List<Map<String, Object>> entries = new ArrayList<>(edits.size());
+        for (Edit edit : edits) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("op", String.valueOf(edit.op));
+            entry.put("line", edit.line);
+            entry.put("statement", edit.statement);
+            entries.add(entry);
+        }
+        record.put("edits", entries);
+        record.put("truncated", removed + added > edits.size());
+        return record;
+    }
+
+    /**
+     * 一行的摘要，用于日志
+     */
+    public String summary() {
+        StringBuilder text = new StringBuilder();
+        text.append('-').append(removed).append(" +").append(added);
+        for (Edit edit : edits) {
+            text.append(" | ").append(edit);
+        }
+        if (removed + added > edits.size()) {
+            text.append(" | ...");
+        }
+        return text.toString();
+    }
+
+    /**
+     * 一条差异：'-'只在第一个切片中出现，'+'只在第二个切片中出现
+     */
+    public static final class Edit {
+        private final char op;
+        private final int line;
+        private final String statement;
+
+        Edit(char op, int line, String statement) {
+            this.op = op;
+            this.line = line;
+            this.statement = statement;
+        }
+
+        public char getOp() {
+            return op;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getStatement() {
+            return statement;
+        }
+
+        @Override
+        public String toString() {
+            return op + "" + line + ": " + statement;
+        }
+    }
+
+    private static final class Token {
+        private final String key;
+        private final int line;
+        private final String text;
+
+        Token(String key, int line, String text) {
+            this.key = key;
+            this.line = line;
+            this.text = text;
+        }
+    }
+
+    /**
+     * 按文档顺序取出语句记号，无法解析时返回null
+     */
+    private static List<Token> statementTokens(ParseCache parseCache, String slice) {
+        if (slice == null) {
+            return null;
+        }
+        // 变量重命名在副本上进行
+        CompilationUnit cu = parseCache.parseForWrite(slice).orElse(null);
+        if (cu == null || !ParseCache.isSuccessful(cu)) {
+            return null;
+        }
+
+        List<Node> nodes = new ArrayList<>();
+        cu.walk(Node.TreeTraversal.PREORDER, node -> {
+            if (StatementHeaders.isStatement(node)) {
+                nodes.add(node);
+            }
+        });
+        // 重命名之前记录行号和原始文本
+        List<Integer> lines = new ArrayList<>(nodes.size());
+        List<String> texts = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            lines.add(node.getBegin().map(position -> position.line).orElse(0));
+            texts.add(abbreviate(StatementHeaders.print(node)));
+        }
+
+        CanonicalNames.rename(cu);
+
+        List<Token> tokens = new ArrayList<>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            tokens.add(new Token(StatementHeaders.header(nodes.get(i)), lines.get(i), texts.get(i)));
+        }
+        return tokens;
+    }
+
+    private static List<Token> lineTokens(String slice) {
+        List<Token> tokens = new ArrayList<>();
+        if (slice == null) {
+            return tokens;
+        }
+        String[] lines = slice.split("\r\n|\r|\n");
+        for (int i = 0; i < lines.length; i++) {
+            String trimmed = lines[i].trim();
+            if (!trimmed.isEmpty()) {
+                tokens.add(new Token(trimmed.replaceAll("\\s+", ""), i + 1, abbreviate(trimmed)));
+            }
+        }
+        return tokens;
+    }
+
+    private static String abbreviate(String text) {
+        int newline = text.indexOf('\n');
+        String firstLine = (newline >= 0 ? text.substring(0, newline) : text).trim();
+        return firstLine.length() <= MAX_STATEMENT_CHARS
+                ? firstLine
+                : firstLine.substring(0, MAX_STATEMENT_CHARS) + "...";
+    }
+
+    private static int[] intern(List<Token> tokens, Map<String, Integer> ids) {
+        int[] result = new int[tokens.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.computeIfAbsent(tokens.get(i).key, k -> ids.size());
+        }
+        return result;
+    }
+
+    /**
+     * Myers O(ND)差异算法
+     * @return 按顺序排列的编辑：非负值为a中被删除的下标，负值取反为b中被插入的下标
+     */
+    static List<Long> myers(int[] a, int[] b) {
+        // 公共前缀和后缀不参与搜索
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix] == b[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix
+                && a[a.length - 1 - suffix] == b[b.length - 1 - suffix]) {
+            suffix++;
+        }
+        int n = a.length - prefix - suffix;
+        int m = b.length - prefix - suffix;
+
+        List<Long> edits = new ArrayList<>();
+        if (n == 0 || m == 0) {
+            for (int i = 0; i < n; i++) {
+                edits.add((long) (prefix + i));
+            }
+            for (int j = 0; j < m; j++) {
+                edits.add(~(long) (prefix + j));
+            }
+            return edits;
+        }
+
+        int max = n + m;
+        int offset = max;
+        int[] v = new int[2 * max + 2];
+        List<int[]> trace = new ArrayList<>();
+        int found = -1;
+        for (int d = 0; d <= max && found < 0; d++) {
+            trace.add(v.clone());
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    x = v[offset + k + 1];
+                } else {
+                    x = v[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && a[prefix + x] == b[prefix + y]) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    found = d;
+                    break;
+                }
+            }
+        }
+
+        // 从终点沿记录的前沿回溯出编辑脚本
+        int x = n;
+        int y = m;
+        for (int d = found; d > 0; d--) {
+            int[] previous = trace.get(d);
+            int k = x - y;
+            int previousK;
+            if (k == -d || (k != d && previous[offset + k - 1] < previous[offset + k + 1])) {
+                previousK = k + 1;
+            } else {
+                previousK = k - 1;
+            }
+            int previousX = previous[offset + previousK];
+            int previousY = previousX - previousK;
+            while (x > previousX && y > previousY) {
+                x--;
+                y--;
+            }
+            if (previousK == k + 1) {
+                edits.add(~(long) (prefix + previousY));
+            } else {
+                edits.add((long) (prefix + previousX));
+            }
+            x = previousX;
+            y = previousY;
+        }
+        Collections.reverse(edits);
+        return edits;
+    }
+}
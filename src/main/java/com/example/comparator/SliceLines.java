@@ -0,0 +1,88 @@
+package com.example.comparator;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 切片的行集合表示
+ * 切片器按源程序的顺序输出被保留的语句，把切片中的每个有效行按顺序对齐到源程序的行上，
+ * 得到以源程序行号表示的切片；配合变换给出的行映射，比较两个切片只需要映射并比较两个行集合
+ * 只由括号、分号等符号组成的行以及空行、注释行不参与对齐
+ */
+public final class SliceLines {
+
+    private SliceLines() {
+    }
+
+    /**
+     * 定位切片在源程序中的行
+     * @return 源程序行号（从1开始）的集合，切片中有不能对齐到源程序的行时返回null
+     */
+    public static BitSet locate(String source, String slice) {
+        if (source == null || slice == null) {
+            return null;
+        }
+
+        String[] sourceLines = source.split("\r\n|\r|\n", -1);
+        List<String> normalizedSource = new ArrayList<>(sourceLines.length);
+        for (String line : sourceLines) {
+            normalizedSource.add(normalize(line));
+        }
+
+        BitSet lines = new BitSet();
+        int next = 0;
+        boolean inBlockComment = false;
+        for (String raw : slice.split("\r\n|\r|\n")) {
+            String trimmed = raw.trim();
+            if (inBlockComment) {
+                inBlockComment = !trimmed.contains("*/");
+                continue;
+            }
+            if (trimmed.startsWith("/*")) {
+                inBlockComment = !trimmed.contains("*/");
+                continue;
+            }
+
+            String line = normalize(raw);
+            if (!isSignificant(line)) {
+                continue;
+            }
+            // 切片保持源程序中的相对顺序，从上一个对齐位置之后查找
+            int found = -1;
+            for (int i = next; i < normalizedSource.size(); i++) {
+                if (normalizedSource.get(i).equals(line)) {
+                    found = i;
+                    break;
+                }
+            }
+            if (found < 0) {
+                return null;
+            }
+            lines.set(found + 1);
+            next = found + 1;
+        }
+        return lines;
+    }
+
+    /**
+     * 去掉行注释并压缩空白
+     */
+    private static String normalize(String line) {
+        int comment = line.indexOf("//");
+        if (comment >= 0) {
+            line = line.substring(0, comment);
+        }
+        return line.trim().replaceAll("\\s+", " ");
+    }
+
+    private static boolean isSignificant(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '$') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.comparator;
+
+import java.util.Arrays;
+
+/**
+ * 切片比较用的单遍词法分析器
+ * 与SliceComparator原有的正则规范化得到相同的结论：去掉块注释和最后一行的行注释、忽略空白字符后，
+ * 只由ASCII字母、数字和下划线组成且不以数字开头的单词串作为标识符记号
+ * （比较时互相视为相同，同时按文本驻留以统计不同变量的个数），其余字符原样作为记号；
+ * 单词串的边界与正则的\b一致，非ASCII字母也算单词字符
+ * 实例持有可复用的缓冲区，不是线程安全的，比较过程中不创建中间字符串
+ */
+final class SliceTokenizer {
+
+    /**
+     * 标识符记号，其余记号是字符本身
+     */
+    static final int IDENTIFIER = -1;
+
+    private static final char[][] KEYWORDS = toCharArrays(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class",
+            "const", "continue", "default", "do", "double", "else", "enum", "extends", "final",
+            "finally", "float", "for", "if", "implements", "import", "instanceof", "int", "interface",
+            "long", "native", "new", "package", "private", "protected", "public", "return", "short",
+            "static", "strictfp", "super", "switch", "synchronized", "this", "throw", "throws",
+            "transient", "try", "void", "volatile", "while");
+
+    // 去掉注释和空白后的字符
+    private char[] chars = new char[1024];
+    private int length;
+
+    private int[] tokens = new int[1024];
+    private int tokenCount;
+
+    // 标识符的驻留表：开放定址，槽位存放符号序号+1，符号以在chars中的起点和长度表示
+    private int[] table = new int[256];
+    private int[] symbolStart = new int[128];
+    private int[] symbolLength = new int[128];
+    private int symbolCount;
+    private int variableCount;
+
+    /**
+     * 对切片做词法分析，覆盖上一次的结果
+     */
+    void tokenize(CharSequence slice) {
+        length = 0;
+        tokenCount = 0;
+        symbolCount = 0;
+        variableCount = 0;
+        Arrays.fill(table, 0);
+
+        stripCommentsAndWhitespace(slice);
+
+        int i = 0;
+        while (i < length) {
+            char c = chars[i];
+            if (!isWordChar(c)) {
+                addToken(c);
+                i++;
+                continue;
+            }
+            int start = i;
+            boolean identifier = isIdentifierStart(c);
+            while (i < length && isWordChar(chars[i])) {
+                identifier &= isIdentifierPart(chars[i]);
+                i++;
+            }
+            if (!identifier) {
+                // 以数字开头或含非ASCII字符的单词串内部没有单词边界，不含标识符，逐字符比较
+                for (int j = start; j < i; j++) {
+                    addToken(chars[j]);
+                }
+            } else {
+                addToken(IDENTIFIER);
+                intern(start, i - start);
+            }
+        }
+    }
+
+    /**
+     * 不同的非关键字标识符个数
+     */
+    int variableCount() {
+        return variableCount;
+    }
+
+    boolean sameTokens(SliceTokenizer other) {
+        return Arrays.equals(tokens, 0, tokenCount, other.tokens, 0, other.tokenCount);
+    }
+
+    /**
+     * 把有效字符写入chars：跳过空白和块注释，以及最后一行中从第一个"//"开始的部分
+     * 块注释不能跨越被删去的行注释，与先删行注释再删块注释的顺序一致
+     */
+    private void stripCommentsAndWhitespace(CharSequence slice) {
+        int n = slice.length();
+        int cutStart = lineCommentStart(slice);
+        int cutLength = cutStart < 0 ? 0 : lastLineEnd(slice) - cutStart;
+        if (cutStart < 0) {
+            cutStart = n;
+        }
+        int virtualLength = n - cutLength;
+        ensureCharCapacity(virtualLength);
+
+        // 之后不再有"*/"的起始位置，未闭合的"/*"不必重复查找
+        int noCloseFrom = Integer.MAX_VALUE;
+        int i = 0;
+        while (i < virtualLength) {
+            char c = charAt(slice, i, cutStart, cutLength);
+            if (c == '/' && i + 1 < virtualLength && charAt(slice, i + 1, cutStart, cutLength) == '*'
+                    && i + 2 < noCloseFrom) {
+                int close = findCommentClose(slice, i + 2, virtualLength, cutStart, cutLength);
+                if (close >= 0) {
+                    i = close + 2;
+                    continue;
+                }
+                noCloseFrom = i + 2;
+            }
+            if (!isWhitespace(c)) {
+                chars[length++] = c;
+            }
+            i++;
+        }
+    }
+
+    private static int findCommentClose(CharSequence slice, int from, int virtualLength, int cutStart, int cutLength) {
+        for (int j = from; j + 1 < virtualLength; j++) {
+            if (charAt(slice, j, cutStart, cutLength) == '*' && charAt(slice, j + 1, cutStart, cutLength) == '/') {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    private static char charAt(CharSequence slice, int virtualIndex, int cutStart, int cutLength) {
+        return slice.charAt(virtualIndex < cutStart ? virtualIndex : virtualIndex + cutLength);
+    }
+
+    /**
+     * 与不带MULTILINE的"//.*$"相同：只有最后一行（不计末尾的换行）中的行注释会被删除
+     */
+    private static int lineCommentStart(CharSequence slice) {
+        int end = lastLineEnd(slice);
+        int lineStart = end;
+        while (lineStart > 0 && !isLineTerminator(slice.charAt(lineStart - 1))) {
+            lineStart--;
+        }
+        for (int i = lineStart; i + 1 < end; i++) {
+            if (slice.charAt(i) == '/' && slice.charAt(i + 1) == '/') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastLineEnd(CharSequence slice) {
+        int n = slice.length();
+        if (n >= 2 && slice.charAt(n - 2) == '\r' && slice.charAt(n - 1) == '\n') {
+            return n - 2;
+        }
+        if (n >= 1 && isLineTerminator(slice.charAt(n - 1))) {
+            return n - 1;
+        }
+        return n;
+    }
+
+    private void intern(int start, int len) {
+        int hash = 0;
+        for (int i = start; i < start + len; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int mask = table.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (table[slot] != 0) {
+            int symbol = table[slot] - 1;
+            if (regionEquals(symbolStart[symbol], symbolLength[symbol], start, len)) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (symbolCount == symbolStart.length) {
+            symbolStart = Arrays.copyOf(symbolStart, symbolCount * 2);
+            symbolLength = Arrays.copyOf(symbolLength, symbolCount * 2);
+        }
+        symbolStart[symbolCount] = start;
+        symbolLength[symbolCount] = len;
+        table[slot] = ++symbolCount;
+        if (!isKeyword(start, len)) {
+            variableCount++;
+        }
+        if (symbolCount * 2 > table.length) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            int hash = 0;
+            for (int i = symbolStart[symbol]; i < symbolStart[symbol] + symbolLength[symbol]; i++) {
+                hash = 31 * hash + chars[i];
+            }
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = symbol + 1;
+        }
+    }
+
+    private boolean regionEquals(int start1, int len1, int start2, int len2) {
+        return len1 == len2 && Arrays.equals(chars, start1, start1 + len1, chars, start2, start2 + len2);
+    }
+
+    private boolean isKeyword(int start, int len) {
+        for (char[] keyword : KEYWORDS) {
+            if (keyword.length == len && Arrays.equals(keyword, 0, len, chars, start, start + len)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addToken(int token) {
+        if (tokenCount == tokens.length) {
+            tokens = Arrays.copyOf(tokens, tokenCount * 2);
+        }
+        tokens[tokenCount++] = token;
+    }
+
+    private void ensureCharCapacity(int capacity) {
+        if (chars.length < capacity) {
+            chars = new char[Math.max(capacity, chars.length * 2)];
+        }
+    }
+
+    /**
+     * 正则\b判断单词边界时的单词字符
+     */
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * 正则中的\s
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * 正则中"."不匹配的行终止符
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static char[][] toCharArrays(String... words) {
+        char[][] arrays = new char[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            arrays[i] = words[i].toCharArray();
+        }
+        return arrays;
+    }
+}
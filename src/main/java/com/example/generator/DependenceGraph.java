@@ -0,0 +1,843 @@
+package com.example.generator;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.EnclosedExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.stmt.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * 一个方法体的过程内依赖图
+ * 以简单语句和控制结构的头部（条件、for的初始化和更新、switch的选择表达式）为节点建立控制流图，
+ * 用位向量工作表算法计算到达定义得到数据依赖，用后必经节点计算控制依赖，
+ * 对数组元素、字段的写入和对局部对象的方法调用记为基变量的弱定义（只产生定义，不杀死之前的定义），
+ * 再为每个节点计算依赖的传递闭包；与切片变量相关的节点是所有读写切片变量的节点及其传递依赖
+ * 建立后只读，各种查询不再遍历AST；变换安全性判断和参考切片器都使用它
+ */
+public final class DependenceGraph {
+
+    // 每个节点读、写的变量和在其中声明的变量，下标为变量编号
+    private final List<BitSet> uses = new ArrayList<>();
+    private final List<BitSet> defs = new ArrayList<>();
+    // defs中只写入变量一部分的弱定义
+    private final List<BitSet> weakDefs = new ArrayList<>();
+    private final List<BitSet> declarations = new ArrayList<>();
+    private final List<BitSet> successors = new ArrayList<>();
+    private final Map<String, Integer> variables = new HashMap<>();
+
+    // 语句（或for的初始化、更新表达式）到节点的映射，控制结构映射到其头部节点
+    private final Map<Node, Integer> ids = new IdentityHashMap<>();
+    // 语句子树中的节点编号范围[first, last]，子树中没有节点时last < first
+    private final Map<Node, int[]> ranges = new IdentityHashMap<>();
+
+    private BitSet[] dataDependencies;
+    private BitSet[] controlDependencies;
+    private BitSet[] closures;
+    private final BitSet relevant = new BitSet();
+    private final BitSet relevantVariables = new BitSet();
+
+    private DependenceGraph() {
+    }
+
+    /**
+     * 建立方法体的依赖图
+     * @param body 方法体，不会被修改
+     * @param sliceVariable 判断变量是否为切片变量，读写切片变量的节点作为相关节点的起点
+     */
+    public static DependenceGraph build(BlockStmt body, Predicate<String> sliceVariable) {
+        DependenceGraph graph = new DependenceGraph();
+        Builder builder = new Builder(graph);
+        List<Integer> exits = builder.visit(body, Collections.emptyList());
+        exits.addAll(builder.returns);
+        int exit = graph.size();
+        for (int node : exits) {
+            graph.successors.get(node).set(exit);
+        }
+        graph.computeDataDependencies();
+        graph.computeControlDependencies(exit);
+        graph.computeClosures();
+        graph.computeRelevance(sliceVariable);
+        return graph;
+    }
+
+    /**
+     * 节点个数，不含虚拟的出口节点
+     */
+    public int size() {
+        return uses.size();
+    }
+
+    /**
+     * 与切片变量相关的节点个数
+     */
+    int relevantCount() {
+        return relevant.cardinality();
+    }
+
+    /**
+     * 语句对应的节点，控制结构对应其头部；语句不在方法体中或没有对应节点时返回-1
+     */
+    public int id(Node statement) {
+        Integer id = ids.get(statement);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * 包含node的最内层有对应节点的语句或表达式的节点，node不在方法体中时返回-1
+     */
+    int enclosingId(Node node) {
+        for (Node current = node; current != null; current = current.getParentNode().orElse(null)) {
+            Integer id = ids.get(current);
+            if (id != null) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    boolean isRelevant(int id) {
+        return id >= 0 && relevant.get(id);
+    }
+
+    /**
+     * 语句子树中是否有与切片变量相关的节点；不在方法体中的语句按相关处理
+     */
+    boolean touchesRelevant(Node statement) {
+        return touches(statement, relevant);
+    }
+
+    /**
+     * 变量被与切片变量相关的节点读写
+     */
+    boolean isRelevantVariable(String name) {
+        Integer id = variables.get(name);
+        return id != null && relevantVariables.get(id);
+    }
+
+    /**
+     * 语句开始于给定行、读写给定变量的节点
+     */
+    public BitSet nodesAt(int line, String variable) {
+        BitSet nodes = new BitSet();
+        Integer v = variables.get(variable);
+        if (v == null) {
+            return nodes;
+        }
+        ids.forEach((node, id) -> {
+            boolean accesses = uses.get(id).get(v) || defs.get(id).get(v);
+            if (accesses && node.getBegin().map(begin -> begin.line == line).orElse(false)) {
+                nodes.set(id);
+            }
+        });
+        return nodes;
+    }
+
+    /**
+     * 从准则节点出发的后向切片：准则节点及其沿数据依赖和控制依赖的传递闭包，
+     * 再加上切片中读写的变量在第一次访问之前最近的声明（及其依赖），使切片可以编译
+     */
+    public BitSet backwardSlice(BitSet criteria) {
+        BitSet slice = (BitSet) criteria.clone();
+        for (int node = criteria.nextSetBit(0); node >= 0; node = criteria.nextSetBit(node + 1)) {
+            slice.or(closures[node]);
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            BitSet declared = new BitSet();
+            BitSet accessed = new BitSet();
+            for (int node = slice.nextSetBit(0); node >= 0; node = slice.nextSetBit(node + 1)) {
+                declared.or(declarations.get(node));
+                accessed.or(uses.get(node));
+                accessed.or(defs.get(node));
+            }
+            accessed.andNot(declared);
+            for (int v = accessed.nextSetBit(0); v >= 0; v = accessed.nextSetBit(v + 1)) {
+                int declaration = declarationBefore(v, firstAccess(slice, v));
+                if (declaration >= 0) {
+                    slice.set(declaration);
+                    slice.or(closures[declaration]);
+                    changed = true;
+                }
+            }
+        }
+        return slice;
+    }
+
+    private int firstAccess(BitSet nodes, int variable) {
+        for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            if (uses.get(node).get(variable) || defs.get(node).get(variable)) {
+                return node;
+            }
+        }
+        return -1;
+    }
+
+    private int declarationBefore(int variable, int node) {
+        for (int candidate = node; candidate >= 0; candidate--) {
+            if (declarations.get(candidate).get(variable)) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 语句子树中是否有给定集合中的节点；不在方法体中的语句按有处理
+     */
+    public boolean touches(Node statement, BitSet nodes) {
+        int[] range = ranges.get(statement);
+        if (range == null) {
+            return true;
+        }
+        int next = nodes.nextSetBit(range[0]);
+        return next >= 0 && next <= range[1];
+    }
+
+    /**
+     * 节点a是否沿数据依赖和控制依赖（传递地）依赖于节点b
+     */
+    boolean dependsOn(int a, int b) {
+        return closures[a].get(b);
+    }
+
+    boolean hasDataDependency(int a, int b) {
+        return dataDependencies[a].get(b);
+    }
+
+    boolean hasControlDependency(int a, int b) {
+        return controlDependencies[a].get(b);
+    }
+
+    /**
+     * 语句子树读写的变量，用于判断两条语句能否交换顺序
+     * 复合语句中声明的变量只在其内部可见，单独记录
+     */
+    Access access(Node statement) {
+        int[] range = ranges.get(statement);
+        Access access = new Access();
+        if (range == null) {
+            return access;
+        }
+        boolean compound = !(statement instanceof ExpressionStmt);
+        for (int id = range[0]; id <= range[1]; id++) {
+            access.reads.or(uses.get(id));
+            access.writes.or(defs.get(id));
+            if (compound) {
+                access.locals.or(declarations.get(id));
+            } else {
+                access.declares.or(declarations.get(id));
+            }
+        }
+        access.reads.andNot(access.locals);
+        access.writes.andNot(access.locals);
+        return access;
+    }
+
+    /**
+     * 到达定义：每个定义编号，gen/kill用位向量表示，用工作表迭代到不动点；
+     * 节点读取的变量的到达定义所在节点就是它的数据依赖
+     */
+    private void computeDataDependencies() {
+        int size = size();
+        List<Integer> definitionNodes = new ArrayList<>();
+        List<BitSet> definitionsOf = new ArrayList<>();
+        for (int v = 0; v < variables.size(); v++) {
+            definitionsOf.add(new BitSet());
+        }
+        BitSet[] gen = new BitSet[size];
+        for (int node = 0; node < size; node++) {
+            gen[node] = new BitSet();
+            BitSet written = defs.get(node);
+            for (int v = written.nextSetBit(0); v >= 0; v = written.nextSetBit(v + 1)) {
+                int definition = definitionNodes.size();
+                definitionNodes.add(node);
+                definitionsOf.get(v).set(definition);
+                gen[node].set(definition);
+            }
+        }
+        BitSet[] kill = new BitSet[size];
+        List<BitSet> predecessors = predecessors(size);
+        for (int node = 0; node < size; node++) {
+            kill[node] = new BitSet();
+            // 弱定义不杀死之前的定义
+            BitSet written = (BitSet) defs.get(node).clone();
+            written.andNot(weakDefs.get(node));
+            for (int v = written.nextSetBit(0); v >= 0; v = written.nextSetBit(v + 1)) {
+                kill[node].or(definitionsOf.get(v));
+            }
+            kill[node].andNot(gen[node]);
+        }
+
+        BitSet[] in = new BitSet[size];
+        BitSet[] out = new BitSet[size];
+        Deque<Integer> worklist = new ArrayDeque<>();
+        BitSet queued = new BitSet();
+        for (int node = 0; node < size; node++) {
+            in[node] = new BitSet();
+            out[node] = (BitSet) gen[node].clone();
+            worklist.add(node);
+            queued.set(node);
+        }
+        while (!worklist.isEmpty()) {
+            int node = worklist.poll();
+            queued.clear(node);
+            BitSet reaching = new BitSet();
+            BitSet preds = predecessors.get(node);
+            for (int p = preds.nextSetBit(0); p >= 0; p = preds.nextSetBit(p + 1)) {
+                reaching.or(out[p]);
+            }
+            in[node] = reaching;
+            BitSet result = (BitSet) reaching.clone();
+            result.andNot(kill[node]);
+            result.or(gen[node]);
+            if (!result.equals(out[node])) {
+                out[node] = result;
+                BitSet succs = successors.get(node);
+                for (int s = succs.nextSetBit(0); s >= 0 && s < size; s = succs.nextSetBit(s + 1)) {
+                    if (!queued.get(s)) {
+                        queued.set(s);
+                        worklist.add(s);
+                    }
+                }
+            }
+        }
+
+        dataDependencies = new BitSet[size];
+        for (int node = 0; node < size; node++) {
+            dataDependencies[node] = new BitSet();
+            BitSet read = uses.get(node);
+            for (int v = read.nextSetBit(0); v >= 0; v = read.nextSetBit(v + 1)) {
+                BitSet reachingDefinitions = (BitSet) definitionsOf.get(v).clone();
+                reachingDefinitions.and(in[node]);
+                for (int d = reachingDefinitions.nextSetBit(0); d >= 0; d = reachingDefinitions.nextSetBit(d + 1)) {
+                    dataDependencies[node].set(definitionNodes.get(d));
+                }
+            }
+        }
+    }
+
+    /**
+     * 后必经节点用位向量迭代求解；节点n控制依赖于分支节点a，当且仅当n后必经a的某个后继且不严格后必经a
+     * 不能到达出口的节点（死循环）保持全集，不产生控制依赖
+     */
+    private void computeControlDependencies(int exit) {
+        int size = size();
+        BitSet[] postDominators = new BitSet[size + 1];
+        BitSet all = new BitSet();
+        all.set(0, size + 1);
+        for (int node = 0; node < size; node++) {
+            postDominators[node] = (BitSet) all.clone();
+        }
+        postDominators[exit] = new BitSet();
+        postDominators[exit].set(exit);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            // 逆序遍历，后继大多在前面已经更新
+            for (int node = size - 1; node >= 0; node--) {
+                BitSet result = null;
+                BitSet succs = successors.get(node);
+                for (int s = succs.nextSetBit(0); s >= 0; s = succs.nextSetBit(s + 1)) {
+                    if (result == null) {
+                        result = (BitSet) postDominators[s].clone();
+                    } else {
+                        result.and(postDominators[s]);
+                    }
+                }
+                if (result == null) {
+                    result = (BitSet) all.clone();
+                }
+                result.set(node);
+                if (!result.equals(postDominators[node])) {
+                    postDominators[node] = result;
+                    changed = true;
+                }
+            }
+        }
+
+        controlDependencies = new BitSet[size];
+        for (int node = 0; node < size; node++) {
+            controlDependencies[node] = new BitSet();
+        }
+        for (int branch = 0; branch < size; branch++) {
+            BitSet succs = successors.get(branch);
+            if (succs.cardinality() < 2) {
+                continue;
+            }
+            BitSet strict = (BitSet) postDominators[branch].clone();
+            strict.clear(branch);
+            for (int s = succs.nextSetBit(0); s >= 0; s = succs.nextSetBit(s + 1)) {
+                BitSet dependents = (BitSet) postDominators[s].clone();
+                dependents.andNot(strict);
+                dependents.clear(exit);
+                for (int node = dependents.nextSetBit(0); node >= 0; node = dependents.nextSetBit(node + 1)) {
+                    controlDependencies[node].set(branch);
+                }
+            }
+        }
+    }
+
+    /**
+     * 每个节点沿数据依赖和控制依赖可以到达的节点集合
+     */
+    private void computeClosures() {
+        int size = size();
+        closures = new BitSet[size];
+        for (int node = 0; node < size; node++) {
+            BitSet closure = new BitSet();
+            Deque<Integer> pending = new ArrayDeque<>();
+            pending.push(node);
+            while (!pending.isEmpty()) {
+                int current = pending.pop();
+                BitSet direct = (BitSet) dataDependencies[current].clone();
+                direct.or(controlDependencies[current]);
+                direct.andNot(closure);
+                closure.or(direct);
+                for (int d = direct.nextSetBit(0); d >= 0; d = direct.nextSetBit(d + 1)) {
+                    pending.push(d);
+                }
+            }
+            closures[node] = closure;
+        }
+    }
+
+    private void computeRelevance(Predicate<String> sliceVariable) {
+        BitSet sliceVariableIds = new BitSet();
+        variables.forEach((name, id) -> {
+            if (sliceVariable.test(name)) {
+                sliceVariableIds.set(id);
+            }
+        });
+        for (int node = 0; node < size(); node++) {
+            if (uses.get(node).intersects(sliceVariableIds) || defs.get(node).intersects(sliceVariableIds)) {
+                relevant.set(node);
+                relevant.or(closures[node]);
+            }
+        }
+        for (int node = relevant.nextSetBit(0); node >= 0; node = relevant.nextSetBit(node + 1)) {
+            relevantVariables.or(uses.get(node));
+            relevantVariables.or(defs.get(node));
+        }
+    }
+
+    private List<BitSet> predecessors(int size) {
+        List<BitSet> predecessors = new ArrayList<>(size);
+        for (int node = 0; node < size; node++) {
+            predecessors.add(new BitSet());
+        }
+        for (int node = 0; node < size; node++) {
+            BitSet succs = successors.get(node);
+            for (int s = succs.nextSetBit(0); s >= 0 && s < size; s = succs.nextSetBit(s + 1)) {
+                predecessors.get(s).set(node);
+            }
+        }
+        return predecessors;
+    }
+
+    /**
+     * 语句子树读写的变量
+     */
+    static final class Access {
+        private final BitSet reads = new BitSet();
+        private final BitSet writes = new BitSet();
+        // 语句本身声明的变量（声明语句）和在内部作用域中声明的变量（复合语句）
+        private final BitSet declares = new BitSet();
+        private final BitSet locals = new BitSet();
+
+        /**
+         * 把另一条语句的读写合并进来，用于表示一组语句
+         */
+        void add(Access other) {
+            reads.or(other.reads);
+            writes.or(other.writes);
+            declares.or(other.declares);
+            locals.or(other.locals);
+        }
+
+        /**
+         * 两组语句交换顺序是否可能改变程序的含义或使程序不能编译：
+         * 一方写另一方读写的变量，一方声明另一方读写的变量，或一方内部声明的变量与另一方声明的变量同名
+         */
+        boolean conflictsWith(Access other) {
+            return writes.intersects(other.reads) || writes.intersects(other.writes)
+                    || other.writes.intersects(reads)
+                    || declares.intersects(other.reads) || declares.intersects(other.writes)
+                    || other.declares.intersects(reads) || other.declares.intersects(writes)
+                    || declares.intersects(other.declares)
+                    || locals.intersects(other.declares) || other.locals.intersects(declares);
+        }
+    }
+
+    /**
+     * 建立控制流图：visit把语句接在给定的前驱之后，返回顺序执行到语句之后的节点
+     */
+    private static final class Builder {
+        private final DependenceGraph graph;
+        // 正在其中的循环、switch和带标号的语句，break和continue跳转到最内层（或同标号）的目标
+        private final Deque<Target> targets = new ArrayDeque<>();
+        private final List<Integer> returns = new ArrayList<>();
+        // 已经在方法体中声明的变量
+        private final BitSet declared = new BitSet();
+
+        Builder(DependenceGraph graph) {
+            this.graph = graph;
+        }
+
+        List<Integer> visit(Statement stmt, List<Integer> in) {
+            int first = graph.size();
+            List<Integer> out = visitStatement(stmt, in, null);
+            graph.ranges.put(stmt, new int[] {first, graph.size() - 1});
+            return out;
+        }
+
+        private List<Integer> visitStatement(Statement stmt, List<Integer> in, String label) {
+            if (stmt instanceof BlockStmt) {
+                List<Integer> current = in;
+                for (Statement child : ((BlockStmt) stmt).getStatements()) {
+                    current = visit(child, current);
+                }
+                return new ArrayList<>(current);
+            } else if (stmt instanceof IfStmt) {
+                IfStmt ifStmt = (IfStmt) stmt;
+                int condition = node(stmt, in, ifStmt.getCondition());
+                List<Integer> out = visit(ifStmt.getThenStmt(), single(condition));
+                if (ifStmt.getElseStmt().isPresent()) {
+                    out.addAll(visit(ifStmt.getElseStmt().get(), single(condition)));
+                } else {
+                    out.add(condition);
+                }
+                return out;
+            } else if (stmt instanceof WhileStmt) {
+                WhileStmt whileStmt = (WhileStmt) stmt;
+                int condition = node(stmt, in, whileStmt.getCondition());
+                Target target = push(label, Target.LOOP);
+                List<Integer> bodyOut = visit(whileStmt.getBody(), single(condition));
+                targets.pop();
+                connect(bodyOut, condition);
+                connect(target.continues, condition);
+                List<Integer> out = single(condition);
+                out.addAll(target.breaks);
+                return out;
+            } else if (stmt instanceof DoStmt) {
+                DoStmt doStmt = (DoStmt) stmt;
+                int entry = graph.size();
+                Target target = push(label, Target.LOOP);
+                List<Integer> bodyOut = visit(doStmt.getBody(), in);
+                targets.pop();
+                List<Integer> conditionIn = new ArrayList<>(bodyOut);
+                conditionIn.addAll(target.continues);
+                int condition = node(stmt, conditionIn, doStmt.getCondition());
+                graph.successors.get(condition).set(entry < condition ? entry : condition);
+                List<Integer> out = single(condition);
+                out.addAll(target.breaks);
+                return out;
+            } else if (stmt instanceof ForStmt) {
+                ForStmt forStmt = (ForStmt) stmt;
+                List<Integer> current = in;
+                if (forStmt.getInitialization().isNonEmpty()) {
+                    int init = node(null, current, forStmt.getInitialization());
+                    forStmt.getInitialization().forEach(expr -> graph.ids.put(expr, init));
+                    current = single(init);
+                }
+                int condition = node(stmt, current, forStmt.getCompare().orElse(null));
+                Target target = push(label, Target.LOOP);
+                List<Integer> bodyOut = visit(forStmt.getBody(), single(condition));
+                targets.pop();
+                List<Integer> updateIn = new ArrayList<>(bodyOut);
+                updateIn.addAll(target.continues);
+                if (forStmt.getUpdate().isNonEmpty()) {
+                    int update = node(null, updateIn, forStmt.getUpdate());
+                    forStmt.getUpdate().forEach(expr -> graph.ids.put(expr, update));
+                    graph.successors.get(update).set(condition);
+                } else {
+                    connect(updateIn, condition);
+                }
+                List<Integer> out = forStmt.getCompare().isPresent() ? single(condition) : new ArrayList<>();
+                out.addAll(target.breaks);
+                return out;
+            } else if (stmt instanceof ForEachStmt) {
+                ForEachStmt forEach = (ForEachStmt) stmt;
+                int header = node(stmt, in, forEach.getVariable(), forEach.getIterable());
+                Target target = push(label, Target.LOOP);
+                List<Integer> bodyOut = visit(forEach.getBody(), single(header));
+                targets.pop();
+                connect(bodyOut, header);
+                connect(target.continues, header);
+                List<Integer> out = single(header);
+                out.addAll(target.breaks);
+                return out;
+            } else if (stmt instanceof SwitchStmt) {
+                SwitchStmt switchStmt = (SwitchStmt) stmt;
+                int selector = node(stmt, in, switchStmt.getSelector());
+                Target target = push(label, Target.SWITCH);
+                List<Integer> fallThrough = new ArrayList<>();
+                boolean hasDefault = false;
+                for (SwitchEntry entry : switchStmt.getEntries()) {
+                    hasDefault |= entry.getLabels().isEmpty();
+                    List<Integer> current = new ArrayList<>(fallThrough);
+                    current.add(selector);
+                    for (Statement child : entry.getStatements()) {
+                        current = visit(child, current);
+                    }
+                    fallThrough = current;
+                }
+                targets.pop();
+                List<Integer> out = new ArrayList<>(fallThrough);
+                out.addAll(target.breaks);
+                if (!hasDefault) {
+                    out.add(selector);
+                }
+                return out;
+            } else if (stmt instanceof LabeledStmt) {
+                LabeledStmt labeled = (LabeledStmt) stmt;
+                Statement inner = labeled.getStatement();
+                if (inner instanceof WhileStmt || inner instanceof DoStmt || inner instanceof ForStmt
+                        || inner instanceof ForEachStmt || inner instanceof SwitchStmt) {
+                    int first = graph.size();
+                    List<Integer> out = visitStatement(inner, in, labeled.getLabel().asString());
+                    graph.ranges.put(inner, new int[] {first, graph.size() - 1});
+                    return out;
+                }
+                Target target = push(labeled.getLabel().asString(), Target.BLOCK);
+                List<Integer> out = visit(inner, in);
+                targets.pop();
+                out.addAll(target.breaks);
+                return out;
+            } else if (stmt instanceof BreakStmt) {
+                int node = node(stmt, in);
+                Target target = find(((BreakStmt) stmt).getLabel().map(l -> l.asString()), false);
+                if (target != null) {
+                    target.breaks.add(node);
+                } else {
+                    returns.add(node);
+                }
+                return new ArrayList<>();
+            } else if (stmt instanceof ContinueStmt) {
+                int node = node(stmt, in);
+                Target target = find(((ContinueStmt) stmt).getLabel().map(l -> l.asString()), true);
+                if (target != null) {
+                    target.continues.add(node);
+                } else {
+                    returns.add(node);
+                }
+                return new ArrayList<>();
+            } else if (stmt instanceof ReturnStmt || stmt instanceof ThrowStmt) {
+                returns.add(node(stmt, in, stmt));
+                return new ArrayList<>();
+            } else if (stmt instanceof TryStmt) {
+                TryStmt tryStmt = (TryStmt) stmt;
+                List<Integer> current = in;
+                if (tryStmt.getResources().isNonEmpty()) {
+                    int resources = node(null, current, tryStmt.getResources());
+                    tryStmt.getResources().forEach(resource -> graph.ids.put(resource, resources));
+                    current = single(resources);
+                }
+                int first = graph.size();
+                List<Integer> out = visit(tryStmt.getTryBlock(), current);
+                // 异常可能在try块的任何位置抛出，catch块的前驱是进入try块之前和try块中的所有节点
+                List<Integer> catchIn = new ArrayList<>(current);
+                for (int node = first; node < graph.size(); node++) {
+                    catchIn.add(node);
+                }
+                for (CatchClause clause : tryStmt.getCatchClauses()) {
+                    out.addAll(visit(clause.getBody(), catchIn));
+                }
+                if (tryStmt.getFinallyBlock().isPresent()) {
+                    out = visit(tryStmt.getFinallyBlock().get(), out);
+                }
+                return out;
+            } else if (stmt instanceof SynchronizedStmt) {
+                SynchronizedStmt sync = (SynchronizedStmt) stmt;
+                int lock = node(stmt, in, sync.getExpression());
+                return visit(sync.getBody(), single(lock));
+            }
+            // 表达式语句、局部类声明等其余语句各为一个节点
+            return single(node(stmt, in, stmt));
+        }
+
+        /**
+         * 新建节点并接在前驱之后
+         * @param owner 对应的语句，为null时由调用方登记
+         * @param roots 节点读写的表达式
+         */
+        private int node(Node owner, List<Integer> in, Node... roots) {
+            return node(owner, in, Arrays.asList(roots));
+        }
+
+        private int node(Node owner, List<Integer> in, List<? extends Node> roots) {
+            int id = graph.size();
+            graph.uses.add(new BitSet());
+            graph.defs.add(new BitSet());
+            graph.weakDefs.add(new BitSet());
+            graph.declarations.add(new BitSet());
+            graph.successors.add(new BitSet());
+            for (Node root : roots) {
+                if (root != null) {
+                    collectAccess(id, root);
+                }
+            }
+            connect(in, id);
+            if (owner != null) {
+                graph.ids.put(owner, id);
+            }
+            return id;
+        }
+
+        private void collectAccess(int id, Node root) {
+            root.walk(node -> {
+                if (node instanceof VariableDeclarator) {
+                    int v = variable(((VariableDeclarator) node).getNameAsString());
+                    graph.declarations.get(id).set(v);
+                    declared.set(v);
+                    // 增强for的循环变量每次迭代都被赋值
+                    if (((VariableDeclarator) node).getInitializer().isPresent()
+                            || node.getParentNode().flatMap(Node::getParentNode)
+                                    .filter(p -> p instanceof ForEachStmt).isPresent()) {
+                        define(id, v);
+                    }
+                } else if (node instanceof NameExpr) {
+                    NameExpr name = (NameExpr) node;
+                    Optional<Node> parent = name.getParentNode();
+                    boolean plainTarget = parent.filter(p -> p instanceof AssignExpr
+                            && ((AssignExpr) p).getTarget() == name
+                            && ((AssignExpr) p).getOperator() == AssignExpr.Operator.ASSIGN).isPresent();
+                    if (!plainTarget) {
+                        graph.uses.get(id).set(variable(name.getNameAsString()));
+                    }
+                } else if (node instanceof AssignExpr) {
+                    Expression target = ((AssignExpr) node).getTarget();
+                    if (target instanceof NameExpr) {
+                        define(id, variable(((NameExpr) target).getNameAsString()));
+                    } else {
+                        defineWeakly(id, target, false);
+                    }
+                } else if (node instanceof UnaryExpr) {
+                    UnaryExpr unary = (UnaryExpr) node;
+                    UnaryExpr.Operator operator = unary.getOperator();
+                    boolean increment = operator == UnaryExpr.Operator.PREFIX_INCREMENT
+                            || operator == UnaryExpr.Operator.PREFIX_DECREMENT
+                            || operator == UnaryExpr.Operator.POSTFIX_INCREMENT
+                            || operator == UnaryExpr.Operator.POSTFIX_DECREMENT;
+                    if (increment && unary.getExpression() instanceof NameExpr) {
+                        define(id, variable(((NameExpr) unary.getExpression()).getNameAsString()));
+                    } else if (increment) {
+                        defineWeakly(id, unary.getExpression(), false);
+                    }
+                } else if (node instanceof MethodCallExpr) {
+                    // 方法调用可能修改调用对象，只对方法体中声明的局部变量记录，类名等不算
+                    ((MethodCallExpr) node).getScope().ifPresent(scope -> defineWeakly(id, scope, true));
+                }
+            });
+        }
+
+        private void define(int id, int v) {
+            graph.defs.get(id).set(v);
+            graph.weakDefs.get(id).clear(v);
+        }
+
+        /**
+         * 把对表达式的部分写入记为其基变量（数组、字段或方法调用链最左边的变量）的弱定义
+         * @param localsOnly 只记录方法体中已经声明的变量
+         */
+        private void defineWeakly(int id, Expression target, boolean localsOnly) {
+            Expression base = target;
+            while (!(base instanceof NameExpr)) {
+                if (base instanceof ArrayAccessExpr) {
+                    base = ((ArrayAccessExpr) base).getName();
+                } else if (base instanceof FieldAccessExpr) {
+                    base = ((FieldAccessExpr) base).getScope();
+                } else if (base instanceof EnclosedExpr) {
+                    base = ((EnclosedExpr) base).getInner();
+                } else if (base instanceof MethodCallExpr && ((MethodCallExpr) base).getScope().isPresent()) {
+                    base = ((MethodCallExpr) base).getScope().get();
+                } else {
+                    return;
+                }
+            }
+            int v = variable(((NameExpr) base).getNameAsString());
+            if ((localsOnly && !declared.get(v)) || graph.defs.get(id).get(v)) {
+                return;
+            }
+            graph.defs.get(id).set(v);
+            graph.weakDefs.get(id).set(v);
+        }
+
+        private int variable(String name) {
+            return graph.variables.computeIfAbsent(name, k -> graph.variables.size());
+        }
+
+        private void connect(List<Integer> from, int to) {
+            for (int node : from) {
+                graph.successors.get(node).set(to);
+            }
+        }
+
+        private static List<Integer> single(int node) {
+            List<Integer> list = new ArrayList<>();
+            list.add(node);
+            return list;
+        }
+
+        private Target push(String label, int kind) {
+            Target target = new Target(label, kind);
+            targets.push(target);
+            return target;
+        }
+
+        /**
+         * 带标号时找同标号的目标，否则找最内层的循环（continue）或循环、switch（break）
+         */
+        private Target find(Optional<String> label, boolean continueTarget) {
+            for (Target target : targets) {
+                if (label.isPresent()) {
+                    if (label.get().equals(target.label)) {
+                        return target;
+                    }
+                } else if (target.kind == Target.LOOP || (!continueTarget && target.kind == Target.SWITCH)) {
+                    return target;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * break和continue的跳转目标
+     */
+    private static final class Target {
+        static final int LOOP = 0;
+        static final int SWITCH = 1;
+        static final int BLOCK = 2;
+
+        private final String label;
+        private final int kind;
+        private final List<Integer> breaks = new ArrayList<>();
+        private final List<Integer> continues = new ArrayList<>();
+
+        Target(String label, int kind) {
+            this.label = label;
+            this.kind = kind;
+        }
+    }
+}
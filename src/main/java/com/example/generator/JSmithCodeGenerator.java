@@ -1,7 +1,7 @@
 package com.example.generator;
 
+import com.github.lombrozo.jsmith.GeneratorSession;
 import com.github.lombrozo.jsmith.RandomJavaClass;
-import com.github.lombrozo.jsmith.CodeFormatter;
 import com.github.lombrozo.jsmith.BatchGenerator;
 import com.example.util.JavaSyntaxFixer;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +27,8 @@ public class JSmithCodeGenerator {
 
     private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
     private final Random random;
+    // JDT格式化器不是线程安全的，每个线程复用自己的会话，语法只编译一次
+    private final ThreadLocal<GeneratorSession> sessions = ThreadLocal.withInitial(GeneratorSession::new);
 
     public JSmithCodeGenerator() {
         this.random = new Random();
@@ -62,14 +64,8 @@ public class JSmithCodeGenerator {
         try {
             log.info("Generating random Java class using JSmith with seed: {}", seed);
 
-            // 创建RandomJavaClass实例，直接传入种子
-            RandomJavaClass randomJavaClass = new RandomJavaClass(seed);
-
-            // 生成原始Java代码
-            String rawCode = randomJavaClass.src();
-
-            // 使用CodeFormatter格式化代码（就像BatchGenerator一样）
-            String formattedCode = CodeFormatter.format(rawCode);
+            // 由当前线程的会话生成并格式化代码（就像BatchGenerator一样）
+            String formattedCode = sessions.get().next(seed);
 
             // FIXED: 修复作用域错误
             String fixedCode = JavaSyntaxFixer.fixScopeErrors(formattedCode);
@@ -165,7 +161,7 @@ public class JSmithCodeGenerator {
      * @return 生成的代码
      */
     private String generateWithEnhancedRandomness(long seed, double factor) {
-        // 创建多个RandomJavaClass实例，选择最复杂的一个
+        // 生成多个变体，选择最复杂的一个
         String bestCode = null;
         int bestComplexity = 0;
 
@@ -173,9 +169,7 @@ public class JSmithCodeGenerator {
             long variantSeed = seed + i * 7919L; // 使用质数增加差异
 
             try {
-                RandomJavaClass randomJavaClass = new RandomJavaClass(variantSeed);
-                String code = randomJavaClass.src();
-                String formattedCode = CodeFormatter.format(code);
+                String formattedCode = sessions.get().next(variantSeed);
 
                 // FIXED: 修复作用域错误
                 String fixedCode = JavaSyntaxFixer.fixScopeErrors(formattedCode);
@@ -224,15 +218,8 @@ public class JSmithCodeGenerator {
             log.info("Generating random Java class using JSmith with seed: {} and convergence factor: {}",
                     seed, convergenceFactor);
 
-            // 由于Params构造方法限制，我们使用反射或者简化的方法
-            // 这里先使用默认的RandomJavaClass，后续可以通过其他方式设置收敛因子
-            RandomJavaClass randomJavaClass = new RandomJavaClass(seed);
-
-            // 生成原始Java代码
-            String rawCode = randomJavaClass.src();
-
-            // 使用CodeFormatter格式化代码
-            String formattedCode = CodeFormatter.format(rawCode);
+            // 由于Params构造方法限制，这里先使用默认的收敛因子，后续可以通过其他方式设置
+            String formattedCode = sessions.get().next(seed);
 
             // FIXED: 修复作用域错误
             String fixedCode = JavaSyntaxFixer.fixScopeErrors(formattedCode);
@@ -282,11 +269,7 @@ public class JSmithCodeGenerator {
             try {
                 // 使用不同的种子生成不同的代码（参考BatchGenerator）
                 long currentSeed = baseSeed + i;
-                RandomJavaClass clazz = new RandomJavaClass(currentSeed);
-                String rawCode = clazz.src();
-
-                // 使用CodeFormatter格式化代码
-                String formattedCode = CodeFormatter.format(rawCode);
+                String formattedCode = sessions.get().next(currentSeed);
 
                 // FIXED: 修复作用域错误
                 String fixedCode = JavaSyntaxFixer.fixScopeErrors(formattedCode);
@@ -300,9 +283,7 @@ public class JSmithCodeGenerator {
                     log.debug("Generated interface at attempt {}, retrying with different seed", i + 1);
                     for (int retry = 0; retry < 3; retry++) {
                         long retrySeed = currentSeed + (retry + 1) * 1000;
-                        RandomJavaClass retryClazz = new RandomJavaClass(retrySeed);
-                        String retryRawCode = retryClazz.src();
-                        String retryFormattedCode = CodeFormatter.format(retryRawCode);
+                        String retryFormattedCode = sessions.get().next(retrySeed);
 
                         // FIXED: 修复作用域错误
                         String retryFixedCode = JavaSyntaxFixer.fixScopeErrors(retryFormattedCode);
@@ -384,7 +365,9 @@ public class JSmithCodeGenerator {
      */
     private String generateFallbackJavaClass() {
         String className = "GeneratedClass" + System.currentTimeMillis() % 1000;
-        String fallbackCode = String.format(
+        // 模板已经是格式化好的代码，main中已调用类内方法，不再经过CodeFormatter
+        // （它会在main中重复插入调用，得到重复声明的变量）
+        return String.format(
                 "public class %s {\n" +
                         "    private int value = 42;\n" +
                         "    private boolean flag = true;\n" +
@@ -409,9 +392,6 @@ public class JSmithCodeGenerator {
                         "}\n",
                 className, className, className
         );
-
-        // 使用CodeFormatter格式化回退代码
-        return CodeFormatter.format(fallbackCode);
     }
 
     /**
@@ -442,11 +422,8 @@ public class JSmithCodeGenerator {
                 try {
                     // 使用不同的种子生成不同的代码（参考BatchGenerator）
                     long currentSeed = baseSeed + i;
-                    RandomJavaClass clazz = new RandomJavaClass(currentSeed);
-                    String rawCode = clazz.src();
-
-                    // 格式化代码（就像BatchGenerator一样）
-                    String code = CodeFormatter.format(rawCode);
+                    // 会话已经完成格式化（就像BatchGenerator一样）
+                    String code = sessions.get().next(currentSeed);
 
                     // 提取类名（使用BatchGenerator的逻辑）
                     String className = extractClassName(code);
@@ -505,9 +482,7 @@ public class JSmithCodeGenerator {
         for (int attempt = 0; attempt < 5; attempt++) {
             try {
                 long currentSeed = seed + attempt * 100;
-                RandomJavaClass clazz = new RandomJavaClass(currentSeed);
-                String rawCode = clazz.src();
-                String formattedCode = CodeFormatter.format(rawCode);
+                String formattedCode = sessions.get().next(currentSeed);
 
                 if (isJavaClass(formattedCode)) {
                     return formattedCode;
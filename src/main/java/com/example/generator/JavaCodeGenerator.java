@@ -1,13 +1,10 @@
 package com.example.generator;
 
-import com.github.javaparser.JavaParser;
-import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.stmt.Statement;
-import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.visitor.ModifierVisitor;
 import com.github.javaparser.ast.visitor.Visitable;
 import lombok.extern.slf4j.Slf4j;
@@ -20,6 +17,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.nio.charset.StandardCharsets;
@@ -37,6 +35,7 @@ import com.github.javaparser.ast.stmt.SwitchEntry;
 import com.github.javaparser.ast.expr.BinaryExpr;
 import com.github.javaparser.ast.expr.UnaryExpr;
 import com.github.javaparser.ast.Node;
+import com.example.parser.ParseCache;
 import org.springframework.beans.factory.annotation.Autowired;
 
 @Slf4j
@@ -49,13 +48,18 @@ public class JavaCodeGenerator {
     private static final String DEADCODE_DIR = "deadcode";
     private static final String REORDERED_DIR = "reordered";
     private static final Random random = new Random();
-    private final JavaParser javaParser;
-
     @Autowired
     private JSmithCodeGenerator jsmithCodeGenerator;
 
+    // 共享的解析缓存：查找变量只读取缓存的AST，变换在副本上改写
+    @Autowired
+    private ParseCache parseCache;
+
     // 保存变量映射关系：文件名 -> 变量映射
-    private final Map<String, Map<String, String>> variableMappings = new HashMap<>();
+    private final Map<String, Map<String, String>> variableMappings = new ConcurrentHashMap<>();
+
+    // 变换生成的行映射：变体文件 -> 原始文件到变体文件的行映射
+    private final Map<String, LineMap> lineMaps = new ConcurrentHashMap<>();
 
     // 预定义的变量名池
     private static final String[] VARIABLE_NAMES = {
@@ -69,9 +73,8 @@ public class JavaCodeGenerator {
 
     public JavaCodeGenerator() {
         createDirectories();
-        ParserConfiguration configuration = new ParserConfiguration();
-        this.javaParser = new JavaParser(configuration);
         this.jsmithCodeGenerator = new JSmithCodeGenerator();
+        this.parseCache = new ParseCache();
     }
 
     private void createDirectories() {
@@ -85,9 +88,25 @@ public class JavaCodeGenerator {
     }
 
     public List<String> generateMutatedFiles(String sourceFile, int numMutations) {
+        return generateMutatedFiles(sourceFile, numMutations, "");
+    }
+
+    /**
+     * 生成原始文件及其变量重命名版本
+     * @param baseDir 基础目录，mutated/renamed子目录建在其下；为空时使用当前目录
+     */
+    public List<String> generateMutatedFiles(String sourceFile, int numMutations, String baseDir) {
         List<String> mutatedFiles = new ArrayList<>();
         long startTime = System.currentTimeMillis();
 
+        try {
+            Files.createDirectories(Paths.get(baseDir, MUTATED_DIR));
+            Files.createDirectories(Paths.get(baseDir, RENAMED_DIR));
+        } catch (IOException e) {
+            log.error("Failed to create directories under: {}", baseDir, e);
+            return mutatedFiles;
+        }
+
         for (int i = 0; i < numMutations; i++) {
             try {
                 log.info("Generating Java class {} at {}", i, new Date());
@@ -97,7 +116,7 @@ public class JavaCodeGenerator {
 
                 // 2. Save the original file
                 String mutatedFileName = String.format("Example_mutated_%d.java", i);
-                String mutatedFilePath = Paths.get(MUTATED_DIR, mutatedFileName).toString();
+                String mutatedFilePath = Paths.get(baseDir, MUTATED_DIR, mutatedFileName).toString();
                 try (FileWriter writer = new FileWriter(mutatedFilePath)) {
                     writer.write(originalContent);
                 }
@@ -105,7 +124,7 @@ public class JavaCodeGenerator {
                 log.info("Generated original file: {}", mutatedFilePath);
 
                 // 3. Create renamed version for metamorphic testing
-                CompilationUnit cu = javaParser.parse(originalContent).getResult().orElseThrow(() ->
+                CompilationUnit cu = parseCache.parseForWrite(originalContent).orElseThrow(() ->
                         new RuntimeException("Failed to parse generated file: " + mutatedFilePath));
 
                 Map<String, String> variableMap = new HashMap<>();
@@ -157,7 +176,7 @@ public class JavaCodeGenerator {
                 }
 
                 String renamedFileName = String.format("Example_renamed_%d.java", i);
-                String renamedFilePath = Paths.get(RENAMED_DIR, renamedFileName).toString();
+                String renamedFilePath = Paths.get(baseDir, RENAMED_DIR, renamedFileName).toString();
 
                 try (FileWriter writer = new FileWriter(renamedFilePath)) {
                     writer.write(renamedContent);
@@ -219,13 +238,23 @@ public class JavaCodeGenerator {
      * @return 生成的文件路径列表（包含原始文件和重命名文件）
      */
     public List<String> generateJSmithVariableRenameTestFiles(int numPairs) {
+        return generateJSmithVariableRenameTestFiles("", numPairs);
+    }
+
+    /**
+     * 使用JSmith生成器在指定基础目录下生成用于变量重命名蜕变关系测试的文件对
+     * @param baseDir 基础目录，mutated/renamed子目录建在其下；为空时使用当前目录
+     * @param numPairs 生成的文件对数量
+     * @return 生成的文件路径列表（包含原始文件和重命名文件）
+     */
+    public List<String> generateJSmithVariableRenameTestFiles(String baseDir, int numPairs) {
         List<String> generatedFiles = new ArrayList<>();
         long startTime = System.currentTimeMillis();
 
         try {
             // 确保目录存在
-            Files.createDirectories(Paths.get(MUTATED_DIR));
-            Files.createDirectories(Paths.get(RENAMED_DIR));
+            Files.createDirectories(Paths.get(baseDir, MUTATED_DIR));
+            Files.createDirectories(Paths.get(baseDir, RENAMED_DIR));
             log.info("Created directories for JSmith variable rename test: {}, {}", MUTATED_DIR, RENAMED_DIR);
 
             for (int i = 0; i < numPairs; i++) {
@@ -239,7 +268,7 @@ public class JavaCodeGenerator {
 
                     // 2. 保存原始文件到mutated目录
                     String mutatedFileName = String.format("JSmith_mutated_%d.java", i);
-                    String mutatedFilePath = Paths.get(MUTATED_DIR, mutatedFileName).toString();
+                    String mutatedFilePath = Paths.get(baseDir, MUTATED_DIR, mutatedFileName).toString();
 
                     // 移除package声明并标准化原始文件格式
                     String cleanedContent = removePackageDeclaration(originalContent);
@@ -252,7 +281,7 @@ public class JavaCodeGenerator {
                     log.info("Generated JSmith original file: {}", mutatedFilePath);
 
                     // 3. 创建变量重命名版本（使用标准化的内容）
-                    String renamedFilePath = createJSmithRenamedVersion(standardizedContent, i);
+                    String renamedFilePath = createJSmithRenamedVersion(standardizedContent, i, baseDir);
                     if (renamedFilePath != null) {
                         generatedFiles.add(renamedFilePath);
                         log.info("Generated JSmith renamed file: {}", renamedFilePath);
@@ -287,19 +316,19 @@ public class JavaCodeGenerator {
      * 为JSmith生成的代码创建变量重命名版本
      * @param originalContent 原始代码内容
      * @param index 文件索引
+     * @param baseDir 基础目录
      * @return 重命名文件的路径，如果失败返回null
      */
-    private String createJSmithRenamedVersion(String originalContent, int index) {
+    private String createJSmithRenamedVersion(String originalContent, int index, String baseDir) {
         try {
             String renamedFileName = String.format("JSmith_renamed_%d.java", index);
-            String renamedFilePath = Paths.get(RENAMED_DIR, renamedFileName).toString();
+            String renamedFilePath = Paths.get(baseDir, RENAMED_DIR, renamedFileName).toString();
 
-            // 解析原始代码
-            CompilationUnit cu = javaParser.parse(originalContent).getResult().orElseThrow(() ->
-                    new RuntimeException("Failed to parse JSmith generated code"));
+            // 变换位置与原始程序的AST一起缓存
+            TransformationSites sites = getTransformationSites(originalContent);
 
             // 创建变量名映射（专门处理JSmith生成的复杂变量名）
-            Map<String, String> variableMap = createJSmithVariableMapping(cu);
+            Map<String, String> variableMap = createJSmithVariableMapping(sites);
 
             if (variableMap.isEmpty()) {
                 log.warn("No variables found in JSmith generated code, copying file as is");
@@ -315,7 +344,7 @@ public class JavaCodeGenerator {
             log.info("Saved JSmith variable mapping for {}: {}", baseFileName, variableMap);
 
             // 应用变量重命名
-            String renamedContent = applyJSmithVariableRenaming(cu, variableMap);
+            String renamedContent = generateVariant(originalContent, Transformation.RENAME, null).getContent();
 
             // 验证重命名后的代码
             if (validateJSmithRenamedCode(renamedContent, variableMap)) {
@@ -339,22 +368,22 @@ public class JavaCodeGenerator {
 
     /**
      * 为JSmith生成的代码创建变量映射（处理复杂的变量名）
-     * @param cu 编译单元
+     * @param sites 原始程序的变换位置
      * @return 变量映射
      */
-    private Map<String, String> createJSmithVariableMapping(CompilationUnit cu) {
+    private Map<String, String> createJSmithVariableMapping(TransformationSites sites) {
         Map<String, String> variableMap = new HashMap<>();
 
         // 收集所有变量声明
-        cu.findAll(VariableDeclarator.class).forEach(vd -> {
-            String oldName = vd.getNameAsString();
+        for (TransformationSites.Site declarator : sites.getDeclarators()) {
+            String oldName = declarator.getName();
             if (!variableMap.containsKey(oldName)) {
                 // 为JSmith生成的复杂变量名创建更合适的新名称
                 String newName = generateJSmithVariableName(oldName);
                 variableMap.put(oldName, newName);
                 log.debug("JSmith variable mapping: {} -> {}", oldName, newName);
             }
-        });
+        }
 
         return variableMap;
     }
@@ -381,41 +410,30 @@ public class JavaCodeGenerator {
     }
 
     /**
-     * 应用JSmith变量重命名
-     * @param cu 编译单元
-     * @param variableMap 变量映射
-     * @return 重命名后的代码
+     * 在AST副本上应用JSmith变量重命名
+     * @param sites 原始程序的变换位置
+     * @param nodes 副本中与变换位置对应的节点
+     * @return 是否有变量需要重命名
      */
-    private String applyJSmithVariableRenaming(CompilationUnit cu, Map<String, String> variableMap) {
-        // 创建访问者来重命名变量
-        ModifierVisitor<Void> visitor = new ModifierVisitor<Void>() {
-            @Override
-            public Visitable visit(VariableDeclarator vd, Void arg) {
-                String oldName = vd.getNameAsString();
-                if (variableMap.containsKey(oldName)) {
-                    String newName = variableMap.get(oldName);
-                    vd.setName(newName);
-                    log.debug("Renamed JSmith variable declaration: {} -> {}", oldName, newName);
-                }
-                return super.visit(vd, arg);
-            }
+    private boolean applyJSmithVariableRenaming(TransformationSites sites, Node[] nodes) {
+        Map<String, String> variableMap = createJSmithVariableMapping(sites);
+        if (variableMap.isEmpty()) {
+            return false;
+        }
 
-            @Override
-            public Visitable visit(NameExpr nameExpr, Void arg) {
-                String oldName = nameExpr.getNameAsString();
-                if (variableMap.containsKey(oldName)) {
-                    String newName = variableMap.get(oldName);
-                    nameExpr.setName(newName);
-                    log.debug("Renamed JSmith variable usage: {} -> {}", oldName, newName);
-                }
-                return super.visit(nameExpr, arg);
+        for (TransformationSites.Site declarator : sites.getDeclarators()) {
+            String newName = variableMap.get(declarator.getName());
+            ((VariableDeclarator) nodes[declarator.getIndex()]).setName(newName);
+            log.debug("Renamed JSmith variable declaration: {} -> {}", declarator.getName(), newName);
+        }
+        for (TransformationSites.Site usage : sites.getNames()) {
+            String newName = variableMap.get(usage.getName());
+            if (newName != null) {
+                ((NameExpr) nodes[usage.getIndex()]).setName(newName);
+                log.debug("Renamed JSmith variable usage: {} -> {}", usage.getName(), newName);
             }
-        };
-
-        // 应用访问者
-        cu.accept(visitor, null);
-
-        return cu.toString();
+        }
+        return true;
     }
 
     /**
@@ -427,7 +445,7 @@ public class JavaCodeGenerator {
     private boolean validateJSmithRenamedCode(String renamedContent, Map<String, String> variableMap) {
         try {
             // 尝试解析重命名后的代码
-            CompilationUnit parsedCu = javaParser.parse(renamedContent).getResult().orElseThrow(() ->
+            CompilationUnit parsedCu = parseCache.parse(renamedContent).orElseThrow(() ->
                     new RuntimeException("Failed to parse JSmith renamed code"));
 
             // 验证基本结构
@@ -477,8 +495,8 @@ public class JavaCodeGenerator {
             String renamedContent = Files.readString(Paths.get(renamedFile), StandardCharsets.UTF_8);
 
             // 基本检查：两个文件都应该能被解析
-            CompilationUnit originalCu = javaParser.parse(originalContent).getResult().orElse(null);
-            CompilationUnit renamedCu = javaParser.parse(renamedContent).getResult().orElse(null);
+            CompilationUnit originalCu = parseCache.parse(originalContent).orElse(null);
+            CompilationUnit renamedCu = parseCache.parse(renamedContent).orElse(null);
 
             if (originalCu == null || renamedCu == null) {
                 log.error("Failed to parse one or both files: {} / {}", originalFile, renamedFile);
@@ -930,7 +948,7 @@ public class JavaCodeGenerator {
             String renamedFilePath = Paths.get(RENAMED_DIR, renamedFileName).toString();
 
             // 首先验证源文件是否可以被解析
-            CompilationUnit cu = javaParser.parse(content).getResult().orElseThrow(() ->
+            CompilationUnit cu = parseCache.parseForWrite(content).orElseThrow(() ->
                     new RuntimeException("Failed to parse source file: " + sourceFile));
 
             // 创建变量名映射
@@ -985,7 +1003,7 @@ public class JavaCodeGenerator {
             String renamedContent = renameVariablesPreservingFormat(content, variableMap);
             try {
                 // 尝试解析重命名后的代码
-                CompilationUnit parsedCu = javaParser.parse(renamedContent).getResult().orElseThrow(() ->
+                CompilationUnit parsedCu = parseCache.parse(renamedContent).orElseThrow(() ->
                         new RuntimeException("Failed to parse renamed code"));
 
                 // 验证重命名后的代码是否包含所有必要的元素
@@ -1135,7 +1153,7 @@ public class JavaCodeGenerator {
             String cleanedContent = cleanJavaCode(content);
 
             // 使用JavaParser解析并重新格式化代码
-            CompilationUnit cu = javaParser.parse(cleanedContent).getResult().orElseThrow(() ->
+            CompilationUnit cu = parseCache.parse(cleanedContent).orElseThrow(() ->
                     new RuntimeException("Failed to parse Java code for standardization"));
 
             // 返回标准格式的代码
@@ -1279,14 +1297,20 @@ public class JavaCodeGenerator {
     }
 
     public VariableInfo findVariableForSlicing(String sourceFile) {
-        try {
-            byte[] bytes = Files.readAllBytes(Paths.get(sourceFile));
-            String content = new String(bytes, StandardCharsets.UTF_8);
-            CompilationUnit cu = javaParser.parse(content).getResult().orElseThrow(() ->
-                    new RuntimeException("Failed to parse Java file"));
+        List<VariableInfo> candidates = findVariablesForSlicing(sourceFile, 1);
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
 
-            // 获取所有变量声明
-            List<VariableDeclarator> variables = cu.findAll(VariableDeclarator.class);
+    /**
+     * 按优先级返回至多maxCount个切片准则候选，供一次切片器调用中对同一程序切多个准则
+     * @param sourceFile 源文件路径
+     * @param maxCount 最多返回的候选数量
+     * @return 候选切片准则列表，按优先级排序；找不到变量时为空列表
+     */
+    public List<VariableInfo> findVariablesForSlicing(String sourceFile, int maxCount) {
+        try {
+            SymbolIndex index = getSymbolIndex(sourceFile);
+            List<SymbolIndex.Occurrence> variables = index.getDeclarations();
 
             // 统计每个变量出现的次数
             Map<String, Integer> variableCounts = new HashMap<>();
@@ -1296,9 +1320,9 @@ public class JavaCodeGenerator {
             log.info("=== Variable Analysis for file: {} ===", sourceFile);
 
             // 首先统计变量声明
-            for (VariableDeclarator vd : variables) {
-                String name = vd.getNameAsString();
-                int line = vd.getBegin().get().line;
+            for (SymbolIndex.Occurrence declaration : variables) {
+                String name = declaration.getName();
+                int line = declaration.getLine();
 
                 variableCounts.merge(name, 1, Integer::sum);
                 variableFirstLine.putIfAbsent(name, line);
@@ -1308,14 +1332,13 @@ public class JavaCodeGenerator {
             }
 
             // 然后查找所有变量使用
-            cu.findAll(NameExpr.class).forEach(nameExpr -> {
-                String name = nameExpr.getNameAsString();
+            for (SymbolIndex.Occurrence usage : index.getUsages()) {
+                String name = usage.getName();
                 if (variableCounts.containsKey(name)) {
-                    int line = nameExpr.getBegin().get().line;
+                    int line = usage.getLine();
 
                     // 检查这一行是否为死代码
-                    String lineContent = getLineContent(sourceFile, line);
-                    boolean isDeadCodeLine = isDeadCodeLine(lineContent.trim());
+                    boolean isDeadCodeLine = index.isDeadCode(line);
 
                     // 只统计非死代码中的变量使用
                     if (!isDeadCodeLine) {
@@ -1326,7 +1349,7 @@ public class JavaCodeGenerator {
                         log.info("Variable usage (dead code): {} at line {} - SKIPPED", name, line);
                     }
                 }
-            });
+            }
 
             // 打印所有变量的行号信息
             log.info("=== Variable Usage Analysis ===");
@@ -1402,69 +1425,121 @@ public class JavaCodeGenerator {
             log.info("Found {} suitable variables", suitableVariables.size());
 
             if (!suitableVariables.isEmpty()) {
-                // 由于已经按优先级排序，直接选择第一个变量
-                Map.Entry<String, List<Integer>> selectedVariable = suitableVariables.get(0);
-                String variableName = selectedVariable.getKey();
-                List<Integer> allLines = selectedVariable.getValue();
+                // 由于已经按优先级排序，依次选择前k个变量
+                List<VariableInfo> candidates = new ArrayList<>();
+                for (Map.Entry<String, List<Integer>> selectedVariable : suitableVariables.subList(0, Math.min(maxCount, suitableVariables.size()))) {
+                    String variableName = selectedVariable.getKey();
+                    List<Integer> allLines = selectedVariable.getValue();
 
-                // 为蜕变测试选择确定性的位置，为其他测试选择随机位置
-                int lineNumber = selectVariableLineForSlicing(allLines, variableName);
+                    // 为蜕变测试选择确定性的位置，为其他测试选择随机位置
+                    int lineNumber = selectVariableLineForSlicing(allLines, variableName);
 
-                log.info("Variable '{}' usage pattern: {}", variableName, allLines);
-                log.info("This variable appears {} times, making it suitable for forward slicing", allLines.size());
+                    log.info("Variable '{}' usage pattern: {}", variableName, allLines);
+                    log.info("This variable appears {} times, making it suitable for forward slicing", allLines.size());
 
-                return new VariableInfo(variableName, lineNumber);
-            }
-
-            // 如果没有找到多次使用的变量，选择单次使用但位置靠后的变量
-            if (!suitableVariables.isEmpty()) {
-                Map.Entry<String, List<Integer>> bestVariable = suitableVariables.stream()
-                        .filter(e -> {
-                            // 检查变量的使用是否在无用代码中
-                            List<Integer> lines = e.getValue();
-                            int checkLine = lines.size() > 1 ? lines.get(lines.size() - 1) : lines.get(0); // 优先检查最后一次使用，否则检查声明
-                            String lineContent = getLineContent(sourceFile, checkLine);
-                            boolean isInDeadCode = isDeadCodeLine(lineContent.trim());
-                            log.info("Variable '{}' at line {}: '{}', isDeadCode: {}",
-                                    e.getKey(), checkLine, lineContent.trim(), isInDeadCode);
-                            return !isInDeadCode;
-                        })
-                        .max(Comparator.comparingInt(e -> {
-                            List<Integer> lines = e.getValue();
-                            return lines.size() > 1 ? lines.get(lines.size() - 1) : lines.get(0); // 按最后一次使用或声明行排序
-                        }))
-                        .orElse(suitableVariables.stream()
-                                .max(Comparator.comparingInt(e -> {
-                                    List<Integer> lines = e.getValue();
-                                    return lines.size() > 1 ? lines.get(lines.size() - 1) : lines.get(0);
-                                }))
-                                .orElse(suitableVariables.get(0)));
-
-                String variableName = bestVariable.getKey();
-                List<Integer> allLines = bestVariable.getValue();
-
-                // 为蜕变测试选择确定性的位置，为其他测试选择随机位置
-                int lineNumber = selectVariableLineForSlicing(allLines, variableName);
-
-                log.info("All lines for {}: {}", variableName, allLines);
-                return new VariableInfo(variableName, lineNumber);
+                    candidates.add(new VariableInfo(variableName, lineNumber));
+                }
+                return candidates;
             }
 
             // 如果没有找到合适的变量，尝试使用第一个变量
             if (!variables.isEmpty()) {
-                VariableDeclarator firstVar = variables.get(0);
-                String variableName = firstVar.getNameAsString();
-                int lineNumber = firstVar.getBegin().get().line;
+                SymbolIndex.Occurrence firstVar = variables.get(0);
+                String variableName = firstVar.getName();
+                int lineNumber = firstVar.getLine();
                 log.info("Using first variable: {} at line {}", variableName, lineNumber);
-                return new VariableInfo(variableName, lineNumber);
+                return Collections.singletonList(new VariableInfo(variableName, lineNumber));
             }
 
             log.warn("No variables found in file: {}", sourceFile);
-            return null;
+            return Collections.emptyList();
 
         } catch (IOException e) {
             log.error("Error finding variable for slicing", e);
-            return null;
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 读取源文件并取得其符号索引，索引与解析结果一起缓存，同一内容只建立一次
+     */
+    public SymbolIndex getSymbolIndex(String sourceFile) throws IOException {
+        String content = Files.readString(Paths.get(sourceFile), StandardCharsets.UTF_8);
+        return parseCache.analyze(content, SymbolIndex.class, cu -> SymbolIndex.build(cu, content))
+                .orElseThrow(() -> new RuntimeException("Failed to parse Java file"));
+    }
+
+    /**
+     * 原始程序中各种变换可以作用的位置，与解析结果一起缓存，同一内容只收集一次
+     */
+    TransformationSites getTransformationSites(String content) {
+        return parseCache.analyze(content, TransformationSites.class, TransformationSites::collect)
+                .orElseThrow(() -> new RuntimeException("Failed to parse content for transformation"));
+    }
+
+    /**
+     * 变量重命名变体使用的变量映射，映射只由变量名决定，与生成变体时使用的映射相同
+     * @param content 原始程序
+     * @return 原变量名到新变量名的映射
+     */
+    public Map<String, String> getRenameMapping(String content) {
+        return createJSmithVariableMapping(getTransformationSites(content));
+    }
+
+    /**
+     * 对同一个原始程序生成多种蜕变关系的变体
+     * 原始程序只解析一次，所有变换位置在一次遍历中收集，每个变体只需复制AST、应用变换并打印
+     * @param originalContent 原始程序
+     * @param transformations 需要生成的变换
+     * @param selectedVariable 无用代码使用的切片变量，不生成无用代码变体时可以为null
+     * @return 各变换的变体及其行映射，变换无法应用时为原始程序
+     */
+    public Map<Transformation, TransformedSource> generateVariants(String originalContent,
+                                                                  Set<Transformation> transformations,
+                                                                  String selectedVariable) {
+        Map<Transformation, TransformedSource> variants = new EnumMap<>(Transformation.class);
+        for (Transformation transformation : transformations) {
+            variants.put(transformation, generateVariant(originalContent, transformation, selectedVariable));
+        }
+        return variants;
+    }
+
+    /**
+     * 在原始程序AST的副本上应用一种变换
+     */
+    private TransformedSource generateVariant(String originalContent, Transformation transformation,
+                                              String selectedVariable) {
+        try {
+            TransformationSites sites = getTransformationSites(originalContent);
+            CompilationUnit cu = parseCache.parseForWrite(originalContent).orElseThrow(() ->
+                    new RuntimeException("Failed to parse content for transformation"));
+            Map<Node, LineTrackingPrinter.Origin> origins = new IdentityHashMap<>();
+            Node[] nodes = sites.resolve(cu, origins);
+
+            boolean applied;
+            switch (transformation) {
+                case RENAME:
+                    applied = applyJSmithVariableRenaming(sites, nodes);
+                    break;
+                case DEAD_CODE:
+                    applied = addDeadCode(sites, nodes, selectedVariable);
+                    break;
+                case REORDER:
+                    applied = reorderMainStatements(sites, nodes);
+                    break;
+                case CONTROL_FLOW:
+                    applied = transformMainControlFlow(sites, nodes);
+                    break;
+                case DATA_FLOW:
+                    applied = transformMainDataFlow(sites, nodes);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported transformation: " + transformation);
+            }
+            return applied ? LineTrackingPrinter.print(cu, origins) : TransformedSource.unchanged(originalContent);
+        } catch (Exception e) {
+            log.error("Error in {} transformation", transformation, e);
+            return TransformedSource.unchanged(originalContent);
         }
     }
 
@@ -1475,6 +1550,14 @@ public class JavaCodeGenerator {
         return variableMappings.getOrDefault(originalFile, new HashMap<>());
     }
 
+    /**
+     * 取出生成变体文件时记录的行映射，取出后不再保留
+     * @return 行映射，没有记录时返回null
+     */
+    public LineMap removeLineMap(String variantFile) {
+        return lineMaps.remove(variantFile);
+    }
+
     public static class VariableInfo {
         private final String variableName;
         private final int lineNumber;
@@ -1554,12 +1637,12 @@ public class JavaCodeGenerator {
                 log.info("Selected variable for slicing: {} in file: {}", selectedVariable, mutatedFilePath);
 
                 // 添加无用代码，使用选定的切片变量
-                String deadCodeContent = addDeadCodeWithSelectedVariable(originalContent, selectedVariable);
+                TransformedSource deadCode = addDeadCodeWithSelectedVariable(originalContent, selectedVariable);
 
                 // 保存添加无用代码的文件
                 String deadCodeFileName = String.format("Example_deadcode_%d.java", i);
                 String deadCodeFilePath = Paths.get("deadcode", deadCodeFileName).toString();
-                Files.write(Paths.get(deadCodeFilePath), deadCodeContent.getBytes(StandardCharsets.UTF_8));
+                Files.write(Paths.get(deadCodeFilePath), deadCode.getContent().getBytes(StandardCharsets.UTF_8));
 
                 generatedFiles.add(mutatedFilePath);
                 log.info("Generated dead code file: {} with selected variable: {}", deadCodeFilePath, selectedVariable);
@@ -1575,54 +1658,133 @@ public class JavaCodeGenerator {
     /**
      * 添加无用代码到原始内容中，使用选定的切片变量
      */
-    private String addDeadCodeWithSelectedVariable(String originalContent, String selectedVariable) {
+    private TransformedSource addDeadCodeWithSelectedVariable(String originalContent, String selectedVariable) {
+        log.info("Adding dead code with selected variable: {}", selectedVariable);
+        return generateVariant(originalContent, Transformation.DEAD_CODE, selectedVariable);
+    }
+
+    /**
+     * 在选定变量声明之后的第一条语句后以文本方式插入死代码，同时给出插入后的行映射
+     * 原始程序的其余部分逐字保留，不经过JavaParser重新打印
+     */
+    public TransformedSource addDeadCodeAfterDeclaration(String originalContent, String selectedVariable) {
         try {
-            log.info("Adding dead code with selected variable: {}", selectedVariable);
+            log.info("Adding dead code to JSmith file with selected variable: {}", selectedVariable);
 
-            // 生成无用代码语句列表，专门使用选定的变量
-            List<String> deadCodeStatements = generateDeadCodeStatementsWithSelectedVariable(selectedVariable);
+            // 生成死代码语句
+            List<String> deadCodeStatements = generateDeadCodeStatementsForJSmith(selectedVariable);
 
             if (deadCodeStatements.isEmpty()) {
-                log.warn("No dead code statements generated");
-                return originalContent;
+                log.warn("No dead code statements generated for JSmith file");
+                return TransformedSource.unchanged(originalContent);
+            }
+
+            // 使用字符串操作精确插入死代码，避免JavaParser重组代码结构
+            String[] lines = originalContent.split("\n");
+            StringBuilder result = new StringBuilder();
+
+            // 找到变量声明的行号
+            int variableDeclarationLine = -1;
+            for (int i = 0; i < lines.length; i++) {
+                String line = lines[i].trim();
+                if (line.contains(selectedVariable) &&
+                    (line.contains("boolean ") || line.contains("long ") || line.contains("int ")) &&
+                    line.contains("=") && line.endsWith(";")) {
+                    variableDeclarationLine = i;
+                    log.info("Found variable '{}' declaration at line {}: {}", selectedVariable, i + 1, line);
+                    break;
+                }
             }
 
-            // 解析原始代码
-            CompilationUnit cu = javaParser.parse(originalContent).getResult().orElseThrow(() ->
-                    new RuntimeException("Failed to parse original content"));
-
-            // 找到main方法
-            Optional<MethodDeclaration> mainMethod = cu.findFirst(MethodDeclaration.class, md ->
-                    md.getNameAsString().equals("main"));
-
-            if (mainMethod.isPresent()) {
-                MethodDeclaration method = mainMethod.get();
-                BlockStmt body = method.getBody().orElse(new BlockStmt());
-
-                // 在方法开始处添加无用代码
-                for (String deadCode : deadCodeStatements) {
-                    try {
-                        Statement deadCodeStmt = javaParser.parseStatement(deadCode).getResult().orElse(null);
-                        if (deadCodeStmt != null) {
-                            body.addStatement(0, deadCodeStmt);
-                            log.info("Added dead code with selected variable: {}", deadCode);
+            boolean deadCodeInserted = false;
+            int insertedAfterLine = 0;
+            int insertedLines = 0;
+
+            for (int i = 0; i < lines.length; i++) {
+                result.append(lines[i]).append("\n");
+
+                // 在变量声明后的第一个语句后插入死代码
+                if (!deadCodeInserted && variableDeclarationLine != -1 && i > variableDeclarationLine) {
+                    String currentLine = lines[i].trim();
+                    // 找到变量声明后的第一个完整语句
+                    if (currentLine.endsWith(";") && !currentLine.startsWith("//") && !currentLine.isEmpty()) {
+                        // 插入死代码
+                        for (String deadCode : deadCodeStatements) {
+                            // 添加适当的缩进
+                            String[] deadCodeLines = deadCode.split("\n");
+                            for (String deadCodeLine : deadCodeLines) {
+                                result.append("        ").append(deadCodeLine).append("\n");
+                            }
+                            insertedLines += deadCodeLines.length;
                         }
-                    } catch (Exception e) {
-                        log.error("Failed to parse dead code statement: {}", deadCode, e);
+                        deadCodeInserted = true;
+                        insertedAfterLine = i + 1;
+                        log.info("Inserted dead code after line {}: {}", i + 1, currentLine);
                     }
                 }
+            }
 
-                return cu.toString();
+            if (!deadCodeInserted) {
+                log.warn("Could not find suitable location to insert dead code for variable: {}", selectedVariable);
+                return TransformedSource.unchanged(originalContent);
             }
 
-            return originalContent;
+            return new TransformedSource(result.toString(),
+                    LineMap.insertion(lines.length, insertedAfterLine, insertedLines));
 
         } catch (Exception e) {
-            log.error("Error adding dead code with selected variable", e);
-            return originalContent;
+            log.error("Error adding dead code to JSmith file", e);
+            return TransformedSource.unchanged(originalContent);
         }
     }
 
+    /**
+     * 为JSmith文件生成死代码语句
+     */
+    private List<String> generateDeadCodeStatementsForJSmith(String selectedVariable) {
+        List<String> statements = new ArrayList<>();
+        Random random = new Random();
+
+        // 固定生成一个3行的死代码块
+        String deadCode = String.format("if (false) {\n    %s = %s + %d;\n}",
+            selectedVariable, selectedVariable, random.nextInt(100) + 1);
+        statements.add(deadCode);
+
+        return statements;
+    }
+
+    /**
+     * 在AST副本的main方法开始处添加使用选定切片变量的无用代码
+     * @return 是否找到main方法并生成了无用代码
+     */
+    private boolean addDeadCode(TransformationSites sites, Node[] nodes, String selectedVariable) {
+        // 生成无用代码语句列表，专门使用选定的变量
+        List<String> deadCodeStatements = generateDeadCodeStatementsWithSelectedVariable(selectedVariable);
+
+        if (deadCodeStatements.isEmpty()) {
+            log.warn("No dead code statements generated");
+            return false;
+        }
+        if (sites.getMainBody() < 0) {
+            return false;
+        }
+
+        BlockStmt body = (BlockStmt) nodes[sites.getMainBody()];
+        // 在方法开始处添加无用代码
+        for (String deadCode : deadCodeStatements) {
+            try {
+                Statement deadCodeStmt = parseCache.parser().parseStatement(deadCode).getResult().orElse(null);
+                if (deadCodeStmt != null) {
+                    body.addStatement(0, deadCodeStmt);
+                    log.info("Added dead code with selected variable: {}", deadCode);
+                }
+            } catch (Exception e) {
+                log.error("Failed to parse dead code statement: {}", deadCode, e);
+            }
+        }
+        return true;
+    }
+
     /**
      * 生成无用代码语句列表，使用选定的切片变量
      */
@@ -1759,167 +1921,59 @@ public class JavaCodeGenerator {
     /**
      * 重排序语句，调整不影响切片变量的语句顺序
      */
-    private String reorderStatements(String originalContent) {
-        try {
-            // 使用AST解析来重排序，更准确地识别语句
-            return reorderStatementsWithAST(originalContent);
-        } catch (Exception e) {
-            log.error("Error reordering statements", e);
-            return originalContent;
-        }
+    private TransformedSource reorderStatements(String originalContent) {
+        return generateVariant(originalContent, Transformation.REORDER, null);
     }
 
     /**
-     * 使用AST解析重排序main方法内的语句（分组shuffle：连续可重排序语句分组，组内shuffle，其他保持原位）
+     * 重排序AST副本中main方法内的语句（分组shuffle：连续可重排序语句分组，组内shuffle，其他保持原位；
+     * 与组内前面的语句读写冲突的语句开始新的一组）
+     * @return 是否找到main方法体
      */
-    private String reorderStatementsWithAST(String originalContent) {
-        try {
-            CompilationUnit cu = javaParser.parse(originalContent).getResult().orElseThrow(() ->
-                    new RuntimeException("Failed to parse content for reordering"));
-
-            // 找到main方法
-            Optional<MethodDeclaration> mainMethod = cu.findFirst(MethodDeclaration.class, md ->
-                    md.getNameAsString().equals("main"));
-
-            if (mainMethod.isPresent()) {
-                MethodDeclaration method = mainMethod.get();
-                BlockStmt body = method.getBody().orElse(null);
-                if (body != null) {
-                    List<Statement> statements = new ArrayList<>(body.getStatements());
-                    List<List<Statement>> groups = new ArrayList<>();
-                    List<Statement> currentGroup = new ArrayList<>();
-                    boolean lastReorderable = false;
-                    for (Statement stmt : statements) {
-                        boolean reorderable = isReorderableStatement(stmt);
-                        if (reorderable) {
-                            currentGroup.add(stmt);
-                            lastReorderable = true;
-                        } else {
-                            if (!currentGroup.isEmpty()) {
-                                groups.add(new ArrayList<>(currentGroup));
-                                currentGroup.clear();
-                            }
-                            // 非可重排序语句单独成组
-                            List<Statement> single = new ArrayList<>();
-                            single.add(stmt);
-                            groups.add(single);
-                            lastReorderable = false;
-                        }
-                    }
-                    if (!currentGroup.isEmpty()) {
-                        groups.add(new ArrayList<>(currentGroup));
-                    }
-                    // shuffle每个可重排序组
-                    List<Statement> newStatements = new ArrayList<>();
-                    for (List<Statement> group : groups) {
-                        if (group.size() > 1 && isReorderableStatement(group.get(0))) {
-                            Collections.shuffle(group);
-                        }
-                        newStatements.addAll(group);
-                    }
-                    // 重建方法体
-                    body.getStatements().clear();
-                    for (Statement stmt : newStatements) {
-                        body.addStatement(stmt);
-                    }
-                    return cu.toString();
-                }
-            }
-            return originalContent;
-        } catch (Exception e) {
-            log.error("Error in AST-based reordering", e);
-            return originalContent;
+    private boolean reorderMainStatements(TransformationSites sites, Node[] nodes) {
+        if (sites.getMainBody() < 0) {
+            return false;
         }
-    }
-
-    /**
-     * 判断语句是否可重排序（与切片变量无关的声明/赋值/输出/循环等）
-     */
-    private boolean isReorderableStatement(Statement stmt) {
-        // 1. 变量声明语句（不包含切片相关关键词）
-        if (stmt instanceof ExpressionStmt) {
-            ExpressionStmt exprStmt = (ExpressionStmt) stmt;
-            Expression expr = exprStmt.getExpression();
-            if (expr instanceof VariableDeclarationExpr) {
-                VariableDeclarationExpr vde = (VariableDeclarationExpr) expr;
-                for (VariableDeclarator vd : vde.getVariables()) {
-                    if (isSliceRelatedVariable(vd.getNameAsString())) {
-                        return false;
-                    }
-                }
-                return true;
-            }
-            // 2. 赋值语句（不涉及切片变量）
-            if (expr instanceof AssignExpr) {
-                AssignExpr assign = (AssignExpr) expr;
-                String target = assign.getTarget().toString();
-                if (!isSliceRelatedVariable(target)) {
-                    return true;
+        BlockStmt body = (BlockStmt) nodes[sites.getMainBody()];
+        List<Statement> statements = new ArrayList<>(body.getStatements());
+        List<List<Statement>> groups = new ArrayList<>();
+        List<Statement> currentGroup = new ArrayList<>();
+        for (int i = 0; i < statements.size(); i++) {
+            Statement stmt = statements.get(i);
+            if (sites.isReorderable(i)) {
+                if (sites.startsReorderGroup(i) && !currentGroup.isEmpty()) {
+                    groups.add(new ArrayList<>(currentGroup));
+                    currentGroup.clear();
                 }
-            }
-            // 3. 输出语句（如System.out.println）
-            if (expr instanceof MethodCallExpr) {
-                MethodCallExpr mce = (MethodCallExpr) expr;
-                String methodName = mce.getNameAsString();
-                if ((methodName.equals("println") || methodName.equals("print")) &&
-                        mce.getScope().isPresent() && mce.getScope().get().toString().equals("System.out")) {
-                    return true;
+                currentGroup.add(stmt);
+            } else {
+                if (!currentGroup.isEmpty()) {
+                    groups.add(new ArrayList<>(currentGroup));
+                    currentGroup.clear();
                 }
+                // 非可重排序语句单独成组
+                List<Statement> single = new ArrayList<>();
+                single.add(stmt);
+                groups.add(single);
             }
         }
-        // 4. 独立循环（不包含切片变量）
-        if (stmt instanceof ForStmt || stmt instanceof WhileStmt || stmt instanceof ForEachStmt) {
-            if (!containsSliceRelatedVariable(stmt)) {
-                return true;
-            }
+        if (!currentGroup.isEmpty()) {
+            groups.add(new ArrayList<>(currentGroup));
         }
-        return false;
-    }
-
-    /**
-     * 判断语句是否包含切片相关变量
-     */
-    private boolean containsSliceRelatedVariable(Statement stmt) {
-        Set<String> names = new HashSet<>();
-        stmt.findAll(NameExpr.class).forEach(nameExpr -> names.add(nameExpr.getNameAsString()));
-        for (String name : names) {
-            if (isSliceRelatedVariable(name)) {
-                return true;
+        // shuffle每个可重排序组，非可重排序语句所在的组只有一条语句
+        List<Statement> newStatements = new ArrayList<>();
+        for (List<Statement> group : groups) {
+            if (group.size() > 1) {
+                Collections.shuffle(group);
             }
+            newStatements.addAll(group);
         }
-        return false;
-    }
-
-    /**
-     * 获取指定行的内容
-     */
-    private String getLineContent(String sourceFile, int lineNumber) {
-        try {
-            String content = Files.readString(Paths.get(sourceFile), StandardCharsets.UTF_8);
-            String[] lines = content.split("\n");
-            if (lineNumber > 0 && lineNumber <= lines.length) {
-                return lines[lineNumber - 1];
-            }
-            return "";
-        } catch (IOException e) {
-            log.error("Error reading line content", e);
-            return "";
+        // 重建方法体
+        body.getStatements().clear();
+        for (Statement stmt : newStatements) {
+            body.addStatement(stmt);
         }
-    }
-
-    /**
-     * 判断是否为无用代码行
-     */
-    private boolean isDeadCodeLine(String line) {
-        // 无用代码的特征 - 覆盖所有生成的无用代码类型
-        return line.startsWith("if (false)") ||
-                line.startsWith("for (int i = 0; i < 0;") ||
-                line.matches("^int (unusedVar|temp)\\d+.*") ||
-                line.matches("^int x = \\d+;") ||
-                line.equals("for (int i = 0; i < 0; i++) { }") ||
-                line.matches("^int temp\\d+ = \\d+;") ||
-                line.matches("^int unusedVar\\d+ = \\d+;") ||
-                line.matches("^if \\(false\\) \\{ int x = \\d+; \\}");
+        return true;
     }
 
     /**
@@ -1933,8 +1987,8 @@ public class JavaCodeGenerator {
 
         try {
             // 确保目录存在
-            Files.createDirectories(Paths.get(MUTATED_DIR));
-            Files.createDirectories(Paths.get("reordered"));
+            Files.createDirectories(Paths.get(baseDir, MUTATED_DIR));
+            Files.createDirectories(Paths.get(baseDir, REORDERED_DIR));
 
             for (int i = 0; i < numFiles; i++) {
                 try {
@@ -1943,23 +1997,25 @@ public class JavaCodeGenerator {
 
                     // 创建原始文件
                     String originalFileName = String.format("Example_original_%d.java", i);
-                    String originalFilePath = Paths.get(MUTATED_DIR, originalFileName).toString();
+                    String originalFilePath = Paths.get(baseDir, MUTATED_DIR, originalFileName).toString();
                     Files.write(Paths.get(originalFilePath), originalContent.getBytes(StandardCharsets.UTF_8));
                     generatedFiles.add(originalFilePath);
 
                     // 创建语句重排序文件
-                    String reorderedContent = reorderStatements(originalContent);
+                    TransformedSource reordered = reorderStatements(originalContent);
 
                     // 检查重排序是否实际上改变了内容
-                    if (reorderedContent.equals(originalContent)) {
+                    if (reordered.getContent().equals(originalContent)) {
                         log.warn("重排序后内容与原始内容相同，将尝试再次重排序");
                         // 再次尝试重排序，但加入随机性以尝试产生不同结果
-                        reorderedContent = reorderStatements(originalContent);
+                        reordered = reorderStatements(originalContent);
                     }
+                    String reorderedContent = reordered.getContent();
 
                     String reorderedFileName = String.format("Example_reordered_%d.java", i);
-                    String reorderedFilePath = Paths.get("reordered", reorderedFileName).toString();
+                    String reorderedFilePath = Paths.get(baseDir, REORDERED_DIR, reorderedFileName).toString();
                     Files.write(Paths.get(reorderedFilePath), reorderedContent.getBytes(StandardCharsets.UTF_8));
+                    lineMaps.put(reorderedFilePath, reordered.getLineMap());
 
                     log.info("Generated statement reorder file pair: {} -> {}", originalFilePath, reorderedFilePath);
 
@@ -1982,20 +2038,6 @@ public class JavaCodeGenerator {
         return generatedFiles;
     }
 
-    /**
-     * 判断变量名是否为切片相关变量
-     */
-    private boolean isSliceRelatedVariable(String varName) {
-        // 明确排除无关变量
-        if (varName.startsWith("unrelated")) {
-            return false;
-        }
-        // 明确识别切片相关变量
-        return varName.matches("val\\d+") || varName.matches("temp\\d+") ||
-                varName.matches("result\\d+") || varName.equals("temp") ||
-                varName.equals("choice"); // choice控制switch语句执行路径，是切片相关变量
-    }
-
     /**
      * 生成控制流等价变换的变异文件
      * @param baseDir 基础目录
@@ -2007,20 +2049,20 @@ public class JavaCodeGenerator {
 
         try {
             // 确保目录存在
-            Files.createDirectories(Paths.get(CONTROLFLOW_DIR));
+            Files.createDirectories(Paths.get(baseDir, CONTROLFLOW_DIR));
 
             for (int i = 0; i < numFiles; i++) {
                 // 生成原始代码
                 String originalContent = generateRandomJavaClass();
 
                 // 对原始代码进行控制流变换
-                String transformedContent = transformControlFlow(originalContent);
+                TransformedSource transformed = transformControlFlowWithLineMap(originalContent);
 
                 // 保存变换后的代码
                 String fileName = String.format("Example_controlflow_%d.java", i);
-                String filePath = Paths.get(CONTROLFLOW_DIR, fileName).toString();
+                String filePath = Paths.get(baseDir, CONTROLFLOW_DIR, fileName).toString();
 
-                Files.write(Paths.get(filePath), transformedContent.getBytes(StandardCharsets.UTF_8));
+                Files.write(Paths.get(filePath), transformed.getContent().getBytes(StandardCharsets.UTF_8));
                 controlFlowFiles.add(filePath);
 
                 log.info("Generated control flow file: {}", filePath);
@@ -2037,202 +2079,102 @@ public class JavaCodeGenerator {
      * 控制流等价变换 - 确保不影响切片点的控制流结构
      */
     public String transformControlFlow(String originalContent) {
-        try {
-            CompilationUnit cu = javaParser.parse(originalContent).getResult().orElseThrow(() ->
-                    new RuntimeException("Failed to parse content for control flow transformation"));
-
-            Optional<MethodDeclaration> mainMethod = cu.findFirst(MethodDeclaration.class, md ->
-                    md.getNameAsString().equals("main"));
-
-            boolean changed = false;
-            if (mainMethod.isPresent()) {
-                MethodDeclaration method = mainMethod.get();
-                BlockStmt body = method.getBody().orElse(null);
-                if (body != null) {
-                    // 分析切片相关变量和控制依赖关系
-                    Set<String> sliceVariables = findSliceRelatedVariables(body);
-                    Map<String, Set<String>> controlDependencies = analyzeControlDependencies(body, sliceVariables);
-
-                    log.info("Found slice variables: {}", sliceVariables);
-                    log.info("Control dependencies: {}", controlDependencies);
-
-                    // 应用各种控制流变换，但确保不影响切片点
-                    changed |= transformIfStatements(body, sliceVariables, controlDependencies);
-                    changed |= transformLoopStatements(body, sliceVariables, controlDependencies);
-                    changed |= transformSwitchStatements(body, sliceVariables);
-
-                    // 如果没有任何变换，尝试对无关的控制流结构进行变换
-                    if (!changed) {
-                        changed |= transformUnrelatedControlFlow(body, sliceVariables);
-                    }
-
-                    return cu.toString();
-                }
-            }
-            return originalContent;
-        } catch (Exception e) {
-            log.error("Error in control flow transformation", e);
-            return originalContent;
-        }
+        return transformControlFlowWithLineMap(originalContent).getContent();
     }
 
     /**
-     * 查找切片相关变量
+     * 控制流等价变换，同时给出原始程序到变换后程序的行映射
      */
-    private Set<String> findSliceRelatedVariables(BlockStmt body) {
-        Set<String> sliceVariables = new HashSet<>();
-
-        // 查找所有变量声明和使用
-        body.findAll(VariableDeclarator.class).forEach(vd -> {
-            String varName = vd.getNameAsString();
-            if (isSliceRelatedVariable(varName)) {
-                sliceVariables.add(varName);
-            }
-        });
-
-        // 查找所有变量使用
-        body.findAll(NameExpr.class).forEach(nameExpr -> {
-            String varName = nameExpr.getNameAsString();
-            if (isSliceRelatedVariable(varName)) {
-                sliceVariables.add(varName);
-            }
-        });
-
-        return sliceVariables;
+    public TransformedSource transformControlFlowWithLineMap(String originalContent) {
+        return generateVariant(originalContent, Transformation.CONTROL_FLOW, null);
     }
 
     /**
-     * 分析控制依赖关系
+     * 在AST副本上应用控制流等价变换
+     * @return 是否找到main方法体
      */
-    private Map<String, Set<String>> analyzeControlDependencies(BlockStmt body, Set<String> sliceVariables) {
-        Map<String, Set<String>> dependencies = new HashMap<>();
-
-        // 分析if语句的控制依赖
-        body.findAll(IfStmt.class).forEach(ifStmt -> {
-            Set<String> conditionVars = extractVariablesFromExpression(ifStmt.getCondition());
-            Set<String> dependentVars = new HashSet<>();
-
-            // 检查then分支中的变量
-            dependentVars.addAll(extractVariablesFromStatement(ifStmt.getThenStmt()));
-
-            // 检查else分支中的变量
-            if (ifStmt.getElseStmt().isPresent()) {
-                dependentVars.addAll(extractVariablesFromStatement(ifStmt.getElseStmt().get()));
-            }
-
-            // 如果条件变量或依赖变量包含切片变量，则建立依赖关系
-            for (String conditionVar : conditionVars) {
-                if (sliceVariables.contains(conditionVar)) {
-                    dependencies.computeIfAbsent(conditionVar, k -> new HashSet<>()).addAll(dependentVars);
-                }
-            }
-
-            for (String dependentVar : dependentVars) {
-                if (sliceVariables.contains(dependentVar)) {
-                    dependencies.computeIfAbsent(dependentVar, k -> new HashSet<>()).addAll(conditionVars);
-                }
-            }
-        });
-
-        // 分析循环的控制依赖
-        body.findAll(ForStmt.class).forEach(forStmt -> {
-            Set<String> loopVars = extractVariablesFromExpression(forStmt.getCompare().orElse(null));
-            Set<String> bodyVars = extractVariablesFromStatement(forStmt.getBody());
-
-            for (String loopVar : loopVars) {
-                if (sliceVariables.contains(loopVar)) {
-                    dependencies.computeIfAbsent(loopVar, k -> new HashSet<>()).addAll(bodyVars);
-                }
-            }
-        });
-
-        body.findAll(WhileStmt.class).forEach(whileStmt -> {
-            Set<String> conditionVars = extractVariablesFromExpression(whileStmt.getCondition());
-            Set<String> bodyVars = extractVariablesFromStatement(whileStmt.getBody());
-
-            for (String conditionVar : conditionVars) {
-                if (sliceVariables.contains(conditionVar)) {
-                    dependencies.computeIfAbsent(conditionVar, k -> new HashSet<>()).addAll(bodyVars);
-                }
-            }
-        });
+    private boolean transformMainControlFlow(TransformationSites sites, Node[] nodes) {
+        if (sites.getMainBody() < 0) {
+            return false;
+        }
+        log.info("Found slice variables: {}", sites.getSliceVariables());
+        logDependenceGraph(sites);
 
-        return dependencies;
-    }
+        // 应用各种控制流变换，但确保不影响切片点
+        boolean changed = false;
+        changed |= transformIfStatements(sites, nodes);
+        changed |= transformLoopStatements(sites, nodes);
+        changed |= transformSwitchStatements(sites, nodes);
 
-    /**
-     * 从表达式中提取变量名
-     */
-    private Set<String> extractVariablesFromExpression(Expression expr) {
-        Set<String> variables = new HashSet<>();
-        if (expr != null) {
-            expr.findAll(NameExpr.class).forEach(nameExpr ->
-                    variables.add(nameExpr.getNameAsString()));
+        // 如果没有任何变换，尝试对无关的控制流结构进行变换
+        if (!changed) {
+            transformUnrelatedControlFlow(sites, nodes);
         }
-        return variables;
+        return true;
     }
 
-    /**
-     * 从语句中提取变量名
-     */
-    private Set<String> extractVariablesFromStatement(Statement stmt) {
-        Set<String> variables = new HashSet<>();
-        if (stmt != null) {
-            stmt.findAll(NameExpr.class).forEach(nameExpr ->
-                    variables.add(nameExpr.getNameAsString()));
-        }
-        return variables;
+    private void logDependenceGraph(TransformationSites sites) {
+        DependenceGraph graph = sites.getDependenceGraph();
+        log.info("Dependence graph: {} nodes, {} related to slice variables", graph.size(), graph.relevantCount());
     }
 
     /**
      * 变换if语句结构 - 确保不影响切片点
      */
-    private boolean transformIfStatements(BlockStmt body, Set<String> sliceVariables,
-                                          Map<String, Set<String>> controlDependencies) {
+    private boolean transformIfStatements(TransformationSites sites, Node[] nodes) {
         boolean changed = false;
-        List<IfStmt> ifStatements = body.findAll(IfStmt.class);
 
-        for (IfStmt ifStmt : ifStatements) {
+        for (TransformationSites.Branch branch : sites.getIfs()) {
             // 检查这个if语句是否影响切片点
-            if (affectsSlicePoint(ifStmt, sliceVariables, controlDependencies)) {
+            if (sites.affectsSlicePoint(branch)) {
                 log.info("Skipping if statement transformation - affects slice point");
                 continue;
             }
 
             // 安全变换：交换if-else分支
-            if (ifStmt.getElseStmt().isPresent()) {
-                Statement thenStmt = ifStmt.getThenStmt();
-                Statement elseStmt = ifStmt.getElseStmt().get();
-
-                // 创建取反条件
-                Expression negatedCondition = createNegatedCondition(ifStmt.getCondition());
-                if (negatedCondition != null) {
-                    ifStmt.setCondition(negatedCondition);
-                    ifStmt.setThenStmt(elseStmt);
-                    ifStmt.setElseStmt(thenStmt);
-                    log.info("Transformed if statement: negated condition and swapped branches");
-                    changed = true;
-                }
+            if (swapIfBranches((IfStmt) nodes[branch.getIndex()])) {
+                log.info("Transformed if statement: negated condition and swapped branches");
+                changed = true;
             }
         }
         return changed;
     }
 
+    /**
+     * 条件取反并交换if-else分支，没有else分支或无法取反时不变换
+     */
+    private boolean swapIfBranches(IfStmt ifStmt) {
+        if (!ifStmt.getElseStmt().isPresent()) {
+            return false;
+        }
+        Statement thenStmt = ifStmt.getThenStmt();
+        Statement elseStmt = ifStmt.getElseStmt().get();
+
+        // 创建取反条件
+        Expression negatedCondition = createNegatedCondition(ifStmt.getCondition());
+        if (negatedCondition == null) {
+            return false;
+        }
+        ifStmt.setCondition(negatedCondition);
+        ifStmt.setThenStmt(elseStmt);
+        ifStmt.setElseStmt(thenStmt);
+        return true;
+    }
+
     /**
      * 变换循环语句结构 - 确保不影响切片点
      */
-    private boolean transformLoopStatements(BlockStmt body, Set<String> sliceVariables,
-                                            Map<String, Set<String>> controlDependencies) {
+    private boolean transformLoopStatements(TransformationSites sites, Node[] nodes) {
         boolean changed = false;
 
         // 变换for循环
-        List<ForStmt> forStatements = body.findAll(ForStmt.class);
-        for (ForStmt forStmt : forStatements) {
-            if (affectsSlicePoint(forStmt, sliceVariables, controlDependencies)) {
+        for (TransformationSites.Branch branch : sites.getFors()) {
+            if (sites.affectsSlicePoint(branch)) {
                 log.info("Skipping for loop transformation - affects slice point");
                 continue;
             }
 
+            ForStmt forStmt = (ForStmt) nodes[branch.getIndex()];
             if (canTransformForToWhile(forStmt)) {
                 transformForToWhile(forStmt);
                 log.info("Transformed for loop to while loop");
@@ -2241,13 +2183,13 @@ public class JavaCodeGenerator {
         }
 
         // 变换while循环
-        List<WhileStmt> whileStatements = body.findAll(WhileStmt.class);
-        for (WhileStmt whileStmt : whileStatements) {
-            if (affectsSlicePoint(whileStmt, sliceVariables, controlDependencies)) {
+        for (TransformationSites.Branch branch : sites.getWhiles()) {
+            if (sites.affectsSlicePoint(branch)) {
                 log.info("Skipping while loop transformation - affects slice point");
                 continue;
             }
 
+            WhileStmt whileStmt = (WhileStmt) nodes[branch.getIndex()];
             if (canTransformWhileToFor(whileStmt)) {
                 transformWhileToFor(whileStmt);
                 log.info("Transformed while loop to for loop");
@@ -2261,106 +2203,50 @@ public class JavaCodeGenerator {
     /**
      * 变换switch语句结构 - 确保不影响切片点
      */
-    private boolean transformSwitchStatements(BlockStmt body, Set<String> sliceVariables) {
+    private boolean transformSwitchStatements(TransformationSites sites, Node[] nodes) {
         boolean changed = false;
-        List<SwitchStmt> switchStatements = body.findAll(SwitchStmt.class);
 
-        for (SwitchStmt switchStmt : switchStatements) {
+        for (TransformationSites.Branch branch : sites.getSwitches()) {
             // 检查switch语句是否影响切片点
-            if (affectsSlicePoint(switchStmt, sliceVariables)) {
+            if (sites.mentionsSliceVariable(branch)) {
                 log.info("Skipping switch statement transformation - affects slice point");
                 continue;
             }
 
             // 重新排列case顺序
-            reorderSwitchCases(switchStmt);
+            reorderSwitchCases((SwitchStmt) nodes[branch.getIndex()]);
             log.info("Reordered switch cases");
             changed = true;
         }
         return changed;
     }
 
-    /**
-     * 检查控制流结构是否影响切片点
-     */
-    private boolean affectsSlicePoint(Statement stmt, Set<String> sliceVariables) {
-        return affectsSlicePoint(stmt, sliceVariables, new HashMap<>());
-    }
-
-    /**
-     * 检查控制流结构是否影响切片点
-     */
-    private boolean affectsSlicePoint(Statement stmt, Set<String> sliceVariables,
-                                      Map<String, Set<String>> controlDependencies) {
-        Set<String> stmtVariables = extractVariablesFromStatement(stmt);
-
-        // 检查语句中是否包含切片变量
-        for (String var : stmtVariables) {
-            if (sliceVariables.contains(var)) {
-                return true;
-            }
-        }
-
-        // 检查控制依赖关系
-        for (String sliceVar : sliceVariables) {
-            Set<String> dependencies = controlDependencies.get(sliceVar);
-            if (dependencies != null) {
-                for (String depVar : dependencies) {
-                    if (stmtVariables.contains(depVar)) {
-                        return true;
-                    }
-                }
-            }
-        }
-
-        return false;
-    }
-
     /**
      * 变换无关的控制流结构
      */
-    private boolean transformUnrelatedControlFlow(BlockStmt body, Set<String> sliceVariables) {
+    private boolean transformUnrelatedControlFlow(TransformationSites sites, Node[] nodes) {
         boolean changed = false;
 
-        // 查找不包含切片变量的控制流结构
-        List<IfStmt> unrelatedIfs = body.findAll(IfStmt.class).stream()
-                .filter(ifStmt -> !affectsSlicePoint(ifStmt, sliceVariables))
-                .collect(Collectors.toList());
-
-        List<ForStmt> unrelatedFors = body.findAll(ForStmt.class).stream()
-                .filter(forStmt -> !affectsSlicePoint(forStmt, sliceVariables))
-                .collect(Collectors.toList());
-
-        List<WhileStmt> unrelatedWhiles = body.findAll(WhileStmt.class).stream()
-                .filter(whileStmt -> !affectsSlicePoint(whileStmt, sliceVariables))
-                .collect(Collectors.toList());
-
-        // 对无关的控制流结构进行变换
-        for (IfStmt ifStmt : unrelatedIfs) {
-            if (ifStmt.getElseStmt().isPresent()) {
-                Expression negatedCondition = createNegatedCondition(ifStmt.getCondition());
-                if (negatedCondition != null) {
-                    Statement thenStmt = ifStmt.getThenStmt();
-                    Statement elseStmt = ifStmt.getElseStmt().get();
-                    ifStmt.setCondition(negatedCondition);
-                    ifStmt.setThenStmt(elseStmt);
-                    ifStmt.setElseStmt(thenStmt);
-                    changed = true;
-                    log.info("Transformed unrelated if statement");
-                }
+        // 对不包含切片变量的控制流结构进行变换
+        for (TransformationSites.Branch branch : sites.getIfs()) {
+            if (!sites.mentionsSliceVariable(branch) && swapIfBranches((IfStmt) nodes[branch.getIndex()])) {
+                changed = true;
+                log.info("Transformed unrelated if statement");
             }
         }
 
-        for (ForStmt forStmt : unrelatedFors) {
-            if (canTransformForToWhile(forStmt)) {
+        for (TransformationSites.Branch branch : sites.getFors()) {
+            ForStmt forStmt = (ForStmt) nodes[branch.getIndex()];
+            if (!sites.mentionsSliceVariable(branch) && canTransformForToWhile(forStmt)) {
                 transformForToWhile(forStmt);
                 changed = true;
                 log.info("Transformed unrelated for loop");
             }
         }
 
-        for (WhileStmt whileStmt : unrelatedWhiles) {
-            if (canTransformWhileToFor(whileStmt)) {
+        for (TransformationSites.Branch branch : sites.getWhiles()) {
+            WhileStmt whileStmt = (WhileStmt) nodes[branch.getIndex()];
+            if (!sites.mentionsSliceVariable(branch) && canTransformWhileToFor(whileStmt)) {
                 transformWhileToFor(whileStmt);
                 changed = true;
                 log.info("Transformed unrelated while loop");
@@ -2648,41 +2534,20 @@ public class JavaCodeGenerator {
      */
     public VariableInfo findVariableLineNumber(String sourceFile, String targetVariable) {
         try {
-            String content = Files.readString(Paths.get(sourceFile), StandardCharsets.UTF_8);
-            CompilationUnit cu = javaParser.parse(content).getResult().orElseThrow(() ->
-                    new RuntimeException("Failed to parse Java file"));
+            SymbolIndex.Symbol symbol = getSymbolIndex(sourceFile).get(targetVariable);
 
             log.info("=== Finding line number for variable '{}' in file: {} ===", targetVariable, sourceFile);
 
-            // 查找变量声明
-            List<VariableDeclarator> declarations = cu.findAll(VariableDeclarator.class).stream()
-                    .filter(vd -> vd.getNameAsString().equals(targetVariable))
-                    .collect(Collectors.toList());
-
-            // 查找变量使用
-            List<NameExpr> usages = cu.findAll(NameExpr.class).stream()
-                    .filter(nameExpr -> nameExpr.getNameAsString().equals(targetVariable))
-                    .collect(Collectors.toList());
+            // 变量的声明行和使用行
+            List<Integer> declarations = symbol == null ? Collections.emptyList() : symbol.getDeclarationLines();
+            List<Integer> usages = symbol == null ? Collections.emptyList() : symbol.getUsageLines();
 
             log.info("Found {} declarations and {} usages for variable '{}'",
                     declarations.size(), usages.size(), targetVariable);
 
             // 收集所有行号
-            List<Integer> allLines = new ArrayList<>();
-
-            // 添加声明行号
-            for (VariableDeclarator vd : declarations) {
-                int line = vd.getBegin().get().line;
-                allLines.add(line);
-                log.info("Declaration of '{}' at line {}", targetVariable, line);
-            }
-
-            // 添加使用行号
-            for (NameExpr nameExpr : usages) {
-                int line = nameExpr.getBegin().get().line;
-                allLines.add(line);
-                log.info("Usage of '{}' at line {}", targetVariable, line);
-            }
+            List<Integer> allLines = new ArrayList<>(declarations);
+            allLines.addAll(usages);
 
             // 排序去重
             allLines = allLines.stream().distinct().sorted().collect(Collectors.toList());
@@ -2713,44 +2578,12 @@ public class JavaCodeGenerator {
      */
     public VariableInfo findVariableLastAssignment(String sourceFile, String targetVariable) {
         try {
-            String content = Files.readString(Paths.get(sourceFile), StandardCharsets.UTF_8);
-            CompilationUnit cu = javaParser.parse(content).getResult().orElseThrow(() ->
-                    new RuntimeException("Failed to parse Java file"));
+            SymbolIndex.Symbol symbol = getSymbolIndex(sourceFile).get(targetVariable);
 
             log.info("=== Finding last assignment for variable '{}' in file: {} ===", targetVariable, sourceFile);
 
-            List<Integer> assignmentLinesRaw = new ArrayList<>();
-
-            // 1. 查找所有赋值表达式（如 val1 = ...;）
-            cu.findAll(AssignExpr.class).forEach(assign -> {
-                Expression target = assign.getTarget();
-                if (target instanceof NameExpr) {
-                    if (((NameExpr) target).getNameAsString().equals(targetVariable)) {
-                        assignmentLinesRaw.add(assign.getBegin().get().line);
-                    }
-                }
-            });
-
-            // 2. 查找所有声明赋值（如 int val1 = ...;）
-            cu.findAll(VariableDeclarator.class).forEach(vd -> {
-                if (vd.getNameAsString().equals(targetVariable) && vd.getInitializer().isPresent()) {
-                    assignmentLinesRaw.add(vd.getBegin().get().line);
-                }
-            });
-
-            // 3. 查找所有 ExpressionStmt 里的赋值（兼容 switch-case 等）
-            cu.findAll(com.github.javaparser.ast.stmt.ExpressionStmt.class).forEach(exprStmt -> {
-                Expression expr = exprStmt.getExpression();
-                if (expr instanceof AssignExpr) {
-                    AssignExpr assign = (AssignExpr) expr;
-                    Expression target = assign.getTarget();
-                    if (target instanceof NameExpr) {
-                        if (((NameExpr) target).getNameAsString().equals(targetVariable)) {
-                            assignmentLinesRaw.add(exprStmt.getBegin().get().line);
-                        }
-                    }
-                }
-            });
+            // 赋值表达式（如 val1 = ...;，包括switch-case中的赋值语句）和声明赋值（如 int val1 = ...;）
+            List<Integer> assignmentLinesRaw = symbol == null ? Collections.emptyList() : symbol.getAssignmentLines();
 
             // 排序去重
             List<Integer> assignmentLines = assignmentLinesRaw.stream().distinct().sorted().collect(Collectors.toList());
@@ -2793,23 +2626,14 @@ public class JavaCodeGenerator {
      */
     public VariableInfo findVariableDeclaration(String sourceFile, String targetVariable) {
         try {
-            String content = Files.readString(Paths.get(sourceFile), StandardCharsets.UTF_8);
-            CompilationUnit cu = javaParser.parse(content).getResult().orElseThrow(() ->
-                    new RuntimeException("Failed to parse Java file"));
-
-            // 查找所有变量声明
-            List<VariableDeclarator> variables = cu.findAll(VariableDeclarator.class);
-
-            for (VariableDeclarator var : variables) {
-                if (var.getNameAsString().equals(targetVariable)) {
-                    // 获取变量声明的行号
-                    if (var.getBegin().isPresent()) {
-                        int lineNumber = var.getBegin().get().line;
-                        log.info("Found variable '{}' declaration at line {} in file: {}",
-                                targetVariable, lineNumber, sourceFile);
-                        return new VariableInfo(targetVariable, lineNumber);
-                    }
-                }
+            SymbolIndex.Symbol symbol = getSymbolIndex(sourceFile).get(targetVariable);
+
+            // 第一次声明的行号
+            if (symbol != null && !symbol.getDeclarationLines().isEmpty()) {
+                int lineNumber = symbol.getDeclarationLines().get(0);
+                log.info("Found variable '{}' declaration at line {} in file: {}",
+                        targetVariable, lineNumber, sourceFile);
+                return new VariableInfo(targetVariable, lineNumber);
             }
 
             log.warn("Variable '{}' declaration not found in file: {}", targetVariable, sourceFile);
@@ -2852,8 +2676,8 @@ public class JavaCodeGenerator {
 
         try {
             // 确保目录存在
-            Files.createDirectories(Paths.get(MUTATED_DIR));
-            Files.createDirectories(Paths.get("dataflow"));
+            Files.createDirectories(Paths.get(baseDir, MUTATED_DIR));
+            Files.createDirectories(Paths.get(baseDir, DATAFLOW_DIR));
 
             for (int i = 0; i < numFiles; i++) {
                 try {
@@ -2862,16 +2686,18 @@ public class JavaCodeGenerator {
 
                     // 创建原始文件
                     String originalFileName = String.format("Example_original_%d.java", i);
-                    String originalFilePath = Paths.get(MUTATED_DIR, originalFileName).toString();
+                    String originalFilePath = Paths.get(baseDir, MUTATED_DIR, originalFileName).toString();
                     Files.write(Paths.get(originalFilePath), originalContent.getBytes(StandardCharsets.UTF_8));
                     generatedFiles.add(originalFilePath);
 
                     // 创建数据流变换文件
-                    String dataFlowContent = transformDataFlow(originalContent);
+                    TransformedSource dataFlow = transformDataFlowWithLineMap(originalContent);
+                    String dataFlowContent = dataFlow.getContent();
 
                     String dataFlowFileName = String.format("Example_dataflow_%d.java", i);
-                    String dataFlowFilePath = Paths.get("dataflow", dataFlowFileName).toString();
+                    String dataFlowFilePath = Paths.get(baseDir, DATAFLOW_DIR, dataFlowFileName).toString();
                     Files.write(Paths.get(dataFlowFilePath), dataFlowContent.getBytes(StandardCharsets.UTF_8));
+                    lineMaps.put(dataFlowFilePath, dataFlow.getLineMap());
 
                     log.info("Generated data flow file pair: {} -> {}", originalFilePath, dataFlowFilePath);
 
@@ -2898,109 +2724,59 @@ public class JavaCodeGenerator {
      * 数据流等价变换 - 确保不影响切片点的数据流结构
      */
     public String transformDataFlow(String originalContent) {
-        try {
-            CompilationUnit cu = javaParser.parse(originalContent).getResult().orElseThrow(() ->
-                    new RuntimeException("Failed to parse content for data flow transformation"));
-
-            Optional<MethodDeclaration> mainMethod = cu.findFirst(MethodDeclaration.class, md ->
-                    md.getNameAsString().equals("main"));
-
-            boolean changed = false;
-            if (mainMethod.isPresent()) {
-                MethodDeclaration method = mainMethod.get();
-                BlockStmt body = method.getBody().orElse(null);
-                if (body != null) {
-                    // 分析切片相关变量和数据依赖关系
-                    Set<String> sliceVariables = findSliceRelatedVariables(body);
-                    Map<String, Set<String>> dataDependencies = analyzeDataDependencies(body, sliceVariables);
-
-                    log.info("Found slice variables: {}", sliceVariables);
-                    log.info("Data dependencies: {}", dataDependencies);
-
-                    // 应用各种数据流变换，但确保不影响切片点
-                    changed |= transformUnrelatedVariableAssignments(body, sliceVariables, dataDependencies);
-                    changed |= transformUnrelatedExpressions(body, sliceVariables, dataDependencies);
-                    changed |= transformUnrelatedCalculations(body, sliceVariables, dataDependencies);
-
-                    // 如果没有任何变换，尝试对无关的数据流结构进行变换
-                    if (!changed) {
-                        changed |= transformUnrelatedDataFlow(body, sliceVariables);
-                    }
-
-                    return cu.toString();
-                }
-            }
-            return originalContent;
-        } catch (Exception e) {
-            log.error("Error in data flow transformation", e);
-            return originalContent;
-        }
+        return transformDataFlowWithLineMap(originalContent).getContent();
     }
 
     /**
-     * 分析数据依赖关系
+     * 数据流等价变换，同时给出原始程序到变换后程序的行映射
      */
-    private Map<String, Set<String>> analyzeDataDependencies(BlockStmt body, Set<String> sliceVariables) {
-        Map<String, Set<String>> dependencies = new HashMap<>();
-
-        // 分析所有赋值语句的数据依赖
-        body.findAll(AssignExpr.class).forEach(assign -> {
-            Expression target = assign.getTarget();
-            Expression value = assign.getValue();
-
-            if (target instanceof NameExpr) {
-                String targetVar = ((NameExpr) target).getNameAsString();
-                Set<String> usedVars = extractVariablesFromExpression(value);
-
-                // 建立数据依赖关系
-                dependencies.computeIfAbsent(targetVar, k -> new HashSet<>()).addAll(usedVars);
-
-                // 反向依赖：使用该变量的语句依赖于该变量
-                for (String usedVar : usedVars) {
-                    dependencies.computeIfAbsent(usedVar, k -> new HashSet<>()).add(targetVar);
-                }
-            }
-        });
+    public TransformedSource transformDataFlowWithLineMap(String originalContent) {
+        return generateVariant(originalContent, Transformation.DATA_FLOW, null);
+    }
 
-        // 分析变量声明中的数据依赖
-        body.findAll(VariableDeclarator.class).forEach(vd -> {
-            if (vd.getInitializer().isPresent()) {
-                String targetVar = vd.getNameAsString();
-                Set<String> usedVars = extractVariablesFromExpression(vd.getInitializer().get());
+    /**
+     * 在AST副本上应用数据流等价变换
+     * @return 是否找到main方法体
+     */
+    private boolean transformMainDataFlow(TransformationSites sites, Node[] nodes) {
+        if (sites.getMainBody() < 0) {
+            return false;
+        }
+        log.info("Found slice variables: {}", sites.getSliceVariables());
+        logDependenceGraph(sites);
 
-                dependencies.computeIfAbsent(targetVar, k -> new HashSet<>()).addAll(usedVars);
-                for (String usedVar : usedVars) {
-                    dependencies.computeIfAbsent(usedVar, k -> new HashSet<>()).add(targetVar);
-                }
-            }
-        });
+        // 应用各种数据流变换，但确保不影响切片点
+        boolean changed = false;
+        changed |= transformUnrelatedVariableAssignments(sites, nodes);
+        changed |= transformUnrelatedExpressions(sites, nodes);
+        changed |= transformUnrelatedCalculations(sites, nodes);
 
-        return dependencies;
+        // 如果没有任何变换，尝试对无关的数据流结构进行变换
+        if (!changed) {
+            transformUnrelatedDataFlow((BlockStmt) nodes[sites.getMainBody()], sites.getSliceVariables());
+        }
+        return true;
     }
 
     /**
      * 变换无关的变量赋值
      */
-    private boolean transformUnrelatedVariableAssignments(BlockStmt body, Set<String> sliceVariables,
-                                                          Map<String, Set<String>> dataDependencies) {
+    private boolean transformUnrelatedVariableAssignments(TransformationSites sites, Node[] nodes) {
         boolean changed = false;
-        List<AssignExpr> assignments = body.findAll(AssignExpr.class);
-
-        for (AssignExpr assign : assignments) {
-            Expression target = assign.getTarget();
-            if (target instanceof NameExpr) {
-                String targetVar = ((NameExpr) target).getNameAsString();
-
-                // 检查这个赋值是否影响切片点
-                if (!affectsSlicePoint(assign, sliceVariables, dataDependencies)) {
-                    // 安全变换：修改无关变量的赋值
-                    Expression newValue = transformUnrelatedExpression(assign.getValue(), sliceVariables);
-                    if (newValue != null && !newValue.equals(assign.getValue())) {
-                        assign.setValue(newValue);
-                        log.info("Transformed unrelated variable assignment: {} = {}", targetVar, newValue);
-                        changed = true;
-                    }
-                }
+
+        for (TransformationSites.Assignment assignment : sites.getAssignments()) {
+            // 检查这个赋值是否影响切片点
+            if (assignment.getTarget() == null || sites.affectsSlicePoint(assignment)) {
+                continue;
+            }
+            // 安全变换：修改无关变量的赋值
+            AssignExpr assign = (AssignExpr) nodes[assignment.getIndex()];
+            Expression newValue = transformUnrelatedExpression(assign.getValue(), assignment.getValueNames(),
+                    sites.getSliceVariables());
+            if (newValue != null && !newValue.equals(assign.getValue())) {
+                assign.setValue(newValue);
+                log.info("Transformed unrelated variable assignment: {} = {}", assignment.getTarget(), newValue);
+                changed = true;
             }
         }
 
@@ -3010,143 +2786,62 @@ public class JavaCodeGenerator {
     /**
      * 变换无关的表达式
      */
-    private boolean transformUnrelatedExpressions(BlockStmt body, Set<String> sliceVariables,
-                                                  Map<String, Set<String>> dataDependencies) {
-        java.util.concurrent.atomic.AtomicBoolean exprChanged = new java.util.concurrent.atomic.AtomicBoolean(false);
+    private boolean transformUnrelatedExpressions(TransformationSites sites, Node[] nodes) {
+        boolean changed = false;
 
         // 变换无关的变量声明初始化
-        body.findAll(VariableDeclarator.class).forEach(vd -> {
-            if (vd.getInitializer().isPresent()) {
-                String varName = vd.getNameAsString();
-                if (!sliceVariables.contains(varName) && !hasDataDependency(varName, sliceVariables, dataDependencies)) {
-                    Expression newValue = transformUnrelatedExpression(vd.getInitializer().get(), sliceVariables);
-                    if (newValue != null && !newValue.equals(vd.getInitializer().get())) {
-                        vd.setInitializer(newValue);
-                        log.info("Transformed unrelated variable initialization: {} = {}", varName, newValue);
-                        exprChanged.set(true);
-                    }
-                }
+        for (TransformationSites.Assignment initializer : sites.getInitializers()) {
+            String varName = initializer.getTarget();
+            if (sites.dependsOnSliceVariable(varName)) {
+                continue;
             }
-        });
+            VariableDeclarator vd = (VariableDeclarator) nodes[initializer.getIndex()];
+            Expression newValue = transformUnrelatedExpression(vd.getInitializer().get(), initializer.getValueNames(),
+                    sites.getSliceVariables());
+            if (newValue != null && !newValue.equals(vd.getInitializer().get())) {
+                vd.setInitializer(newValue);
+                log.info("Transformed unrelated variable initialization: {} = {}", varName, newValue);
+                changed = true;
+            }
+        }
 
-        return exprChanged.get();
+        return changed;
     }
 
     /**
      * 变换无关的计算
      */
-    private boolean transformUnrelatedCalculations(BlockStmt body, Set<String> sliceVariables,
-                                                   Map<String, Set<String>> dataDependencies) {
-        java.util.concurrent.atomic.AtomicBoolean calcChanged = new java.util.concurrent.atomic.AtomicBoolean(false);
+    private boolean transformUnrelatedCalculations(TransformationSites sites, Node[] nodes) {
+        boolean changed = false;
 
         // 查找无关的计算语句并变换
-        body.findAll(ExpressionStmt.class).forEach(exprStmt -> {
-            Expression expr = exprStmt.getExpression();
-            if (expr instanceof AssignExpr) {
-                AssignExpr assign = (AssignExpr) expr;
-                Expression target = assign.getTarget();
-
-                if (target instanceof NameExpr) {
-                    String targetVar = ((NameExpr) target).getNameAsString();
-                    if (!sliceVariables.contains(targetVar) && !hasDataDependency(targetVar, sliceVariables, dataDependencies)) {
-                        Expression newValue = transformUnrelatedExpression(assign.getValue(), sliceVariables);
-                        if (newValue != null && !newValue.equals(assign.getValue())) {
-                            assign.setValue(newValue);
-                            log.info("Transformed unrelated calculation: {} = {}", targetVar, newValue);
-                            calcChanged.set(true);
-                        }
-                    }
-                }
-            }
-        });
-
-        return calcChanged.get();
-    }
-
-    /**
-     * 检查变量是否影响切片点
-     */
-    private boolean affectsSlicePoint(AssignExpr assign, Set<String> sliceVariables,
-                                      Map<String, Set<String>> dataDependencies) {
-        Expression target = assign.getTarget();
-        Expression value = assign.getValue();
-
-        if (target instanceof NameExpr) {
-            String targetVar = ((NameExpr) target).getNameAsString();
-
-            // 直接检查：目标变量是否是切片变量
-            if (sliceVariables.contains(targetVar)) {
-                return true;
-            }
-
-            // 间接检查：目标变量是否与切片变量有数据依赖
-            if (hasDataDependency(targetVar, sliceVariables, dataDependencies)) {
-                return true;
-            }
-
-            // 检查赋值表达式中的变量是否与切片变量相关
-            Set<String> usedVars = extractVariablesFromExpression(value);
-            for (String usedVar : usedVars) {
-                if (sliceVariables.contains(usedVar) || hasDataDependency(usedVar, sliceVariables, dataDependencies)) {
-                    return true;
-                }
+        for (TransformationSites.Assignment assignment : sites.getAssignments()) {
+            String targetVar = assignment.getTarget();
+            if (!assignment.isStatement() || targetVar == null || sites.dependsOnSliceVariable(targetVar)) {
+                continue;
             }
-        }
-
-        return false;
-    }
-
-    /**
-     * 检查变量是否有数据依赖关系
-     */
-    private boolean hasDataDependency(String varName, Set<String> sliceVariables,
-                                      Map<String, Set<String>> dataDependencies) {
-        // 直接依赖
-        if (sliceVariables.contains(varName)) {
-            return true;
-        }
-
-        // 间接依赖：通过数据依赖图检查
-        Set<String> visited = new HashSet<>();
-        return hasDataDependencyRecursive(varName, sliceVariables, dataDependencies, visited);
-    }
-
-    /**
-     * 递归检查数据依赖关系
-     */
-    private boolean hasDataDependencyRecursive(String varName, Set<String> sliceVariables,
-                                               Map<String, Set<String>> dataDependencies, Set<String> visited) {
-        if (visited.contains(varName)) {
-            return false; // 避免循环依赖
-        }
-
-        visited.add(varName);
-
-        Set<String> dependencies = dataDependencies.get(varName);
-        if (dependencies != null) {
-            for (String depVar : dependencies) {
-                if (sliceVariables.contains(depVar)) {
-                    return true;
-                }
-                if (hasDataDependencyRecursive(depVar, sliceVariables, dataDependencies, visited)) {
-                    return true;
-                }
+            AssignExpr assign = (AssignExpr) nodes[assignment.getIndex()];
+            Expression newValue = transformUnrelatedExpression(assign.getValue(), assignment.getValueNames(),
+                    sites.getSliceVariables());
+            if (newValue != null && !newValue.equals(assign.getValue())) {
+                assign.setValue(newValue);
+                log.info("Transformed unrelated calculation: {} = {}", targetVar, newValue);
+                changed = true;
             }
         }
 
-        return false;
+        return changed;
     }
 
     /**
      * 变换无关的表达式
      */
-    private Expression transformUnrelatedExpression(Expression expr, Set<String> sliceVariables) {
+    private Expression transformUnrelatedExpression(Expression expr, Set<String> exprVars, Set<String> sliceVariables) {
         if (expr == null) {
             return null;
         }
 
         // 如果表达式中包含切片变量，不进行变换
-        Set<String> exprVars = extractVariablesFromExpression(expr);
         for (String var : exprVars) {
             if (sliceVariables.contains(var)) {
                 return null; // 不变换包含切片变量的表达式
@@ -3210,7 +2905,7 @@ public class JavaCodeGenerator {
         List<String> unrelatedCalculations = generateUnrelatedCalculations(sliceVariables);
         for (String calculation : unrelatedCalculations) {
             try {
-                Statement calcStmt = javaParser.parseStatement(calculation).getResult().orElse(null);
+                Statement calcStmt = parseCache.parser().parseStatement(calculation).getResult().orElse(null);
                 if (calcStmt != null) {
                     // 在合适的位置插入无关计算
                     body.addStatement(calcStmt);
@@ -0,0 +1,129 @@
+package com.example.generator;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 原始程序行号到变体程序行号的映射
+ * 由变换在改写程序时生成：只有在变体中原样保留的语句所在的行才有映射，
+ * 新增、被改写或映射不唯一的行没有映射
+ */
+public final class LineMap {
+
+    private static final int UNMAPPED = 0;
+    private static final int CONFLICT = -1;
+
+    // 下标为原始行号，值为变体行号
+    private final int[] targets;
+
+    private LineMap(int[] targets) {
+        this.targets = targets;
+    }
+
+    /**
+     * 变体与原始程序逐行相同
+     */
+    public static LineMap identity(int lineCount) {
+        int[] targets = new int[lineCount + 1];
+        for (int line = 1; line <= lineCount; line++) {
+            targets[line] = line;
+        }
+        return new LineMap(targets);
+    }
+
+    /**
+     * 在原始程序第afterLine行之后插入insertedLines行
+     */
+    public static LineMap insertion(int lineCount, int afterLine, int insertedLines) {
+        int[] targets = new int[lineCount + 1];
+        for (int line = 1; line <= lineCount; line++) {
+            targets[line] = line <= afterLine ? line : line + insertedLines;
+        }
+        return new LineMap(targets);
+    }
+
+    /**
+     * @return 变体中的行号，没有映射时返回-1
+     */
+    public int map(int line) {
+        if (line <= 0 || line >= targets.length || targets[line] <= 0) {
+            return -1;
+        }
+        return targets[line];
+    }
+
+    /**
+     * 把原始程序的行集合映射到变体程序
+     * @return 映射后的行集合，其中有没有映射的行时返回null
+     */
+    public BitSet apply(BitSet lines) {
+        BitSet mapped = new BitSet();
+        for (int line = lines.nextSetBit(0); line >= 0; line = lines.nextSetBit(line + 1)) {
+            int target = map(line);
+            if (target < 0) {
+                return null;
+            }
+            mapped.set(target);
+        }
+        return mapped;
+    }
+
+    /**
+     * 有映射的行数
+     */
+    public int size() {
+        return (int) Arrays.stream(targets).filter(target -> target > 0).count();
+    }
+
+    /**
+     * 逐条记录映射；同一原始行映射到不同变体行，或不同原始行映射到同一变体行时，相关的行都视为没有映射
+     */
+    static class Builder {
+        private int[] targets = new int[64];
+        private int[] sources = new int[64];
+
+        void put(int originalLine, int variantLine) {
+            targets = ensure(targets, originalLine);
+            sources = ensure(sources, variantLine);
+
+            int target = targets[originalLine];
+            if (target == CONFLICT || (target != UNMAPPED && target != variantLine)) {
+                markConflict(originalLine);
+                return;
+            }
+            int source = sources[variantLine];
+            if (source == CONFLICT || (source != UNMAPPED && source != originalLine)) {
+                sources[variantLine] = CONFLICT;
+                if (source > 0) {
+                    targets[source] = CONFLICT;
+                }
+                targets[originalLine] = CONFLICT;
+                return;
+            }
+            targets[originalLine] = variantLine;
+            sources[variantLine] = originalLine;
+        }
+
+        private void markConflict(int originalLine) {
+            int target = targets[originalLine];
+            if (target > 0) {
+                sources[target] = CONFLICT;
+            }
+            targets[originalLine] = CONFLICT;
+        }
+
+        LineMap build() {
+            int[] result = targets.clone();
+            for (int line = 0; line < result.length; line++) {
+                if (result[line] < 0) {
+                    result[line] = UNMAPPED;
+                }
+            }
+            return new LineMap(result);
+        }
+
+        private static int[] ensure(int[] array, int index) {
+            return index < array.length ? array : Arrays.copyOf(array, Math.max(index + 1, array.length * 2));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.generator;
+
+import com.example.parser.StatementHeaders;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.*;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.stmt.*;
+import com.github.javaparser.printer.DefaultPrettyPrinterVisitor;
+import com.github.javaparser.printer.configuration.DefaultConfigurationOption;
+import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration;
+import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration.ConfigOption;
+import com.github.javaparser.printer.configuration.PrinterConfiguration;
+import com.github.javaparser.utils.LineSeparator;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 生成行映射的程序打印
+ * 变换前用snapshot记录每条语句和成员声明在原始程序中的起始行及其头部（去掉嵌套语句和成员后的部分），
+ * 变换后打印的结果与CompilationUnit.toString()相同，同时记录这些节点被打印到哪一行；
+ * 头部没有变化的节点给出原始行到变体行的映射，被改写或新增的节点不产生映射
+ */
+final class LineTrackingPrinter {
+
+    private LineTrackingPrinter() {
+    }
+
+    /**
+     * 记录变换前各节点的原始行号和头部，必须在改写AST之前调用
+     */
+    static Map<Node, Origin> snapshot(CompilationUnit cu) {
+        Map<Node, Origin> origins = new IdentityHashMap<>();
+        cu.walk(node -> {
+            Origin origin = origin(node);
+            if (origin != null) {
+                origins.put(node, origin);
+            }
+        });
+        return origins;
+    }
+
+    /**
+     * 单个节点变换前的原始行号和头部，不需要跟踪的节点返回null
+     */
+    static Origin origin(Node node) {
+        if (StatementHeaders.isStatement(node) && node.getBegin().isPresent()) {
+            return new Origin(node.getBegin().get().line, StatementHeaders.header(node));
+        }
+        return null;
+    }
+
+    /**
+     * 打印变换后的程序并生成行映射
+     */
+    static TransformedSource print(CompilationUnit cu, Map<Node, Origin> origins) {
+        PrinterConfiguration configuration = new DefaultPrinterConfiguration();
+        if (cu.containsData(Node.LINE_SEPARATOR_KEY)) {
+            // 与Node.toString()一致，使用原始程序的换行符
+            configuration.addOption(new DefaultConfigurationOption(ConfigOption.END_OF_LINE_CHARACTER,
+                    cu.getLineEndingStyleOrDefault(LineSeparator.SYSTEM).asRawString()));
+        }
+        LineMap.Builder lines = new LineMap.Builder();
+        TrackingVisitor visitor = new TrackingVisitor(configuration, origins, lines);
+        cu.accept(visitor, null);
+        return new TransformedSource(visitor.toString(), lines.build());
+    }
+
+    static final class Origin {
+        private final int line;
+        private final String header;
+
+        Origin(int line, String header) {
+            this.line = line;
+            this.header = header;
+        }
+    }
+
+    /**
+     * 每个节点的visit方法最先打印它的注释，注释打印完成时光标所在行就是节点的起始行
+     */
+    private static final class TrackingVisitor extends DefaultPrettyPrinterVisitor {
+        private final Map<Node, Origin> origins;
+        private final LineMap.Builder lines;
+        private Node pending;
+
+        TrackingVisitor(PrinterConfiguration configuration, Map<Node, Origin> origins, LineMap.Builder lines) {
+            super(configuration);
+            this.origins = origins;
+            this.lines = lines;
+        }
+
+        @Override
+        protected void printComment(Optional<Comment> comment, Void arg) {
+            super.printComment(comment, arg);
+            if (pending != null) {
+                Origin origin = origins.get(pending);
+                if (origin != null && origin.header.equals(StatementHeaders.header(pending))) {
+                    lines.put(origin.line, printer.getCursor().line);
+                }
+                pending = null;
+            }
+        }
+
+        private void track(Node node, Runnable print) {
+            pending = node;
+            print.run();
+            if (pending == node) {
+                pending = null;
+            }
+        }
+
+        @Override
+        public void visit(ClassOrInterfaceDeclaration n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(EnumDeclaration n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(FieldDeclaration n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(ConstructorDeclaration n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(MethodDeclaration n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(InitializerDeclaration n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(ExpressionStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(IfStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(WhileStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(DoStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(ForStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(ForEachStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(SwitchStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(ReturnStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(BreakStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(ContinueStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(ThrowStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(TryStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(LabeledStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(SynchronizedStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(AssertStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(EmptyStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(YieldStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(ExplicitConstructorInvocationStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+
+        @Override
+        public void visit(LocalClassDeclarationStmt n, Void arg) {
+            track(n, () -> super.visit(n, arg));
+        }
+    }
+}
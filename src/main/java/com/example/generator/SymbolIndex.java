@@ -0,0 +1,221 @@
+package com.example.generator;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 一个程序的变量符号索引
+ * 一次遍历AST得到每个变量的声明行、赋值行、使用行和所在方法，并为出现变量使用的行计算死代码标记，
+ * 切片准则的选择和校验都查询这个索引，不再为每次查询重新遍历AST或读取文件
+ * 声明和使用按在源程序中出现的顺序记录
+ */
+public final class SymbolIndex {
+
+    // 生成的无用代码的特征：以if (false)或空循环开头，或声明unusedVar/temp变量、int x = 常量
+    private static final Pattern DEAD_CODE_DECLARATION = Pattern.compile("int (?:(?:unusedVar|temp)\\d+.*|x = \\d+;)");
+
+    private final String[] lines;
+    private final Map<String, Symbol> symbols = new LinkedHashMap<>();
+    private final List<Occurrence> declarations = new ArrayList<>();
+    private final List<Occurrence> usages = new ArrayList<>();
+    // 下标为行号，只对出现变量使用的行计算
+    private final boolean[] deadCodeLines;
+
+    private SymbolIndex(String content) {
+        this.lines = content.split("\n");
+        this.deadCodeLines = new boolean[lines.length + 2];
+    }
+
+    /**
+     * 建立索引，不修改传入的AST
+     */
+    public static SymbolIndex build(CompilationUnit cu, String content) {
+        SymbolIndex index = new SymbolIndex(content);
+        cu.walk(Node.TreeTraversal.PREORDER, node -> {
+            if (!node.getBegin().isPresent()) {
+                return;
+            }
+            int line = node.getBegin().get().line;
+            if (node instanceof VariableDeclarator) {
+                index.addDeclaration((VariableDeclarator) node, line);
+            } else if (node instanceof NameExpr) {
+                index.addUsage(((NameExpr) node).getNameAsString(), line);
+            } else if (node instanceof AssignExpr) {
+                index.addAssignment((AssignExpr) node, line);
+            }
+        });
+        return index;
+    }
+
+    private void addDeclaration(VariableDeclarator declarator, int line) {
+        String name = declarator.getNameAsString();
+        declarations.add(new Occurrence(name, line));
+        Symbol symbol = symbols.computeIfAbsent(name, Symbol::new);
+        symbol.declarationLines.add(line);
+        if (declarator.getInitializer().isPresent()) {
+            symbol.assignmentLines.add(line);
+        }
+        if (symbol.enclosingMethod == null) {
+            symbol.enclosingMethod = enclosingMethodName(declarator);
+        }
+    }
+
+    private static String enclosingMethodName(Node node) {
+        Node parent = node.getParentNode().orElse(null);
+        while (parent != null && !(parent instanceof MethodDeclaration)) {
+            parent = parent.getParentNode().orElse(null);
+        }
+        return parent == null ? null : ((MethodDeclaration) parent).getNameAsString();
+    }
+
+    private void addUsage(String name, int line) {
+        usages.add(new Occurrence(name, line));
+        symbols.computeIfAbsent(name, Symbol::new).usageLines.add(line);
+        if (line < deadCodeLines.length) {
+            deadCodeLines[line] = isDeadCodeLine(line(line).trim());
+        }
+    }
+
+    private void addAssignment(AssignExpr assign, int line) {
+        if (!(assign.getTarget() instanceof NameExpr)) {
+            return;
+        }
+        Symbol symbol = symbols.computeIfAbsent(((NameExpr) assign.getTarget()).getNameAsString(), Symbol::new);
+        symbol.assignmentLines.add(line);
+        // 作为表达式语句时同时记录语句的起始行（switch-case等情况下与赋值表达式不同）
+        assign.getParentNode()
+                .filter(parent -> parent instanceof ExpressionStmt && ((ExpressionStmt) parent).getExpression() == assign)
+                .flatMap(Node::getBegin)
+                .ifPresent(position -> symbol.assignmentLines.add(position.line));
+    }
+
+    /**
+     * 判断是否为生成的无用代码行
+     */
+    public static boolean isDeadCodeLine(String line) {
+        return line.startsWith("if (false)")
+                || line.startsWith("for (int i = 0; i < 0;")
+                || DEAD_CODE_DECLARATION.matcher(line).matches();
+    }
+
+    /**
+     * @return 变量的索引项，变量既没有声明也没有被使用时返回null
+     */
+    public Symbol get(String name) {
+        return symbols.get(name);
+    }
+
+    public boolean isDeclared(String name) {
+        Symbol symbol = symbols.get(name);
+        return symbol != null && !symbol.declarationLines.isEmpty();
+    }
+
+    /**
+     * 变量被声明或作为名字表达式被引用
+     */
+    public boolean contains(String name) {
+        return symbols.containsKey(name);
+    }
+
+    /**
+     * 按出现顺序排列的所有变量声明，同名变量的多次声明分别记录
+     */
+    public List<Occurrence> getDeclarations() {
+        return Collections.unmodifiableList(declarations);
+    }
+
+    /**
+     * 按出现顺序排列的所有名字表达式
+     */
+    public List<Occurrence> getUsages() {
+        return Collections.unmodifiableList(usages);
+    }
+
+    /**
+     * 该行是否为生成的无用代码，只对出现变量使用的行有意义
+     */
+    public boolean isDeadCode(int line) {
+        return line > 0 && line < deadCodeLines.length && deadCodeLines[line];
+    }
+
+    /**
+     * 源程序第line行的内容，超出范围时返回空串
+     */
+    public String line(int line) {
+        return line > 0 && line <= lines.length ? lines[line - 1] : "";
+    }
+
+    /**
+     * 变量在索引中的信息，行号均按出现顺序记录，可能重复
+     */
+    public static final class Symbol {
+        private final String name;
+        private final List<Integer> declarationLines = new ArrayList<>();
+        private final List<Integer> assignmentLines = new ArrayList<>();
+        private final List<Integer> usageLines = new ArrayList<>();
+        private String enclosingMethod;
+
+        Symbol(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Integer> getDeclarationLines() {
+            return Collections.unmodifiableList(declarationLines);
+        }
+
+        /**
+         * 带初始值的声明和以该变量为目标的赋值所在的行
+         */
+        public List<Integer> getAssignmentLines() {
+            return Collections.unmodifiableList(assignmentLines);
+        }
+
+        public List<Integer> getUsageLines() {
+            return Collections.unmodifiableList(usageLines);
+        }
+
+        /**
+         * 第一次声明所在的方法，不在方法中时为null
+         */
+        public String getEnclosingMethod() {
+            return enclosingMethod;
+        }
+    }
+
+    /**
+     * 一次声明或使用
+     */
+    public static final class Occurrence {
+        private final String name;
+        private final int line;
+
+        Occurrence(String name, int line) {
+            this.name = name;
+            this.line = line;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getLine() {
+            return line;
+        }
+    }
+}
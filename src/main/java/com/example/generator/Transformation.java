@@ -0,0 +1,17 @@
+package com.example.generator;
+
+/**
+ * 生成蜕变测试变体的程序变换
+ */
+public enum Transformation {
+    // 变量重命名
+    RENAME,
+    // 在main方法开始处添加不可达的无用代码
+    DEAD_CODE,
+    // 重排序与切片变量无关的语句
+    REORDER,
+    // 控制流等价变换
+    CONTROL_FLOW,
+    // 数据流等价变换
+    DATA_FLOW
+}
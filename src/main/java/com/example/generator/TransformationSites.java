@@ -0,0 +1,516 @@
+package com.example.generator;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.stmt.SwitchStmt;
+import com.github.javaparser.ast.stmt.WhileStmt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一个原始程序中各种蜕变变换可以作用的位置
+ * 一次先序遍历只读AST，同时收集变量重命名、无用代码插入、语句重排序、控制流变换和数据流变换用到的节点，
+ * 以及这些节点子树中出现的变量名；main方法体的依赖图在遍历到方法体时建立，
+ * 控制结构、赋值和语句是否与切片变量相关都在收集时查询依赖图得到，变换时不再分析；
+ * 节点按先序遍历的序号记录（不含注释），resolve在AST副本上按同样的顺序找回对应节点，
+ * 每个变体只需复制AST、在副本上应用变换并打印
+ */
+final class TransformationSites {
+
+    private int size;
+    // 下标为节点序号，语句和成员声明的原始行号及头部，其他节点为null
+    private final List<LineTrackingPrinter.Origin> origins = new ArrayList<>();
+
+    // 整个程序中的变量声明和名字表达式，用于变量重命名
+    private final List<Site> declarators = new ArrayList<>();
+    private final List<Site> names = new ArrayList<>();
+
+    // 第一个main方法的方法体，没有时为-1
+    private int mainBody = -1;
+    // 方法体中第i条语句是否可以重排序，以及是否与前面连续的可重排序语句冲突、需要开始新的一组
+    private final BitSet reorderable = new BitSet();
+    private final BitSet startsReorderGroup = new BitSet();
+    // main方法体的依赖图，没有main方法体时为null
+    private DependenceGraph graph;
+
+    // main方法体中的切片相关变量、控制结构、赋值和带初始值的声明，均按先序遍历的顺序排列
+    private final Set<String> sliceVariables = new HashSet<>();
+    private final List<Branch> ifs = new ArrayList<>();
+    private final List<Branch> fors = new ArrayList<>();
+    private final List<Branch> whiles = new ArrayList<>();
+    private final List<Branch> switches = new ArrayList<>();
+    private final List<Assignment> assignments = new ArrayList<>();
+    private final List<Assignment> initializers = new ArrayList<>();
+
+    private TransformationSites() {
+    }
+
+    /**
+     * 收集变换位置，不修改传入的AST
+     */
+    static TransformationSites collect(CompilationUnit cu) {
+        TransformationSites sites = new TransformationSites();
+        new Collector(sites).visit(cu, false);
+        return sites;
+    }
+
+    /**
+     * 在与收集时内容相同的AST副本上找回各序号对应的节点，并给出用于打印行映射的原始行号
+     * @param copy 原始AST的副本，尚未修改
+     * @param copyOrigins 填入副本中节点的原始行号和头部，作为LineTrackingPrinter.print的参数
+     * @return 下标为节点序号的副本节点
+     */
+    Node[] resolve(CompilationUnit copy, Map<Node, LineTrackingPrinter.Origin> copyOrigins) {
+        Node[] nodes = new Node[size];
+        int count = resolve(copy, nodes, 0, copyOrigins);
+        if (count != size) {
+            throw new IllegalStateException("AST copy has " + count + " nodes, expected " + size);
+        }
+        return nodes;
+    }
+
+    private int resolve(Node node, Node[] nodes, int index, Map<Node, LineTrackingPrinter.Origin> copyOrigins) {
+        if (index >= nodes.length) {
+            return index + 1;
+        }
+        nodes[index] = node;
+        LineTrackingPrinter.Origin origin = origins.get(index);
+        if (origin != null) {
+            copyOrigins.put(node, origin);
+        }
+        int next = index + 1;
+        for (Node child : node.getChildNodes()) {
+            if (!(child instanceof Comment)) {
+                next = resolve(child, nodes, next, copyOrigins);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * 遍历只读AST，收集过程中的状态不保留在结果中
+     */
+    private static final class Collector {
+        private final TransformationSites sites;
+        // 正在遍历的子树的变量名集合，名字表达式加入所有打开的集合
+        private final Deque<Set<String>> open = new ArrayDeque<>();
+        // 已经遍历完的节点子树中的变量名，只记录变换需要的节点
+        private final Map<Node, Set<String>> tracked = new IdentityHashMap<>();
+        private boolean mainSeen;
+        private BlockStmt mainBody;
+        private int statementIndex;
+        // 当前这组连续可重排序语句读写的变量
+        private DependenceGraph.Access reorderGroup;
+
+        Collector(TransformationSites sites) {
+            this.sites = sites;
+        }
+
+        void visit(Node node, boolean inMain) {
+            int index = sites.size++;
+            sites.origins.add(LineTrackingPrinter.origin(node));
+
+            if (node instanceof VariableDeclarator) {
+                String name = ((VariableDeclarator) node).getNameAsString();
+                sites.declarators.add(new Site(index, name));
+                if (inMain && isSliceRelatedVariable(name)) {
+                    sites.sliceVariables.add(name);
+                }
+            } else if (node instanceof NameExpr) {
+                String name = ((NameExpr) node).getNameAsString();
+                sites.names.add(new Site(index, name));
+                for (Set<String> names : open) {
+                    names.add(name);
+                }
+                if (inMain && isSliceRelatedVariable(name)) {
+                    sites.sliceVariables.add(name);
+                }
+            } else if (node instanceof MethodDeclaration && !mainSeen
+                    && ((MethodDeclaration) node).getNameAsString().equals("main")) {
+                // 与findFirst相同，只取先序遍历中的第一个main方法
+                mainSeen = true;
+                mainBody = ((MethodDeclaration) node).getBody().orElse(null);
+            }
+            if (node == mainBody) {
+                sites.mainBody = index;
+                sites.graph = DependenceGraph.build(mainBody, TransformationSites::isSliceRelatedVariable);
+            }
+
+            // 先占住按先序排列的位置，子树遍历完后填入
+            boolean inBody = inMain || node == mainBody;
+            int slot = inBody ? reserve(node) : -1;
+            Set<String> names = null;
+            if (inBody && isTracked(node)) {
+                names = new HashSet<>();
+                open.push(names);
+            }
+
+            for (Node child : node.getChildNodes()) {
+                if (!(child instanceof Comment)) {
+                    visit(child, inBody);
+                }
+            }
+
+            if (names != null) {
+                open.pop();
+                tracked.put(node, names);
+            }
+            if (slot >= 0) {
+                fill(node, index, slot, names);
+            }
+            if (inMain && node.getParentNode().orElse(null) == mainBody) {
+                addMainStatement((Statement) node);
+            }
+        }
+
+        /**
+         * 可重排序的语句与当前组中的语句读写冲突时开始新的一组，保证组内任意排列都与原顺序等价
+         */
+        private void addMainStatement(Statement stmt) {
+            int i = statementIndex++;
+            if (!isReorderable(stmt)) {
+                reorderGroup = null;
+                return;
+            }
+            sites.reorderable.set(i);
+            DependenceGraph.Access access = sites.graph.access(stmt);
+            if (reorderGroup != null && reorderGroup.conflictsWith(access)) {
+                sites.startsReorderGroup.set(i);
+                reorderGroup = null;
+            }
+            if (reorderGroup == null) {
+                reorderGroup = access;
+            } else {
+                reorderGroup.add(access);
+            }
+        }
+
+        private int reserve(Node node) {
+            List<?> list = listFor(node);
+            if (list == null) {
+                return -1;
+            }
+            list.add(null);
+            return list.size() - 1;
+        }
+
+        private List<?> listFor(Node node) {
+            if (node instanceof IfStmt) {
+                return sites.ifs;
+            } else if (node instanceof ForStmt) {
+                return sites.fors;
+            } else if (node instanceof WhileStmt) {
+                return sites.whiles;
+            } else if (node instanceof SwitchStmt) {
+                return sites.switches;
+            } else if (node instanceof AssignExpr) {
+                return sites.assignments;
+            } else if (node instanceof VariableDeclarator && ((VariableDeclarator) node).getInitializer().isPresent()) {
+                return sites.initializers;
+            }
+            return null;
+        }
+
+        private void fill(Node node, int index, int slot, Set<String> names) {
+            if (node instanceof IfStmt) {
+                sites.ifs.set(slot, branch(node, index, names, ((IfStmt) node).getElseStmt().isPresent()));
+            } else if (node instanceof ForStmt) {
+                sites.fors.set(slot, branch(node, index, names, false));
+            } else if (node instanceof WhileStmt) {
+                sites.whiles.set(slot, branch(node, index, names, false));
+            } else if (node instanceof SwitchStmt) {
+                sites.switches.set(slot, branch(node, index, names, false));
+            } else if (node instanceof AssignExpr) {
+                AssignExpr assign = (AssignExpr) node;
+                String target = assign.getTarget() instanceof NameExpr
+                        ? ((NameExpr) assign.getTarget()).getNameAsString()
+                        : null;
+                boolean statement = assign.getParentNode()
+                        .filter(parent -> parent instanceof ExpressionStmt
+                                && ((ExpressionStmt) parent).getExpression() == assign)
+                        .isPresent();
+                sites.assignments.set(slot, new Assignment(index, target, names(assign.getValue()), statement,
+                        sites.graph.isRelevant(sites.graph.enclosingId(assign))));
+            } else {
+                VariableDeclarator declarator = (VariableDeclarator) node;
+                sites.initializers.set(slot, new Assignment(index, declarator.getNameAsString(),
+                        names(declarator.getInitializer().get()), false,
+                        sites.graph.isRelevant(sites.graph.enclosingId(declarator))));
+            }
+        }
+
+        private Branch branch(Node node, int index, Set<String> names, boolean hasElse) {
+            boolean mentionsSliceVariable = names.stream().anyMatch(TransformationSites::isSliceRelatedVariable);
+            return new Branch(index, sites.graph.touchesRelevant(node), mentionsSliceVariable, hasElse);
+        }
+
+        private Set<String> names(Node node) {
+            Set<String> names = node == null ? null : tracked.get(node);
+            return names == null ? Collections.emptySet() : names;
+        }
+
+        /**
+         * 需要子树中变量名的节点：控制结构、赋值的右部和声明的初始值
+         */
+        private boolean isTracked(Node node) {
+            if (node instanceof IfStmt || node instanceof ForStmt || node instanceof WhileStmt
+                    || node instanceof SwitchStmt) {
+                return true;
+            }
+            Node parent = node.getParentNode().orElse(null);
+            if (parent instanceof AssignExpr) {
+                return node == ((AssignExpr) parent).getValue();
+            }
+            if (parent instanceof VariableDeclarator) {
+                return node == ((VariableDeclarator) parent).getInitializer().orElse(null);
+            }
+            return false;
+        }
+
+        /**
+         * 输出语句，以及依赖图中与切片变量无关的声明、赋值和循环可以重排序
+         */
+        private boolean isReorderable(Statement stmt) {
+            if (stmt instanceof ExpressionStmt) {
+                Expression expr = ((ExpressionStmt) stmt).getExpression();
+                if (expr instanceof VariableDeclarationExpr || expr instanceof AssignExpr) {
+                    return !sites.graph.touchesRelevant(stmt);
+                }
+                if (expr instanceof MethodCallExpr) {
+                    MethodCallExpr mce = (MethodCallExpr) expr;
+                    String methodName = mce.getNameAsString();
+                    if ((methodName.equals("println") || methodName.equals("print")) &&
+                            mce.getScope().isPresent() && mce.getScope().get().toString().equals("System.out")) {
+                        return true;
+                    }
+                }
+            }
+            if (stmt instanceof ForStmt || stmt instanceof WhileStmt || stmt instanceof ForEachStmt) {
+                return !sites.graph.touchesRelevant(stmt);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 判断变量名是否为切片相关变量
+     */
+    static boolean isSliceRelatedVariable(String varName) {
+        // 明确排除无关变量
+        if (varName.startsWith("unrelated")) {
+            return false;
+        }
+        // 明确识别切片相关变量
+        return varName.matches("val\\d+") || varName.matches("temp\\d+") ||
+                varName.matches("result\\d+") || varName.equals("temp") ||
+                varName.equals("choice"); // choice控制switch语句执行路径，是切片相关变量
+    }
+
+    /**
+     * 控制结构中有与切片变量相关的节点：读写切片变量，或切片变量传递地依赖于它
+     */
+    boolean affectsSlicePoint(Branch branch) {
+        return branch.related || branch.mentionsSliceVariable;
+    }
+
+    /**
+     * 控制结构中出现切片变量
+     */
+    boolean mentionsSliceVariable(Branch branch) {
+        return branch.mentionsSliceVariable;
+    }
+
+    /**
+     * 赋值所在的语句读写切片变量，或切片变量传递地依赖于它
+     */
+    boolean affectsSlicePoint(Assignment assignment) {
+        return assignment.target != null && assignment.related;
+    }
+
+    /**
+     * 变量是切片变量，或被与切片变量相关的语句读写
+     */
+    boolean dependsOnSliceVariable(String varName) {
+        return sliceVariables.contains(varName) || (graph != null && graph.isRelevantVariable(varName));
+    }
+
+    /**
+     * 先序遍历的节点总数（不含注释）
+     */
+    int size() {
+        return size;
+    }
+
+    List<Site> getDeclarators() {
+        return Collections.unmodifiableList(declarators);
+    }
+
+    List<Site> getNames() {
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * @return main方法体的节点序号，没有main方法或方法体时为-1
+     */
+    int getMainBody() {
+        return mainBody;
+    }
+
+    /**
+     * main方法体中第i条语句是否可以重排序
+     */
+    boolean isReorderable(int i) {
+        return reorderable.get(i);
+    }
+
+    /**
+     * main方法体中第i条语句可以重排序，但与前面连续的可重排序语句读写冲突，只能与后面的语句一起重排序
+     */
+    boolean startsReorderGroup(int i) {
+        return startsReorderGroup.get(i);
+    }
+
+    Set<String> getSliceVariables() {
+        return Collections.unmodifiableSet(sliceVariables);
+    }
+
+    List<Branch> getIfs() {
+        return Collections.unmodifiableList(ifs);
+    }
+
+    List<Branch> getFors() {
+        return Collections.unmodifiableList(fors);
+    }
+
+    List<Branch> getWhiles() {
+        return Collections.unmodifiableList(whiles);
+    }
+
+    List<Branch> getSwitches() {
+        return Collections.unmodifiableList(switches);
+    }
+
+    List<Assignment> getAssignments() {
+        return Collections.unmodifiableList(assignments);
+    }
+
+    List<Assignment> getInitializers() {
+        return Collections.unmodifiableList(initializers);
+    }
+
+    /**
+     * @return main方法体的依赖图，没有main方法体时为null
+     */
+    DependenceGraph getDependenceGraph() {
+        return graph;
+    }
+
+    /**
+     * 一个带名字的节点：变量声明或名字表达式
+     */
+    static final class Site {
+        private final int index;
+        private final String name;
+
+        Site(int index, String name) {
+            this.index = index;
+            this.name = name;
+        }
+
+        int getIndex() {
+            return index;
+        }
+
+        String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * 一个控制结构及其与切片变量的关系
+     */
+    static final class Branch {
+        private final int index;
+        // 子树中有依赖图中与切片变量相关的节点
+        private final boolean related;
+        // 子树中出现切片变量
+        private final boolean mentionsSliceVariable;
+        private final boolean hasElse;
+
+        Branch(int index, boolean related, boolean mentionsSliceVariable, boolean hasElse) {
+            this.index = index;
+            this.related = related;
+            this.mentionsSliceVariable = mentionsSliceVariable;
+            this.hasElse = hasElse;
+        }
+
+        int getIndex() {
+            return index;
+        }
+
+        boolean hasElse() {
+            return hasElse;
+        }
+    }
+
+    /**
+     * 一个赋值表达式或带初始值的变量声明
+     */
+    static final class Assignment {
+        private final int index;
+        // 赋值目标或被声明的变量，目标不是简单变量时为null
+        private final String target;
+        private final Set<String> valueNames;
+        // 赋值是否直接作为表达式语句
+        private final boolean statement;
+        // 所在的语句在依赖图中与切片变量相关
+        private final boolean related;
+
+        Assignment(int index, String target, Set<String> valueNames, boolean statement, boolean related) {
+            this.index = index;
+            this.target = target;
+            this.valueNames = valueNames;
+            this.statement = statement;
+            this.related = related;
+        }
+
+        int getIndex() {
+            return index;
+        }
+
+        String getTarget() {
+            return target;
+        }
+
+        Set<String> getValueNames() {
+            return Collections.unmodifiableSet(valueNames);
+        }
+
+        boolean isStatement() {
+            return statement;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.generator;
+
+/**
+ * 变换后的程序及其相对原始程序的行映射
+ */
+public class TransformedSource {
+    private final String content;
+    private final LineMap lineMap;
+
+    public TransformedSource(String content, LineMap lineMap) {
+        this.content = content;
+        this.lineMap = lineMap;
+    }
+
+    /**
+     * 未改动的程序，行映射为恒等映射
+     */
+    public static TransformedSource unchanged(String content) {
+        return new TransformedSource(content, LineMap.identity(content.split("\n", -1).length));
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public LineMap getLineMap() {
+        return lineMap;
+    }
+}
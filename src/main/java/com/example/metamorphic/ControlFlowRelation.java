@@ -0,0 +1,17 @@
+package com.example.metamorphic;
+
+import com.example.generator.Transformation;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 控制流等价变换：改写与切片点无关的分支、循环和switch，切片应保持不变
+ */
+@Component
+@Order(4)
+public class ControlFlowRelation extends TransformationRelation {
+
+    public ControlFlowRelation() {
+        super("controlflow", Transformation.CONTROL_FLOW);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.metamorphic;
+
+import com.example.generator.Transformation;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 数据流等价变换：改写与切片变量无关的赋值和表达式，切片应保持不变
+ */
+@Component
+@Order(5)
+public class DataFlowRelation extends TransformationRelation {
+
+    public DataFlowRelation() {
+        super("dataflow", Transformation.DATA_FLOW);
+    }
+}
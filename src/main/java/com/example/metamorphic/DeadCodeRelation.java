@@ -0,0 +1,27 @@
+package com.example.metamorphic;
+
+import com.example.generator.JavaCodeGenerator.VariableInfo;
+import com.example.generator.Transformation;
+import com.example.generator.TransformedSource;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 插入无用代码：在切片变量声明之后加入使用该变量但永远不会执行的代码，切片应保持不变
+ */
+@Component
+@Order(2)
+public class DeadCodeRelation extends TransformationRelation {
+
+    public DeadCodeRelation() {
+        super("deadcode", Transformation.DEAD_CODE);
+    }
+
+    /**
+     * 与/test-deadcode相同，死代码插在变量声明之后，变体中引用的变量总是已经声明
+     */
+    @Override
+    public TransformedSource transform(String originalContent, VariableInfo criterion) {
+        return javaCodeGenerator.addDeadCodeAfterDeclaration(originalContent, criterion.getVariableName());
+    }
+}
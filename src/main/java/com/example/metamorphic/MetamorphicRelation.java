@@ -0,0 +1,35 @@
+package com.example.metamorphic;
+
+import com.example.generator.JavaCodeGenerator.VariableInfo;
+import com.example.generator.TransformedSource;
+
+/**
+ * 蜕变关系
+ * 由原始程序生成保持切片语义的变体，并给出变体中与原始切片准则对应的准则；
+ * 两个切片是否等价由MetamorphicTestRunner统一比较，实现只负责变换和准则的换算
+ */
+public interface MetamorphicRelation {
+
+    /**
+     * 关系的名字，用于选择要运行的关系、命名变体文件和记录结果
+     */
+    String getName();
+
+    /**
+     * 由原始程序生成变体
+     * @param originalContent 原始程序
+     * @param criterion 原始程序上选定的切片准则
+     * @return 变体及其相对原始程序的行映射
+     */
+    TransformedSource transform(String originalContent, VariableInfo criterion);
+
+    /**
+     * 变体程序中与原始切片准则对应的准则
+     * @param originalContent 原始程序
+     * @param criterion 原始程序上的切片准则
+     * @param variantFile 已保存的变体文件路径
+     * @param variant transform生成的变体
+     * @return 变体中的切片准则，找不到时返回null
+     */
+    VariableInfo mapCriterion(String originalContent, VariableInfo criterion, String variantFile, TransformedSource variant);
+}
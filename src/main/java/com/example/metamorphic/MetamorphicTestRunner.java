@@ -0,0 +1,378 @@
+package com.example.metamorphic;
+
+import com.example.comparator.PreparedSlice;
+import com.example.generator.JavaCodeGenerator;
+import com.example.generator.JavaCodeGenerator.VariableInfo;
+import com.example.generator.TransformedSource;
+import com.example.parser.ParseCache;
+import com.example.scheduler.MetamorphicTestScheduler;
+import com.example.scheduler.MetamorphicTestScheduler.SliceFanOut;
+import com.example.slicer.SliceExecutor;
+import com.example.slicer.SliceTimeoutException;
+import com.example.workspace.Workspace;
+import com.github.javaparser.ast.Node;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 同时运行多个蜕变关系的测试
+ * 每个原始程序只生成一次、选择一次切片准则并只切片一次，原始切片的行集合、解析结果和规范哈希只计算一次，
+ * 再与每个关系的变体切片比较；运行k个关系时每个程序调用切片器k+1次，而不是分别测试时的2k次
+ * 各关系的变体切片与原始切片并行执行，单个关系失败或超时不影响其它关系
+ * 每个程序可以选取多个切片准则（metamorphic.criteria-per-program），原始程序和每个变体的所有准则都在一次切片器调用中切出，
+ * 切片器调用次数不随准则数增加，关系只有在所有准则上都等价时才算等价
+ * 启用参考切片筛选时，先用进程内的参考切片器切原始程序和各变体，参考切片等价的关系直接记为等价，
+ * 只有参考切片不等价或超出参考切片器支持范围的关系才交给sdg-cli
+ */
+@Slf4j
+@Component
+public class MetamorphicTestRunner {
+
+    @Autowired
+    private JavaCodeGenerator javaCodeGenerator;
+
+    @Autowired
+    private SliceExecutor sliceExecutor;
+
+    @Autowired
+    private MetamorphicTestScheduler testScheduler;
+
+    @Autowired
+    private ParseCache parseCache;
+
+    // 按@Order排序的所有蜕变关系
+    @Autowired
+    private List<MetamorphicRelation> relations;
+
+    @Value("${metamorphic.reference-screen:false}")
+    private boolean referenceScreen = false;
+
+    // 每个原始程序选取的切片准则个数，原始程序和每个变体各用一次切片器调用切完所有准则
+    @Value("${metamorphic.criteria-per-program:1}")
+    private int criteriaPerProgram = 1;
+
+    public List<MetamorphicRelation> getRelations() {
+        return relations;
+    }
+
+    /**
+     * 按名字选择要运行的关系，保持关系的注册顺序
+     * @param names 关系名，为空时选择所有关系
+     * @throws IllegalArgumentException 有不存在的关系名时
+     */
+    public List<MetamorphicRelation> selectRelations(List<String> names) {
+        if (names == null || names.isEmpty()) {
+            return relations;
+        }
+        for (String name : names) {
+            if (relations.stream().noneMatch(relation -> relation.getName().equals(name))) {
+                throw new IllegalArgumentException("Unknown metamorphic relation: " + name);
+            }
+        }
+        return relations.stream()
+                .filter(relation -> names.contains(relation.getName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 生成numPrograms个原始程序，对每个程序运行所有选中的关系
+     * @return 每个原始程序的测试结果，顺序与程序编号一致；success和equivalent在所有关系都成功、等价时为true
+     */
+    public List<Map<String, Object>> run(Workspace workspace, int numPrograms,
+                                         List<MetamorphicRelation> selected) throws Exception {
+        log.info("Starting metamorphic test of {} programs with relations {}", numPrograms,
+                selected.stream().map(MetamorphicRelation::getName).collect(Collectors.toList()));
+        List<Integer> indexes = IntStream.range(0, numPrograms).boxed().collect(Collectors.toList());
+        return testScheduler.runAll(indexes, index -> runProgram(workspace, index, selected));
+    }
+
+    private Map<String, Object> runProgram(Workspace workspace, int index, List<MetamorphicRelation> selected) {
+        Map<String, Object> testResult = new HashMap<>();
+        try {
+            // 原始程序按JavaParser的格式保存，与各变体的打印格式一致
+            String generated = javaCodeGenerator.generateRandomJavaClass();
+            String originalContent = parseCache.parse(generated).map(Node::toString).orElse(generated);
+            String originalFile = workspace.directory("original")
+                    .resolve(String.format("Example_original_%d.java", index)).toString();
+            Files.write(Paths.get(originalFile), originalContent.getBytes(StandardCharsets.UTF_8));
+            testResult.put("originalFile", originalFile);
+            testResult.put("originalFileContent", originalContent);
+
+            List<VariableInfo> criteria = javaCodeGenerator.findVariablesForSlicing(originalFile,
+                    Math.max(1, criteriaPerProgram));
+            if (criteria.isEmpty()) {
+                throw new RuntimeException("No suitable variable found for slicing in original file: " + originalFile);
+            }
+            // 变换只参考第一个准则（如无用代码使用的变量），其余准则只按变换换算
+            VariableInfo criterion = criteria.get(0);
+            log.info("Selected {} criteria for slicing, first: {} at line {}", criteria.size(),
+                    criterion.getVariableName(), criterion.getLineNumber());
+            testResult.put("variable", criterion.getVariableName());
+            testResult.put("line", criterion.getLineNumber());
+            List<Map<String, Object>> criterionSummaries = new ArrayList<>(criteria.size());
+            for (VariableInfo each : criteria) {
+                Map<String, Object> summary = new HashMap<>();
+                summary.put("variable", each.getVariableName());
+                summary.put("line", each.getLineNumber());
+                criterionSummaries.add(summary);
+            }
+            if (criteria.size() > 1) {
+                testResult.put("criteria", criterionSummaries);
+            }
+
+            // 生成各关系的变体并换算切片准则
+            List<TransformedSource> variants = new ArrayList<>(selected.size());
+            List<String> variantFiles = new ArrayList<>(selected.size());
+            List<List<VariableInfo>> variantCriteria = new ArrayList<>(selected.size());
+            List<Map<String, Object>> relationResults = new ArrayList<>(selected.size());
+            List<List<Map<String, Object>>> criterionResults = new ArrayList<>(selected.size());
+            for (MetamorphicRelation relation : selected) {
+                TransformedSource variant = relation.transform(originalContent, criterion);
+                String variantFile = workspace.directory(relation.getName())
+                        .resolve(String.format("Example_%s_%d.java", relation.getName(), index)).toString();
+                Files.write(Paths.get(variantFile), variant.getContent().getBytes(StandardCharsets.UTF_8));
+
+                Map<String, Object> relationResult = new HashMap<>();
+                relationResult.put("relation", relation.getName());
+                relationResult.put("variantFile", variantFile);
+                relationResult.put("variantFileContent", variant.getContent());
+
+                // 第一个准则的结果直接记在关系的结果中，其余准则的结果记在otherCriteria中
+                List<VariableInfo> mapped = new ArrayList<>(criteria.size());
+                List<Map<String, Object>> results = new ArrayList<>(criteria.size());
+                for (VariableInfo each : criteria) {
+                    VariableInfo variantCriterion = relation.mapCriterion(originalContent, each, variantFile, variant);
+                    Map<String, Object> criterionResult = results.isEmpty() ? relationResult : new HashMap<>();
+                    if (criterionResult != relationResult) {
+                        criterionResult.put("variable", each.getVariableName());
+                        criterionResult.put("line", each.getLineNumber());
+                    }
+                    if (variantCriterion != null) {
+                        criterionResult.put("variantVariable", variantCriterion.getVariableName());
+                        criterionResult.put("variantLine", variantCriterion.getLineNumber());
+                    }
+                    mapped.add(variantCriterion);
+                    results.add(criterionResult);
+                }
+                if (criteria.size() > 1) {
+                    relationResult.put("otherCriteria", results.subList(1, results.size()));
+                }
+                variants.add(variant);
+                variantFiles.add(variantFile);
+                variantCriteria.add(mapped);
+                relationResults.add(relationResult);
+                criterionResults.add(results);
+            }
+            testResult.put("relations", relationResults);
+
+            boolean allSucceeded = true;
+            boolean allEquivalent = true;
+            List<Integer> escalated = referenceScreen
+                    ? screenWithReferenceSlicer(originalFile, originalContent, criteria, variants, variantFiles,
+                    variantCriteria, relationResults, criterionResults)
+                    : IntStream.range(0, selected.size()).boxed().collect(Collectors.toList());
+
+            if (!escalated.isEmpty()) {
+                List<Callable<List<String>>> variantSlices = new ArrayList<>(escalated.size());
+                for (int i : escalated) {
+                    String variantFile = variantFiles.get(i);
+                    List<VariableInfo> mapped = variantCriteria.get(i);
+                    relationResults.get(i).put("slicer", "sdg-cli");
+                    variantSlices.add(() -> sliceVariant(workspace, variantFile, mapped));
+                }
+
+                // 原始程序只切片一次，所有准则在一次切片器调用中完成，与所有变体切片并行执行
+                SliceFanOut<List<String>> slices = testScheduler.sliceFanOut(
+                        () -> sliceExecutor.executeSlices(originalFile, criteria, workspace.getSliceOutputDir()),
+                        variantSlices);
+                List<PreparedSlice> originalSlices = new ArrayList<>(criteria.size());
+                for (int c = 0; c < criteria.size(); c++) {
+                    String originalSliceContent = slices.getOriginalSlice().get(c);
+                    criterionSummaries.get(c).put("originalSliceContent", originalSliceContent);
+                    originalSlices.add(PreparedSlice.prepare(parseCache, originalContent, originalSliceContent));
+                }
+                testResult.put("originalSliceContent", slices.getOriginalSlice().get(0));
+
+                for (int j = 0; j < escalated.size(); j++) {
+                    int i = escalated.get(j);
+                    Map<String, Object> relationResult = relationResults.get(i);
+                    try {
+                        List<String> variantSliceContents = slices.getVariantSlice(j);
+                        TransformedSource variant = variants.get(i);
+                        boolean relationSucceeded = true;
+                        boolean relationEquivalent = true;
+                        for (int c = 0; c < criteria.size(); c++) {
+                            Map<String, Object> criterionResult = criterionResults.get(i).get(c);
+                            String variantSliceContent = variantSliceContents.get(c);
+                            if (variantSliceContent == null) {
+                                criterionResult.put("error", "No suitable variable found for slicing in variant file: "
+                                        + variantFiles.get(i));
+                                criterionResult.put("success", false);
+                                relationSucceeded = false;
+                                continue;
+                            }
+                            criterionResult.put("variantSliceContent", variantSliceContent);
+                            PreparedSlice variantSlice = PreparedSlice.prepare(parseCache, variant.getContent(), variantSliceContent);
+                            relationEquivalent &= originalSlices.get(c).compareTo(variantSlice, variant.getLineMap(), criterionResult);
+                            criterionResult.put("success", true);
+                        }
+                        // 关系的success和equivalent汇总所有准则
+                        relationResult.put("success", relationSucceeded);
+                        if (relationSucceeded) {
+                            relationResult.put("equivalent", relationEquivalent);
+                        }
+                        allSucceeded &= relationSucceeded;
+                        allEquivalent &= relationEquivalent;
+                    } catch (SliceTimeoutException e) {
+                        log.warn("Slice timed out for {} variant of {}: {}", selected.get(i).getName(), originalFile, e.getMessage());
+                        relationResult.put("status", "TIMEOUT");
+                        relationResult.put("error", e.getMessage());
+                        relationResult.put("success", false);
+                        allSucceeded = false;
+                    } catch (Exception e) {
+                        log.error("Error testing {} variant of {}", selected.get(i).getName(), originalFile, e);
+                        relationResult.put("error", e.getMessage());
+                        relationResult.put("success", false);
+                        allSucceeded = false;
+                    }
+                }
+            }
+            testResult.put("equivalent", allSucceeded && allEquivalent);
+            testResult.put("success", allSucceeded);
+
+        } catch (SliceTimeoutException e) {
+            log.warn("Slice timed out for program {}: {}", index, e.getMessage());
+            testResult.put("status", "TIMEOUT");
+            testResult.put("error", e.getMessage());
+            testResult.put("success", false);
+        } catch (Exception e) {
+            log.error("Error processing program " + index, e);
+            testResult.put("error", e.getMessage());
+            testResult.put("success", false);
+        }
+        return testResult;
+    }
+
+    /**
+     * 在一次切片器调用中切出变体上所有能换算的准则
+     * @return 与准则一一对应的切片，变体中找不到对应准则的位置为null
+     */
+    private List<String> sliceVariant(Workspace workspace, String variantFile, List<VariableInfo> mapped)
+            throws IOException, InterruptedException {
+        List<VariableInfo> present = mapped.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        List<String> slices = new ArrayList<>(Collections.nCopies(mapped.size(), (String) null));
+        if (present.isEmpty()) {
+            return slices;
+        }
+        Iterator<String> computed = sliceExecutor.executeSlices(variantFile, present, workspace.getSliceOutputDir()).iterator();
+        for (int c = 0; c < mapped.size(); c++) {
+            if (mapped.get(c) != null) {
+                slices.set(c, computed.next());
+            }
+        }
+        return slices;
+    }
+
+    /**
+     * 用参考切片器切原始程序和各变体，所有准则的参考切片都等价的关系直接记为等价
+     * @return 需要交给sdg-cli的关系下标：有准则的参考切片不等价，或程序超出参考切片器的支持范围
+     */
+    private List<Integer> screenWithReferenceSlicer(String originalFile, String originalContent, List<VariableInfo> criteria,
+                                                    List<TransformedSource> variants, List<String> variantFiles,
+                                                    List<List<VariableInfo>> variantCriteria,
+                                                    List<Map<String, Object>> relationResults,
+                                                    List<List<Map<String, Object>>> criterionResults) throws Exception {
+        List<Integer> escalated = new ArrayList<>();
+        List<PreparedSlice> originalSlices = new ArrayList<>(criteria.size());
+        for (VariableInfo criterion : criteria) {
+            String originalReference = sliceExecutor.referenceSlice(originalFile, criterion.getVariableName(),
+                    criterion.getLineNumber());
+            originalSlices.add(originalReference == null ? null
+                    : PreparedSlice.prepare(parseCache, originalContent, originalReference));
+        }
+        for (int i = 0; i < variants.size(); i++) {
+            TransformedSource variant = variants.get(i);
+            List<Map<String, Object>> screens = new ArrayList<>(criteria.size());
+            List<String> variantReferences = new ArrayList<>(criteria.size());
+            boolean screened = true;
+            for (int c = 0; c < criteria.size() && screened; c++) {
+                VariableInfo variantCriterion = variantCriteria.get(i).get(c);
+                String variantReference = originalSlices.get(c) == null || variantCriterion == null ? null
+                        : sliceExecutor.referenceSlice(variantFiles.get(i), variantCriterion.getVariableName(),
+                        variantCriterion.getLineNumber());
+                Map<String, Object> screen = new HashMap<>();
+                screened = variantReference != null && originalSlices.get(c).compareTo(
+                        PreparedSlice.prepare(parseCache, variant.getContent(), variantReference), variant.getLineMap(), screen);
+                screens.add(screen);
+                variantReferences.add(variantReference);
+            }
+            if (!screened) {
+                log.info("Reference slices of {} and {} differ or are unavailable, escalating to sdg-cli",
+                        originalFile, variantFiles.get(i));
+                escalated.add(i);
+                continue;
+            }
+            for (int c = 0; c < criteria.size(); c++) {
+                Map<String, Object> criterionResult = criterionResults.get(i).get(c);
+                criterionResult.putAll(screens.get(c));
+                criterionResult.put("variantSliceContent", variantReferences.get(c));
+                criterionResult.put("success", true);
+            }
+            relationResults.get(i).put("slicer", "reference");
+        }
+        return escalated;
+    }
+
+    /**
+     * 按关系统计等价、不等价和失败的程序个数，以及其中由参考切片器筛选掉的个数
+     */
+    public Map<String, Map<String, Integer>> summarize(List<MetamorphicRelation> selected,
+                                                       List<Map<String, Object>> testResults) {
+        Map<String, Map<String, Integer>> summary = new LinkedHashMap<>();
+        for (MetamorphicRelation relation : selected) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            counts.put("equivalent", 0);
+            counts.put("notEquivalent", 0);
+            counts.put("failed", 0);
+            counts.put("screened", 0);
+            summary.put(relation.getName(), counts);
+        }
+        for (Map<String, Object> testResult : testResults) {
+            Object relationResults = testResult.get("relations");
+            if (!(relationResults instanceof List)) {
+                // 原始程序本身失败，所有关系都记为失败
+                summary.values().forEach(counts -> counts.merge("failed", 1, Integer::sum));
+                continue;
+            }
+            for (Object item : (List<?>) relationResults) {
+                Map<?, ?> relationResult = (Map<?, ?>) item;
+                String outcome = !Boolean.TRUE.equals(relationResult.get("success")) ? "failed"
+                        : Boolean.TRUE.equals(relationResult.get("equivalent")) ? "equivalent" : "notEquivalent";
+                Map<String, Integer> counts = summary.get(relationResult.get("relation"));
+                counts.merge(outcome, 1, Integer::sum);
+                if ("reference".equals(relationResult.get("slicer"))) {
+                    counts.merge("screened", 1, Integer::sum);
+                }
+            }
+        }
+        return summary;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.metamorphic;
+
+import com.example.generator.JavaCodeGenerator.VariableInfo;
+import com.example.generator.Transformation;
+import com.example.generator.TransformedSource;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 变量重命名：一致地替换所有变量名，切片只应相差同样的重命名
+ * 重命名不改变程序结构，变体与按同样格式打印的原始程序逐行对应，
+ * 准则保持行号不变，变量名按重命名的映射换算
+ */
+@Component
+@Order(1)
+public class RenameRelation extends TransformationRelation {
+
+    public RenameRelation() {
+        super("rename", Transformation.RENAME);
+    }
+
+    @Override
+    public VariableInfo mapCriterion(String originalContent, VariableInfo criterion, String variantFile,
+                                     TransformedSource variant) {
+        String name = javaCodeGenerator.getRenameMapping(originalContent)
+                .getOrDefault(criterion.getVariableName(), criterion.getVariableName());
+        return new VariableInfo(name, criterion.getLineNumber());
+    }
+}
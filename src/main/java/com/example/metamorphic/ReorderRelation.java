@@ -0,0 +1,17 @@
+package com.example.metamorphic;
+
+import com.example.generator.Transformation;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 语句重排序：调整main方法中可以重排的语句的顺序，切片应由相同的语句组成
+ */
+@Component
+@Order(3)
+public class ReorderRelation extends TransformationRelation {
+
+    public ReorderRelation() {
+        super("reorder", Transformation.REORDER);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.metamorphic;
+
+import com.example.generator.JavaCodeGenerator;
+import com.example.generator.JavaCodeGenerator.VariableInfo;
+import com.example.generator.Transformation;
+import com.example.generator.TransformedSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.EnumSet;
+
+/**
+ * 由JavaCodeGenerator的一种变换实现的蜕变关系
+ * 同一原始程序的各种变体共享一次解析和一次变换位置收集，每个变体只复制AST并应用变换
+ * 准则所在的语句在变体中原样保留时按行映射换算准则，否则取变量在变体中有意义的赋值位置
+ */
+@Slf4j
+public abstract class TransformationRelation implements MetamorphicRelation {
+
+    @Autowired
+    protected JavaCodeGenerator javaCodeGenerator;
+
+    private final String name;
+    private final Transformation transformation;
+
+    protected TransformationRelation(String name, Transformation transformation) {
+        this.name = name;
+        this.transformation = transformation;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public Transformation getTransformation() {
+        return transformation;
+    }
+
+    @Override
+    public TransformedSource transform(String originalContent, VariableInfo criterion) {
+        return javaCodeGenerator.generateVariants(originalContent, EnumSet.of(transformation),
+                criterion.getVariableName()).get(transformation);
+    }
+
+    @Override
+    public VariableInfo mapCriterion(String originalContent, VariableInfo criterion, String variantFile,
+                                     TransformedSource variant) {
+        int line = variant.getLineMap().map(criterion.getLineNumber());
+        if (line > 0) {
+            return new VariableInfo(criterion.getVariableName(), line);
+        }
+        log.info("Criterion line {} of '{}' is not preserved by {}, using its last assignment in {}",
+                criterion.getLineNumber(), criterion.getVariableName(), name, variantFile);
+        return javaCodeGenerator.findVariableLastAssignment(variantFile, criterion.getVariableName());
+    }
+}
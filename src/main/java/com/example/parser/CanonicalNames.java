@@ -0,0 +1,136 @@
+package com.example.parser;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.SimpleName;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.CatchClause;
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.SwitchStmt;
+import com.github.javaparser.ast.stmt.TryStmt;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 变量的规范编号
+ * 每次绑定（声明或参数）取一个新的编号，不会因为同名变量再次声明而复用已有编号；
+ * 绑定只在声明所在的作用域（块、方法、循环、catch等）内可见，离开作用域后引用重新解析到外层的变量
+ * 找不到绑定的引用按首次出现的顺序另行编号
+ * CanonicalSliceHasher在计算哈希时使用这里的编号，SliceDiff用rename把同样的编号写回AST
+ */
+public final class CanonicalNames {
+
+    private final Deque<Map<String, Integer>> scopes = new ArrayDeque<>();
+    private final Map<String, Integer> externals = new HashMap<>();
+    private int nextBinding;
+
+    public CanonicalNames() {
+        scopes.push(new HashMap<>());
+    }
+
+    /**
+     * 把root中的变量重命名为v0、v1……，未声明的引用重命名为e0、e1……，编号与CanonicalSliceHasher一致
+     */
+    public static void rename(Node root) {
+        new CanonicalNames().renameIn(root);
+    }
+
+    private void renameIn(Node node) {
+        if (node instanceof SimpleName) {
+            SimpleName name = (SimpleName) node;
+            Node parent = name.getParentNode().orElse(null);
+            if (isBinding(name, parent)) {
+                name.setIdentifier("v" + bind(name.getIdentifier()));
+            } else if (parent instanceof NameExpr) {
+                Integer index = resolve(name.getIdentifier());
+                name.setIdentifier(index != null ? "v" + index : "e" + external(name.getIdentifier()));
+            }
+            return;
+        }
+        boolean scope = opensScope(node);
+        if (scope) {
+            enter();
+        }
+        for (Node child : node.getChildNodes()) {
+            if (!(child instanceof Comment)) {
+                renameIn(child);
+            }
+        }
+        if (scope) {
+            exit();
+        }
+    }
+
+    /**
+     * 节点是否引入新的作用域，遍历时在进入和离开这些节点时调用enter和exit
+     */
+    public static boolean opensScope(Node node) {
+        return node instanceof BlockStmt || node instanceof CallableDeclaration || node instanceof LambdaExpr
+                || node instanceof ForStmt || node instanceof ForEachStmt || node instanceof CatchClause
+                || node instanceof TryStmt || node instanceof SwitchStmt || node instanceof TypeDeclaration
+                || node instanceof ObjectCreationExpr;
+    }
+
+    /**
+     * 名字是否为声明或参数中被绑定的变量名
+     */
+    public static boolean isBinding(SimpleName name, Node parent) {
+        if (parent instanceof VariableDeclarator) {
+            return ((VariableDeclarator) parent).getName() == name;
+        }
+        if (parent instanceof Parameter) {
+            return ((Parameter) parent).getName() == name;
+        }
+        return false;
+    }
+
+    public void enter() {
+        scopes.push(new HashMap<>());
+    }
+
+    public void exit() {
+        scopes.pop();
+    }
+
+    /**
+     * 在当前作用域中绑定变量
+     * @return 新的编号
+     */
+    public int bind(String name) {
+        int index = nextBinding++;
+        scopes.peek().put(name, index);
+        return index;
+    }
+
+    /**
+     * 从内到外查找可见的绑定
+     * @return 绑定的编号，没有可见的绑定时为null
+     */
+    public Integer resolve(String name) {
+        for (Map<String, Integer> scope : scopes) {
+            Integer index = scope.get(name);
+            if (index != null) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 没有绑定的引用的编号
+     */
+    public int external(String name) {
+        return externals.computeIfAbsent(name, k -> externals.size());
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.parser;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Problem;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.observer.AstObserver;
+import com.github.javaparser.ast.observer.AstObserverAdapter;
+import com.github.javaparser.ast.observer.ObservableProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 按内容寻址的CompilationUnit缓存
+ * 键为源代码文本的SHA-256，同一内容在一次测试中只解析一次，条目数超过上限时淘汰最久未用的条目
+ * parse返回缓存中共享的只读AST，对其做任何修改都会抛出UnsupportedOperationException；
+ * 需要改写AST的变换使用parseForWrite，得到缓存条目的副本；
+ * 基于AST的分析结果（如符号索引）通过analyze与AST一起缓存和淘汰
+ * JavaParser实例不是线程安全的，每个线程使用自己的解析器
+ */
+@Component
+public class ParseCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+
+    // 共享AST上的修改在发生之前被拒绝，AST保持不变
+    private static final AstObserver READ_ONLY = new AstObserverAdapter() {
+        @Override
+        public void propertyChange(Node observedNode, ObservableProperty property, Object oldValue, Object newValue) {
+            throw new UnsupportedOperationException("Cached CompilationUnit is read-only, use parseForWrite to modify it");
+        }
+
+        @Override
+        public void parentChange(Node observedNode, Node previousParent, Node newParent) {
+            throw new UnsupportedOperationException("Cached CompilationUnit is read-only, use parseForWrite to modify it");
+        }
+
+        @Override
+        public void listChange(NodeList<?> observedNode, ListChangeType type, int index, Node nodeAddedOrRemoved) {
+            throw new UnsupportedOperationException("Cached CompilationUnit is read-only, use parseForWrite to modify it");
+        }
+
+        @Override
+        public void listReplacement(NodeList<?> observedNode, int index, Node oldNode, Node newNode) {
+            throw new UnsupportedOperationException("Cached CompilationUnit is read-only, use parseForWrite to modify it");
+        }
+    };
+
+    // 解析有问题（ParseResult.isSuccessful()为false）时记录在AST上的问题列表，副本中同样保留
+    private static final DataKey<List<Problem>> PROBLEMS = new DataKey<List<Problem>>() {
+    };
+
+    @Value("${parser.cache.max-entries:256}")
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    private final ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(() -> new JavaParser(new ParserConfiguration()));
+
+    // 内容摘要 -> 只读AST及其分析结果，accessOrder=true 即LRU顺序
+    private final LinkedHashMap<String, Entry> units = new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxEntries) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ParseCache() {
+    }
+
+    public ParseCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 当前线程的解析器，用于解析语句、表达式等不需要缓存的片段
+     */
+    public JavaParser parser() {
+        return parsers.get();
+    }
+
+    /**
+     * 解析源代码，返回缓存中共享的只读AST
+     * @return 与JavaParser.parse(...).getResult()相同，无法得到AST时为空
+     */
+    public Optional<CompilationUnit> parse(String content) {
+        return Optional.ofNullable(entry(content)).map(entry -> entry.unit);
+    }
+
+    /**
+     * 解析源代码，返回可以自由修改的AST副本
+     */
+    public Optional<CompilationUnit> parseForWrite(String content) {
+        return parse(content).map(CompilationUnit::clone);
+    }
+
+    /**
+     * 对缓存的只读AST做分析，同一内容的同一种分析只计算一次
+     * @param kind 分析结果的类型，作为分析的标识
+     * @param analysis 分析过程，不能修改传入的AST
+     * @return 分析结果，无法得到AST时为空
+     */
+    public <T> Optional<T> analyze(String content, Class<T> kind, Function<CompilationUnit, T> analysis) {
+        Entry entry = entry(content);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        return Optional.of(kind.cast(entry.analyses.computeIfAbsent(kind, k -> analysis.apply(entry.unit))));
+    }
+
+    private Entry entry(String content) {
+        String key = digest(content);
+        synchronized (units) {
+            Entry cached = units.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+
+        // 在锁外解析，并发解析同一内容时保留先放入的结果
+        ParseResult<CompilationUnit> result = parsers.get().parse(content);
+        if (!result.getResult().isPresent()) {
+            return null;
+        }
+        CompilationUnit cu = result.getResult().get();
+        if (!result.isSuccessful()) {
+            cu.setData(PROBLEMS, result.getProblems());
+        }
+        cu.registerForSubtree(READ_ONLY);
+        Entry entry = new Entry(cu);
+        synchronized (units) {
+            Entry existing = units.putIfAbsent(key, entry);
+            return existing != null ? existing : entry;
+        }
+    }
+
+    /**
+     * 与ParseResult.isSuccessful()相同：解析过程中没有遇到问题
+     */
+    public static boolean isSuccessful(CompilationUnit cu) {
+        return !cu.containsData(PROBLEMS);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (units) {
+            stats.put("entries", units.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private static final class Entry {
+        private final CompilationUnit unit;
+        private final Map<Class<?>, Object> analyses = new ConcurrentHashMap<>();
+
+        Entry(CompilationUnit unit) {
+            this.unit = unit;
+        }
+    }
+
+    private static String digest(String content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
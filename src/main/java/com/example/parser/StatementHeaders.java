@@ -0,0 +1,60 @@
+package com.example.parser;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.printer.DefaultPrettyPrinter;
+import com.github.javaparser.printer.configuration.DefaultConfigurationOption;
+import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration;
+import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration.ConfigOption;
+
+/**
+ * 语句和成员声明的头部
+ * 头部是节点去掉嵌套的语句和成员后的文本，嵌套部分以占位符代替并作为单独的节点比较；注释不参与
+ * LineTrackingPrinter用它判断节点在变换前后是否变化，SliceDiff用它作为语句级差异的记号
+ */
+public final class StatementHeaders {
+
+    private static final DefaultPrettyPrinter PRINTER = new DefaultPrettyPrinter(
+            new DefaultPrinterConfiguration().removeOption(new DefaultConfigurationOption(ConfigOption.PRINT_COMMENTS)));
+
+    private StatementHeaders() {
+    }
+
+    /**
+     * 节点是否有自己的头部：代码块以外的语句和成员声明
+     */
+    public static boolean isStatement(Node node) {
+        return (node instanceof Statement && !(node instanceof BlockStmt)) || node instanceof BodyDeclaration;
+    }
+
+    /**
+     * 节点自身的文本，嵌套的语句和成员以占位符代替
+     */
+    public static String header(Node node) {
+        StringBuilder text = new StringBuilder(node.getClass().getSimpleName());
+        for (Node child : node.getChildNodes()) {
+            if (child instanceof Comment) {
+                continue;
+            }
+            text.append('|');
+            if (child instanceof Statement || child instanceof BodyDeclaration) {
+                text.append('#');
+            } else if (child.findFirst(Statement.class).isPresent() || child.findFirst(BodyDeclaration.class).isPresent()) {
+                text.append(header(child));
+            } else {
+                text.append(PRINTER.print(child));
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * 不带注释打印节点
+     */
+    public static String print(Node node) {
+        return PRINTER.print(node);
+    }
+}
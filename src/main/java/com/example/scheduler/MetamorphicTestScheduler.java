@@ -0,0 +1,218 @@
+package com.example.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 蜕变测试调度器
+ * 将各个文件对（原始程序/变换后程序）的测试分派到固定大小的线程池中并发执行，
+ * 同一文件对的原始切片与变体切片也并行执行；结果按输入顺序返回，保证输出确定
+ * 同时运行的切片器进程总数由SliceExecutor统一限制
+ */
+@Slf4j
+@Component
+public class MetamorphicTestScheduler {
+
+    private final ExecutorService pairExecutor;
+    private final ExecutorService sliceExecutor;
+
+    // 尚未完成的文件对任务，中止测试时统一取消
+    private final Set<Future<?>> activeTasks = ConcurrentHashMap.newKeySet();
+
+    public MetamorphicTestScheduler(@Value("${scheduler.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        // 变体切片在单独的线程池中执行，文件对线程只等待切片任务，不会互相等待而死锁
+        this.pairExecutor = Executors.newFixedThreadPool(threads, namedThreads("metamorphic-pair-"));
+        this.sliceExecutor = Executors.newFixedThreadPool(threads, namedThreads("metamorphic-slice-"));
+        log.info("Metamorphic test scheduler started with {} pair workers", threads);
+    }
+
+    /**
+     * 单个文件对的测试任务
+     */
+    @FunctionalInterface
+    public interface PairTask<T, R> {
+        R run(T item) throws Exception;
+    }
+
+    /**
+     * 并发执行所有文件对的测试，返回结果的顺序与输入顺序一致
+     * 任一任务抛出异常时取消剩余任务并抛出该异常
+     */
+    public <T, R> List<R> runAll(List<T> items, PairTask<T, R> task) throws Exception {
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(pairExecutor.submit(() -> task.run(item)));
+        }
+        activeTasks.addAll(futures);
+
+        List<R> results = new ArrayList<>(items.size());
+        try {
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw unwrap(e);
+        } catch (CancellationException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw e;
+        } finally {
+            activeTasks.removeAll(futures);
+        }
+        return results;
+    }
+
+    /**
+     * 取消所有正在运行和排队的文件对任务，正在执行的任务线程会被中断
+     * @return 取消的任务数
+     */
+    public int cancelAll() {
+        int cancelled = 0;
+        for (Future<?> task : activeTasks) {
+            if (task.cancel(true)) {
+                cancelled++;
+            }
+        }
+        log.info("Cancelled {} metamorphic test tasks", cancelled);
+        return cancelled;
+    }
+
+    /**
+     * 并行计算同一文件对的原始切片和变体切片
+     * 原始切片在当前线程执行，变体切片交给切片线程池
+     */
+    public SlicePair slicePair(Callable<String> originalSlice, Callable<String> variantSlice) throws Exception {
+        Future<String> variant = sliceExecutor.submit(variantSlice);
+        String original;
+        try {
+            original = originalSlice.call();
+        } catch (Exception e) {
+            variant.cancel(true);
+            throw e;
+        }
+
+        try {
+            return new SlicePair(original, variant.get());
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            variant.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * 一个原始切片对应多个变体切片：原始切片在当前线程执行，各变体切片交给切片线程池并行执行
+     * 原始切片失败时取消所有变体切片并抛出异常；单个变体切片的失败在取结果时才抛出，不影响其它变体
+     */
+    public <T> SliceFanOut<T> sliceFanOut(Callable<T> originalSlice, List<Callable<T>> variantSlices) throws Exception {
+        List<Future<T>> variants = new ArrayList<>(variantSlices.size());
+        for (Callable<T> variantSlice : variantSlices) {
+            variants.add(sliceExecutor.submit(variantSlice));
+        }
+        try {
+            return new SliceFanOut<>(originalSlice.call(), variants);
+        } catch (Exception e) {
+            variants.forEach(variant -> variant.cancel(true));
+            throw e;
+        }
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return cause instanceof Exception ? (Exception) cause : e;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pairExecutor.shutdownNow();
+        sliceExecutor.shutdownNow();
+    }
+
+    /**
+     * 同一文件对的两个切片结果
+     */
+    public static class SlicePair {
+        private final String originalSlice;
+        private final String variantSlice;
+
+        public SlicePair(String originalSlice, String variantSlice) {
+            this.originalSlice = originalSlice;
+            this.variantSlice = variantSlice;
+        }
+
+        public String getOriginalSlice() {
+            return originalSlice;
+        }
+
+        public String getVariantSlice() {
+            return variantSlice;
+        }
+    }
+
+    /**
+     * 同一原始程序的原始切片和各变体切片，每个程序切多个准则时T为与准则对应的切片列表
+     */
+    public static class SliceFanOut<T> {
+        private final T originalSlice;
+        private final List<Future<T>> variantSlices;
+
+        SliceFanOut(T originalSlice, List<Future<T>> variantSlices) {
+            this.originalSlice = originalSlice;
+            this.variantSlices = variantSlices;
+        }
+
+        public T getOriginalSlice() {
+            return originalSlice;
+        }
+
+        /**
+         * 等待第index个变体切片完成
+         * @throws Exception 该变体切片抛出的异常；等待被中断时取消所有尚未完成的变体切片
+         */
+        public T getVariantSlice(int index) throws Exception {
+            try {
+                return variantSlices.get(index).get();
+            } catch (ExecutionException e) {
+                throw unwrap(e);
+            } catch (InterruptedException e) {
+                variantSlices.forEach(variant -> variant.cancel(true));
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+        }
+    }
+}
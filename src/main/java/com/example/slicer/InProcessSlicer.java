@@ -0,0 +1,213 @@
+package com.example.slicer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * 进程内切片后端
+ * 在独立的类加载器中加载一次sdg-cli，之后的每次切片都直接调用其入口方法，
+ * 省去每个切片准则都要启动一个新JVM的开销
+ * 工具可能调用System.exit，只在SliceWorkerMain的子JVM中使用，不能在服务器JVM中直接调用
+ */
+@Slf4j
+public class InProcessSlicer implements AutoCloseable {
+
+    // 正在切片的线程的输出缓冲区，其它线程的输出照常写到原来的流
+    private static final ThreadLocal<ByteArrayOutputStream> CAPTURE = new ThreadLocal<>();
+
+    private final Path slicingToolPath;
+
+    private URLClassLoader toolClassLoader;
+    private Method entryPoint;
+
+    public InProcessSlicer(String slicingToolPath) {
+        this.slicingToolPath = Paths.get(slicingToolPath).toAbsolutePath();
+    }
+
+    /**
+     * 对指定的切片准则执行切片，返回切片内容
+     * sdg-cli只会把切片结果写到文件中，因此每次调用使用独立的临时输出目录，读回内存后立即删除，
+     * 不再经过共享的slice目录
+     * 工具的输出只捕获当前线程写出的部分，不替换进程的System.out/System.err；工具的静态状态是进程级的，所以切片调用是串行的
+     */
+    public synchronized String slice(String sourceFile, int lineNumber, String variableName) throws IOException {
+        Method main = loadEntryPoint();
+        Path outputDir = Files.createTempDirectory("slice-");
+        String[] args = {
+                "-c", sourceFile + "#" + lineNumber + ":" + variableName,
+                "-o", outputDir.toString()
+        };
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Thread thread = Thread.currentThread();
+        ClassLoader originalContextLoader = thread.getContextClassLoader();
+        CAPTURE.set(output);
+        try {
+            thread.setContextClassLoader(toolClassLoader);
+            main.invoke(null, (Object) args);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot invoke slicing tool entry point", e);
+        } catch (InvocationTargetException e) {
+            String error = "In-process slice execution failed: " + e.getCause()
+                    + "\nOutput: " + output.toString(StandardCharsets.UTF_8.name());
+            deleteRecursively(outputDir);
+            throw new RuntimeException(error, e.getCause());
+        } finally {
+            CAPTURE.remove();
+            thread.setContextClassLoader(originalContextLoader);
+        }
+
+        try {
+            String fileName = new File(sourceFile).getName();
+            Optional<Path> sliceFile;
+            try (Stream<Path> files = Files.walk(outputDir)) {
+                sliceFile = files.filter(Files::isRegularFile)
+                        .filter(path -> path.getFileName().toString().equals(fileName))
+                        .findFirst();
+            }
+
+            if (!sliceFile.isPresent()) {
+                log.warn("No slice output produced in-process for: {}", sourceFile);
+                log.warn("Slice tool output: {}", output.toString(StandardCharsets.UTF_8.name()));
+                return "";
+            }
+
+            return new String(Files.readAllBytes(sliceFile.get()), StandardCharsets.UTF_8);
+        } finally {
+            deleteRecursively(outputDir);
+        }
+    }
+
+    /**
+     * 对同一程序的多个切片准则执行切片，结果顺序与准则顺序一致
+     * sdg-cli的命令行一次只接受一个准则，每个准则仍调用一次工具入口，切片内容与单独切片时逐字节相同；
+     * 节省的是每个准则的JVM启动、类加载和预热
+     */
+    public synchronized List<String> sliceAll(String sourceFile, List<SliceCriterion> criteria) throws IOException {
+        List<String> slices = new ArrayList<>(criteria.size());
+        for (SliceCriterion criterion : criteria) {
+            slices.add(slice(sourceFile, criterion.getLineNumber(), criterion.getVariableName()));
+        }
+        return slices;
+    }
+
+    /**
+     * 首次使用时创建类加载器并解析jar清单中的Main-Class
+     * 父加载器使用平台类加载器，避免sdg-cli自带的JavaParser等依赖与应用类路径冲突
+     */
+    private Method loadEntryPoint() throws IOException {
+        if (entryPoint != null) {
+            return entryPoint;
+        }
+
+        if (!Files.exists(slicingToolPath)) {
+            throw new FileNotFoundException("Slicing tool not found: " + slicingToolPath);
+        }
+
+        String mainClassName;
+        try (JarFile jar = new JarFile(slicingToolPath.toFile())) {
+            mainClassName = jar.getManifest() == null ? null
+                    : jar.getManifest().getMainAttributes().getValue("Main-Class");
+        }
+        if (mainClassName == null) {
+            throw new IllegalStateException("No Main-Class declared in slicing tool manifest: " + slicingToolPath);
+        }
+
+        installCapture();
+        URLClassLoader loader = new URLClassLoader(
+                new URL[]{slicingToolPath.toUri().toURL()}, ClassLoader.getPlatformClassLoader());
+        try {
+            Method main = Class.forName(mainClassName, true, loader).getMethod("main", String[].class);
+            log.info("Loaded slicing tool {} in-process (entry point {})", slicingToolPath, mainClassName);
+            toolClassLoader = loader;
+            entryPoint = main;
+            return main;
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            loader.close();
+            throw new IllegalStateException("Cannot load slicing tool entry point " + mainClassName, e);
+        }
+    }
+
+    /**
+     * 用按线程分流的流包装System.out/System.err，只安装一次
+     * 有捕获缓冲区的线程写入自己的缓冲区，其它线程的输出不受影响
+     */
+    private static synchronized void installCapture() {
+        if (!(System.out instanceof CapturingPrintStream)) {
+            System.setOut(new CapturingPrintStream(System.out));
+        }
+        if (!(System.err instanceof CapturingPrintStream)) {
+            System.setErr(new CapturingPrintStream(System.err));
+        }
+    }
+
+    private static final class CapturingPrintStream extends PrintStream {
+
+        private CapturingPrintStream(PrintStream original) {
+            super(new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    target().write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    target().write(b, off, len);
+                }
+
+                @Override
+                public void flush() {
+                    original.flush();
+                }
+
+                private OutputStream target() {
+                    ByteArrayOutputStream capture = CAPTURE.get();
+                    return capture != null ? capture : original;
+                }
+            }, true);
+        }
+    }
+
+    private void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    log.debug("Failed to delete {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Failed to clean up slice output directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (toolClassLoader != null) {
+            toolClassLoader.close();
+            toolClassLoader = null;
+            entryPoint = null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.slicer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 切片工具输出的有界环形缓冲区
+ * 读取线程按块把进程输出写入缓冲区，只保留最后capacity个字符，不逐行处理也不逐行记录日志；
+ * 只有切片失败需要诊断时才转换成字符串
+ */
+public class OutputRingBuffer {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final char[] buffer;
+    private int start;
+    private int length;
+    private long totalChars;
+
+    public OutputRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.buffer = new char[capacity];
+    }
+
+    /**
+     * 读取输入流直到结束，超出容量的旧输出被覆盖
+     */
+    public void drain(InputStream in) throws IOException {
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        char[] chunk = new char[CHUNK_SIZE];
+        int read;
+        while ((read = reader.read(chunk)) != -1) {
+            append(chunk, 0, read);
+        }
+    }
+
+    public synchronized void append(char[] chars, int offset, int count) {
+        int capacity = buffer.length;
+        totalChars += count;
+        if (count >= capacity) {
+            System.arraycopy(chars, offset + count - capacity, buffer, 0, capacity);
+            start = 0;
+            length = capacity;
+            return;
+        }
+
+        int end = (start + length) % capacity;
+        int first = Math.min(count, capacity - end);
+        System.arraycopy(chars, offset, buffer, end, first);
+        System.arraycopy(chars, offset + first, buffer, 0, count - first);
+
+        int overflow = length + count - capacity;
+        if (overflow > 0) {
+            start = (start + overflow) % capacity;
+            length = capacity;
+        } else {
+            length += count;
+        }
+    }
+
+    /**
+     * 写入过的字符总数，包括已被覆盖的部分
+     */
+    public synchronized long getTotalChars() {
+        return totalChars;
+    }
+
+    public synchronized boolean isTruncated() {
+        return totalChars > length;
+    }
+
+    /**
+     * 缓冲区中保留的输出，被覆盖的部分以省略提示代替
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder text = new StringBuilder(length + 48);
+        if (isTruncated()) {
+            text.append("...[").append(totalChars - length).append(" chars omitted]\n");
+        }
+        int first = Math.min(length, buffer.length - start);
+        text.append(buffer, start, first);
+        text.append(buffer, 0, length - first);
+        return text.toString();
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.slicer;
+
+import com.example.generator.DependenceGraph;
+import com.example.parser.ParseCache;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.SwitchExpr;
+import com.github.javaparser.ast.expr.ThisExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.stmt.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 进程内的参考切片器
+ * 直接在JavaParser的AST上建立准则所在方法的依赖图（数据依赖和控制依赖），求后向切片并按源程序的格式打印，
+ * 不启动JVM也不加载sdg-cli，用于廉价地筛选大量程序对；只做过程内切片，
+ * 程序超出支持的子集（调用本程序中声明的方法、使用字段、写数组元素、调用局部对象的方法、跳转语句、异常处理等）时
+ * 返回null，交给sdg-cli处理
+ */
+@Slf4j
+public class ReferenceSlicer {
+
+    private final ParseCache parseCache;
+
+    public ReferenceSlicer(ParseCache parseCache) {
+        this.parseCache = parseCache;
+    }
+
+    /**
+     * 对源程序中的切片准则求后向切片
+     * @param content 源程序内容
+     * @param lineNumber 准则所在行
+     * @param variableName 准则变量
+     * @return 切片内容；程序不能解析、超出支持的子集或准则行上没有访问该变量的语句时返回null
+     */
+    public String slice(String content, int lineNumber, String variableName) {
+        Optional<CompilationUnit> parsed = parseCache.parseForWrite(content);
+        if (!parsed.isPresent()) {
+            return null;
+        }
+        CompilationUnit cu = parsed.get();
+        MethodDeclaration method = findMethod(cu, lineNumber);
+        if (method == null || !isSupported(cu, method)) {
+            log.debug("Program is outside the reference slicer subset at line {}", lineNumber);
+            return null;
+        }
+
+        BlockStmt body = method.getBody().get();
+        DependenceGraph graph = DependenceGraph.build(body, name -> false);
+        BitSet criteria = graph.nodesAt(lineNumber, variableName);
+        if (criteria.isEmpty()) {
+            log.debug("No statement at line {} accesses {}", lineNumber, variableName);
+            return null;
+        }
+        BitSet slice = graph.backwardSlice(criteria);
+
+        // 只保留准则所在的方法，方法体中只保留切片中的语句和包含它们的控制结构
+        for (TypeDeclaration<?> type : cu.getTypes()) {
+            for (BodyDeclaration<?> member : new ArrayList<>(type.getMembers())) {
+                if (member != method) {
+                    member.remove();
+                }
+            }
+        }
+        cu.getAllContainedComments().forEach(comment -> comment.remove());
+        pruneStatements(body.getStatements(), graph, slice);
+        return cu.toString();
+    }
+
+    /**
+     * 方法体包含准则行的方法
+     */
+    private static MethodDeclaration findMethod(CompilationUnit cu, int lineNumber) {
+        for (MethodDeclaration method : cu.findAll(MethodDeclaration.class)) {
+            Optional<BlockStmt> body = method.getBody();
+            if (body.isPresent() && body.get().getRange()
+                    .map(range -> range.begin.line <= lineNumber && lineNumber <= range.end.line).orElse(false)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 支持的子集：单个类型、没有字段，方法体中只有表达式语句、块、if、循环、switch和switch分支末尾的break，
+     * 不调用本程序中声明的方法，没有lambda、匿名类和switch表达式；
+     * 依赖图只精确建模对整个变量的写入，写数组元素或字段、调用局部对象的方法（可能修改对象，还可能有别名）都不支持
+     */
+    private static boolean isSupported(CompilationUnit cu, MethodDeclaration method) {
+        if (cu.getTypes().size() != 1 || !cu.findAll(FieldDeclaration.class).isEmpty()) {
+            return false;
+        }
+        Set<String> declaredMethods = new HashSet<>();
+        cu.findAll(MethodDeclaration.class).forEach(m -> declaredMethods.add(m.getNameAsString()));
+        Set<String> locals = new HashSet<>();
+        method.findAll(VariableDeclarator.class).forEach(v -> locals.add(v.getNameAsString()));
+        method.getParameters().forEach(p -> locals.add(p.getNameAsString()));
+
+        for (Node node : method.getBody().get().findAll(Node.class)) {
+            if (node instanceof Statement && !isSupportedStatement((Statement) node)) {
+                return false;
+            }
+            if (node instanceof SwitchStmt && !hasNoFallThrough((SwitchStmt) node)) {
+                return false;
+            }
+            if (node instanceof LambdaExpr || node instanceof SwitchExpr
+                    || (node instanceof ObjectCreationExpr && ((ObjectCreationExpr) node).getAnonymousClassBody().isPresent())) {
+                return false;
+            }
+            if (node instanceof AssignExpr && !(((AssignExpr) node).getTarget() instanceof NameExpr)) {
+                return false;
+            }
+            if (node instanceof UnaryExpr && isIncrement((UnaryExpr) node)
+                    && !(((UnaryExpr) node).getExpression() instanceof NameExpr)) {
+                return false;
+            }
+            if (node instanceof MethodCallExpr) {
+                MethodCallExpr call = (MethodCallExpr) node;
+                boolean local = !call.getScope().isPresent() || call.getScope().get() instanceof ThisExpr;
+                if (local && declaredMethods.contains(call.getNameAsString())) {
+                    return false;
+                }
+                if (call.getScope().map(scope -> isLocalObject(scope, locals)).orElse(false)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIncrement(UnaryExpr unary) {
+        UnaryExpr.Operator operator = unary.getOperator();
+        return operator == UnaryExpr.Operator.PREFIX_INCREMENT || operator == UnaryExpr.Operator.PREFIX_DECREMENT
+                || operator == UnaryExpr.Operator.POSTFIX_INCREMENT || operator == UnaryExpr.Operator.POSTFIX_DECREMENT;
+    }
+
+    /**
+     * 表达式是否为局部变量或参数（或其元素、字段），System.out等类名开头的表达式不算
+     */
+    private static boolean isLocalObject(Expression scope, Set<String> locals) {
+        Expression base = scope;
+        while (base instanceof ArrayAccessExpr || base instanceof FieldAccessExpr || base instanceof MethodCallExpr) {
+            if (base instanceof ArrayAccessExpr) {
+                base = ((ArrayAccessExpr) base).getName();
+            } else if (base instanceof FieldAccessExpr) {
+                base = ((FieldAccessExpr) base).getScope();
+            } else if (((MethodCallExpr) base).getScope().isPresent()) {
+                base = ((MethodCallExpr) base).getScope().get();
+            } else {
+                return false;
+            }
+        }
+        return base instanceof NameExpr && locals.contains(((NameExpr) base).getNameAsString());
+    }
+
+    /**
+     * 除最后一个分支外，每个分支为空（与下一个分支共用语句）或以break结束
+     */
+    private static boolean hasNoFallThrough(SwitchStmt switchStmt) {
+        NodeList<SwitchEntry> entries = switchStmt.getEntries();
+        for (int i = 0; i < entries.size() - 1; i++) {
+            NodeList<Statement> statements = entries.get(i).getStatements();
+            if (statements.isNonEmpty() && !(statements.get(statements.size() - 1) instanceof BreakStmt)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSupportedStatement(Statement stmt) {
+        if (stmt instanceof BreakStmt) {
+            // 只支持作为switch分支最后一条语句的break
+            Node parent = stmt.getParentNode().orElse(null);
+            if (((BreakStmt) stmt).getLabel().isPresent() || !(parent instanceof SwitchEntry)) {
+                return false;
+            }
+            NodeList<Statement> statements = ((SwitchEntry) parent).getStatements();
+            return statements.get(statements.size() - 1) == stmt;
+        }
+        return stmt instanceof BlockStmt || stmt instanceof ExpressionStmt || stmt instanceof IfStmt
+                || stmt instanceof WhileStmt || stmt instanceof DoStmt || stmt instanceof ForStmt
+                || stmt instanceof ForEachStmt || stmt instanceof SwitchStmt || stmt instanceof EmptyStmt;
+    }
+
+    /**
+     * 删除不含切片节点的语句，并在保留的控制结构中继续删除
+     */
+    private static void pruneStatements(NodeList<Statement> statements, DependenceGraph graph, BitSet slice) {
+        for (Statement stmt : new ArrayList<>(statements)) {
+            if (graph.touches(stmt, slice)) {
+                pruneInside(stmt, graph, slice);
+            } else {
+                stmt.remove();
+            }
+        }
+    }
+
+    private static void pruneInside(Statement stmt, DependenceGraph graph, BitSet slice) {
+        if (stmt instanceof BlockStmt) {
+            pruneStatements(((BlockStmt) stmt).getStatements(), graph, slice);
+        } else if (stmt instanceof IfStmt) {
+            IfStmt ifStmt = (IfStmt) stmt;
+            ifStmt.setThenStmt(pruneBody(ifStmt.getThenStmt(), graph, slice));
+            Optional<Statement> elseStmt = ifStmt.getElseStmt();
+            if (elseStmt.isPresent()) {
+                if (graph.touches(elseStmt.get(), slice)) {
+                    pruneInside(elseStmt.get(), graph, slice);
+                } else {
+                    ifStmt.removeElseStmt();
+                }
+            }
+        } else if (stmt instanceof WhileStmt) {
+            WhileStmt whileStmt = (WhileStmt) stmt;
+            whileStmt.setBody(pruneBody(whileStmt.getBody(), graph, slice));
+        } else if (stmt instanceof DoStmt) {
+            DoStmt doStmt = (DoStmt) stmt;
+            doStmt.setBody(pruneBody(doStmt.getBody(), graph, slice));
+        } else if (stmt instanceof ForStmt) {
+            ForStmt forStmt = (ForStmt) stmt;
+            forStmt.setBody(pruneBody(forStmt.getBody(), graph, slice));
+        } else if (stmt instanceof ForEachStmt) {
+            ForEachStmt forEach = (ForEachStmt) stmt;
+            forEach.setBody(pruneBody(forEach.getBody(), graph, slice));
+        } else if (stmt instanceof SwitchStmt) {
+            // 删除分支会让原本进入该分支的执行转到default，所有分支的标号都保留
+            for (SwitchEntry entry : ((SwitchStmt) stmt).getEntries()) {
+                pruneEntry(entry, graph, slice);
+            }
+        }
+    }
+
+    /**
+     * 分支或循环体不含切片节点时换成空块，保持控制结构的语法完整
+     */
+    private static Statement pruneBody(Statement body, DependenceGraph graph, BitSet slice) {
+        if (!graph.touches(body, slice)) {
+            return new BlockStmt();
+        }
+        pruneInside(body, graph, slice);
+        return body;
+    }
+
+    /**
+     * 删除分支中不含切片节点的语句，保留末尾的break，不改变分支之间的跳转
+     */
+    private static void pruneEntry(SwitchEntry entry, DependenceGraph graph, BitSet slice) {
+        for (Statement stmt : new ArrayList<>(entry.getStatements())) {
+            if (stmt instanceof BreakStmt) {
+                continue;
+            }
+            if (graph.touches(stmt, slice)) {
+                pruneInside(stmt, graph, slice);
+            } else {
+                stmt.remove();
+            }
+        }
+    }
+}
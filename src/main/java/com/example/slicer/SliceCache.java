@@ -0,0 +1,288 @@
+package com.example.slicer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 按内容寻址的切片结果磁盘缓存
+ * 键为(源文件字节, 行号, 变量名, 切片工具jar摘要)的SHA-256，
+ * 值为压缩后的切片文本，顺序追加到单个数据文件中；
+ * 内存索引按LRU顺序维护，总大小超过上限时淘汰最久未用的条目，死数据过多时整体压缩数据文件
+ */
+@Slf4j
+public class SliceCache implements AutoCloseable {
+
+    private static final int KEY_LENGTH = 32;
+    private static final int TOMBSTONE = -1;
+
+    private final Path dataFile;
+    private final long maxBytes;
+
+    // 键 -> 数据文件中的位置，accessOrder=true 即LRU顺序
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(256, 0.75f, true);
+    private RandomAccessFile store;
+    private long liveBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private Path toolPath;
+    private String toolDigest;
+    private long toolDigestStamp;
+
+    public SliceCache(String cacheDir, long maxBytes) throws IOException {
+        Path dir = Paths.get(cacheDir);
+        Files.createDirectories(dir);
+        this.dataFile = dir.resolve("slices.dat");
+        this.maxBytes = maxBytes;
+        this.store = new RandomAccessFile(dataFile.toFile(), "rw");
+        load();
+    }
+
+    /**
+     * 计算切片准则的缓存键
+     */
+    public String key(String sourceFile, int lineNumber, String variableName, String slicingToolPath) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(Files.readAllBytes(Paths.get(sourceFile)));
+        digest.update((byte) 0);
+        digest.update(Integer.toString(lineNumber).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(variableName.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(toolDigest(Paths.get(slicingToolPath)).getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest());
+    }
+
+    public synchronized String get(String key) throws IOException {
+        Entry entry = index.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        byte[] compressed = new byte[entry.length];
+        store.seek(entry.offset);
+        store.readFully(compressed);
+        hits.incrementAndGet();
+        return inflate(compressed);
+    }
+
+    public synchronized void put(String key, String sliceContent) throws IOException {
+        if (index.containsKey(key)) {
+            return;
+        }
+        byte[] compressed = deflate(sliceContent);
+        long offset = append(key, compressed.length, compressed);
+        index.put(key, new Entry(offset, compressed.length));
+        liveBytes += compressed.length;
+        evictIfNeeded();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        synchronized (this) {
+            stats.put("entries", index.size());
+            stats.put("liveBytes", liveBytes);
+        }
+        return stats;
+    }
+
+    private void evictIfNeeded() throws IOException {
+        Iterator<Map.Entry<String, Entry>> eldest = index.entrySet().iterator();
+        while (liveBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> victim = eldest.next();
+            eldest.remove();
+            liveBytes -= victim.getValue().length;
+            append(victim.getKey(), TOMBSTONE, null);
+            evictions.incrementAndGet();
+        }
+
+        // 数据文件中死数据超过一半时重写数据文件
+        if (store.length() > 2 * Math.max(liveBytes, 1024 * 1024)) {
+            compact();
+        }
+    }
+
+    private long append(String key, int length, byte[] payload) throws IOException {
+        long recordStart = store.length();
+        store.seek(recordStart);
+        store.write(fromHex(key));
+        store.writeInt(length);
+        if (payload != null) {
+            store.write(payload);
+        }
+        return recordStart + KEY_LENGTH + 4;
+    }
+
+    /**
+     * 启动时扫描数据文件重建索引，截断末尾不完整的记录
+     */
+    private void load() throws IOException {
+        long position = 0;
+        long fileLength = store.length();
+        byte[] keyBytes = new byte[KEY_LENGTH];
+        store.seek(0);
+        try {
+            while (position < fileLength) {
+                store.readFully(keyBytes);
+                int length = store.readInt();
+                String key = toHex(keyBytes);
+                long offset = position + KEY_LENGTH + 4;
+                Entry previous;
+                if (length == TOMBSTONE) {
+                    previous = index.remove(key);
+                    position = offset;
+                } else {
+                    if (offset + length > fileLength) {
+                        throw new EOFException();
+                    }
+                    previous = index.put(key, new Entry(offset, length));
+                    liveBytes += length;
+                    position = offset + length;
+                    store.seek(position);
+                }
+                if (previous != null) {
+                    liveBytes -= previous.length;
+                }
+            }
+        } catch (EOFException e) {
+            log.warn("Truncating incomplete slice cache record at offset {}", position);
+            store.setLength(position);
+        }
+        log.info("Loaded slice cache {} with {} entries ({} bytes)", dataFile, index.size(), liveBytes);
+    }
+
+    private void compact() throws IOException {
+        Path compacted = dataFile.resolveSibling(dataFile.getFileName() + ".compact");
+        LinkedHashMap<String, Entry> newIndex = new LinkedHashMap<>(256, 0.75f, true);
+        try (RandomAccessFile out = new RandomAccessFile(compacted.toFile(), "rw")) {
+            out.setLength(0);
+            for (Map.Entry<String, Entry> e : index.entrySet()) {
+                byte[] payload = new byte[e.getValue().length];
+                store.seek(e.getValue().offset);
+                store.readFully(payload);
+                out.write(fromHex(e.getKey()));
+                out.writeInt(payload.length);
+                long offset = out.getFilePointer();
+                out.write(payload);
+                newIndex.put(e.getKey(), new Entry(offset, payload.length));
+            }
+        }
+        store.close();
+        Files.move(compacted, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        store = new RandomAccessFile(dataFile.toFile(), "rw");
+        index.clear();
+        index.putAll(newIndex);
+        log.info("Compacted slice cache to {} bytes", store.length());
+    }
+
+    private synchronized String toolDigest(Path path) throws IOException {
+        long stamp = Files.getLastModifiedTime(path).toMillis() ^ Files.size(path);
+        if (toolDigest == null || !path.equals(toolPath) || stamp != toolDigestStamp) {
+            MessageDigest digest = sha256();
+            digest.update(Files.readAllBytes(path));
+            toolDigest = toHex(digest.digest());
+            toolPath = path;
+            toolDigestStamp = stamp;
+        }
+        return toolDigest;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        store.close();
+    }
+
+    private static byte[] deflate(String content) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(content.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String inflate(byte[] compressed) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && inflater.needsInput()) {
+                    throw new IOException("Corrupted slice cache entry");
+                }
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted slice cache entry", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static final class Entry {
+        private final long offset;
+        private final int length;
+
+        private Entry(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
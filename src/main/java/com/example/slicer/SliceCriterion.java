@@ -0,0 +1,23 @@
+package com.example.slicer;
+
+/**
+ * 切片准则：变量名和所在行号
+ * 工作进程协议和切片后端只依赖这个类型，工作JVM中不需要加载生成器的类
+ */
+public class SliceCriterion {
+    private final String variableName;
+    private final int lineNumber;
+
+    public SliceCriterion(String variableName, int lineNumber) {
+        this.variableName = variableName;
+        this.lineNumber = lineNumber;
+    }
+
+    public String getVariableName() {
+        return variableName;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.slicer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+/**
+ * 自适应的切片截止时间
+ * 根据已完成切片的耗时维护每行代码平均耗时的指数滑动平均，
+ * 截止时间 = 预期耗时 × 放大系数，限制在[最小值, 硬上限]之间
+ */
+public class SliceDeadline {
+
+    // 指数滑动平均的平滑系数
+    private static final double ALPHA = 0.2;
+
+    private final long minMillis;
+    private final long maxMillis;
+    private final double factor;
+
+    private double millisPerLine = -1;
+
+    public SliceDeadline(long minMillis, long maxMillis, double factor) {
+        this.minMillis = minMillis;
+        this.maxMillis = Math.max(minMillis, maxMillis);
+        this.factor = factor;
+    }
+
+    /**
+     * 给定行数的程序的切片截止时间；还没有观测数据时使用硬上限
+     */
+    public synchronized long deadlineFor(int lines) {
+        if (millisPerLine < 0) {
+            return maxMillis;
+        }
+        long expected = (long) Math.ceil(millisPerLine * Math.max(1, lines) * factor);
+        return Math.max(minMillis, Math.min(maxMillis, expected));
+    }
+
+    /**
+     * 记录一次成功完成的切片耗时
+     */
+    public synchronized void record(int lines, long elapsedMillis) {
+        double observed = (double) elapsedMillis / Math.max(1, lines);
+        millisPerLine = millisPerLine < 0 ? observed : ALPHA * observed + (1 - ALPHA) * millisPerLine;
+    }
+
+    public synchronized double getMillisPerLine() {
+        return millisPerLine;
+    }
+
+    static int countLines(String sourceFile) {
+        try (Stream<String> lines = Files.lines(Paths.get(sourceFile))) {
+            return (int) lines.count();
+        } catch (IOException | RuntimeException e) {
+            return 1;
+        }
+    }
+}
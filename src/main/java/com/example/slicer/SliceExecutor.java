@@ -2,14 +2,30 @@ package com.example.slicer;
 
 import com.example.generator.JavaCodeGenerator;
 import com.example.generator.JavaCodeGenerator.VariableInfo;
+import com.example.parser.ParseCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.*;
+import java.util.stream.Stream;
 import java.util.Map;
 
 @Slf4j
@@ -22,13 +38,286 @@ public class SliceExecutor {
     @Autowired
     private JavaCodeGenerator codeGenerator;
 
+    // 参考切片器读取缓存的AST副本
+    @Autowired
+    private ParseCache parseCache;
+
+    // 切片后端：process 每次启动新的JVM，pool 将请求分派给常驻的切片工作JVM，
+    // in-process 与pool相同：sdg-cli可能调用System.exit，不加载到服务器JVM中，只在工作JVM中复用，
+    // reference 先用进程内的参考切片器，超出其支持范围时再启动sdg-cli
+    @Value("${slicer.mode:process}")
+    private String slicerMode = "process";
+
+    @Value("${slicer.pool.size:4}")
+    private int poolSize = 4;
+
+    @Value("${slicer.pool.max-jobs:200}")
+    private int poolMaxJobs = 200;
+
+    @Value("${slicer.pool.max-heap-growth-mb:256}")
+    private long poolMaxHeapGrowthMb = 256;
+
+    @Value("${slicer.cache.enabled:true}")
+    private boolean cacheEnabled = true;
+
+    @Value("${slicer.cache.dir:slice-cache}")
+    private String cacheDir = "slice-cache";
+
+    @Value("${slicer.cache.max-size-mb:256}")
+    private long cacheMaxSizeMb = 256;
+
+    // 全局同时运行的切片任务上限，0表示可用处理器数
+    @Value("${slicer.max-concurrent:0}")
+    private int maxConcurrentSlices = 0;
+
+    // 切片截止时间：按每行代码的平均切片耗时自适应调整，限制在[min-ms, max-ms]之间
+    @Value("${slicer.timeout.min-ms:10000}")
+    private long timeoutMinMillis = 10000;
+
+    @Value("${slicer.timeout.max-ms:120000}")
+    private long timeoutMaxMillis = 120000;
+
+    @Value("${slicer.timeout.factor:5}")
+    private double timeoutFactor = 5;
+
+    // 切片子JVM的类数据共享归档与启动参数
+    @Value("${slicer.cds.enabled:false}")
+    private boolean cdsEnabled = false;
+
+    @Value("${slicer.cds.dir:slice-cds}")
+    private String cdsDir = "slice-cds";
+
+    @Value("${slicer.cds.jvm-options:-XX:TieredStopAtLevel=1 -XX:+UseSerialGC -Xms64m -Xss4m}")
+    private String childJvmOptions = "-XX:TieredStopAtLevel=1 -XX:+UseSerialGC -Xms64m -Xss4m";
+
+    // 每次切片保留的工具输出上限（字符数），只在切片失败时用于诊断
+    @Value("${slicer.output.max-chars:65536}")
+    private int outputMaxChars = 65536;
+
+    private ReferenceSlicer referenceSlicer;
+    private SliceWorkerPool workerPool;
+    private SliceCache sliceCache;
+    private Semaphore slicePermits;
+    private SliceDeadline sliceDeadline;
+    private SlicerCdsArchive cdsArchive;
+
+    // 切片进程的启动次数与总耗时
+    private final LongAdder processLaunches = new LongAdder();
+    private final LongAdder processMillis = new LongAdder();
+
+    // 参考切片器完成的切片数，以及超出其支持范围、交给sdg-cli的切片数
+    private final LongAdder referenceSlices = new LongAdder();
+    private final LongAdder referenceEscalations = new LongAdder();
+
+    // 正在运行的切片进程，取消测试时统一终止
+    private final Set<Process> runningProcesses = ConcurrentHashMap.newKeySet();
+
     public SliceExecutor() {
         this.slicingToolPath = "src/main/java/sdg-cli-1.3.0-jar-with-dependencies.jar";
         this.sliceOutputDir = "slice";
+        this.parseCache = new ParseCache();
         setupLogger();
         createSliceDirectory();
     }
 
+    private synchronized SliceDeadline getSliceDeadline() {
+        if (sliceDeadline == null) {
+            sliceDeadline = new SliceDeadline(timeoutMinMillis, timeoutMaxMillis, timeoutFactor);
+        }
+        return sliceDeadline;
+    }
+
+    private synchronized Semaphore getSlicePermits() {
+        if (slicePermits == null) {
+            int permits = maxConcurrentSlices > 0 ? maxConcurrentSlices : Runtime.getRuntime().availableProcessors();
+            slicePermits = new Semaphore(permits, true);
+        }
+        return slicePermits;
+    }
+
+    private boolean isProcessMode() {
+        return !"in-process".equalsIgnoreCase(slicerMode) && !"pool".equalsIgnoreCase(slicerMode);
+    }
+
+    private boolean isReferenceMode() {
+        return "reference".equalsIgnoreCase(slicerMode);
+    }
+
+    private synchronized ReferenceSlicer getReferenceSlicer() {
+        if (referenceSlicer == null) {
+            referenceSlicer = new ReferenceSlicer(parseCache);
+        }
+        return referenceSlicer;
+    }
+
+    /**
+     * 用进程内的参考切片器对准则切片，不经过缓存和并发限制
+     * @return 切片内容；程序超出参考切片器支持的子集时返回null，应交给sdg-cli
+     */
+    public String referenceSlice(String sourceFile, String variableName, int lineNumber) throws IOException {
+        String content = new String(Files.readAllBytes(Paths.get(sourceFile)), StandardCharsets.UTF_8);
+        String sliceContent = getReferenceSlicer().slice(content, lineNumber, variableName);
+        if (sliceContent == null) {
+            referenceEscalations.increment();
+            log.info("Reference slicer does not support {}#{}:{}, escalating to sdg-cli", sourceFile, lineNumber, variableName);
+        } else {
+            referenceSlices.increment();
+        }
+        return sliceContent;
+    }
+
+    @FunctionalInterface
+    private interface SliceAction {
+        String run() throws IOException, InterruptedException;
+    }
+
+    /**
+     * 先查切片结果缓存，未命中时才交给切片后端执行，缓存命中时完全不需要创建进程
+     */
+    private String sliceCached(String sourceFile, int lineNumber, String variableName, SliceAction forkSlicer)
+            throws IOException, InterruptedException {
+        // 参考切片器的结果不写入以sdg-cli为键的缓存
+        if (isReferenceMode()) {
+            String reference = referenceSlice(sourceFile, variableName, lineNumber);
+            if (reference != null) {
+                return reference;
+            }
+        }
+
+        SliceCache cache = getSliceCache();
+        String cacheKey = null;
+        if (cache != null) {
+            cacheKey = cache.key(sourceFile, lineNumber, variableName, slicingToolPath);
+            String cached = cache.get(cacheKey);
+            if (cached != null) {
+                log.info("Slice cache hit for {}#{}:{}", sourceFile, lineNumber, variableName);
+                return cached;
+            }
+        }
+
+        String sliceContent;
+        Semaphore permits = getSlicePermits();
+        permits.acquire();
+        try {
+            sliceContent = isProcessMode()
+                    ? forkSlicer.run()
+                    : sliceWithResidentBackend(sourceFile, lineNumber, variableName);
+        } finally {
+            permits.release();
+        }
+
+        // 空结果通常意味着工具没有产生输出，不缓存
+        if (cache != null && !sliceContent.isEmpty()) {
+            cache.put(cacheKey, sliceContent);
+        }
+        return sliceContent;
+    }
+
+    private synchronized SliceCache getSliceCache() {
+        if (!cacheEnabled) {
+            return null;
+        }
+        if (sliceCache == null) {
+            try {
+                sliceCache = new SliceCache(cacheDir, cacheMaxSizeMb * 1024 * 1024);
+            } catch (IOException e) {
+                log.error("Failed to open slice cache at {}, caching disabled", cacheDir, e);
+                cacheEnabled = false;
+                return null;
+            }
+        }
+        return sliceCache;
+    }
+
+    /**
+     * 切片结果缓存的命中/未命中统计
+     */
+    public Map<String, Object> getCacheStats() {
+        SliceCache cache = getSliceCache();
+        return cache == null ? Collections.emptyMap() : cache.getStats();
+    }
+
+    private synchronized SlicerCdsArchive getCdsArchive() {
+        if (!cdsEnabled || !isProcessMode()) {
+            return null;
+        }
+        if (cdsArchive == null) {
+            cdsArchive = new SlicerCdsArchive(slicingToolPath, cdsDir, childJvmOptions);
+        }
+        return cdsArchive;
+    }
+
+    /**
+     * 切片进程的启动统计：平均每次切片进程的耗时，以及启用CDS时训练切片在使用归档前后的耗时
+     */
+    public Map<String, Object> getSlicerStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long launches = processLaunches.sum();
+        stats.put("mode", slicerMode);
+        stats.put("processLaunches", launches);
+        stats.put("averageProcessMillis", launches == 0 ? 0 : processMillis.sum() / launches);
+        stats.put("referenceSlices", referenceSlices.sum());
+        stats.put("referenceEscalations", referenceEscalations.sum());
+        stats.put("cdsEnabled", cdsEnabled);
+        SlicerCdsArchive archive = getCdsArchive();
+        if (archive != null) {
+            stats.put("cds", archive.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * 切片工具的启动命令，启用CDS时加入子JVM启动参数和归档
+     */
+    private List<String> slicerCommand(String... toolArgs) {
+        List<String> command = new ArrayList<>();
+        command.add("java");
+        SlicerCdsArchive archive = getCdsArchive();
+        if (archive != null) {
+            command.addAll(archive.jvmOptions());
+        }
+        command.add("-jar");
+        command.add(slicingToolPath);
+        command.addAll(Arrays.asList(toolArgs));
+        return command;
+    }
+
+    /**
+     * 使用常驻的工作进程池执行切片，每个工作JVM只加载一次sdg-cli
+     */
+    private String sliceWithResidentBackend(String sourceFile, int lineNumber, String variableName)
+            throws IOException, InterruptedException {
+        int lines = SliceDeadline.countLines(sourceFile);
+        long start = System.currentTimeMillis();
+        String sliceContent = getWorkerPool().slice(sourceFile, lineNumber, variableName,
+                getSliceDeadline().deadlineFor(lines));
+        getSliceDeadline().record(lines, System.currentTimeMillis() - start);
+        return sliceContent;
+    }
+
+    private synchronized SliceWorkerPool getWorkerPool() {
+        if (workerPool == null) {
+            if ("in-process".equalsIgnoreCase(slicerMode)) {
+                log.warn("slicer.mode=in-process runs sdg-cli in resident worker JVMs, not in the server JVM; use slicer.mode=pool");
+            }
+            workerPool = new SliceWorkerPool(slicingToolPath, poolSize, poolMaxJobs,
+                    poolMaxHeapGrowthMb * 1024 * 1024);
+        }
+        return workerPool;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() throws IOException {
+        if (workerPool != null) {
+            workerPool.close();
+            workerPool = null;
+        }
+        if (sliceCache != null) {
+            sliceCache.close();
+            sliceCache = null;
+        }
+    }
+
     private void setupLogger() {
         try {
             FileHandler fileHandler = new FileHandler("slice_executor.log");
@@ -79,115 +368,101 @@ public class SliceExecutor {
 
         logger.info("Found variable for slicing: " + variableName + " at line " + lineNumber);
 
-        // 构建切片命令
-        ProcessBuilder processBuilder = new ProcessBuilder(
-                "java", "-jar", slicingToolPath,
-                "-c", sourceFile + "#" + lineNumber + ":" + variableName
-        );
-
-        // 设置工作目录
-        processBuilder.directory(new File("."));
-
-        // 设置环境变量，确保正确处理中文
-        Map<String, String> env = processBuilder.environment();
-        env.put("LANG", "zh_CN.UTF-8");
-        env.put("LC_ALL", "zh_CN.UTF-8");
-
-        // 合并标准输出和错误输出
-        processBuilder.redirectErrorStream(true);
-
-        // 打印完整的命令
-        String command = String.join(" ", processBuilder.command());
-        System.out.println("\n=== Slice Command ===");
-        System.out.println("Working Directory: " + processBuilder.directory().getAbsolutePath());
-        System.out.println("Command: " + command);
-        System.out.println("===================\n");
+        return sliceCached(sourceFile, lineNumber, variableName, () -> forkSlicer(sourceFile, variableName, lineNumber, sliceOutputDir));
+    }
 
-        logger.info("Executing command: " + command);
+    /**
+     * 启动切片进程，在单独的线程中把输出读入有界缓冲区，当前线程只等待到截止时间
+     * 超时或任务被取消时终止整个进程树；超时抛出SliceTimeoutException
+     * @return 进程退出码
+     */
+    private int runSlicerProcess(ProcessBuilder processBuilder, String sourceFile, OutputRingBuffer output)
+            throws IOException, InterruptedException {
+        SliceDeadline deadline = getSliceDeadline();
+        int lines = SliceDeadline.countLines(sourceFile);
+        long timeoutMillis = deadline.deadlineFor(lines);
+        long start = System.currentTimeMillis();
 
-        // 执行命令
         Process process = processBuilder.start();
-
-        // 读取输出
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-                logger.info("Tool output: " + line);
-                System.out.println("Tool output: " + line);  // 同时打印到控制台
+        runningProcesses.add(process);
+        try {
+            Thread reader = new Thread(() -> readToolOutput(process, output), "slice-output-" + process.pid());
+            reader.setDaemon(true);
+            reader.start();
+
+            if (!process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                destroyProcessTree(process);
+                logger.warning("Slice timed out after " + timeoutMillis + " ms: " + sourceFile);
+                log.warn("Slice of {} ({} lines) timed out after {} ms", sourceFile, lines, timeoutMillis);
+                throw new SliceTimeoutException(sourceFile, timeoutMillis);
             }
-        }
 
-        // 等待进程完成
-        int exitCode = process.waitFor();
-        
-        // 记录完整的输出用于调试
-        String fullOutput = output.toString();
-        log.info("Slice tool exit code: {}", exitCode);
-        log.info("Slice tool full output: {}", fullOutput);
-        
-        if (exitCode != 0) {
-            String error = "Slice execution failed with exit code: " + exitCode + "\nOutput: " + fullOutput;
-            logger.severe(error);
-            System.err.println(error);  // 同时打印到控制台
-            throw new RuntimeException(error);
-        }
+            // 子进程派生的进程可能仍持有输出管道，不无限等待读取线程
+            reader.join(TimeUnit.SECONDS.toMillis(5));
+            if (reader.isAlive()) {
+                destroyProcessTree(process);
+                reader.join();
+            }
 
-        // 检查可能的输出文件路径，优先查找slice目录下的文件
-        String[] possibleOutputFiles = {
-                sliceOutputDir + "/" + new File(sourceFile).getName(),              // slice目录下（优先）
-                sliceOutputDir + "/com/example/" + new File(sourceFile).getName(),  // slice/com/example目录下
-                new File(sourceFile).getName()                                      // 当前目录
-        };
-
-        String outputFile = null;
-        for (String path : possibleOutputFiles) {
-            Path filePath = Paths.get(path);
-            if (Files.exists(filePath)) {
-                outputFile = path;
-                log.info("Found slice output file at: {}", path);
-                // 打印文件的基本信息
-                log.info("File size: {} bytes", Files.size(filePath));
-                log.info("File last modified: {}", Files.getLastModifiedTime(filePath));
-
-                // 如果文件在子目录中，移动到slice根目录
-                if (path.contains("/com/example/")) {
-                    String targetPath = sliceOutputDir + "/" + new File(sourceFile).getName();
-                    try {
-                        Files.move(filePath, Paths.get(targetPath), StandardCopyOption.REPLACE_EXISTING);
-                        outputFile = targetPath;
-                        log.info("Moved slice file from {} to {}", path, targetPath);
-                    } catch (IOException e) {
-                        log.warn("Failed to move slice file, using original location: {}", e.getMessage());
-                    }
-                }
-                break;
-            } else {
-                log.info("Slice output file not found at: {}", path);
+            int exitCode = process.exitValue();
+            long elapsed = System.currentTimeMillis() - start;
+            processLaunches.increment();
+            processMillis.add(elapsed);
+            if (exitCode == 0) {
+                deadline.record(lines, elapsed);
             }
+            return exitCode;
+        } catch (InterruptedException e) {
+            // 测试被取消
+            destroyProcessTree(process);
+            throw e;
+        } finally {
+            runningProcesses.remove(process);
         }
+    }
 
-        if (outputFile == null) {
-            // 如果找不到输出文件，记录详细信息并返回空字符串
-            log.warn("No slice output file found for: {}", sourceFile);
-            log.warn("Slice tool exit code: {}", exitCode);
-            log.warn("Slice tool output: {}", fullOutput);
-            log.warn("Checked paths: {}", String.join(", ", possibleOutputFiles));
-            return "";
+    private void readToolOutput(Process process, OutputRingBuffer output) {
+        try (InputStream in = process.getInputStream()) {
+            output.drain(in);
+        } catch (IOException e) {
+            log.debug("Slice tool output stream closed: {}", e.getMessage());
         }
+    }
 
-        // 读取切片结果
-        String sliceContent = new String(Files.readAllBytes(Paths.get(outputFile)), StandardCharsets.UTF_8);
-        log.info("Successfully read slice content from: {}", outputFile);
-        log.info("Slice content length: {}", sliceContent.length());
-        log.info("Slice content: {}", sliceContent);  // 打印完整的切片内容
+    private static void destroyProcessTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
 
-        return sliceContent;
+    /**
+     * 终止所有正在运行的切片进程（包括工作进程池中忙碌的进程），用于中止整个测试
+     * @return 终止的进程数
+     */
+    public int cancelRunning() {
+        int cancelled = 0;
+        for (Process process : runningProcesses) {
+            destroyProcessTree(process);
+            cancelled++;
+        }
+        SliceWorkerPool pool;
+        synchronized (this) {
+            pool = workerPool;
+        }
+        if (pool != null) {
+            cancelled += pool.cancelBusy();
+        }
+        log.info("Cancelled {} running slice processes", cancelled);
+        return cancelled;
     }
 
     public String executeSliceWithVariable(String sourceFile, String variableName, int lineNumber) throws IOException, InterruptedException {
+        return executeSliceWithVariable(sourceFile, variableName, lineNumber, sliceOutputDir);
+    }
+
+    /**
+     * 使用指定的变量和行号执行切片，切片工具的输出写入指定目录（通常是本次运行的工作区）
+     */
+    public String executeSliceWithVariable(String sourceFile, String variableName, int lineNumber, String outputDir) throws IOException, InterruptedException {
         logger.info("Starting slice execution for file: " + sourceFile + " with variable: " + variableName + " at line: " + lineNumber);
 
         // 检查源文件是否存在
@@ -206,11 +481,115 @@ public class SliceExecutor {
 
         logger.info("Using specified variable for slicing: " + variableName + " at line " + lineNumber);
 
+        return sliceCached(sourceFile, lineNumber, variableName, () -> forkSlicer(sourceFile, variableName, lineNumber, outputDir));
+    }
+
+    /**
+     * 对同一程序的多个切片准则执行切片，返回的切片与准则一一对应
+     * 缓存未命中的准则一起交给切片后端：pool模式在一个工作进程上一次请求完成所有准则，
+     * process模式下逐个启动JVM；sdg-cli的命令行一次只接受一个准则，两种模式下每个准则的切片内容与单独切片时相同
+     * @param outputDir process模式下切片工具的输出目录（通常是本次运行的工作区）
+     */
+    public List<String> executeSlices(String sourceFile, List<VariableInfo> criteria, String outputDir) throws IOException, InterruptedException {
+        logger.info("Starting slice execution for file: " + sourceFile + " with " + criteria.size() + " criteria");
+
+        // 检查源文件是否存在
+        if (!Files.exists(Paths.get(sourceFile))) {
+            String error = "Source file does not exist: " + sourceFile;
+            logger.severe(error);
+            throw new FileNotFoundException(error);
+        }
+
+        // 检查切片工具是否存在
+        if (!Files.exists(Paths.get(slicingToolPath))) {
+            String error = "Slicing tool not found: " + slicingToolPath;
+            logger.severe(error);
+            throw new FileNotFoundException(error);
+        }
+
+        SliceCache cache = getSliceCache();
+        List<String> slices = new ArrayList<>(Collections.nCopies(criteria.size(), (String) null));
+        List<String> cacheKeys = new ArrayList<>(Collections.nCopies(criteria.size(), (String) null));
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < criteria.size(); i++) {
+            VariableInfo criterion = criteria.get(i);
+            if (isReferenceMode()) {
+                String reference = referenceSlice(sourceFile, criterion.getVariableName(), criterion.getLineNumber());
+                if (reference != null) {
+                    slices.set(i, reference);
+                    continue;
+                }
+            }
+            if (cache != null) {
+                String cacheKey = cache.key(sourceFile, criterion.getLineNumber(), criterion.getVariableName(), slicingToolPath);
+                cacheKeys.set(i, cacheKey);
+                String cached = cache.get(cacheKey);
+                if (cached != null) {
+                    slices.set(i, cached);
+                    continue;
+                }
+            }
+            missing.add(i);
+        }
+        log.info("Slicing {}: {} of {} criteria not cached", sourceFile, missing.size(), criteria.size());
+        if (missing.isEmpty()) {
+            return slices;
+        }
+
+        List<SliceCriterion> pending = new ArrayList<>(missing.size());
+        missing.forEach(i -> pending.add(new SliceCriterion(criteria.get(i).getVariableName(), criteria.get(i).getLineNumber())));
+        List<String> computed;
+        Semaphore permits = getSlicePermits();
+        permits.acquire();
+        try {
+            if (isProcessMode()) {
+                computed = new ArrayList<>(pending.size());
+                for (SliceCriterion criterion : pending) {
+                    computed.add(forkSlicer(sourceFile, criterion.getVariableName(), criterion.getLineNumber(), outputDir));
+                }
+            } else {
+                int lines = SliceDeadline.countLines(sourceFile);
+                long start = System.currentTimeMillis();
+                computed = getWorkerPool().sliceAll(sourceFile, pending,
+                        getSliceDeadline().deadlineFor(lines) * pending.size());
+                getSliceDeadline().record(lines, (System.currentTimeMillis() - start) / pending.size());
+            }
+        } finally {
+            permits.release();
+        }
+
+        for (int j = 0; j < missing.size(); j++) {
+            int i = missing.get(j);
+            String sliceContent = computed.get(j);
+            slices.set(i, sliceContent);
+            // 空结果通常意味着工具没有产生输出，不缓存
+            if (cache != null && !sliceContent.isEmpty()) {
+                cache.put(cacheKeys.get(i), sliceContent);
+            }
+        }
+        return slices;
+    }
+
+    /**
+     * 启动新的JVM运行切片工具
+     * 每次调用在outputDir下使用独占的作业目录作为工具的输出目录，切片结果只可能出现在该目录中，
+     * 不再在多个候选路径之间探测，并发的切片之间也不会读到彼此的输出；读取后删除作业目录
+     */
+    private String forkSlicer(String sourceFile, String variableName, int lineNumber, String outputDir) throws IOException, InterruptedException {
+        Path jobDir = Files.createTempDirectory(Files.createDirectories(Paths.get(outputDir)), "job-");
+        try {
+            return forkSlicer(sourceFile, variableName, lineNumber, jobDir);
+        } finally {
+            deleteRecursively(jobDir);
+        }
+    }
+
+    private String forkSlicer(String sourceFile, String variableName, int lineNumber, Path jobDir) throws IOException, InterruptedException {
         // 构建切片命令
-        ProcessBuilder processBuilder = new ProcessBuilder(
-                "java", "-jar", slicingToolPath,
-                "-c", sourceFile + "#" + lineNumber + ":" + variableName
-        );
+        ProcessBuilder processBuilder = new ProcessBuilder(slicerCommand(
+                "-c", sourceFile + "#" + lineNumber + ":" + variableName,
+                "-o", jobDir.toString()
+        ));
 
         // 设置工作目录
         processBuilder.directory(new File("."));
@@ -223,82 +602,51 @@ public class SliceExecutor {
         // 合并标准输出和错误输出
         processBuilder.redirectErrorStream(true);
 
-        // 打印完整的命令
-        String command = String.join(" ", processBuilder.command());
-        System.out.println("\n=== Slice Command ===");
-        System.out.println("Working Directory: " + processBuilder.directory().getAbsolutePath());
-        System.out.println("Command: " + command);
-        System.out.println("===================\n");
-
-        logger.info("Executing command: " + command);
-
-        // 执行命令
-        Process process = processBuilder.start();
+        log.debug("Executing slice command: {}", String.join(" ", processBuilder.command()));
 
-        // 读取输出
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-                logger.info("Tool output: " + line);
-                System.out.println("Tool output: " + line);  // 同时打印到控制台
-            }
-        }
+        // 执行命令并等待进程完成，超过截止时间时终止整个进程树
+        OutputRingBuffer output = new OutputRingBuffer(outputMaxChars);
+        int exitCode = runSlicerProcess(processBuilder, sourceFile, output);
 
-        // 等待进程完成
-        int exitCode = process.waitFor();
-        
-        // 记录完整的输出用于调试
-        String fullOutput = output.toString();
-        log.info("Slice tool exit code: {}", exitCode);
-        log.info("Slice tool full output: {}", fullOutput);
-        
+        // 工具输出只在失败时记录
         if (exitCode != 0) {
-            String error = "Slice execution failed with exit code: " + exitCode + "\nOutput: " + fullOutput;
+            String error = "Slice execution failed with exit code: " + exitCode + "\nOutput: " + output;
             logger.severe(error);
-            System.err.println(error);  // 同时打印到控制台
             throw new RuntimeException(error);
         }
 
-        // 检查可能的输出文件路径
-        String[] possibleOutputFiles = {
-                sliceOutputDir + "/com/example/" + new File(sourceFile).getName(),  // slice/com/example目录下
-                sliceOutputDir + "/" + new File(sourceFile).getName(),              // slice目录下
-                new File(sourceFile).getName()                                      // 当前目录
-        };
-
-        String outputFile = null;
-        for (String path : possibleOutputFiles) {
-            Path filePath = Paths.get(path);
-            if (Files.exists(filePath)) {
-                outputFile = path;
-                log.info("Found slice output file at: {}", path);
-                // 打印文件的基本信息
-                log.info("File size: {} bytes", Files.size(filePath));
-                log.info("File last modified: {}", Files.getLastModifiedTime(filePath));
-                break;
-            } else {
-                log.info("Slice output file not found at: {}", path);
-            }
+        // 工具按源文件的包路径写入作业目录，目录中只有本次切片的输出
+        String fileName = new File(sourceFile).getName();
+        Optional<Path> sliceFile;
+        try (Stream<Path> files = Files.walk(jobDir)) {
+            sliceFile = files.filter(path -> path.getFileName().toString().equals(fileName))
+                    .filter(Files::isRegularFile)
+                    .findFirst();
         }
 
-        if (outputFile == null) {
-            // 如果找不到输出文件，记录详细信息并返回空字符串
-            log.warn("No slice output file found for: {}", sourceFile);
-            log.warn("Slice tool exit code: {}", exitCode);
-            log.warn("Slice tool output: {}", fullOutput);
-            log.warn("Checked paths: {}", String.join(", ", possibleOutputFiles));
+        if (!sliceFile.isPresent()) {
+            log.warn("No slice output produced for {}, slice tool output:\n{}", sourceFile, output);
             return "";
         }
 
         // 读取切片结果
-        String sliceContent = new String(Files.readAllBytes(Paths.get(outputFile)), StandardCharsets.UTF_8);
-        log.info("Successfully read slice content from: {}", outputFile);
-        log.info("Slice content length: {}", sliceContent.length());
-        log.info("Slice content: {}", sliceContent);  // 打印完整的切片内容
+        String sliceContent = new String(Files.readAllBytes(sliceFile.get()), StandardCharsets.UTF_8);
+        log.debug("Read {} chars of slice content from {}", sliceContent.length(), sliceFile.get());
 
         return sliceContent;
     }
+
+    private void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    log.debug("Failed to delete {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Failed to clean up slice job directory {}: {}", dir, e.getMessage());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.slicer;
+
+/**
+ * 切片在截止时间内没有完成
+ * 与一般的切片失败区分开，测试结果中记为TIMEOUT
+ */
+public class SliceTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long timeoutMillis;
+
+    public SliceTimeoutException(String sourceFile, long timeoutMillis) {
+        super("Slice of " + sourceFile + " timed out after " + timeoutMillis + " ms");
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+}
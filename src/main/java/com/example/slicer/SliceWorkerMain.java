@@ -0,0 +1,106 @@
+package com.example.slicer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 常驻切片工作进程的入口
+ * 由SliceWorkerPool以子JVM方式启动，通过stdin/stdout上的简单二进制协议接收切片请求，
+ * 在进程内复用同一个已加载的sdg-cli完成切片
+ *
+ * 请求：1字节操作码；SLICE 后跟 UTF(文件) int(行号) UTF(变量)；
+ *       SLICE_MANY 后跟 UTF(文件) int(准则数) 及每个准则的 int(行号) UTF(变量)
+ * 响应：1字节状态、long(当前已用堆内存)、int(长度)、UTF-8内容；SLICE_MANY 成功时每个准则各一个响应
+ */
+public class SliceWorkerMain {
+
+    static final byte OP_SLICE = 1;
+    static final byte OP_PING = 2;
+    static final byte OP_SHUTDOWN = 3;
+    static final byte OP_SLICE_MANY = 4;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: SliceWorkerMain <sdg-cli jar>");
+            System.exit(2);
+        }
+
+        // stdout专用于协议，其余所有输出（日志、工具输出）都转到stderr
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        System.setOut(System.err);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+
+        try (InProcessSlicer slicer = new InProcessSlicer(args[0])) {
+            while (true) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+
+                switch (op) {
+                    case OP_SLICE:
+                        String sourceFile = in.readUTF();
+                        int lineNumber = in.readInt();
+                        String variableName = in.readUTF();
+                        try {
+                            respond(out, STATUS_OK, slicer.slice(sourceFile, lineNumber, variableName));
+                        } catch (Exception e) {
+                            respond(out, STATUS_ERROR, String.valueOf(e.getMessage()));
+                        }
+                        break;
+                    case OP_SLICE_MANY:
+                        String programFile = in.readUTF();
+                        int count = in.readInt();
+                        List<SliceCriterion> criteria = new ArrayList<>(count);
+                        for (int i = 0; i < count; i++) {
+                            int line = in.readInt();
+                            criteria.add(new SliceCriterion(in.readUTF(), line));
+                        }
+                        List<String> slices;
+                        try {
+                            slices = slicer.sliceAll(programFile, criteria);
+                        } catch (Exception e) {
+                            respond(out, STATUS_ERROR, String.valueOf(e.getMessage()));
+                            break;
+                        }
+                        for (String slice : slices) {
+                            respond(out, STATUS_OK, slice);
+                        }
+                        break;
+                    case OP_PING:
+                        respond(out, STATUS_OK, "");
+                        break;
+                    case OP_SHUTDOWN:
+                        return;
+                    default:
+                        respond(out, STATUS_ERROR, "Unknown operation: " + op);
+                }
+            }
+        }
+    }
+
+    private static void respond(DataOutputStream out, byte status, String content) throws IOException {
+        Runtime runtime = Runtime.getRuntime();
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        out.writeByte(status);
+        out.writeLong(runtime.totalMemory() - runtime.freeMemory());
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.flush();
+    }
+}
@@ -0,0 +1,426 @@
+package com.example.slicer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 常驻切片工作JVM池
+ * 维护N个运行sdg-cli的子JVM，切片请求分派给空闲的工作进程，
+ * 既省去了每次调用ProcessBuilder.start()的开销，又保留了与不稳定的第三方切片器之间的进程隔离
+ */
+@Slf4j
+public class SliceWorkerPool implements AutoCloseable {
+
+    private final String slicingToolPath;
+    private final int size;
+    private final int maxJobsPerWorker;
+    private final long maxHeapGrowthBytes;
+    private final long healthCheckIntervalMillis;
+    private final long healthCheckTimeoutMillis;
+
+    // 空闲的工作进程和所有工作进程都由this保护；工作进程被回收、归还或池关闭时唤醒等待的线程
+    private final Deque<Worker> idleWorkers = new ArrayDeque<>();
+    private final List<Worker> allWorkers = new ArrayList<>();
+    private boolean closed;
+
+    // 切片超过截止时间时终止对应的工作进程
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "slice-worker-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SliceWorkerPool(String slicingToolPath, int size, int maxJobsPerWorker, long maxHeapGrowthBytes) {
+        this(slicingToolPath, size, maxJobsPerWorker, maxHeapGrowthBytes,
+                TimeUnit.SECONDS.toMillis(30), TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * @param healthCheckIntervalMillis 空闲超过该时间的工作进程在使用前先检查是否仍能响应
+     * @param healthCheckTimeoutMillis 健康检查的截止时间，超过时终止该工作进程
+     */
+    public SliceWorkerPool(String slicingToolPath, int size, int maxJobsPerWorker, long maxHeapGrowthBytes,
+                           long healthCheckIntervalMillis, long healthCheckTimeoutMillis) {
+        this.slicingToolPath = Paths.get(slicingToolPath).toAbsolutePath().toString();
+        this.size = Math.max(1, size);
+        this.maxJobsPerWorker = maxJobsPerWorker;
+        this.maxHeapGrowthBytes = maxHeapGrowthBytes;
+        this.healthCheckIntervalMillis = healthCheckIntervalMillis;
+        this.healthCheckTimeoutMillis = healthCheckTimeoutMillis;
+    }
+
+    public String slice(String sourceFile, int lineNumber, String variableName) throws IOException, InterruptedException {
+        return slice(sourceFile, lineNumber, variableName, 0);
+    }
+
+    /**
+     * 在空闲的工作进程上执行切片
+     * 工作进程在处理过程中崩溃时会被替换，并在新进程上重试一次；
+     * 超过截止时间时终止该工作进程并抛出SliceTimeoutException，不再重试
+     * @param timeoutMillis 截止时间，0表示不限
+     */
+    public String slice(String sourceFile, int lineNumber, String variableName, long timeoutMillis)
+            throws IOException, InterruptedException {
+        IOException lastFailure = null;
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Worker worker = acquire();
+            ScheduledFuture<?> timer = startTimer(worker, timeoutMillis);
+            try {
+                Response response = worker.slice(sourceFile, lineNumber, variableName);
+                stopTimer(timer);
+                release(worker, response.usedHeap);
+                if (response.status != SliceWorkerMain.STATUS_OK) {
+                    throw new RuntimeException("Slice execution failed in worker " + worker.id + ": " + response.content);
+                }
+                return response.content;
+            } catch (IOException e) {
+                stopTimer(timer);
+                lastFailure = handleWorkerFailure(worker, sourceFile, timeoutMillis, e);
+            }
+        }
+        throw lastFailure;
+    }
+
+    public List<String> sliceAll(String sourceFile, List<SliceCriterion> criteria) throws IOException, InterruptedException {
+        return sliceAll(sourceFile, criteria, 0);
+    }
+
+    /**
+     * 在同一个工作进程上通过一次请求对同一程序的多个切片准则执行切片，结果与逐个切片时相同
+     * @param timeoutMillis 全部准则的截止时间，0表示不限
+     */
+    public List<String> sliceAll(String sourceFile, List<SliceCriterion> criteria, long timeoutMillis)
+            throws IOException, InterruptedException {
+        IOException lastFailure = null;
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Worker worker = acquire();
+            ScheduledFuture<?> timer = startTimer(worker, timeoutMillis);
+            try {
+                List<String> slices = new ArrayList<>(criteria.size());
+                Response response = worker.sliceAll(sourceFile, criteria);
+                while (response.status == SliceWorkerMain.STATUS_OK) {
+                    slices.add(response.content);
+                    if (slices.size() == criteria.size()) {
+                        break;
+                    }
+                    response = worker.readResponse();
+                }
+                stopTimer(timer);
+                release(worker, response.usedHeap);
+                if (response.status != SliceWorkerMain.STATUS_OK) {
+                    throw new RuntimeException("Slice execution failed in worker " + worker.id + ": " + response.content);
+                }
+                return slices;
+            } catch (IOException e) {
+                stopTimer(timer);
+                lastFailure = handleWorkerFailure(worker, sourceFile, timeoutMillis, e);
+            }
+        }
+        throw lastFailure;
+    }
+
+    private ScheduledFuture<?> startTimer(Worker worker, long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            return null;
+        }
+        return watchdog.schedule(() -> {
+            worker.timedOut = true;
+            destroyProcessTree(worker.process);
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void stopTimer(ScheduledFuture<?> timer) {
+        if (timer != null) {
+            timer.cancel(false);
+        }
+    }
+
+    /**
+     * 工作进程在处理请求时断开：超时或被取消时直接抛出，崩溃时返回异常以便重试
+     */
+    private IOException handleWorkerFailure(Worker worker, String sourceFile, long timeoutMillis, IOException e)
+            throws InterruptedException {
+        discard(worker);
+        if (worker.timedOut) {
+            log.warn("Slice worker {} timed out after {} ms while slicing {}", worker.id, timeoutMillis, sourceFile);
+            throw new SliceTimeoutException(sourceFile, timeoutMillis);
+        }
+        if (worker.cancelled || Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Slice of " + sourceFile + " was cancelled");
+        }
+        log.warn("Slice worker {} crashed while slicing {}: {}", worker.id, sourceFile, e.getMessage());
+        return e;
+    }
+
+    /**
+     * 终止所有正在处理请求的工作进程，用于中止整个测试
+     * @return 终止的工作进程数
+     */
+    public int cancelBusy() {
+        List<Worker> busy;
+        synchronized (this) {
+            busy = new ArrayList<>(allWorkers);
+            busy.removeAll(idleWorkers);
+        }
+        for (Worker worker : busy) {
+            worker.cancelled = true;
+            destroyProcessTree(worker.process);
+        }
+        return busy.size();
+    }
+
+    private static void destroyProcessTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    /**
+     * 取得一个健康的空闲工作进程，工作进程数未达上限时启动新的进程，否则等待有进程被归还或回收
+     */
+    private Worker acquire() throws IOException, InterruptedException {
+        while (true) {
+            Worker worker;
+            synchronized (this) {
+                while (true) {
+                    if (closed) {
+                        throw new IllegalStateException("Slice worker pool is closed");
+                    }
+                    worker = idleWorkers.poll();
+                    if (worker != null) {
+                        break;
+                    }
+                    if (allWorkers.size() < size) {
+                        worker = startWorker();
+                        break;
+                    }
+                    wait();
+                }
+            }
+            if (isHealthy(worker)) {
+                return worker;
+            }
+            log.warn("Slice worker {} failed health check, replacing it", worker.id);
+            discard(worker);
+        }
+    }
+
+    /**
+     * 进程存活，且最近使用过或在截止时间内响应了ping；不响应的进程由看门狗终止
+     */
+    private boolean isHealthy(Worker worker) {
+        if (!worker.process.isAlive()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - worker.lastUsed < healthCheckIntervalMillis) {
+            return true;
+        }
+        ScheduledFuture<?> timer = watchdog.schedule(() -> destroyProcessTree(worker.process),
+                healthCheckTimeoutMillis, TimeUnit.MILLISECONDS);
+        try {
+            worker.ping();
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            stopTimer(timer);
+        }
+    }
+
+    /**
+     * 归还工作进程；达到任务数上限或堆内存增长超过阈值时回收，腾出的位置由下一次acquire启动新进程补上
+     */
+    private void release(Worker worker, long usedHeap) {
+        worker.jobs++;
+        worker.lastUsed = System.currentTimeMillis();
+        if (worker.baselineHeap < 0) {
+            worker.baselineHeap = usedHeap;
+        }
+
+        if (maxJobsPerWorker > 0 && worker.jobs >= maxJobsPerWorker) {
+            log.info("Recycling slice worker {} after {} jobs", worker.id, worker.jobs);
+            discard(worker);
+        } else if (maxHeapGrowthBytes > 0 && usedHeap - worker.baselineHeap > maxHeapGrowthBytes) {
+            log.info("Recycling slice worker {} after heap grew by {} bytes", worker.id, usedHeap - worker.baselineHeap);
+            discard(worker);
+        } else {
+            synchronized (this) {
+                if (!closed) {
+                    idleWorkers.offer(worker);
+                    notifyAll();
+                    return;
+                }
+            }
+            worker.shutdown();
+        }
+    }
+
+    private synchronized Worker startWorker() throws IOException {
+        String javaBin = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder processBuilder = new ProcessBuilder(workerCommand(javaBin,
+                SliceWorkerMain.class.getProtectionDomain().getCodeSource().getLocation(), slicingToolPath));
+        processBuilder.directory(new File("."));
+        processBuilder.redirectError(ProcessBuilder.Redirect.appendTo(new File("slice_worker.log")));
+
+        Worker worker = new Worker(processBuilder.start());
+        allWorkers.add(worker);
+        log.info("Started slice worker {} (pid {})", worker.id, worker.process.pid());
+        return worker;
+    }
+
+    /**
+     * 启动工作JVM的命令
+     * 以spring-boot可执行jar运行时，java.class.path只有外层jar，SliceWorkerMain在jar内的BOOT-INF/classes中，
+     * 这时通过jar中的PropertiesLauncher启动，由loader.main指定主类，BOOT-INF/classes和BOOT-INF/lib作为类路径；
+     * 否则把SliceWorkerMain所在的目录或jar放在当前JVM的类路径之前。sdg-cli由InProcessSlicer单独加载，不在类路径上
+     * @param workerLocation SliceWorkerMain的CodeSource位置
+     */
+    static List<String> workerCommand(String javaBin, URL workerLocation, String slicingToolPath) {
+        String location = workerLocation.toString();
+        if (location.startsWith("jar:") && location.contains("!/BOOT-INF/classes")) {
+            String bootJar = Paths.get(URI.create(location.substring("jar:".length(), location.indexOf("!/")))).toString();
+            return Arrays.asList(javaBin, "-Dloader.main=" + SliceWorkerMain.class.getName(), "-cp", bootJar,
+                    "org.springframework.boot.loader.PropertiesLauncher", slicingToolPath);
+        }
+        String classPath = System.getProperty("java.class.path");
+        if ("file".equals(workerLocation.getProtocol())) {
+            classPath = Paths.get(URI.create(location)) + File.pathSeparator + classPath;
+        }
+        return Arrays.asList(javaBin, "-cp", classPath, SliceWorkerMain.class.getName(), slicingToolPath);
+    }
+
+    /**
+     * 回收工作进程并唤醒等待的线程，由它们启动替换的进程
+     */
+    private void discard(Worker worker) {
+        synchronized (this) {
+            allWorkers.remove(worker);
+            notifyAll();
+        }
+        worker.shutdown();
+    }
+
+    /**
+     * 关闭所有工作进程，等待中的acquire抛出IllegalStateException
+     */
+    @Override
+    public void close() {
+        List<Worker> workers;
+        synchronized (this) {
+            closed = true;
+            workers = new ArrayList<>(allWorkers);
+            allWorkers.clear();
+            idleWorkers.clear();
+            notifyAll();
+        }
+        workers.forEach(Worker::shutdown);
+        watchdog.shutdownNow();
+    }
+
+    private static final class Response {
+        private final byte status;
+        private final long usedHeap;
+        private final String content;
+
+        private Response(byte status, long usedHeap, String content) {
+            this.status = status;
+            this.usedHeap = usedHeap;
+            this.content = content;
+        }
+    }
+
+    /**
+     * 父进程一侧的工作进程句柄
+     */
+    private static final class Worker {
+        private static int nextId = 1;
+
+        private final int id;
+        private final Process process;
+        private final DataOutputStream requests;
+        private final DataInputStream responses;
+        private int jobs;
+        private long baselineHeap = -1;
+        private long lastUsed = System.currentTimeMillis();
+        private volatile boolean timedOut;
+        private volatile boolean cancelled;
+
+        private Worker(Process process) {
+            synchronized (Worker.class) {
+                this.id = nextId++;
+            }
+            this.process = process;
+            this.requests = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.responses = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        }
+
+        private Response slice(String sourceFile, int lineNumber, String variableName) throws IOException {
+            requests.writeByte(SliceWorkerMain.OP_SLICE);
+            requests.writeUTF(sourceFile);
+            requests.writeInt(lineNumber);
+            requests.writeUTF(variableName);
+            requests.flush();
+            return readResponse();
+        }
+
+        private Response sliceAll(String sourceFile, List<SliceCriterion> criteria) throws IOException {
+            requests.writeByte(SliceWorkerMain.OP_SLICE_MANY);
+            requests.writeUTF(sourceFile);
+            requests.writeInt(criteria.size());
+            for (SliceCriterion criterion : criteria) {
+                requests.writeInt(criterion.getLineNumber());
+                requests.writeUTF(criterion.getVariableName());
+            }
+            requests.flush();
+            return readResponse();
+        }
+
+        private void ping() throws IOException {
+            requests.writeByte(SliceWorkerMain.OP_PING);
+            requests.flush();
+            readResponse();
+            lastUsed = System.currentTimeMillis();
+        }
+
+        private Response readResponse() throws IOException {
+            byte status = responses.readByte();
+            long usedHeap = responses.readLong();
+            byte[] content = new byte[responses.readInt()];
+            responses.readFully(content);
+            return new Response(status, usedHeap, new String(content, StandardCharsets.UTF_8));
+        }
+
+        private void shutdown() {
+            try {
+                requests.writeByte(SliceWorkerMain.OP_SHUTDOWN);
+                requests.flush();
+                if (!process.waitFor(2, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (IOException e) {
+                process.destroyForcibly();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
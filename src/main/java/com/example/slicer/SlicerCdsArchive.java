@@ -0,0 +1,217 @@
+package com.example.slicer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 切片工具子JVM的AppCDS类数据共享归档
+ * 首次使用时在内置的示例程序上做一次训练切片，记录加载的类并转储为归档，之后每次启动切片进程都复用该归档；
+ * 归档文件名包含jar的摘要，jar变化时自动重新生成
+ */
+@Slf4j
+public class SlicerCdsArchive {
+
+    private static final String TRAINING_RESOURCE = "/slicer/CdsTraining.java";
+    private static final String TRAINING_CRITERION = "#23:result";
+    private static final long TRAINING_TIMEOUT_MINUTES = 5;
+
+    private final String slicingToolPath;
+    private final Path archiveDir;
+    private final List<String> startupOptions;
+
+    private long toolStamp = Long.MIN_VALUE;
+    private Path archive;
+    private long baselineStartupMillis = -1;
+    private long archivedStartupMillis = -1;
+
+    /**
+     * @param slicingToolPath 切片工具jar路径，必须与启动切片进程时使用的类路径一致
+     * @param archiveDir 归档存放目录
+     * @param startupOptions 子JVM的启动参数
+     */
+    public SlicerCdsArchive(String slicingToolPath, String archiveDir, String startupOptions) {
+        this.slicingToolPath = slicingToolPath;
+        this.archiveDir = Paths.get(archiveDir);
+        this.startupOptions = new ArrayList<>();
+        for (String option : startupOptions.trim().split("\\s+")) {
+            if (!option.isEmpty()) {
+                this.startupOptions.add(option);
+            }
+        }
+    }
+
+    /**
+     * 启动切片进程时使用的JVM参数；归档不可用时只返回启动参数
+     */
+    public synchronized List<String> jvmOptions() {
+        refreshArchive();
+        List<String> options = new ArrayList<>(startupOptions);
+        if (archive != null) {
+            options.add("-XX:SharedArchiveFile=" + archive);
+        }
+        return options;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("archive", archive == null ? null : archive.toString());
+        stats.put("startupOptions", startupOptions);
+        stats.put("baselineStartupMillis", baselineStartupMillis);
+        stats.put("archivedStartupMillis", archivedStartupMillis);
+        return stats;
+    }
+
+    /**
+     * jar的修改时间或大小变化时重新计算摘要，找不到对应的归档就重新生成
+     */
+    private void refreshArchive() {
+        Path tool = Paths.get(slicingToolPath);
+        long stamp;
+        try {
+            stamp = Files.getLastModifiedTime(tool).toMillis() ^ Files.size(tool);
+        } catch (IOException e) {
+            archive = null;
+            return;
+        }
+        if (stamp == toolStamp) {
+            return;
+        }
+        toolStamp = stamp;
+
+        try {
+            Path target = archiveDir.resolve("sdg-cli-" + digest(tool) + ".jsa");
+            if (!Files.exists(target)) {
+                build(target);
+                deleteStaleArchives(target);
+            }
+            archive = target;
+            log.info("Using CDS archive {} for slicing tool", archive);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to build CDS archive for slicing tool, launching without it: {}", e.getMessage());
+            archive = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            archive = null;
+        }
+    }
+
+    private void build(Path target) throws IOException, InterruptedException {
+        Files.createDirectories(archiveDir);
+        Path workDir = Files.createTempDirectory("slice-cds-");
+        try {
+            Path sample = workDir.resolve("CdsTraining.java");
+            try (InputStream in = SlicerCdsArchive.class.getResourceAsStream(TRAINING_RESOURCE)) {
+                if (in == null) {
+                    throw new IOException("Training program not found: " + TRAINING_RESOURCE);
+                }
+                Files.copy(in, sample);
+            }
+            Path classList = workDir.resolve("classes.lst");
+            Path dumped = workDir.resolve("archive.jsa");
+
+            // 1. 训练切片：记录加载的类，同时作为不使用归档时的启动耗时基线
+            baselineStartupMillis = run(trainingCommand(sample, workDir.resolve("baseline"),
+                    "-XX:DumpLoadedClassList=" + classList));
+
+            // 2. 按类列表转储归档，类路径与正式启动时的-jar一致
+            List<String> dump = new ArrayList<>(Arrays.asList("java", "-Xshare:dump",
+                    "-XX:SharedClassListFile=" + classList, "-XX:SharedArchiveFile=" + dumped,
+                    "-cp", slicingToolPath));
+            run(dump);
+
+            // 3. 用归档重新执行同一次切片，得到使用归档后的启动耗时
+            archivedStartupMillis = run(trainingCommand(sample, workDir.resolve("archived"),
+                    "-XX:SharedArchiveFile=" + dumped));
+
+            Files.move(dumped, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Built CDS archive {}: training slice took {} ms without archive, {} ms with archive",
+                    target, baselineStartupMillis, archivedStartupMillis);
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    private List<String> trainingCommand(Path sample, Path outputDir, String archiveOption) {
+        List<String> command = new ArrayList<>();
+        command.add("java");
+        command.addAll(startupOptions);
+        command.add(archiveOption);
+        command.addAll(Arrays.asList("-jar", slicingToolPath,
+                "-c", sample + TRAINING_CRITERION, "-o", outputDir.toString()));
+        return command;
+    }
+
+    /**
+     * 在与切片进程相同的工作目录下执行命令
+     * @return 耗时（毫秒）
+     */
+    private long run(List<String> command) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        Process process = new ProcessBuilder(command)
+                .directory(new File("."))
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        if (!process.waitFor(TRAINING_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+            process.destroyForcibly();
+            throw new IOException("Timed out: " + String.join(" ", command));
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException("Exit code " + process.exitValue() + ": " + String.join(" ", command));
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    private void deleteStaleArchives(Path current) {
+        try (DirectoryStream<Path> archives = Files.newDirectoryStream(archiveDir, "sdg-cli-*.jsa")) {
+            for (Path stale : archives) {
+                if (!stale.equals(current)) {
+                    Files.deleteIfExists(stale);
+                    log.info("Deleted stale CDS archive {}", stale);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Failed to delete stale CDS archives: {}", e.getMessage());
+        }
+    }
+
+    private static String digest(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Files.readAllBytes(file));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : Arrays.copyOf(digest.digest(), 8)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.debug("Failed to clean up CDS training directory {}: {}", dir, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.workspace;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 单次测试运行的独立工作区
+ * 生成的程序（mutated、renamed等子目录）和切片工具的输出都放在工作区目录下，
+ * 并发的运行之间互不干扰；关闭时交给WorkspaceManager在后台删除，测试失败的工作区保留在磁盘上
+ */
+public class Workspace implements AutoCloseable {
+
+    public static final String SLICE_DIR = "slice";
+
+    private final Path root;
+    private final WorkspaceManager manager;
+    private volatile boolean failed;
+    private boolean closed;
+
+    Workspace(Path root, WorkspaceManager manager) {
+        this.root = root;
+        this.manager = manager;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * 作为生成器baseDir参数使用的工作区根目录
+     */
+    public String getBaseDir() {
+        return root.toString();
+    }
+
+    /**
+     * 工作区下的子目录，不存在时创建
+     */
+    public Path directory(String name) throws IOException {
+        return Files.createDirectories(root.resolve(name));
+    }
+
+    /**
+     * 切片工具的输出目录
+     */
+    public String getSliceOutputDir() {
+        return root.resolve(SLICE_DIR).toString();
+    }
+
+    /**
+     * 标记本次运行有测试失败，工作区将保留以便排查
+     */
+    public void markFailed() {
+        failed = true;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            manager.release(this);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.workspace;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 工作区管理器
+ * 为每次测试运行创建唯一的工作区目录，运行结束后由后台清理线程异步删除，
+ * 清理开销不再落在请求处理路径上
+ */
+@Slf4j
+@Component
+public class WorkspaceManager {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path workspaceRoot;
+    private final ExecutorService janitor;
+
+    public WorkspaceManager(@Value("${workspace.root:workspaces}") String workspaceRoot) {
+        this.workspaceRoot = Paths.get(workspaceRoot);
+        this.janitor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "workspace-janitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 创建新的工作区
+     * @param kind 运行类型，作为目录名前缀便于排查
+     */
+    public Workspace create(String kind) throws IOException {
+        String name = kind + "-" + LocalDateTime.now().format(TIMESTAMP) + "-"
+                + UUID.randomUUID().toString().substring(0, 8);
+        Path root = Files.createDirectories(workspaceRoot.resolve(name));
+        Files.createDirectories(root.resolve(Workspace.SLICE_DIR));
+        log.info("Created workspace: {}", root);
+        return new Workspace(root, this);
+    }
+
+    /**
+     * 归还工作区：失败的工作区保留，其余交给后台线程删除
+     */
+    void release(Workspace workspace) {
+        if (workspace.isFailed()) {
+            log.info("Keeping workspace of failed run for inspection: {}", workspace.getRoot());
+            return;
+        }
+        try {
+            janitor.execute(() -> deleteRecursively(workspace.getRoot()));
+        } catch (RuntimeException e) {
+            // 关闭过程中不再接受清理任务，直接在当前线程删除
+            deleteRecursively(workspace.getRoot());
+        }
+    }
+
+    private void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    log.debug("Failed to delete {}: {}", path, e.getMessage());
+                }
+            });
+            log.debug("Deleted workspace: {}", dir);
+        } catch (IOException e) {
+            log.warn("Failed to clean up workspace {}: {}", dir, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        janitor.shutdown();
+        if (!janitor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Workspace janitor did not finish pending deletions");
+        }
+    }
+}
@@ -0,0 +1,26 @@
+public class CdsTraining {
+    static int factor = 3;
+
+    static int scale(int value) {
+        return value * factor;
+    }
+
+    public static void main(String[] args) {
+        int sum = 0;
+        int count = 7;
+        int temp = 0;
+        for (int i = 0; i < 5; i++) {
+            if (i % 2 == 0) {
+                temp += i * 2;
+            } else {
+                temp -= i;
+            }
+        }
+        while (count > 0) {
+            sum += scale(count) + temp;
+            count--;
+        }
+        int result = sum;
+        System.out.println(result);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.comparator;
+
+import com.github.javaparser.StaticJavaParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CanonicalSliceHasher测试类
+ */
+public class CanonicalSliceHasherTest {
+
+    private static long hash(String code) {
+        return CanonicalSliceHasher.hash(StaticJavaParser.parse(code));
+    }
+
+    @Test
+    void testConsistentRenamingHashesEqual() {
+        String original = "public class A { int f(int p) { int x = p + 1; int y = x * 2; return y + z; } }";
+        String renamed = "public class A { int f(int q) { /* renamed */ int a = q + 1;\n int b = a * 2; return b + z; } }";
+        assertEquals(hash(original), hash(renamed));
+    }
+
+    @Test
+    void testStructuralChangesHashDifferent() {
+        String original = "public class A { int f(int p) { int x = p + 1; int y = x * 2; return y; } }";
+        assertNotEquals(hash(original), hash(original.replace("p + 1", "p - 1")), "Operators must matter");
+        assertNotEquals(hash(original), hash(original.replace("x * 2", "x * 3")), "Literals must matter");
+        assertNotEquals(hash(original), hash(original.replace("return y", "return x")), "Bindings must matter");
+        assertNotEquals(hash(original), hash(original.replace("int f", "int g")), "Method names must matter");
+        assertNotEquals(hash(original), hash(original.replace("int y", "long y")), "Primitive types must matter");
+        assertNotEquals(hash(original), hash(original.replace("int f", "static int f")), "Modifiers must matter");
+        assertNotEquals(hash(original), hash(original.replace("int x = p + 1;", "int x = p++;")), "Unary operators must matter");
+        assertNotEquals(hash("class A { boolean b = true; }"), hash("class A { boolean b = false; }"),
+                "Boolean literals must matter");
+        assertNotEquals(hash("class A { String s = \"a\"; }"), hash("class A { String s = \"b\"; }"),
+                "String literals must matter");
+        assertNotEquals(hash("class A { void f() { x += 1; } }"), hash("class A { void f() { x -= 1; } }"),
+                "Compound assignments must matter");
+    }
+
+    @Test
+    void testExternalReferencesNumberedByFirstOccurrence() {
+        assertEquals(hash("class A { void f() { int x = a + b; } }"), hash("class A { void f() { int y = c + d; } }"));
+        assertNotEquals(hash("class A { void f() { int x = a + b; } }"), hash("class A { void f() { int x = a + a; } }"));
+    }
+
+    @Test
+    void testRedeclaredNamesGetDistinctIndexes() {
+        String original = "class A { int f() { int x = 1; int y = 2; { int x = 3; } int z = 4; return x + z; } }";
+        String changed = original.replace("return x + z", "return z + z");
+        assertNotEquals(hash(original), hash(changed));
+        assertFalse(form(original).sameAs(form(changed)));
+    }
+
+    @Test
+    void testBindingsEndWithTheirScope() {
+        String original = "class A { void f() { for (int i = 0; i < 3; i++) { } for (int i = 0; i < 3; i++) { }"
+                + " int k = 5; int m = i; } }";
+        String changed = original.replace("int m = i", "int m = k");
+        assertNotEquals(hash(original), hash(changed));
+        assertFalse(form(original).sameAs(form(changed)));
+    }
+
+    @Test
+    void testShadowedNamesResolveToInnermostBinding() {
+        String original = "class A { int f(int p) { int x = p; { int y = x; x = y; } return x; } }";
+        String renamed = "class A { int f(int q) { int a = q; { int b = a; a = b; } return a; } }";
+        assertTrue(form(original).sameAs(form(renamed)));
+        assertEquals(hash(original), form(original).getHash());
+    }
+
+    private static CanonicalSliceHasher.Form form(String code) {
+        return CanonicalSliceHasher.form(StaticJavaParser.parse(code));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.comparator;
+
+import com.example.generator.LineMap;
+import com.example.parser.ParseCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PreparedSlice测试类
+ */
+public class PreparedSliceTest {
+
+    private final ParseCache parseCache = new ParseCache();
+
+    private static final String SOURCE = String.join("\n",
+            "public class Example {",
+            "    public static void main(String[] args) {",
+            "        int a = 1;",
+            "        int c = 7;",
+            "        int b = a + 2;",
+            "        System.out.println(b);",
+            "    }",
+            "}");
+
+    private static final String SLICE = String.join("\n",
+            "// slice of b",
+            "public class Example {",
+            "    public static void main(String[] args) {",
+            "        int a = 1;",
+            "        int b = a + 2;",
+            "        System.out.println(b);",
+            "    }",
+            "}");
+
+    @Test
+    void testSameLinesThroughLineMap() {
+        // 变体在第3行之后插入了两行
+        String variant = SOURCE.replace("int c = 7;", "int c = 7;\n        if (false) {\n        }");
+        PreparedSlice original = PreparedSlice.prepare(parseCache, SOURCE, SLICE);
+        PreparedSlice variantSlice = PreparedSlice.prepare(parseCache, variant, SLICE);
+
+        assertTrue(original.sameLines(variantSlice, LineMap.insertion(8, 4, 2)));
+        assertFalse(original.sameLines(variantSlice, LineMap.identity(8)));
+        assertFalse(original.sameLines(variantSlice, null));
+    }
+
+    @Test
+    void testSameTextUpToRenaming() {
+        String renamed = SLICE.replace("int a = 1;", "int x = 1;")
+                .replace("int b = a + 2;", "int y = x + 2;")
+                .replace("println(b)", "println(y)");
+        String changed = SLICE.replace("a + 2", "a + 3");
+        PreparedSlice original = PreparedSlice.prepare(parseCache, null, SLICE);
+
+        assertTrue(original.sameText(PreparedSlice.prepare(parseCache, null, renamed)));
+        assertFalse(original.sameText(PreparedSlice.prepare(parseCache, null, changed)));
+        assertFalse(original.sameText(PreparedSlice.prepare(parseCache, null, null)));
+    }
+
+    @Test
+    void testRedeclaredNamesNotEquivalent() {
+        String shadowing = String.join("\n",
+                "public class Example {",
+                "    int f() {",
+                "        int x = 1;",
+                "        int y = 2;",
+                "        { int x = 3; }",
+                "        int z = 4;",
+                "        return x + z;",
+                "    }",
+                "}");
+        PreparedSlice original = PreparedSlice.prepare(parseCache, null, shadowing);
+
+        assertFalse(original.sameText(PreparedSlice.prepare(parseCache, null,
+                shadowing.replace("return x + z", "return z + z"))));
+    }
+
+    @Test
+    void testCompareToRecordsResult() {
+        PreparedSlice original = PreparedSlice.prepare(parseCache, SOURCE, SLICE);
+
+        Map<String, Object> same = new HashMap<>();
+        assertTrue(original.compareTo(PreparedSlice.prepare(parseCache, SOURCE, SLICE), LineMap.identity(8), same));
+        assertEquals("lines", same.get("comparedBy"));
+        assertFalse(same.containsKey("sliceDiff"));
+
+        Map<String, Object> different = new HashMap<>();
+        String changed = SLICE.replace("a + 2", "a + 3");
+        assertFalse(original.compareTo(PreparedSlice.prepare(parseCache, null, changed), null, different));
+        assertEquals("text", different.get("comparedBy"));
+        assertEquals(false, different.get("equivalent"));
+        assertNotNull(different.get("sliceDiff"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.comparator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SliceComparator测试类
+ */
+public class SliceComparatorTest {
+
+    private static final String[] FRAGMENTS = {
+        "int", "x", "y", "total", "VAR", "class", "_a", "1", "2x", "0_b", " ", "  ", "\n", "\r\n", "\t",
+        "/*", "*/", "//", "/", "*", "(", ")", "{", "}", "=", ";", "+", ".", "\"", "é"
+    };
+
+    private final SliceComparator comparator = new SliceComparator();
+
+    @Test
+    void testRenamedSlicesAreEquivalent() {
+        String original = "public class A {\n  int f(int p) {\n    int x = p + 1; /* keep */\n    return x;\n  }\n}";
+        String renamed = "public class A {\n  /* renamed */ int f(int q) {\n    int y = q + 1;\n    return y;\n  }\n}";
+        assertTrue(comparator.compareByTokens(original, renamed));
+        assertFalse(comparator.compareByTokens(original, renamed.replace("+ 1", "- 1")));
+        assertFalse(comparator.compareByTokens("a = b; c = d;", "a = b; a = b;"),
+            "A different number of distinct variables is not equivalent");
+    }
+
+    @Test
+    void testTokenModeMatchesRegexVerdicts() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String slice1 = randomSlice(random);
+            String slice2 = random.nextBoolean() ? mutate(slice1, random) : randomSlice(random);
+            assertEquals(comparator.compareByRegex(slice1, slice2), comparator.compareByTokens(slice1, slice2),
+                () -> "Verdicts differ for:\n" + slice1 + "\n---\n" + slice2);
+        }
+    }
+
+    private static String randomSlice(Random random) {
+        StringBuilder slice = new StringBuilder();
+        int length = 1 + random.nextInt(30);
+        for (int i = 0; i < length; i++) {
+            slice.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        return slice.toString();
+    }
+
+    /**
+     * 改名、增删空白或注释，制造大多等价的变体
+     */
+    private static String mutate(String slice, Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return slice.replace("x", "renamed");
+            case 1:
+                return slice.replace(" ", "\n ");
+            case 2:
+                return "/* c */" + slice;
+            default:
+                return slice + "//";
+        }
+    }
+}
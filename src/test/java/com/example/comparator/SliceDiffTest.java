@@ -0,0 +1,161 @@
+package com.example.comparator;
+
+import com.example.parser.ParseCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SliceDiff测试类
+ */
+public class SliceDiffTest {
+
+    private final ParseCache parseCache = new ParseCache();
+
+    private static final String SLICE = String.join("\n",
+            "public class Example {",
+            "    public static void main(String[] args) {",
+            "        int a = 1;",
+            "        int b = a + 2;",
+            "        if (b > 2) {",
+            "            b = b - 1;",
+            "        }",
+            "        System.out.println(b);",
+            "    }",
+            "}");
+
+    @Test
+    void testRenamedSliceHasNoDiff() {
+        String renamed = SLICE.replace("int a = 1;", "int x = 1;")
+                .replace("int b = a + 2;", "int y = x + 2;")
+                .replace("if (b > 2)", "if (y>2)")
+                .replace("b = b - 1;", "y = y - 1;")
+                .replace("println(b)", "println(y)");
+        SliceDiff diff = SliceDiff.compute(parseCache, SLICE, renamed);
+        assertTrue(diff.isEmpty(), diff.summary());
+    }
+
+    @Test
+    void testRedeclaredNameIsNotConfused() {
+        String shadowing = String.join("\n",
+                "public class Example {",
+                "    int f() {",
+                "        int x = 1;",
+                "        int y = 2;",
+                "        { int x = 3; }",
+                "        int z = 4;",
+                "        return x + z;",
+                "    }",
+                "}");
+        SliceDiff diff = SliceDiff.compute(parseCache, shadowing, shadowing.replace("return x + z", "return z + z"));
+        assertEquals(1, diff.getRemoved());
+        assertEquals(1, diff.getAdded());
+        assertEquals(7, diff.getEdits().get(0).getLine());
+    }
+
+    @Test
+    void testChangedStatementIsAnchored() {
+        String changed = SLICE.replace("b = b - 1;", "b = b + 1;");
+        SliceDiff diff = SliceDiff.compute(parseCache, SLICE, changed);
+        assertEquals(1, diff.getRemoved());
+        assertEquals(1, diff.getAdded());
+        for (SliceDiff.Edit edit : diff.getEdits()) {
+            assertEquals(6, edit.getLine());
+        }
+        assertEquals("b = b - 1;", diff.getEdits().get(0).getStatement());
+        assertEquals("b = b + 1;", diff.getEdits().get(1).getStatement());
+    }
+
+    @Test
+    void testNestedChangeKeepsEnclosingStatement() {
+        String inserted = SLICE.replace("            b = b - 1;\n", "            b = b - 1;\n            a = b;\n");
+        SliceDiff diff = SliceDiff.compute(parseCache, SLICE, inserted);
+        assertEquals(0, diff.getRemoved());
+        assertEquals(1, diff.getAdded());
+        SliceDiff.Edit edit = diff.getEdits().get(0);
+        assertEquals('+', edit.getOp());
+        assertEquals(7, edit.getLine());
+        assertEquals("a = b;", edit.getStatement());
+    }
+
+    @Test
+    void testUnparsableSlicesFallBackToLines() {
+        Map<String, Object> record = SliceDiff.compute(parseCache, "x = 1;\ny = 2;", "x = 1;\ny = 3;").toMap();
+        assertEquals("line", record.get("granularity"));
+        assertEquals(1, record.get("removed"));
+        assertEquals(1, record.get("added"));
+        assertEquals(false, record.get("truncated"));
+    }
+
+    @Test
+    void testMyersScriptIsMinimal() {
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            int[] a = randomSequence(random);
+            int[] b = randomSequence(random);
+            List<Long> edits = SliceDiff.myers(a, b);
+
+            assertEquals(a.length + b.length - 2 * lcs(a, b), edits.size());
+            assertArrayEquals(b, apply(a, b, edits));
+        }
+    }
+
+    private static int[] randomSequence(Random random) {
+        int[] sequence = new int[random.nextInt(12)];
+        for (int i = 0; i < sequence.length; i++) {
+            sequence[i] = random.nextInt(4);
+        }
+        return sequence;
+    }
+
+    private static int lcs(int[] a, int[] b) {
+        int[][] table = new int[a.length + 1][b.length + 1];
+        for (int i = 1; i <= a.length; i++) {
+            for (int j = 1; j <= b.length; j++) {
+                table[i][j] = a[i - 1] == b[j - 1]
+                        ? table[i - 1][j - 1] + 1
+                        : Math.max(table[i - 1][j], table[i][j - 1]);
+            }
+        }
+        return table[a.length][b.length];
+    }
+
+    /**
+     * 按编辑脚本把a变换为b：保留未删除的元素，并在对应位置插入b中的元素
+     */
+    private static int[] apply(int[] a, int[] b, List<Long> edits) {
+        boolean[] deleted = new boolean[a.length];
+        boolean[] inserted = new boolean[b.length];
+        for (long op : edits) {
+            if (op >= 0) {
+                deleted[(int) op] = true;
+            } else {
+                inserted[(int) ~op] = true;
+            }
+        }
+        List<Integer> kept = new ArrayList<>();
+        for (int i = 0; i < a.length; i++) {
+            if (!deleted[i]) {
+                kept.add(a[i]);
+            }
+        }
+        int[] result = new int[b.length];
+        int next = 0;
+        for (int j = 0; j < b.length; j++) {
+            if (inserted[j]) {
+                result[j] = b[j];
+            } else {
+                if (next >= kept.size()) {
+                    return null;
+                }
+                result[j] = kept.get(next++);
+            }
+        }
+        return next == kept.size() ? result : null;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.generator;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DependenceGraph测试类
+ */
+public class DependenceGraphTest {
+
+    private static BlockStmt body(String... statements) {
+        return StaticJavaParser.parseBlock("{\n" + String.join("\n", statements) + "\n}");
+    }
+
+    private static DependenceGraph build(BlockStmt body) {
+        return DependenceGraph.build(body, TransformationSites::isSliceRelatedVariable);
+    }
+
+    private static int id(DependenceGraph graph, BlockStmt body, int statement) {
+        return graph.id(body.getStatement(statement));
+    }
+
+    @Test
+    void testReachingDefinitionsThroughLoop() {
+        BlockStmt body = body(
+                "int a = 0;",
+                "int b = 1;",
+                "while (a < 10) {",
+                "    b = a;",
+                "    a = a + 1;",
+                "}",
+                "System.out.println(b);");
+        DependenceGraph graph = build(body);
+        int a0 = id(graph, body, 0);
+        int b1 = id(graph, body, 1);
+        int condition = id(graph, body, 2);
+        Statement loopBody = body.getStatement(2).asWhileStmt().getBody();
+        int bAssign = graph.id(loopBody.asBlockStmt().getStatement(0));
+        int aAssign = graph.id(loopBody.asBlockStmt().getStatement(1));
+        int print = id(graph, body, 3);
+
+        // 循环中a的定义沿回边到达条件和循环体的第一条语句
+        assertTrue(graph.hasDataDependency(condition, a0));
+        assertTrue(graph.hasDataDependency(condition, aAssign));
+        assertTrue(graph.hasDataDependency(bAssign, aAssign));
+        // b在循环前后的两个定义都可能到达输出语句
+        assertTrue(graph.hasDataDependency(print, b1));
+        assertTrue(graph.hasDataDependency(print, bAssign));
+        assertFalse(graph.hasDataDependency(print, a0));
+    }
+
+    @Test
+    void testControlDependence() {
+        BlockStmt body = body(
+                "int x = 1;",
+                "if (x > 0) {",
+                "    x = 2;",
+                "} else {",
+                "    x = 3;",
+                "}",
+                "int y = x;");
+        DependenceGraph graph = build(body);
+        int condition = id(graph, body, 1);
+        int thenAssign = graph.id(body.getStatement(1).asIfStmt().getThenStmt().asBlockStmt().getStatement(0));
+        int after = id(graph, body, 2);
+
+        assertTrue(graph.hasControlDependency(thenAssign, condition));
+        // if之后的语句后必经条件的两个后继，不控制依赖于条件
+        assertFalse(graph.hasControlDependency(after, condition));
+        assertTrue(graph.dependsOn(after, condition));
+        assertTrue(graph.dependsOn(after, id(graph, body, 0)));
+    }
+
+    @Test
+    void testRelevanceFollowsClosure() {
+        BlockStmt body = body(
+                "int unrelated1 = 3;",
+                "int unrelated2 = 4;",
+                "int val1 = 0;",
+                "if (unrelated1 > 2) {",
+                "    val1 = 1;",
+                "}",
+                "unrelated2 = unrelated2 * 2;",
+                "System.out.println(val1);");
+        DependenceGraph graph = build(body);
+
+        // val1的赋值控制依赖于unrelated1的条件，unrelated1的声明也因此相关
+        assertTrue(graph.touchesRelevant(body.getStatement(0)));
+        assertTrue(graph.touchesRelevant(body.getStatement(3)));
+        assertFalse(graph.touchesRelevant(body.getStatement(1)));
+        assertFalse(graph.touchesRelevant(body.getStatement(4)));
+        assertTrue(graph.isRelevantVariable("unrelated1"));
+        assertFalse(graph.isRelevantVariable("unrelated2"));
+    }
+
+    @Test
+    void testArrayElementWritesAreWeakDefinitions() {
+        BlockStmt body = body(
+                "int[] arr = new int[10];",
+                "for (int i = 0; i < arr.length; i++) {",
+                "    arr[i] = i * 2 + 1;",
+                "}",
+                "arr[0]++;",
+                "arr[1] += 3;",
+                "int unrelated1 = 5;",
+                "int val1 = arr[0] + arr[1];",
+                "System.out.println(val1);");
+        DependenceGraph graph = build(body);
+        Statement loop = body.getStatement(1);
+        int fill = graph.id(loop.asForStmt().getBody().asBlockStmt().getStatement(0));
+        int val1 = id(graph, body, 5);
+
+        // 元素写入不杀死之前的写入，读取数组的语句依赖于所有写入和数组的声明
+        assertTrue(graph.hasDataDependency(val1, fill));
+        assertTrue(graph.hasDataDependency(val1, id(graph, body, 2)));
+        assertTrue(graph.hasDataDependency(val1, id(graph, body, 3)));
+        assertTrue(graph.hasDataDependency(val1, id(graph, body, 0)));
+        assertTrue(graph.touchesRelevant(loop));
+        assertTrue(graph.isRelevantVariable("arr"));
+        assertFalse(graph.touchesRelevant(body.getStatement(4)));
+        assertTrue(graph.access(loop).conflictsWith(graph.access(body.getStatement(5))));
+    }
+
+    @Test
+    void testCallsOnLocalObjectsAreWeakDefinitions() {
+        BlockStmt body = body(
+                "java.util.List<Integer> list = new java.util.ArrayList<>();",
+                "list.add(1);",
+                "System.out.println(list);",
+                "int val1 = list.size();");
+        DependenceGraph graph = build(body);
+
+        assertTrue(graph.hasDataDependency(id(graph, body, 3), id(graph, body, 1)));
+        assertTrue(graph.hasDataDependency(id(graph, body, 3), id(graph, body, 0)));
+        // System不是方法体中的变量，输出语句不因调用而互相依赖
+        assertFalse(graph.isRelevantVariable("System"));
+    }
+
+    @Test
+    void testLongAssignmentChain() {
+        int length = 2000;
+        String[] statements = new String[length + 1];
+        statements[0] = "int unrelated0 = 1;";
+        for (int i = 1; i < length; i++) {
+            statements[i] = "int unrelated" + i + " = unrelated" + (i - 1) + " + 1;";
+        }
+        statements[length] = "int val1 = unrelated" + (length - 1) + ";";
+        BlockStmt body = body(statements);
+
+        long start = System.nanoTime();
+        DependenceGraph graph = build(body);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(length + 1, graph.size());
+        assertEquals(length + 1, graph.relevantCount());
+        assertTrue(graph.dependsOn(id(graph, body, length), id(graph, body, 0)));
+        assertTrue(elapsedMillis < 10_000, "Building took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void testAccessConflicts() {
+        BlockStmt body = body(
+                "int a = 1;",
+                "int b = a + 1;",
+                "int c = 2;",
+                "for (int i = 0; i < 3; i++) {",
+                "    c = c + i;",
+                "}",
+                "int i = 5;",
+                "int d;");
+        DependenceGraph graph = build(body);
+        DependenceGraph.Access a = graph.access(body.getStatement(0));
+        DependenceGraph.Access b = graph.access(body.getStatement(1));
+        DependenceGraph.Access c = graph.access(body.getStatement(2));
+        DependenceGraph.Access loop = graph.access(body.getStatement(3));
+        DependenceGraph.Access i = graph.access(body.getStatement(4));
+        DependenceGraph.Access d = graph.access(body.getStatement(5));
+
+        assertTrue(a.conflictsWith(b));
+        assertFalse(a.conflictsWith(c));
+        assertTrue(c.conflictsWith(loop));
+        // 循环内部声明的i与外面声明的i同名，交换后不能编译
+        assertTrue(loop.conflictsWith(i));
+        assertFalse(a.conflictsWith(i));
+        assertFalse(d.conflictsWith(a));
+    }
+}
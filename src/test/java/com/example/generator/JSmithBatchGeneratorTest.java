@@ -172,6 +172,12 @@ public class JSmithBatchGeneratorTest {
                 Files.createDirectories(outputPath);
             }
             
+            // 目录中保留了之前运行生成的文件，只统计本次生成的文件
+            java.util.Set<String> existing = new java.util.HashSet<>();
+            try (java.util.stream.Stream<Path> paths = Files.walk(outputPath)) {
+                paths.forEach(path -> existing.add(path.toString()));
+            }
+
             // 直接使用BatchGenerator的静态方法
             BatchGenerator.generateBatch(count, outputDir, baseSeed);
             
@@ -180,6 +186,7 @@ public class JSmithBatchGeneratorTest {
             try (java.util.stream.Stream<Path> paths = Files.walk(outputPath)) {
                 paths.filter(Files::isRegularFile)
                      .filter(path -> path.toString().endsWith(".java"))
+                     .filter(path -> !existing.contains(path.toString()))
                      .forEach(path -> filePaths.add(path.toString()));
             }
             
@@ -0,0 +1,127 @@
+package com.example.generator;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LineTrackingPrinter测试类
+ */
+public class LineTrackingPrinterTest {
+
+    private static final String SOURCE = String.join("\n",
+            "public class Example {",
+            "",
+            "    public static void main(String[] args) {",
+            "        int a = 1;",
+            "        int b = 2;",
+            "        // comment",
+            "        int c = a + b;",
+            "        if (c > 2) {",
+            "            c = c - 1;",
+            "        }",
+            "        System.out.println(c);",
+            "    }",
+            "}",
+            "");
+
+    private static String line(String content, int line) {
+        return content.split("\n", -1)[line - 1].trim();
+    }
+
+    @Test
+    void testPrintMatchesToStringAndMapsLines() {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+        Map<Node, LineTrackingPrinter.Origin> origins = LineTrackingPrinter.snapshot(cu);
+        TransformedSource printed = LineTrackingPrinter.print(cu, origins);
+
+        assertEquals(cu.toString(), printed.getContent());
+        LineMap map = printed.getLineMap();
+        for (int original : new int[]{4, 5, 7, 9, 11}) {
+            int variant = map.map(original);
+            assertTrue(variant > 0, "Line " + original + " should be mapped");
+            assertEquals(line(SOURCE, original), line(printed.getContent(), variant));
+        }
+        assertEquals(-1, map.map(2), "Blank lines are not mapped");
+    }
+
+    @Test
+    void testReorderedStatementsFollowTheirLines() {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+        Map<Node, LineTrackingPrinter.Origin> origins = LineTrackingPrinter.snapshot(cu);
+
+        BlockStmt body = cu.findFirst(MethodDeclaration.class).get().getBody().get();
+        NodeList<Statement> statements = body.getStatements();
+        Statement first = statements.get(0);
+        Statement second = statements.get(1);
+        statements.set(0, second);
+        statements.set(1, first);
+        TransformedSource printed = LineTrackingPrinter.print(cu, origins);
+
+        LineMap map = printed.getLineMap();
+        assertEquals("int a = 1;", line(printed.getContent(), map.map(4)));
+        assertEquals("int b = 2;", line(printed.getContent(), map.map(5)));
+        assertTrue(map.map(4) > map.map(5));
+
+        BitSet slice = new BitSet();
+        slice.set(4);
+        slice.set(11);
+        BitSet mapped = map.apply(slice);
+        assertNotNull(mapped);
+        assertEquals(2, mapped.cardinality());
+        assertTrue(mapped.get(map.map(11)));
+    }
+
+    @Test
+    void testRewrittenStatementIsUnmapped() {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+        Map<Node, LineTrackingPrinter.Origin> origins = LineTrackingPrinter.snapshot(cu);
+
+        BlockStmt body = cu.findFirst(MethodDeclaration.class).get().getBody().get();
+        body.getStatement(0).replace(StaticJavaParser.parseStatement("int a = 3;"));
+        body.getStatements().get(3).asIfStmt().setCondition(StaticJavaParser.parseExpression("c > 5"));
+        LineMap map = LineTrackingPrinter.print(cu, origins).getLineMap();
+
+        assertEquals(-1, map.map(4), "Replaced statement must not be mapped");
+        assertEquals(-1, map.map(8), "Statement with a rewritten header must not be mapped");
+        assertTrue(map.map(9) > 0, "Unchanged nested statement keeps its mapping");
+        BitSet slice = new BitSet();
+        slice.set(4);
+        assertNull(map.apply(slice));
+    }
+
+    @Test
+    void testInsertionMap() {
+        LineMap map = LineMap.insertion(10, 4, 3);
+        assertEquals(4, map.map(4));
+        assertEquals(8, map.map(5));
+        assertEquals(13, map.map(10));
+        assertEquals(-1, map.map(11));
+        assertEquals(10, map.size());
+    }
+
+    @Test
+    void testConflictingEntriesAreUnmapped() {
+        LineMap.Builder builder = new LineMap.Builder();
+        builder.put(1, 1);
+        builder.put(2, 3);
+        builder.put(4, 3);
+        builder.put(5, 6);
+        builder.put(5, 7);
+        LineMap map = builder.build();
+        assertEquals(1, map.map(1));
+        assertEquals(-1, map.map(2));
+        assertEquals(-1, map.map(4));
+        assertEquals(-1, map.map(5));
+    }
+}
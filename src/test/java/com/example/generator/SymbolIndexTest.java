@@ -0,0 +1,99 @@
+package com.example.generator;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.NameExpr;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SymbolIndex测试类
+ */
+public class SymbolIndexTest {
+
+    private static final String SOURCE = String.join("\n",
+            "public class Example {",
+            "    public static void main(String[] args) {",
+            "        int a = 1;",
+            "        int b;",
+            "        b = a + 2;",
+            "        if (false) { a = a + 3; }",
+            "        int temp1 = a;",
+            "        switch (b) {",
+            "            case 1:",
+            "                a = b;",
+            "                break;",
+            "        }",
+            "        System.out.println(a + b);",
+            "    }",
+            "",
+            "    static int helper(int p) {",
+            "        int a = p;",
+            "        return a;",
+            "    }",
+            "}");
+
+    private static SymbolIndex index() {
+        return SymbolIndex.build(StaticJavaParser.parse(SOURCE), SOURCE);
+    }
+
+    @Test
+    void testSymbolLines() {
+        SymbolIndex index = index();
+
+        SymbolIndex.Symbol a = index.get("a");
+        assertEquals(Arrays.asList(3, 17), a.getDeclarationLines());
+        assertEquals(Arrays.asList(3, 6, 6, 10, 10, 17), a.getAssignmentLines());
+        assertEquals("main", a.getEnclosingMethod());
+
+        SymbolIndex.Symbol b = index.get("b");
+        assertEquals(Arrays.asList(4), b.getDeclarationLines());
+        assertEquals(Arrays.asList(5, 5), b.getAssignmentLines());
+        assertEquals(Arrays.asList(5, 8, 10, 13), b.getUsageLines());
+
+        assertTrue(index.isDeclared("p") || index.contains("p"));
+        assertFalse(index.isDeclared("System"));
+        assertTrue(index.contains("System"));
+        assertNull(index.get("missing"));
+    }
+
+    @Test
+    void testOccurrencesFollowSourceOrder() {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+        SymbolIndex index = SymbolIndex.build(cu, SOURCE);
+
+        List<String> declarations = cu.findAll(VariableDeclarator.class).stream()
+                .map(vd -> vd.getNameAsString() + "@" + vd.getBegin().get().line)
+                .collect(Collectors.toList());
+        List<String> usages = cu.findAll(NameExpr.class).stream()
+                .map(n -> n.getNameAsString() + "@" + n.getBegin().get().line)
+                .collect(Collectors.toList());
+
+        assertEquals(declarations, index.getDeclarations().stream()
+                .map(o -> o.getName() + "@" + o.getLine()).collect(Collectors.toList()));
+        assertEquals(usages, index.getUsages().stream()
+                .map(o -> o.getName() + "@" + o.getLine()).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testDeadCodeFlags() {
+        SymbolIndex index = index();
+        assertTrue(index.isDeadCode(6));
+        assertTrue(index.isDeadCode(7));
+        assertFalse(index.isDeadCode(5));
+        assertEquals("int b;", index.line(4).trim());
+        assertEquals("", index.line(99));
+
+        assertTrue(SymbolIndex.isDeadCodeLine("for (int i = 0; i < 0; i++) { }"));
+        assertTrue(SymbolIndex.isDeadCodeLine("int unusedVar12 = 3;"));
+        assertTrue(SymbolIndex.isDeadCodeLine("int x = 50;"));
+        assertFalse(SymbolIndex.isDeadCodeLine("int x = y;"));
+        assertFalse(SymbolIndex.isDeadCodeLine("int total = 3;"));
+    }
+}
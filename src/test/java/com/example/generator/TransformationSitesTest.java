@@ -0,0 +1,149 @@
+package com.example.generator;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.comments.Comment;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TransformationSites测试类
+ */
+public class TransformationSitesTest {
+
+    private static final String SOURCE = String.join("\n",
+            "/** 示例 */",
+            "public class Example {",
+            "",
+            "    public static void main(String[] args) {",
+            "        // 无关变量",
+            "        int unrelated1 = 3;",
+            "        int unrelated2 = unrelated1 * 2;",
+            "        int val1 = 5;",
+            "        if (unrelated1 > 2) {",
+            "            unrelated2 = unrelated2 + 1;",
+            "        } else {",
+            "            unrelated2 = 0;",
+            "        }",
+            "        for (int i = 0; i < 3; i++) {",
+            "            unrelated1 = unrelated1 + i;",
+            "        }",
+            "        if (val1 > 3) {",
+            "            val1 = val1 - 1;",
+            "        } else {",
+            "            val1 = 2;",
+            "        }",
+            "        System.out.println(val1);",
+            "    }",
+            "}",
+            "");
+
+    private static List<Class<?>> preorderClasses(Node root) {
+        List<Class<?>> classes = new ArrayList<>();
+        collectClasses(root, classes);
+        return classes;
+    }
+
+    private static void collectClasses(Node node, List<Class<?>> classes) {
+        classes.add(node.getClass());
+        for (Node child : node.getChildNodes()) {
+            if (!(child instanceof Comment)) {
+                collectClasses(child, classes);
+            }
+        }
+    }
+
+    @Test
+    void testResolveFindsMatchingNodesInCopy() {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+        TransformationSites sites = TransformationSites.collect(cu);
+        CompilationUnit copy = cu.clone();
+
+        Map<Node, LineTrackingPrinter.Origin> origins = new IdentityHashMap<>();
+        Node[] nodes = sites.resolve(copy, origins);
+
+        assertEquals(sites.size(), nodes.length);
+        List<Class<?>> expected = preorderClasses(cu);
+        for (int i = 0; i < nodes.length; i++) {
+            assertEquals(expected.get(i), nodes[i].getClass(), "Node " + i);
+        }
+        assertEquals(LineTrackingPrinter.snapshot(copy).size(), origins.size());
+    }
+
+    @Test
+    void testCollectedSites() {
+        TransformationSites sites = TransformationSites.collect(StaticJavaParser.parse(SOURCE));
+
+        assertEquals(Set.of("val1"), sites.getSliceVariables());
+        assertEquals(2, sites.getIfs().size());
+        assertEquals(1, sites.getFors().size());
+        assertFalse(sites.affectsSlicePoint(sites.getIfs().get(0)));
+        assertTrue(sites.affectsSlicePoint(sites.getIfs().get(1)));
+        assertFalse(sites.dependsOnSliceVariable("unrelated2"));
+        assertTrue(sites.dependsOnSliceVariable("val1"));
+
+        // 声明和输出语句可以重排序，if语句不能
+        assertTrue(sites.isReorderable(0));
+        assertTrue(sites.isReorderable(1));
+        assertFalse(sites.isReorderable(2));
+        assertFalse(sites.isReorderable(3));
+        assertTrue(sites.isReorderable(4));
+        assertTrue(sites.isReorderable(6));
+        // unrelated2的初始值读取unrelated1，不能与unrelated1的声明交换
+        assertFalse(sites.startsReorderGroup(0));
+        assertTrue(sites.startsReorderGroup(1));
+        assertFalse(sites.startsReorderGroup(4));
+    }
+
+    @Test
+    void testVariantsFromOneCollection() {
+        JavaCodeGenerator generator = new JavaCodeGenerator();
+        assertSame(generator.getTransformationSites(SOURCE), generator.getTransformationSites(SOURCE));
+
+        Map<Transformation, TransformedSource> variants = generator.generateVariants(SOURCE,
+                EnumSet.allOf(Transformation.class), "val1");
+        assertEquals(EnumSet.allOf(Transformation.class), variants.keySet());
+
+        String renamed = variants.get(Transformation.RENAME).getContent();
+        assertFalse(renamed.contains("unrelated1"));
+        assertFalse(renamed.contains("val1"));
+
+        String deadCode = variants.get(Transformation.DEAD_CODE).getContent();
+        assertTrue(deadCode.contains("if (false)") || deadCode.contains("for (int i = 0; i < 0; i++)"));
+
+        String controlFlow = variants.get(Transformation.CONTROL_FLOW).getContent();
+        assertTrue(controlFlow.contains("if (unrelated1 <= 2)"));
+        assertTrue(controlFlow.contains("if (val1 > 3)"));
+        assertTrue(controlFlow.contains("while (i < 3)"));
+
+        // 重排序只调整语句顺序
+        String reordered = variants.get(Transformation.REORDER).getContent();
+        assertEquals(sortedLines(StaticJavaParser.parse(SOURCE).toString()), sortedLines(reordered));
+        LineMap lineMap = variants.get(Transformation.REORDER).getLineMap();
+        assertEquals("System.out.println(val1);", reordered.split("\n")[lineMap.map(22) - 1].trim());
+
+        // 各变体在自己的副本上变换，互不影响
+        assertFalse(renamed.contains("while"));
+        assertFalse(reordered.contains("while"));
+        assertEquals(variants.get(Transformation.CONTROL_FLOW).getContent(),
+                generator.transformControlFlow(SOURCE));
+    }
+
+    private static List<String> sortedLines(String content) {
+        List<String> lines = new ArrayList<>();
+        for (String line : content.split("\n")) {
+            lines.add(line.trim());
+        }
+        lines.sort(String::compareTo);
+        return lines;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.metamorphic;
+
+import com.example.generator.JavaCodeGenerator;
+import com.example.generator.JavaCodeGenerator.VariableInfo;
+import com.example.generator.TransformedSource;
+import com.github.javaparser.StaticJavaParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MetamorphicRelation测试类
+ */
+public class MetamorphicRelationTest {
+
+    // 按JavaParser的格式打印，与MetamorphicTestRunner保存的原始程序一致
+    private static final String SOURCE = StaticJavaParser.parse(String.join("\n",
+            "public class Example {",
+            "    public static void main(String[] args) {",
+            "        int unrelated1 = 3;",
+            "        int val1 = 5;",
+            "        if (unrelated1 > 2) {",
+            "            unrelated1 = unrelated1 + 1;",
+            "        }",
+            "        val1 = val1 + unrelated1;",
+            "        System.out.println(val1);",
+            "    }",
+            "}")).toString();
+
+    private static <T extends TransformationRelation> T withGenerator(T relation) {
+        relation.javaCodeGenerator = new JavaCodeGenerator();
+        return relation;
+    }
+
+    private static String line(String content, int line) {
+        return content.split("\n")[line - 1].trim();
+    }
+
+    @Test
+    void testRenameKeepsLineAndMapsName() {
+        RenameRelation relation = withGenerator(new RenameRelation());
+        VariableInfo criterion = new VariableInfo("val1", 9);
+        TransformedSource variant = relation.transform(SOURCE, criterion);
+
+        VariableInfo mapped = relation.mapCriterion(SOURCE, criterion, "unused", variant);
+        assertNotEquals("val1", mapped.getVariableName());
+        assertEquals(9, mapped.getLineNumber());
+        assertEquals(line(SOURCE, 9).replace("val1", mapped.getVariableName())
+                        .replace("unrelated1", relation.javaCodeGenerator.getRenameMapping(SOURCE).get("unrelated1")),
+                line(variant.getContent(), 9));
+    }
+
+    @Test
+    void testCriterionFollowsLineMap() {
+        VariableInfo criterion = new VariableInfo("val1", 10);
+        assertEquals("System.out.println(val1);", line(SOURCE, 10));
+        for (TransformationRelation relation : new TransformationRelation[] {
+                withGenerator(new DeadCodeRelation()), withGenerator(new ControlFlowRelation())}) {
+            TransformedSource variant = relation.transform(SOURCE, criterion);
+            VariableInfo mapped = relation.mapCriterion(SOURCE, criterion, "unused", variant);
+            assertEquals("val1", mapped.getVariableName(), relation.getName());
+            assertEquals("System.out.println(val1);", line(variant.getContent(), mapped.getLineNumber()),
+                    relation.getName());
+        }
+    }
+}
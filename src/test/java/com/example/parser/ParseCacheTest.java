@@ -0,0 +1,100 @@
+package com.example.parser;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.SimpleName;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ParseCache测试类
+ */
+public class ParseCacheTest {
+
+    private static final String SOURCE = "public class A { void f() { int x = 1; } }";
+
+    @Test
+    void testSameContentIsParsedOnce() {
+        ParseCache cache = new ParseCache(4);
+        CompilationUnit first = cache.parse(SOURCE).get();
+        CompilationUnit second = cache.parse(new String(SOURCE.toCharArray())).get();
+
+        assertSame(first, second);
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    void testCachedUnitIsReadOnly() {
+        ParseCache cache = new ParseCache(4);
+        CompilationUnit cu = cache.parse(SOURCE).get();
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> cu.findFirst(SimpleName.class).get().setIdentifier("B"));
+        assertThrows(UnsupportedOperationException.class,
+                () -> cu.findFirst(BlockStmt.class).get().addStatement("x = 2;"));
+        assertEquals(cu.toString(), cache.parse(SOURCE).get().toString(), "Rejected changes must leave the AST intact");
+    }
+
+    @Test
+    void testParseForWriteReturnsIndependentCopy() {
+        ParseCache cache = new ParseCache(4);
+        CompilationUnit copy = cache.parseForWrite(SOURCE).get();
+        copy.findFirst(BlockStmt.class).get().addStatement("x = 2;");
+
+        assertTrue(copy.toString().contains("x = 2;"));
+        assertFalse(cache.parse(SOURCE).get().toString().contains("x = 2;"));
+        assertTrue(copy.findFirst(BlockStmt.class).get().getBegin().isPresent(), "Copies keep source positions");
+    }
+
+    @Test
+    void testAnalysisIsComputedOncePerContent() {
+        ParseCache cache = new ParseCache(4);
+        AtomicInteger runs = new AtomicInteger();
+        Function<CompilationUnit, Integer> countTypes = cu -> {
+            runs.incrementAndGet();
+            return cu.getTypes().size();
+        };
+
+        assertEquals(1, cache.analyze(SOURCE, Integer.class, countTypes).get());
+        assertEquals(1, cache.analyze(SOURCE, Integer.class, countTypes).get());
+        assertEquals(1, runs.get());
+        assertEquals(2, cache.analyze("class A {} class B {}", Integer.class, countTypes).get());
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        ParseCache cache = new ParseCache(2);
+        cache.parse("class A {}");
+        cache.parse("class B {}");
+        cache.parse("class A {}");
+        cache.parse("class C {}");
+        cache.parse("class A {}");
+        cache.parse("class B {}");
+
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(2, stats.get("entries"));
+        assertEquals(2L, stats.get("hits"));
+        assertEquals(2L, stats.get("evictions"));
+    }
+
+    @Test
+    void testParseProblemsAreRemembered() {
+        ParseCache cache = new ParseCache(4);
+        assertTrue(ParseCache.isSuccessful(cache.parse(SOURCE).get()));
+
+        String broken = "class A { void f() { int x = ; } }";
+        CompilationUnit cu = cache.parse(broken).orElse(null);
+        if (cu != null) {
+            assertFalse(ParseCache.isSuccessful(cu));
+            assertFalse(ParseCache.isSuccessful(cache.parseForWrite(broken).get()));
+        }
+    }
+}
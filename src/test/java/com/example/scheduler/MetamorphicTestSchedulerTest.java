@@ -0,0 +1,91 @@
+package com.example.scheduler;
+
+import com.example.scheduler.MetamorphicTestScheduler.SliceFanOut;
+import com.example.scheduler.MetamorphicTestScheduler.SlicePair;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MetamorphicTestScheduler测试类
+ */
+public class MetamorphicTestSchedulerTest {
+
+    @Test
+    void testResultsKeepInputOrder() throws Exception {
+        MetamorphicTestScheduler scheduler = new MetamorphicTestScheduler(4);
+        try {
+            // 越靠前的任务越慢，完成顺序与输入顺序相反
+            List<Integer> results = scheduler.runAll(Arrays.asList(40, 30, 20, 10, 0), delay -> {
+                Thread.sleep(delay);
+                return delay;
+            });
+            assertEquals(Arrays.asList(40, 30, 20, 10, 0), results);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void testPairSlicesRunConcurrently() throws Exception {
+        MetamorphicTestScheduler scheduler = new MetamorphicTestScheduler(2);
+        try {
+            // 两个切片互相等待，只有并行执行时才能完成
+            CountDownLatch bothStarted = new CountDownLatch(2);
+            SlicePair pair = scheduler.slicePair(
+                    () -> {
+                        bothStarted.countDown();
+                        assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+                        return "original";
+                    },
+                    () -> {
+                        bothStarted.countDown();
+                        assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+                        return "variant";
+                    });
+            assertEquals("original", pair.getOriginalSlice());
+            assertEquals("variant", pair.getVariantSlice());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void testFailurePropagatesOriginalException() {
+        MetamorphicTestScheduler scheduler = new MetamorphicTestScheduler(2);
+        try {
+            IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+                    scheduler.runAll(Arrays.asList(1, 2), item -> {
+                        throw new IllegalStateException("boom " + item);
+                    }));
+            assertTrue(e.getMessage().startsWith("boom"));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void testFanOutKeepsVariantFailuresSeparate() throws Exception {
+        MetamorphicTestScheduler scheduler = new MetamorphicTestScheduler(2);
+        try {
+            SliceFanOut<String> slices = scheduler.sliceFanOut(() -> "original", Arrays.asList(
+                    () -> "variant0",
+                    () -> {
+                        throw new IllegalStateException("variant1 failed");
+                    },
+                    () -> "variant2"));
+            assertEquals("original", slices.getOriginalSlice());
+            assertEquals("variant0", slices.getVariantSlice(0));
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> slices.getVariantSlice(1));
+            assertEquals("variant1 failed", e.getMessage());
+            assertEquals("variant2", slices.getVariantSlice(2));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}
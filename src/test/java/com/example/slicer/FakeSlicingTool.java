@@ -0,0 +1,52 @@
+package com.example.slicer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * 测试用的假切片工具，命令行与sdg-cli相同：-c 文件#行号:变量 -o 输出目录
+ * 变量名为exit时调用System.exit，为hang时不再返回，其它情况下把准则写到输出目录中与源文件同名的文件
+ */
+public class FakeSlicingTool {
+
+    public static void main(String[] args) throws Exception {
+        String criterion = args[1];
+        String file = criterion.substring(0, criterion.indexOf('#'));
+        String variable = criterion.substring(criterion.indexOf(':') + 1);
+        System.out.println("tool output for " + variable);
+        if (variable.equals("exit")) {
+            System.exit(3);
+        }
+        if (variable.equals("hang")) {
+            Thread.sleep(Long.MAX_VALUE);
+        }
+        Path output = Paths.get(args[3]).resolve(Paths.get(file).getFileName());
+        Files.write(output, ("slice of " + criterion.substring(criterion.indexOf('#') + 1)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 把本类打包成以它为Main-Class的jar
+     */
+    static Path jar(Path dir) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, FakeSlicingTool.class.getName());
+        String entry = FakeSlicingTool.class.getName().replace('.', '/') + ".class";
+        Path jar = dir.resolve("fake-slicer.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), manifest);
+             InputStream in = FakeSlicingTool.class.getClassLoader().getResourceAsStream(entry)) {
+            out.putNextEntry(new JarEntry(entry));
+            in.transferTo(out);
+            out.closeEntry();
+        }
+        return jar;
+    }
+}
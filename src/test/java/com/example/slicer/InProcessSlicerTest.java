@@ -0,0 +1,42 @@
+package com.example.slicer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InProcessSlicer测试类
+ */
+public class InProcessSlicerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testCapturesOnlyToolOutputOfSlicingThread() throws Exception {
+        Path source = Files.write(tempDir.resolve("Example.java"), "class Example {}".getBytes(StandardCharsets.UTF_8));
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(console, true, StandardCharsets.UTF_8.name()));
+        try (InProcessSlicer slicer = new InProcessSlicer(FakeSlicingTool.jar(tempDir).toString())) {
+            assertEquals("slice of 3:x", slicer.slice(source.toString(), 3, "x"));
+
+            // 工具的输出被捕获，其它输出仍写到原来的流
+            Thread other = new Thread(() -> System.out.println("server log line"));
+            other.start();
+            other.join();
+            String written = console.toString(StandardCharsets.UTF_8.name());
+            assertFalse(written.contains("tool output"));
+            assertTrue(written.contains("server log line"));
+        } finally {
+            System.setOut(originalOut);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.slicer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OutputRingBuffer测试类
+ */
+public class OutputRingBufferTest {
+
+    @Test
+    void testKeepsEverythingWithinCapacity() throws Exception {
+        OutputRingBuffer buffer = new OutputRingBuffer(64);
+        buffer.drain(new ByteArrayInputStream("line 1\n切片\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertFalse(buffer.isTruncated());
+        assertEquals("line 1\n切片\n", buffer.toString());
+    }
+
+    @Test
+    void testKeepsOnlyTheTailWhenFull() {
+        OutputRingBuffer buffer = new OutputRingBuffer(5);
+        buffer.append("abc".toCharArray(), 0, 3);
+        buffer.append("defg".toCharArray(), 0, 4);
+
+        assertTrue(buffer.isTruncated());
+        assertEquals(7, buffer.getTotalChars());
+        assertEquals("...[2 chars omitted]\ncdefg", buffer.toString());
+
+        buffer.append("0123456789".toCharArray(), 0, 10);
+        assertEquals("...[12 chars omitted]\n56789", buffer.toString());
+    }
+}
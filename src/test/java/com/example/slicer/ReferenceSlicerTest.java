@@ -0,0 +1,126 @@
+package com.example.slicer;
+
+import com.example.parser.ParseCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReferenceSlicer测试类
+ */
+public class ReferenceSlicerTest {
+
+    private final ReferenceSlicer slicer = new ReferenceSlicer(new ParseCache());
+
+    private static final String SOURCE = String.join("\n",
+            "public class Example {",
+            "    public static void main(String[] args) {",
+            "        int choice = 1;",
+            "        int loopCounter = 0;",
+            "        for (int i = 0; i < 3; i++) {",
+            "            loopCounter += i * 2;",
+            "        }",
+            "        int val1 = 0, val2 = 0;",
+            "        int temp1 = 10, temp2 = 20;",
+            "        switch (choice) {",
+            "            case 0:",
+            "                val1 = temp1 * 2;",
+            "                val2 = temp2 + 5;",
+            "                break;",
+            "            case 1:",
+            "                val2 = temp2;",
+            "                break;",
+            "            default:",
+            "                val1 = temp1;",
+            "                break;",
+            "        }",
+            "        int result1 = val1 + 1;",
+            "        System.out.println(result1);",
+            "        System.out.println(loopCounter);",
+            "    }",
+            "}");
+
+    @Test
+    void testSliceKeepsDataAndControlDependences() {
+        String slice = slicer.slice(SOURCE, 23, "result1");
+
+        assertNotNull(slice);
+        assertTrue(slice.contains("int choice = 1;"));
+        assertTrue(slice.contains("int val1 = 0, val2 = 0;"));
+        assertTrue(slice.contains("switch(choice)") || slice.contains("switch (choice)"));
+        assertTrue(slice.contains("val1 = temp1 * 2;"));
+        assertTrue(slice.contains("val1 = temp1;"));
+        assertTrue(slice.contains("int result1 = val1 + 1;"));
+        assertTrue(slice.contains("System.out.println(result1);"));
+        // 与result1无关的循环和赋值被删除
+        assertFalse(slice.contains("loopCounter"));
+        assertFalse(slice.contains("val2 = temp2"));
+        // 分支的标号都保留，不改变进入default的条件
+        assertTrue(slice.contains("case 1:"));
+    }
+
+    @Test
+    void testLoopSliceKeepsHeader() {
+        String slice = slicer.slice(SOURCE, 24, "loopCounter");
+
+        assertNotNull(slice);
+        assertTrue(slice.contains("for (int i = 0; i < 3; i++)"));
+        assertTrue(slice.contains("loopCounter += i * 2;"));
+        assertFalse(slice.contains("switch"));
+    }
+
+    @Test
+    void testUnsupportedProgramsAreEscalated() {
+        String helper = String.join("\n",
+                "public class Example {",
+                "    public static void main(String[] args) {",
+                "        int val1 = helper(2);",
+                "        System.out.println(val1);",
+                "    }",
+                "    static int helper(int x) {",
+                "        return x + 1;",
+                "    }",
+                "}");
+        assertNull(slicer.slice(helper, 4, "val1"));
+
+        String loopBreak = SOURCE.replace("loopCounter += i * 2;", "loopCounter += i * 2;\n            break;");
+        assertNull(slicer.slice(loopBreak, 24, "result1"));
+
+        // 准则行上没有访问该变量的语句
+        assertNull(slicer.slice(SOURCE, 23, "loopCounter"));
+    }
+
+    @Test
+    void testPartialWritesAreEscalated() {
+        String arrayFill = String.join("\n",
+                "public class Example {",
+                "    public static void main(String[] args) {",
+                "        int[] arr = new int[10];",
+                "        for (int i = 0; i < arr.length; i++) {",
+                "            arr[i] = i * 2 + 1;",
+                "        }",
+                "        int sum = 0;",
+                "        for (int j = 0; j < arr.length; j++) {",
+                "            sum += arr[j];",
+                "        }",
+                "        System.out.println(sum);",
+                "    }",
+                "}");
+        assertNull(slicer.slice(arrayFill, 11, "sum"));
+        assertNull(slicer.slice(arrayFill.replace("arr[i] = i * 2 + 1;", "arr[i]++;"), 11, "sum"));
+
+        String listAdd = String.join("\n",
+                "public class Example {",
+                "    public static void main(String[] args) {",
+                "        java.util.List<Integer> list = new java.util.ArrayList<>();",
+                "        list.add(1);",
+                "        int size = list.size();",
+                "        System.out.println(size);",
+                "    }",
+                "}");
+        assertNull(slicer.slice(listAdd, 6, "size"));
+
+        // 对System.out的调用不是局部对象的调用
+        assertNotNull(slicer.slice(SOURCE, 23, "result1"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.slicer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SliceCache测试类
+ */
+public class SliceCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testHitAfterPutAndReload() throws Exception {
+        Path source = writeFile("A.java", "public class A { int x = 1; }");
+        Path tool = writeFile("tool.jar", "tool-v1");
+
+        SliceCache cache = new SliceCache(tempDir.resolve("cache").toString(), 1024 * 1024);
+        String key = cache.key(source.toString(), 1, "x", tool.toString());
+        assertNull(cache.get(key), "Empty cache should miss");
+
+        cache.put(key, "public class A { int x = 1; }");
+        assertEquals("public class A { int x = 1; }", cache.get(key));
+
+        // 重新打开后应能从数据文件恢复
+        SliceCache reopened = new SliceCache(tempDir.resolve("cache").toString(), 1024 * 1024);
+        assertEquals("public class A { int x = 1; }", reopened.get(key));
+
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    void testKeyChangesWithSourceCriterionAndTool() throws Exception {
+        Path source = writeFile("A.java", "public class A { int x = 1; }");
+        Path tool = writeFile("tool.jar", "tool-v1");
+        SliceCache cache = new SliceCache(tempDir.resolve("cache").toString(), 1024 * 1024);
+
+        String key = cache.key(source.toString(), 1, "x", tool.toString());
+        assertNotEquals(key, cache.key(source.toString(), 2, "x", tool.toString()));
+        assertNotEquals(key, cache.key(source.toString(), 1, "y", tool.toString()));
+
+        Files.write(tool, "tool-v2".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(tool, java.nio.file.attribute.FileTime.fromMillis(0));
+        assertNotEquals(key, cache.key(source.toString(), 1, "x", tool.toString()));
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedWhenFull() throws Exception {
+        Path tool = writeFile("tool.jar", "tool-v1");
+        SliceCache cache = new SliceCache(tempDir.resolve("cache").toString(), 25);
+
+        String first = cache.key(writeFile("A.java", "a").toString(), 1, "x", tool.toString());
+        String second = cache.key(writeFile("B.java", "b").toString(), 1, "x", tool.toString());
+        cache.put(first, "first slice");
+        cache.put(second, "second slice");
+
+        assertNull(cache.get(first), "Eldest entry should have been evicted");
+        assertEquals("second slice", cache.get(second));
+        assertEquals(1L, cache.getStats().get("evictions"));
+
+        SliceCache reopened = new SliceCache(tempDir.resolve("cache").toString(), 25);
+        assertNull(reopened.get(first), "Eviction should survive a reload");
+    }
+
+    private Path writeFile(String name, String content) throws Exception {
+        Path path = tempDir.resolve(name);
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+}
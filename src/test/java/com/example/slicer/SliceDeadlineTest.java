@@ -0,0 +1,39 @@
+package com.example.slicer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SliceDeadline测试类
+ */
+public class SliceDeadlineTest {
+
+    @Test
+    void testUsesHardCapBeforeAnyObservation() {
+        SliceDeadline deadline = new SliceDeadline(1000, 60000, 5);
+        assertEquals(60000, deadline.deadlineFor(100));
+    }
+
+    @Test
+    void testScalesWithLinesOfCodeWithinBounds() {
+        SliceDeadline deadline = new SliceDeadline(1000, 60000, 5);
+        // 每行20ms
+        deadline.record(100, 2000);
+
+        assertEquals(20000, deadline.deadlineFor(200));
+        assertEquals(1000, deadline.deadlineFor(1), "Small programs should get at least the minimum");
+        assertEquals(60000, deadline.deadlineFor(100000), "Huge programs should be capped");
+    }
+
+    @Test
+    void testAdaptsToNewObservations() {
+        SliceDeadline deadline = new SliceDeadline(0, Long.MAX_VALUE, 1);
+        deadline.record(100, 1000);
+        deadline.record(100, 2000);
+
+        // 指数滑动平均：0.2 * 20 + 0.8 * 10 = 12ms/行
+        assertEquals(12.0, deadline.getMillisPerLine(), 1e-9);
+        assertEquals(1200, deadline.deadlineFor(100));
+    }
+}
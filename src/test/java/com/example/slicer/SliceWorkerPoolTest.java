@@ -0,0 +1,112 @@
+package com.example.slicer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SliceWorkerPool测试类
+ */
+public class SliceWorkerPoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRecycledWorkersAreReplacedForWaitingThreads() throws Exception {
+        Path source = Files.write(tempDir.resolve("Example.java"), "class Example {}".getBytes(StandardCharsets.UTF_8));
+        // 每个工作进程只处理一个任务，每次使用前都做健康检查
+        SliceWorkerPool pool = new SliceWorkerPool(FakeSlicingTool.jar(tempDir).toString(), 1, 1, 0, 0, 5000);
+        ExecutorService threads = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<String>> slices = new ArrayList<>();
+            for (int i = 1; i <= 3; i++) {
+                int line = i;
+                slices.add(threads.submit(() -> pool.slice(source.toString(), line, "x")));
+            }
+            assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+                for (int i = 0; i < slices.size(); i++) {
+                    assertEquals("slice of " + (i + 1) + ":x", slices.get(i).get());
+                }
+            });
+        } finally {
+            threads.shutdownNow();
+            pool.close();
+        }
+    }
+
+    @Test
+    void testCloseReleasesWaitingThreads() throws Exception {
+        Path source = Files.write(tempDir.resolve("Example.java"), "class Example {}".getBytes(StandardCharsets.UTF_8));
+        SliceWorkerPool pool = new SliceWorkerPool(FakeSlicingTool.jar(tempDir).toString(), 1, 0, 0);
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            // 唯一的工作进程一直忙，第二个请求只能等待
+            Future<String> busy = threads.submit(() -> pool.slice(source.toString(), 1, "hang"));
+            Thread.sleep(1000);
+            Future<String> waiting = threads.submit(() -> pool.slice(source.toString(), 2, "x"));
+            Thread.sleep(500);
+            pool.close();
+
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                Exception error = assertThrows(Exception.class, () -> waiting.get(20, TimeUnit.SECONDS));
+                assertTrue(error.getCause() instanceof IllegalStateException);
+                assertThrows(Exception.class, () -> busy.get(20, TimeUnit.SECONDS));
+            });
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSliceAllMatchesSingleSlices() throws Exception {
+        Path source = Files.write(tempDir.resolve("Example.java"), "class Example {}".getBytes(StandardCharsets.UTF_8));
+        SliceWorkerPool pool = new SliceWorkerPool(FakeSlicingTool.jar(tempDir).toString(), 1, 0, 0);
+        try {
+            List<SliceCriterion> criteria = Arrays.asList(new SliceCriterion("x", 3), new SliceCriterion("y", 5));
+            List<String> batch = pool.sliceAll(source.toString(), criteria);
+
+            assertEquals(2, batch.size());
+            assertEquals(pool.slice(source.toString(), 3, "x"), batch.get(0));
+            assertEquals(pool.slice(source.toString(), 5, "y"), batch.get(1));
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    void testWorkerCommandInsideBootJarUsesPropertiesLauncher() throws Exception {
+        Path bootJar = tempDir.resolve("app.jar");
+        URL location = new URL("jar:" + bootJar.toUri() + "!/BOOT-INF/classes!/");
+
+        List<String> command = SliceWorkerPool.workerCommand("java", location, "sdg-cli.jar");
+
+        assertEquals(Arrays.asList("java", "-Dloader.main=" + SliceWorkerMain.class.getName(), "-cp",
+                bootJar.toString(), "org.springframework.boot.loader.PropertiesLauncher", "sdg-cli.jar"), command);
+    }
+
+    @Test
+    void testWorkerCommandPutsWorkerLocationOnClassPath() throws Exception {
+        Path classes = Files.createDirectories(tempDir.resolve("classes"));
+
+        List<String> command = SliceWorkerPool.workerCommand("java", classes.toUri().toURL(), "sdg-cli.jar");
+
+        assertEquals(SliceWorkerMain.class.getName(), command.get(3));
+        assertTrue(command.get(2).startsWith(classes + File.pathSeparator), command.get(2));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.workspace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WorkspaceManager测试类
+ */
+public class WorkspaceManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWorkspacesAreUniqueAndDeletedAfterSuccess() throws Exception {
+        WorkspaceManager manager = new WorkspaceManager(tempDir.toString());
+
+        Workspace first = manager.create("rename");
+        Workspace second = manager.create("rename");
+        assertNotEquals(first.getRoot(), second.getRoot());
+        assertTrue(Files.isDirectory(Path.of(first.getSliceOutputDir())));
+
+        Files.write(first.directory("mutated").resolve("A.java"), "class A {}".getBytes());
+        first.close();
+        second.close();
+        manager.shutdown();
+
+        assertFalse(Files.exists(first.getRoot()), "Successful workspace should be deleted");
+        assertFalse(Files.exists(second.getRoot()), "Successful workspace should be deleted");
+    }
+
+    @Test
+    void testFailedWorkspaceIsKept() throws Exception {
+        WorkspaceManager manager = new WorkspaceManager(tempDir.toString());
+
+        Workspace workspace = manager.create("deadcode");
+        workspace.directory("deadcode");
+        workspace.markFailed();
+        workspace.close();
+        manager.shutdown();
+
+        assertTrue(Files.isDirectory(workspace.getRoot().resolve("deadcode")), "Failed workspace should be kept");
+    }
+}